@@ -14,7 +14,10 @@
 package org.pentaho.platform.api.repository2.unified;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.Date;
 import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -404,6 +407,63 @@ public interface IUnifiedRepository {
    */
   void deleteFile( final Serializable fileId, final boolean permanent, final String versionMessage );
 
+  /**
+   * Deletes many files at once. Repositories that support it save the deletion of the whole list together, which is
+   * much cheaper than deleting the files one by one, and check access for every file before deleting any: if the
+   * current user may not delete one of the files, none of them are deleted.
+   * 
+   * @param fileIds
+   *          file ids
+   * @param permanent
+   *          if {@code true}, once files are deleted, they cannot be undeleted
+   * @param versionMessage
+   *          optional version comment
+   * @return number of files deleted, not counting files the repository skipped, for instance because the current user
+   *         may not delete them
+   */
+  default int deleteFiles( final List<Serializable> fileIds, final boolean permanent, final String versionMessage ) {
+    int deleted = 0;
+    for ( Serializable fileId : fileIds ) {
+      deleteFile( fileId, permanent, versionMessage );
+      // a skipped file can still be found; a recoverably deleted one is found in the trash, so count it as requested
+      if ( !permanent || getFileById( fileId ) == null ) {
+        deleted++;
+      }
+    }
+    return deleted;
+  }
+
+  /**
+   * Tells whether {@link #getFilesByMetadata(String, Date, int, int)} searches file metadata. Maintenance tasks check
+   * this to choose between the search and walking the repository tree.
+   * 
+   * @return {@code true} if the repository can search file metadata
+   */
+  default boolean isMetadataSearchSupported() {
+    return false;
+  }
+
+  /**
+   * Gets a page of the files, hidden files included, whose metadata contains the given key and which were created
+   * before the given date, oldest first. This lets maintenance tasks find files without walking the whole repository
+   * tree.
+   * 
+   * @param metadataKey
+   *          metadata key the files must have
+   * @param createdBefore
+   *          only files created before this date are returned
+   * @param offset
+   *          number of matching files to skip
+   * @param limit
+   *          maximum number of files to return
+   * @return list of files, empty once there are no more matching files, and always empty if
+   *         {@link #isMetadataSearchSupported()} is {@code false}
+   */
+  default List<RepositoryFile> getFilesByMetadata( final String metadataKey, final Date createdBefore,
+                                                   final int offset, final int limit ) {
+    return Collections.emptyList();
+  }
+
   /**
    * Deletes a file in a recoverable manner.
    * 
@@ -426,6 +486,23 @@ public interface IUnifiedRepository {
    */
   void moveFile( final Serializable fileId, final String destAbsPath, final String versionMessage );
 
+  /**
+   * Moves many files into the same folder at once. Repositories that support it version the source and destination
+   * folders once for the whole list instead of once per file.
+   * 
+   * @param fileIds
+   *          ids of files or folders to move
+   * @param destAbsPath
+   *          path to an existing destination folder
+   * @param versionMessage
+   *          optional version comment to be applied to source and destination parent folders
+   */
+  default void moveFiles( final List<Serializable> fileIds, final String destAbsPath, final String versionMessage ) {
+    for ( Serializable fileId : fileIds ) {
+      moveFile( fileId, destAbsPath, versionMessage );
+    }
+  }
+
   /**
    * Copies file. Folders are recursive. Throws exception on collision (merging does not occur).
    * 
@@ -452,6 +529,21 @@ public interface IUnifiedRepository {
    */
   void undeleteFile( final Serializable fileId, final String versionMessage );
 
+  /**
+   * Recovers many deleted files at once. Each file is recovered to its original folder; repositories that support it
+   * version each of those folders once for the whole list instead of once per file.
+   * 
+   * @param fileIds
+   *          deleted file ids
+   * @param versionMessage
+   *          optional version comment to be applied to original parent folders
+   */
+  default void undeleteFiles( final List<Serializable> fileIds, final String versionMessage ) {
+    for ( Serializable fileId : fileIds ) {
+      undeleteFile( fileId, versionMessage );
+    }
+  }
+
   /**
    * Gets all deleted files for the current user in this folder.
    * 
@@ -667,6 +759,29 @@ public interface IUnifiedRepository {
    */
   Map<String, Serializable> getFileMetadata( final Serializable fileId );
 
+  /**
+   * Gets the metadata of several files at once, so that callers reading the metadata of a whole folder do not pay one
+   * repository round trip per file.
+   * 
+   * @param fileIds
+   *          file ids
+   * @return metadata by file id; files that do not exist are left out
+   */
+  default Map<Serializable, Map<String, Serializable>> getFilesMetadata( final List<Serializable> fileIds ) {
+    Map<Serializable, Map<String, Serializable>> metadata = new LinkedHashMap<>();
+    for ( Serializable fileId : fileIds ) {
+      try {
+        metadata.put( fileId, getFileMetadata( fileId ) );
+      } catch ( RuntimeException e ) {
+        // files deleted since the caller listed them are left out
+        if ( getFileById( fileId ) != null ) {
+          throw e;
+        }
+      }
+    }
+    return metadata;
+  }
+
   /**
    * Returns a list of characters which cannot be used in file/folder names. These characters must be escaped using
    * percent-encoding. Callers may safely cache this value. Note that it is the responsibility of the
@@ -36,6 +36,7 @@ public class RepositoryRequest {
   private FILES_TYPE_FILTER types = FILES_TYPE_FILTER.FILES_FOLDERS;
   private Set<String> includeMemberSet = null;
   private Set<String> excludeMemberSet = null;
+  private boolean prefetch = false;
 
   private transient String workingFilter; // temporary storage of remaining filter text as it is parsed.
   private String childNodeFilter;
@@ -248,4 +249,18 @@ public class RepositoryRequest {
     this.includeAcls = includeAcls;
   }
 
+  public boolean isPrefetch() {
+    return prefetch;
+  }
+
+  /**
+   * @param prefetch
+   *     Set to true when every returned file will be marshaled, so that all of its attributes are read while the
+   *     repository session is still open. Files are always prefetched for the members named by
+   *     {@link #setIncludeMemberSet(Set)} or {@link #setExcludeMemberSet(Set)}. Default is false.
+   */
+  public void setPrefetch( boolean prefetch ) {
+    this.prefetch = prefetch;
+  }
+
 }
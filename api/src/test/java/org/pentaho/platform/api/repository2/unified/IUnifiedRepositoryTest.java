@@ -0,0 +1,60 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.api.repository2.unified;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IUnifiedRepositoryTest {
+
+  private static final Map<String, Serializable> METADATA =
+    Collections.<String, Serializable>singletonMap( "key", "value" );
+
+  private IUnifiedRepository repository;
+
+  @BeforeEach
+  public void setUp() {
+    repository = mock( IUnifiedRepository.class );
+    when( repository.getFilesMetadata( anyList() ) ).thenCallRealMethod();
+    when( repository.getFileMetadata( "file" ) ).thenReturn( METADATA );
+    when( repository.getFileMetadata( "deleted" ) ).thenThrow( new UnifiedRepositoryException( "not found" ) );
+    when( repository.getFileMetadata( "broken" ) ).thenThrow( new UnifiedRepositoryException( "failure" ) );
+    when( repository.getFileById( "broken" ) ).thenReturn( mock( RepositoryFile.class ) );
+  }
+
+  @Test
+  public void testGetFilesMetadataLeavesOutMissingFiles() {
+    Map<Serializable, Map<String, Serializable>> metadata =
+      repository.getFilesMetadata( Arrays.<Serializable>asList( "deleted", "file" ) );
+
+    assertEquals( Collections.singletonMap( "file", METADATA ), metadata );
+  }
+
+  @Test
+  public void testGetFilesMetadataReportsFailuresOfExistingFiles() {
+    assertThrows( UnifiedRepositoryException.class,
+      () -> repository.getFilesMetadata( Arrays.<Serializable>asList( "file", "broken" ) ) );
+  }
+}
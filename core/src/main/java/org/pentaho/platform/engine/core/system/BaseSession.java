@@ -17,29 +17,42 @@ import org.pentaho.platform.api.engine.ILogger;
 import org.pentaho.platform.api.engine.IPentahoSession;
 import org.pentaho.platform.engine.core.messages.Messages;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Locale;
 
+/**
+ * Base for sessions. The session state is written in a compact, versioned form rather than by default
+ * serialization, as servlet containers persist and replicate it with every http session.
+ */
 public abstract class BaseSession extends PentahoBase implements IPentahoSession {
 
-  private static final long serialVersionUID = -8559249546126139228L;
+  private static final long serialVersionUID = -1852309658367307447L;
+
+  /**
+   * Version of the serialized form of sessions.
+   */
+  static final byte SERIAL_FORMAT_VERSION = 1;
 
   /**
    * key into the server provided session's attributes to retrieve the IPentahoSession
    */
 
-  private String name;
+  private transient String name;
 
-  private String id;
+  private transient String id;
 
-  private String processId;
+  private transient String processId;
 
-  private String actionName;
+  private transient String actionName;
 
-  private Locale locale;
+  private transient Locale locale;
 
-  private boolean authenticated;
+  private transient boolean authenticated;
 
-  private volatile boolean backgroundExecutionAlert;
+  private transient volatile boolean backgroundExecutionAlert;
 
   public BaseSession( final String name, final String id, final Locale locale ) {
     this.name = name;
@@ -148,4 +161,49 @@ public abstract class BaseSession extends PentahoBase implements IPentahoSession
     this.backgroundExecutionAlert = false;
   }
 
+  /**
+   * Writes the session state as a format version followed by its fields, with the locale as a language tag.
+   */
+  private void writeObject( final ObjectOutputStream out ) throws IOException {
+    out.defaultWriteObject();
+    out.writeByte( SERIAL_FORMAT_VERSION );
+    writeString( out, name );
+    writeString( out, id );
+    writeString( out, processId );
+    writeString( out, actionName );
+    writeString( out, locale == null ? null : locale.toLanguageTag() );
+    out.writeBoolean( authenticated );
+    out.writeBoolean( backgroundExecutionAlert );
+  }
+
+  private void readObject( final ObjectInputStream in ) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    checkSerialFormatVersion( in.readByte() );
+    name = readString( in );
+    id = readString( in );
+    processId = readString( in );
+    actionName = readString( in );
+    String languageTag = readString( in );
+    locale = languageTag == null ? null : Locale.forLanguageTag( languageTag );
+    authenticated = in.readBoolean();
+    backgroundExecutionAlert = in.readBoolean();
+  }
+
+  static void checkSerialFormatVersion( final byte version ) throws InvalidObjectException {
+    if ( version != SERIAL_FORMAT_VERSION ) {
+      throw new InvalidObjectException( "Unsupported session format version " + version ); //$NON-NLS-1$
+    }
+  }
+
+  private static void writeString( final ObjectOutputStream out, final String value ) throws IOException {
+    out.writeBoolean( value != null );
+    if ( value != null ) {
+      out.writeUTF( value );
+    }
+  }
+
+  private static String readString( final ObjectInputStream in ) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
 }
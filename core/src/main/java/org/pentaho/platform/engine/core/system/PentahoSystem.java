@@ -1140,6 +1140,7 @@ public class PentahoSystem {
     if ( debug ) {
       Logger.debug( PentahoSystem.class, "Listeners Shut Down" ); //$NON-NLS-1$
     }
+    SystemSettings.closeSettingsWatcher();
     clearObjectFactory();
     systemExitPoint();
     setApplicationContext( null );
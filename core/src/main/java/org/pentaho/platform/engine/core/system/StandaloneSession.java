@@ -18,16 +18,27 @@ import org.apache.commons.logging.LogFactory;
 import org.pentaho.platform.api.engine.ISessionContainer;
 import org.pentaho.platform.engine.core.messages.Messages;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
 
 public class StandaloneSession extends BaseSession {
 
   /**
    * 
    */
-  private static final long serialVersionUID = -1614831602086304014L;
+  private static final long serialVersionUID = 4196473802338591862L;
 
   private static final Log logger = LogFactory.getLog( StandaloneSession.class );
 
@@ -36,7 +47,7 @@ public class StandaloneSession extends BaseSession {
     return StandaloneSession.logger;
   }
 
-  private HashMap attributes;
+  private transient HashMap attributes;
 
   public StandaloneSession() {
     this( "unknown" ); //$NON-NLS-1$
@@ -109,4 +120,134 @@ public class StandaloneSession extends BaseSession {
     super.destroy();
   }
 
+  /**
+   * Writes the attributes one by one, each in a stream of its own, so that an attribute that cannot be written (such
+   * as a cache of class loaders) is left out instead of failing the whole session. Attributes that are left out are
+   * rebuilt by their owners the next time they are asked for. Attributes do not share objects after reading.
+   */
+  private void writeObject( final ObjectOutputStream out ) throws IOException {
+    out.defaultWriteObject();
+    out.writeByte( SERIAL_FORMAT_VERSION );
+    if ( attributes == null ) {
+      out.writeInt( -1 );
+      return;
+    }
+    Map<String, byte[]> serialized = new LinkedHashMap<>();
+    for ( Object entry : attributes.entrySet() ) {
+      Map.Entry attribute = (Map.Entry) entry;
+      String name = String.valueOf( attribute.getKey() );
+      byte[] value = serializeAttribute( name, attribute.getValue() );
+      if ( value != null ) {
+        serialized.put( name, value );
+      }
+    }
+    out.writeInt( serialized.size() );
+    for ( Map.Entry<String, byte[]> attribute : serialized.entrySet() ) {
+      out.writeUTF( attribute.getKey() );
+      out.writeInt( attribute.getValue().length );
+      out.write( attribute.getValue() );
+    }
+  }
+
+  private void readObject( final ObjectInputStream in ) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    checkSerialFormatVersion( in.readByte() );
+    int size = in.readInt();
+    if ( size < 0 ) {
+      return;
+    }
+    attributes = new HashMap();
+    for ( int i = 0; i < size; i++ ) {
+      String name = in.readUTF();
+      byte[] value = new byte[ in.readInt() ];
+      in.readFully( value );
+      try {
+        attributes.put( name, deserializeAttribute( value ) );
+      } catch ( IOException | ClassNotFoundException e ) {
+        // for instance a plugin class that is not available on this node
+        if ( logger.isDebugEnabled() ) {
+          logger.debug( "Session attribute " + name //$NON-NLS-1$
+            + " could not be read and is left out", e ); //$NON-NLS-1$
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the serialized attribute, or null if it cannot be written, in which case it is left out of the session
+   */
+  private byte[] serializeAttribute( final String name, final Object value ) {
+    if ( value != null && !( value instanceof Serializable ) ) {
+      if ( logger.isDebugEnabled() ) {
+        logger.debug( "Session attribute " + name + " of " + value.getClass().getName() //$NON-NLS-1$ //$NON-NLS-2$
+          + " is not serializable and is left out" ); //$NON-NLS-1$
+      }
+      return null;
+    }
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      ObjectOutputStream out = new AttributeOutputStream( bytes );
+      out.writeObject( value );
+      out.close();
+      return bytes.toByteArray();
+    } catch ( IOException | RuntimeException e ) {
+      // e.g. a serializable value that refers to one that is not
+      if ( logger.isDebugEnabled() ) {
+        logger.debug( "Session attribute " + name + " of " + value.getClass().getName() //$NON-NLS-1$ //$NON-NLS-2$
+          + " could not be written and is left out", e ); //$NON-NLS-1$
+      }
+      return null;
+    }
+  }
+
+  private Object deserializeAttribute( final byte[] value ) throws IOException, ClassNotFoundException {
+    try ( ObjectInputStream in = new AttributeInputStream( new ByteArrayInputStream( value ) ) ) {
+      return in.readObject();
+    }
+  }
+
+  /**
+   * Stands in for the session itself when an attribute refers back to it, such as an {@link ISessionContainer}.
+   */
+  private static final class SessionReference implements Serializable {
+    private static final long serialVersionUID = 1L;
+  }
+
+  private class AttributeOutputStream extends ObjectOutputStream {
+    AttributeOutputStream( final OutputStream out ) throws IOException {
+      super( out );
+      enableReplaceObject( true );
+    }
+
+    @Override
+    protected Object replaceObject( final Object obj ) {
+      return obj == StandaloneSession.this ? new SessionReference() : obj;
+    }
+  }
+
+  private class AttributeInputStream extends ObjectInputStream {
+    AttributeInputStream( final InputStream in ) throws IOException {
+      super( in );
+      enableResolveObject( true );
+    }
+
+    @Override
+    protected Object resolveObject( final Object obj ) {
+      return obj instanceof SessionReference ? StandaloneSession.this : obj;
+    }
+
+    @Override
+    protected Class<?> resolveClass( final ObjectStreamClass desc ) throws IOException, ClassNotFoundException {
+      ClassLoader loader = Thread.currentThread().getContextClassLoader();
+      if ( loader != null ) {
+        try {
+          return Class.forName( desc.getName(), false, loader );
+        } catch ( ClassNotFoundException e ) {
+          // fall back on the default resolution
+        }
+      }
+      return super.resolveClass( desc );
+    }
+  }
+
 }
@@ -17,7 +17,9 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.dom4j.Document;
 import org.dom4j.DocumentException;
+import org.dom4j.Element;
 import org.dom4j.Node;
+import org.pentaho.platform.api.engine.ILogger;
 import org.pentaho.platform.api.engine.ISystemSettings;
 import org.pentaho.platform.engine.core.messages.Messages;
 import org.pentaho.platform.util.xml.dom4j.XmlDom4JHelper;
@@ -28,9 +30,21 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -38,6 +52,12 @@ import java.util.concurrent.ConcurrentHashMap;
  * System settings for </code>PentahoSystem</code> are hardcoded to exist in <repository>/system/pentaho.xml.
  * Provides a settings cache so that settings are read from the file once, and the associated DOM document is
  * cached in memory for future lookups.
+ * <p>
+ * Each document is also flattened into an index from every element path suffix to the text of the first element
+ * with that path, so that looking up a plain setting path does not evaluate an XPath expression. The folders of the
+ * loaded files are watched by one thread shared by all instances, and a changed file is re-read and its document and
+ * index swapped in place; the watch can be turned off with the <code>SYSTEM_SETTINGS_WATCH_KEY</code> system property,
+ * and is closed on system shutdown.
  *
  * @author unknown
  *
@@ -55,10 +75,17 @@ public class SystemSettings extends PentahoBase implements ISystemSettings {
 
   private static final String LOG_NAME = Messages.getInstance().getString( "SYSTEMSETTINGS.CODE_LOG_NAME" ); //$NON-NLS-1$
 
+  /**
+   * key into System.property turning the watch of the loaded settings files on (the default) or off.
+   */
+  public static final String SYSTEM_SETTINGS_WATCH_KEY = "pentaho.system.settings.watch"; //$NON-NLS-1$
+
   private static final Log logger = LogFactory.getLog( SystemSettings.class );
 
   private final Map settingsDocumentMap = new ConcurrentHashMap();
 
+  private final Map<String, SettingsIndex> settingsIndexMap = new ConcurrentHashMap<String, SettingsIndex>();
+
   String logId;
 
   public SystemSettings() {
@@ -72,9 +99,11 @@ public class SystemSettings extends PentahoBase implements ISystemSettings {
   }
 
   public String getSystemSetting( final String path, final String settingName, final String defaultValue ) {
-    debug( Messages.getInstance().getString( "SYSTEMSETTINGS.DEBUG_GET_SYSTEM_SETTING_PATH", File.separator + path ) ); //$NON-NLS-1$
-    Document doc = getSystemSettingsDocument( path );
-    if ( doc == null ) {
+    if ( getLoggingLevel() <= ILogger.DEBUG ) {
+      debug( Messages.getInstance().getString( "SYSTEMSETTINGS.DEBUG_GET_SYSTEM_SETTING_PATH", File.separator + path ) ); //$NON-NLS-1$
+    }
+    SettingsIndex index = getSettingsIndex( path );
+    if ( index == null ) {
       return defaultValue;
     }
 
@@ -83,11 +112,24 @@ public class SystemSettings extends PentahoBase implements ISystemSettings {
       return defaultValue;
     }
 
-    Node node = doc.selectSingleNode( "//" + settingName ); //$NON-NLS-1$
-    if ( node == null ) {
-      return defaultValue;
+    String value = index.getSetting( settingName );
+    return value == null ? defaultValue : value;
+  }
+
+  private SettingsIndex getSettingsIndex( final String path ) {
+    SettingsIndex index = settingsIndexMap.get( path );
+    if ( index == null ) {
+      Document doc = getSystemSettingsDocument( path );
+      if ( doc == null ) {
+        return null;
+      }
+      index = new SettingsIndex( doc );
+      SettingsIndex existing = settingsIndexMap.putIfAbsent( path, index );
+      if ( existing != null ) {
+        index = existing;
+      }
     }
-    return node.getText();
+    return index;
   }
 
   public String getSystemSetting( final String settingName, final String defaultValue ) {
@@ -137,6 +179,7 @@ public class SystemSettings extends PentahoBase implements ISystemSettings {
       try {
         systemSettingsDocument = getSettingsDocumentFromFile( f );
         settingsDocumentMap.put( actionPath, systemSettingsDocument );
+        watch( f, actionPath );
       } catch ( DocumentException e ) {
         // todo log this
         e.printStackTrace();
@@ -197,8 +240,67 @@ public class SystemSettings extends PentahoBase implements ISystemSettings {
     return SystemSettings.logger;
   }
 
+  /**
+   * Drops all cached documents. Changes to loaded files are picked up by the file watch, so this is only needed when
+   * the watch is turned off.
+   */
   public void resetSettingsCache() {
     settingsDocumentMap.clear();
+    settingsIndexMap.clear();
+  }
+
+  /**
+   * Re-reads a changed settings file and swaps in its new document and index, or drops them if it was deleted. A
+   * file that does not parse, for instance because it is still being written, leaves the previous settings in place.
+   */
+  void reload( final String path ) {
+    File f = new File( getAbsolutePath( path ) );
+    if ( !f.exists() ) {
+      settingsDocumentMap.remove( path );
+      settingsIndexMap.remove( path );
+      removeSettingsLists( path );
+      return;
+    }
+    try {
+      Document doc = getSettingsDocumentFromFile( f );
+      settingsDocumentMap.put( path, doc );
+      settingsIndexMap.put( path, new SettingsIndex( doc ) );
+      removeSettingsLists( path );
+      debug( Messages.getInstance().getString( "SYSTEMSETTINGS.DEBUG_SYSTEM_SETTINGS_RELOADED", f.getAbsolutePath() ) ); //$NON-NLS-1$
+    } catch ( DocumentException | IOException e ) {
+      warn( Messages.getInstance().getErrorString(
+          "SYSTEMSETTINGS.ERROR_0004_RELOAD_FAILED", f.getAbsolutePath() ) + " " + e.getMessage() ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+  }
+
+  // lists of settings are cached under the settings path followed by the setting name
+  private void removeSettingsLists( final String path ) {
+    for ( Object key : settingsDocumentMap.keySet() ) {
+      if ( !key.equals( path ) && key.toString().startsWith( path ) ) {
+        settingsDocumentMap.remove( key );
+      }
+    }
+  }
+
+  private void watch( final File f, final String path ) {
+    if ( !Boolean.parseBoolean( System.getProperty( SYSTEM_SETTINGS_WATCH_KEY, "true" ) ) ) { //$NON-NLS-1$
+      return;
+    }
+    Path file = f.toPath().toAbsolutePath().normalize();
+    try {
+      SettingsWatcher.register( file, this, path );
+    } catch ( IOException e ) {
+      warn( Messages.getInstance().getErrorString(
+          "SYSTEMSETTINGS.ERROR_0005_WATCH_FAILED", String.valueOf( file.getParent() ) ) + " " + e.getMessage() ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+  }
+
+  /**
+   * Stops the watch of the loaded settings files shared by all instances. Called on system shutdown; a file loaded
+   * afterwards starts a new watch.
+   */
+  public static void closeSettingsWatcher() {
+    SettingsWatcher.close();
   }
 
   // TODO sbarkdull, this props could be cached in a map similar to how the xml docs are cached
@@ -231,6 +333,180 @@ public class SystemSettings extends PentahoBase implements ISystemSettings {
     return getAbsolutePath( SystemSettings.PENTAHOSETTINGSFILENAME );
   }
 
+  /**
+   * Immutable view of a settings document for setting lookups. Every element is indexed under each suffix of its
+   * element path (<code>c</code>, <code>b/c</code> and <code>a/b/c</code> for <code>a/b/c</code>), keeping the first
+   * element in document order, which is exactly what <code>//b/c</code> selects. Setting names that are not plain
+   * element paths, and documents using namespaces, are still evaluated as XPath.
+   */
+  private static final class SettingsIndex implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Document document;
+    private final Map<String, String> values;
+
+    SettingsIndex( final Document document ) {
+      this.document = document;
+      Map<String, String> index = new HashMap<String, String>();
+      Element root = document.getRootElement();
+      if ( root == null || !addElement( root, new ArrayList<String>(), index ) ) {
+        index = null;
+      }
+      this.values = index == null ? null : Collections.unmodifiableMap( index );
+    }
+
+    private static boolean addElement( final Element element, final List<String> names,
+                                       final Map<String, String> index ) {
+      if ( element.getNamespaceURI() != null && element.getNamespaceURI().length() > 0 ) {
+        return false;
+      }
+      names.add( element.getName() );
+      String text = element.getText();
+      StringBuilder suffix = new StringBuilder();
+      for ( int i = names.size() - 1; i >= 0; i-- ) {
+        if ( suffix.length() > 0 ) {
+          suffix.insert( 0, '/' );
+        }
+        suffix.insert( 0, names.get( i ) );
+        String key = suffix.toString();
+        if ( !index.containsKey( key ) ) {
+          index.put( key, text );
+        }
+      }
+      for ( Object child : element.elements() ) {
+        if ( !addElement( (Element) child, names, index ) ) {
+          return false;
+        }
+      }
+      names.remove( names.size() - 1 );
+      return true;
+    }
+
+    String getSetting( final String settingName ) {
+      if ( values != null && isElementPath( settingName ) ) {
+        return values.get( settingName );
+      }
+      Node node = document.selectSingleNode( "//" + settingName ); //$NON-NLS-1$
+      return node == null ? null : node.getText();
+    }
+
+    private static boolean isElementPath( final String settingName ) {
+      if ( settingName == null || settingName.length() == 0 || settingName.contains( "*" ) ) { //$NON-NLS-1$
+        return false;
+      }
+      for ( String step : settingName.split( "/", -1 ) ) { //$NON-NLS-1$
+        if ( step.length() == 0 || step.equals( "." ) || step.equals( ".." ) ) { //$NON-NLS-1$ //$NON-NLS-2$
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Watches the folders of the loaded settings files of every <code>SystemSettings</code> instance with one watch
+   * service and one thread. Instances are held weakly, so a discarded instance is no longer reloaded.
+   */
+  private static final class SettingsWatcher implements Runnable {
+    private static SettingsWatcher instance;
+
+    private final WatchService watchService;
+
+    private final Map<WatchKey, Path> folders = new ConcurrentHashMap<WatchKey, Path>();
+
+    // settings path of each loaded file by instance, by absolute file path
+    private final Map<Path, Map<SystemSettings, String>> files =
+        new ConcurrentHashMap<Path, Map<SystemSettings, String>>();
+
+    private SettingsWatcher() throws IOException {
+      watchService = FileSystems.getDefault().newWatchService();
+      Thread watcher = new Thread( this, "system-settings-watcher" ); //$NON-NLS-1$
+      watcher.setDaemon( true );
+      watcher.start();
+    }
+
+    static synchronized void register( final Path file, final SystemSettings settings, final String path )
+      throws IOException {
+      if ( instance == null ) {
+        instance = new SettingsWatcher();
+      }
+      instance.watch( file, settings, path );
+    }
+
+    static synchronized void close() {
+      if ( instance != null ) {
+        try {
+          instance.watchService.close();
+        } catch ( IOException e ) {
+          logger.debug( "Failed closing the system settings watch service", e ); //$NON-NLS-1$
+        }
+        instance = null;
+      }
+    }
+
+    private void watch( final Path file, final SystemSettings settings, final String path ) throws IOException {
+      Path folder = file.getParent();
+      if ( folder == null ) {
+        return;
+      }
+      if ( !folders.containsValue( folder ) ) {
+        WatchKey key = folder.register( watchService, StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE );
+        folders.put( key, folder );
+      }
+      Map<SystemSettings, String> watchers = files.get( file );
+      if ( watchers == null ) {
+        watchers = Collections.synchronizedMap( new WeakHashMap<SystemSettings, String>() );
+        files.put( file, watchers );
+      }
+      watchers.put( settings, path );
+    }
+
+    @Override
+    public void run() {
+      while ( true ) {
+        WatchKey key;
+        try {
+          key = watchService.take();
+        } catch ( InterruptedException | ClosedWatchServiceException e ) {
+          return;
+        }
+        Path folder = folders.get( key );
+        for ( WatchEvent<?> event : key.pollEvents() ) {
+          if ( folder == null ) {
+            continue;
+          }
+          if ( event.kind() == StandardWatchEventKinds.OVERFLOW ) {
+            // events were lost, re-read everything loaded from this folder
+            for ( Map.Entry<Path, Map<SystemSettings, String>> watched : files.entrySet() ) {
+              if ( folder.equals( watched.getKey().getParent() ) ) {
+                reload( watched.getValue() );
+              }
+            }
+            continue;
+          }
+          Map<SystemSettings, String> watchers = files.get( folder.resolve( (Path) event.context() ) );
+          if ( watchers != null ) {
+            reload( watchers );
+          }
+        }
+        if ( !key.reset() ) {
+          folders.remove( key );
+        }
+      }
+    }
+
+    private static void reload( final Map<SystemSettings, String> watchers ) {
+      Map<SystemSettings, String> copy;
+      synchronized ( watchers ) {
+        copy = new HashMap<SystemSettings, String>( watchers );
+      }
+      for ( Map.Entry<SystemSettings, String> watcher : copy.entrySet() ) {
+        watcher.getKey().reload( watcher.getValue() );
+      }
+    }
+  }
+
   // We rely on passing in values with characters that prevent us from using variables in the query, which
   // would be the standard way of preventing dangerous user input. Instead, as a stop-gap, we can check that
   // the strings we concatenate don't contain any of the other characters that would allow problematic queries.
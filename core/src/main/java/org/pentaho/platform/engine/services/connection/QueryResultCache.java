@@ -0,0 +1,294 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.engine.services.connection;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.commons.connection.IPentahoMetaData;
+import org.pentaho.commons.connection.IPentahoResultSet;
+import org.pentaho.commons.connection.memory.MemoryResultSet;
+import org.pentaho.platform.api.cache.ICacheExpirationRegistry;
+import org.pentaho.platform.api.cache.ILastModifiedCacheItem;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A shared cache of in-memory query results, used by relational actions that opt in to result caching. Entries are
+ * keyed by datasource name, normalized query text, row limit, bound parameter values and the role set of the requesting
+ * user, bounded by the total number of cached rows and expired after a fixed time to live.
+ * <p>
+ * The cache is registered with the {@link ICacheExpirationRegistry} so that clients of the cache expiration service
+ * can tell when cached results were last invalidated. Datasource services invalidate the entries of a datasource when
+ * it is edited (see {@link #invalidate(String)}).
+ */
+public class QueryResultCache implements ILastModifiedCacheItem {
+
+  public static final String CACHE_KEY = "sql-result-cache"; //$NON-NLS-1$
+
+  public static final String SETTING_DATASOURCES = CACHE_KEY + "/datasources"; //$NON-NLS-1$
+
+  public static final String SETTING_MAX_ROWS = CACHE_KEY + "/max-rows"; //$NON-NLS-1$
+
+  public static final String SETTING_TIME_TO_LIVE = CACHE_KEY + "/time-to-live-seconds"; //$NON-NLS-1$
+
+  public static final long DEFAULT_MAX_ROWS = 100000;
+
+  public static final long DEFAULT_TIME_TO_LIVE = 60;
+
+  private static final Log logger = LogFactory.getLog( QueryResultCache.class );
+
+  private static volatile QueryResultCache instance;
+
+  private final Cache<Key, CachedResult> cache;
+
+  private final long maxRows;
+
+  private volatile long lastModified = System.currentTimeMillis();
+
+  public QueryResultCache( final long maxRows, final long timeToLiveSeconds ) {
+    this( maxRows, timeToLiveSeconds, Ticker.systemTicker() );
+  }
+
+  @VisibleForTesting
+  QueryResultCache( final long maxRows, final long timeToLiveSeconds, final Ticker ticker ) {
+    this.maxRows = maxRows;
+    this.cache = CacheBuilder.newBuilder()
+      .maximumWeight( maxRows )
+      .weigher( new Weigher<Key, CachedResult>() {
+        public int weigh( Key key, CachedResult value ) {
+          return Math.max( 1, value.rows.length );
+        }
+      } )
+      .expireAfterWrite( timeToLiveSeconds, TimeUnit.SECONDS )
+      .ticker( ticker )
+      .recordStats()
+      .build();
+  }
+
+  /**
+   * Returns the platform-wide result cache, sized from the <code>sql-result-cache</code> system settings on first use.
+   */
+  public static QueryResultCache getInstance() {
+    if ( instance == null ) {
+      synchronized ( QueryResultCache.class ) {
+        if ( instance == null ) {
+          long maxRows = parseLong( PentahoSystem.getSystemSetting( SETTING_MAX_ROWS, null ), DEFAULT_MAX_ROWS );
+          long ttl = parseLong( PentahoSystem.getSystemSetting( SETTING_TIME_TO_LIVE, null ), DEFAULT_TIME_TO_LIVE );
+          QueryResultCache newInstance = new QueryResultCache( maxRows, ttl );
+          ICacheExpirationRegistry registry = PentahoSystem.get( ICacheExpirationRegistry.class, null );
+          if ( registry != null ) {
+            registry.register( newInstance );
+          }
+          instance = newInstance;
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Returns true if the given datasource is listed in the <code>sql-result-cache/datasources</code> system setting, in
+   * which case every non-live query against it is cached.
+   */
+  public static boolean isCachedDatasource( final String datasourceName ) {
+    if ( datasourceName == null ) {
+      return false;
+    }
+    String datasources = PentahoSystem.getSystemSetting( SETTING_DATASOURCES, "" ); //$NON-NLS-1$
+    for ( String name : datasources.split( "," ) ) { //$NON-NLS-1$
+      if ( name.trim().equals( datasourceName ) ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns a fresh in-memory copy of the cached result, or null if there is none.
+   */
+  public IPentahoResultSet get( final Key key ) {
+    CachedResult result = cache.getIfPresent( key );
+    if ( result == null ) {
+      return null;
+    }
+    MemoryResultSet resultSet = new MemoryResultSet( result.metaData );
+    for ( Object[] row : result.rows ) {
+      resultSet.addRow( row.clone() );
+    }
+    return resultSet;
+  }
+
+  /**
+   * Caches the rows of an in-memory result set. Results larger than the whole cache are not stored.
+   *
+   * @return true if the result was cached
+   */
+  public boolean put( final Key key, final IPentahoResultSet resultSet ) {
+    int rowCount = resultSet.getRowCount();
+    if ( rowCount < 0 || rowCount > maxRows ) {
+      return false;
+    }
+    Object[][] rows = new Object[rowCount][];
+    for ( int row = 0; row < rowCount; row++ ) {
+      rows[row] = resultSet.getDataRow( row ).clone();
+    }
+    cache.put( key, new CachedResult( resultSet.getMetaData(), rows ) );
+    return true;
+  }
+
+  /**
+   * Removes every cached result of the given datasource.
+   */
+  public void invalidate( final String datasourceName ) {
+    List<Key> stale = new ArrayList<Key>();
+    for ( Key key : cache.asMap().keySet() ) {
+      if ( Objects.equals( key.datasource, datasourceName ) ) {
+        stale.add( key );
+      }
+    }
+    if ( !stale.isEmpty() ) {
+      cache.invalidateAll( stale );
+      lastModified = System.currentTimeMillis();
+    }
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+    lastModified = System.currentTimeMillis();
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  public CacheStats getStats() {
+    return cache.stats();
+  }
+
+  public double getHitRate() {
+    return cache.stats().hitRate();
+  }
+
+  public void logStats() {
+    if ( logger.isDebugEnabled() ) {
+      logger.debug( CACHE_KEY + ": " + cache.stats() ); //$NON-NLS-1$
+    }
+  }
+
+  @Override
+  public long getLastModified() {
+    return lastModified;
+  }
+
+  @Override
+  public String getCacheKey() {
+    return CACHE_KEY;
+  }
+
+  private static long parseLong( final String value, final long defaultValue ) {
+    if ( value == null || value.trim().length() == 0 ) {
+      return defaultValue;
+    }
+    try {
+      return Long.parseLong( value.trim() );
+    } catch ( NumberFormatException e ) {
+      logger.warn( "Invalid " + CACHE_KEY + " setting: " + value ); //$NON-NLS-1$ //$NON-NLS-2$
+      return defaultValue;
+    }
+  }
+
+  /**
+   * Collapses runs of whitespace so that reformatted copies of the same query share an entry.
+   */
+  static String normalizeQuery( final String query ) {
+    return query == null ? null : query.trim().replaceAll( "\\s+", " " ); //$NON-NLS-1$ //$NON-NLS-2$
+  }
+
+  public static Key createKey( final String datasource, final String query, final List<?> parameters,
+                               final Collection<String> roles ) {
+    return createKey( datasource, query, -1, parameters, roles );
+  }
+
+  /**
+   * @param maxRows the row limit the query is run with, negative for none
+   */
+  public static Key createKey( final String datasource, final String query, final int maxRows,
+                               final List<?> parameters, final Collection<String> roles ) {
+    return new Key( datasource, normalizeQuery( query ), Math.max( maxRows, -1 ),
+      parameters == null ? Collections.emptyList() : new ArrayList<Object>( parameters ),
+      roles == null ? Collections.<String>emptySet() : new TreeSet<String>( roles ) );
+  }
+
+  public static final class Key {
+    private final String datasource;
+    private final String query;
+    private final int maxRows;
+    private final List<?> parameters;
+    private final Collection<String> roles;
+    private final int hashCode;
+
+    private Key( final String datasource, final String query, final int maxRows, final List<?> parameters,
+                 final Collection<String> roles ) {
+      this.datasource = datasource;
+      this.query = query;
+      this.maxRows = maxRows;
+      this.parameters = parameters;
+      this.roles = roles;
+      this.hashCode = Arrays.hashCode( new Object[] { datasource, query, maxRows, parameters, roles } );
+    }
+
+    @Override
+    public boolean equals( final Object o ) {
+      if ( this == o ) {
+        return true;
+      }
+      if ( !( o instanceof Key ) ) {
+        return false;
+      }
+      Key other = (Key) o;
+      return hashCode == other.hashCode && maxRows == other.maxRows && Objects.equals( datasource, other.datasource )
+        && Objects.equals( query, other.query ) && Objects.equals( parameters, other.parameters )
+        && Objects.equals( roles, other.roles );
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  private static final class CachedResult {
+    private final IPentahoMetaData metaData;
+    private final Object[][] rows;
+
+    private CachedResult( final IPentahoMetaData metaData, final Object[][] rows ) {
+      this.metaData = metaData;
+      this.rows = rows;
+    }
+  }
+}
@@ -20,6 +20,7 @@ import org.pentaho.platform.api.engine.ICacheManager;
 import org.pentaho.platform.api.repository.datasource.IDatasourceMgmtService;
 import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.engine.services.connection.QueryResultCache;
 
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
@@ -40,6 +41,7 @@ public abstract class BaseDatasourceService implements IDBDatasourceService {
    */
   public void clearCache() {
     cacheManager.removeRegionCache( IDBDatasourceService.JDBC_DATASOURCE );
+    QueryResultCache.getInstance().invalidateAll();
   }
 
   /**
@@ -49,6 +51,7 @@ public abstract class BaseDatasourceService implements IDBDatasourceService {
    */
   public void clearDataSource( String dsName ) {
     cacheManager.removeFromRegionCache( IDBDatasourceService.JDBC_DATASOURCE, dsName );
+    QueryResultCache.getInstance().invalidate( dsName );
   }
 
   public DataSource getDataSource( String dsName ) throws DBDatasourceServiceException {
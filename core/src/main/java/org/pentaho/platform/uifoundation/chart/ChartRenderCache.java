@@ -0,0 +1,279 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.uifoundation.chart;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.jfree.chart.ChartRenderingInfo;
+import org.jfree.chart.entity.EntityCollection;
+import org.jfree.data.general.Dataset;
+import org.pentaho.platform.api.engine.IPentahoSession;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Content-addressed cache of rendered charts. A chart is identified by a digest of its dataset (which, for the
+ * platform chart definitions, also carries the chart definition), title, units, size and output type, so identical
+ * charts requested by different users are rendered once.
+ * <p>
+ * Rendered images are also indexed by the solution path of the temporary image file they were saved to, which lets
+ * the GetImage servlet serve them from memory for as long as the chart itself is cached.
+ */
+public class ChartRenderCache {
+
+  public static final String SETTING_MAX_SIZE = "chart-render-cache/max-size-kb"; //$NON-NLS-1$
+
+  public static final long DEFAULT_MAX_SIZE_KB = 32 * 1024;
+
+  private static final long IMAGE_EXPIRY_MINUTES = 30;
+
+  private static final Log logger = LogFactory.getLog( ChartRenderCache.class );
+
+  private static volatile ChartRenderCache instance;
+
+  private final Cache<String, RenderedChart> charts;
+
+  /**
+   * chart keys by image path, so that images are bounded by the size of the chart cache
+   */
+  private final Cache<String, String> images;
+
+  public ChartRenderCache( final long maxSizeKb ) {
+    charts = CacheBuilder.newBuilder()
+      .maximumWeight( maxSizeKb * 1024 )
+      .weigher( new Weigher<String, RenderedChart>() {
+        public int weigh( String key, RenderedChart value ) {
+          return value.getContent().length;
+        }
+      } )
+      .recordStats()
+      .build();
+    // temporary chart files are referenced from generated html for a limited time only
+    images = CacheBuilder.newBuilder()
+      .maximumSize( 10000 )
+      .expireAfterAccess( IMAGE_EXPIRY_MINUTES, TimeUnit.MINUTES )
+      .build();
+  }
+
+  public static ChartRenderCache getInstance() {
+    if ( instance == null ) {
+      synchronized ( ChartRenderCache.class ) {
+        if ( instance == null ) {
+          long maxSize = DEFAULT_MAX_SIZE_KB;
+          try {
+            maxSize = Long.parseLong( PentahoSystem.getSystemSetting( SETTING_MAX_SIZE,
+              String.valueOf( DEFAULT_MAX_SIZE_KB ) ) );
+          } catch ( NumberFormatException e ) {
+            logger.warn( "Invalid " + SETTING_MAX_SIZE + " setting, using " + DEFAULT_MAX_SIZE_KB ); //$NON-NLS-1$ //$NON-NLS-2$
+          }
+          instance = new ChartRenderCache( maxSize );
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Computes the content key of a chart, or returns null if the dataset cannot be digested (for instance because it
+   * holds a background image), in which case the chart is not cached.
+   */
+  public String getKey( final Dataset dataset, final String title, final String units, final int width,
+                        final int height, final int outputType ) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance( "SHA-256" ); //$NON-NLS-1$
+      ObjectOutputStream out = new ChartDigestStream( new DigestOutputStream( NULL_STREAM, digest ) );
+      out.writeObject( dataset );
+      out.writeObject( title );
+      out.writeObject( units );
+      out.writeInt( width );
+      out.writeInt( height );
+      out.writeInt( outputType );
+      out.close();
+      return Hex.encodeHexString( digest.digest() );
+    } catch ( IOException | NoSuchAlgorithmException e ) {
+      if ( logger.isDebugEnabled() ) {
+        logger.debug( "Chart is not cacheable: " + e.getMessage() ); //$NON-NLS-1$
+      }
+      return null;
+    }
+  }
+
+  public RenderedChart get( final String key ) {
+    return key == null ? null : charts.getIfPresent( key );
+  }
+
+  /**
+   * Returns the cached chart with the given key, or renders and caches it. Concurrent requests for a chart that is not
+   * cached yet wait for a single rendering. A chart without a key is rendered and not cached.
+   */
+  public RenderedChart get( final String key, final Callable<RenderedChart> renderer ) throws IOException {
+    try {
+      return key == null ? renderer.call() : charts.get( key, renderer );
+    } catch ( ExecutionException | UncheckedExecutionException | ExecutionError e ) {
+      Throwable cause = e.getCause();
+      if ( cause instanceof IOException ) {
+        throw (IOException) cause;
+      } else if ( cause instanceof RuntimeException ) {
+        throw (RuntimeException) cause;
+      } else if ( cause instanceof Error ) {
+        throw (Error) cause;
+      }
+      throw new IOException( cause );
+    } catch ( IOException | RuntimeException e ) {
+      throw e;
+    } catch ( Exception e ) {
+      throw new IOException( e );
+    }
+  }
+
+  public void put( final String key, final RenderedChart chart ) {
+    if ( key != null ) {
+      charts.put( key, chart );
+    }
+  }
+
+  /**
+   * Records that the image file at the given solution path holds the given chart.
+   */
+  public void putImage( final String imagePath, final RenderedChart chart ) {
+    if ( chart.getKey() != null ) {
+      images.put( imagePath, chart.getKey() );
+    }
+  }
+
+  /**
+   * @return the chart saved to the image file at the given solution path, or null if it is not held in memory
+   */
+  public RenderedChart getImage( final String imagePath ) {
+    String key = images.getIfPresent( imagePath );
+    // not counted as a lookup of the chart cache
+    return key == null ? null : charts.asMap().get( key );
+  }
+
+  public CacheStats getStats() {
+    return charts.stats();
+  }
+
+  public void clear() {
+    charts.invalidateAll();
+    images.invalidateAll();
+  }
+
+  private static final OutputStream NULL_STREAM = new OutputStream() {
+    @Override
+    public void write( int b ) {
+    }
+
+    @Override
+    public void write( byte[] b, int off, int len ) {
+    }
+  };
+
+  /**
+   * Serializes a chart dataset for digesting, leaving out the session that chart definitions keep a reference to.
+   */
+  private static class ChartDigestStream extends ObjectOutputStream {
+    ChartDigestStream( final OutputStream out ) throws IOException {
+      super( out );
+      enableReplaceObject( true );
+    }
+
+    @Override
+    protected Object replaceObject( final Object obj ) throws IOException {
+      return obj instanceof IPentahoSession ? null : obj;
+    }
+  }
+
+  /**
+   * A rendered chart image together with the rendering info needed to rebuild its image map.
+   */
+  public static class RenderedChart {
+    private final String key;
+    private final byte[] content;
+    private final int outputType;
+    private final Rectangle2D chartArea;
+    private final EntityCollection entities;
+
+    public RenderedChart( final String key, final byte[] content, final int outputType,
+                          final ChartRenderingInfo info ) {
+      this.key = key;
+      this.content = content;
+      this.outputType = outputType;
+      this.chartArea = info == null ? null : info.getChartArea();
+      this.entities = info == null ? null : copy( info.getEntityCollection() );
+    }
+
+    public String getKey() {
+      return key;
+    }
+
+    public byte[] getContent() {
+      return content;
+    }
+
+    public int getOutputType() {
+      return outputType;
+    }
+
+    public String getMimeType() {
+      return outputType == JFreeChartEngine.OUTPUT_SVG ? "image/svg+xml" : "image/png"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /**
+     * Copies the chart entities recorded at render time into the given rendering info, so that callers can build and
+     * decorate image maps exactly as for a freshly rendered chart.
+     */
+    public void populate( final ChartRenderingInfo info ) {
+      if ( info == null ) {
+        return;
+      }
+      if ( chartArea != null ) {
+        info.setChartArea( chartArea );
+      }
+      EntityCollection copy = copy( entities );
+      if ( copy != null && info.getEntityCollection() != null ) {
+        info.getEntityCollection().addAll( copy );
+      }
+    }
+
+    private static EntityCollection copy( final EntityCollection entities ) {
+      if ( entities == null ) {
+        return null;
+      }
+      try {
+        // callers decorate entities with drill urls, so every user gets a private copy
+        return (EntityCollection) ( (org.jfree.util.PublicCloneable) entities ).clone();
+      } catch ( CloneNotSupportedException | ClassCastException e ) {
+        return null;
+      }
+    }
+  }
+}
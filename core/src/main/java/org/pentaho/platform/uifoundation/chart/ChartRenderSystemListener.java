@@ -0,0 +1,32 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.uifoundation.chart;
+
+import org.pentaho.platform.api.engine.IPentahoSession;
+import org.pentaho.platform.api.engine.IPentahoSystemListener;
+
+/**
+ * Stops the threads charts are rendered on when the platform shuts down.
+ */
+public class ChartRenderSystemListener implements IPentahoSystemListener {
+
+  public boolean startup( final IPentahoSession session ) {
+    return true;
+  }
+
+  public void shutdown() {
+    JFreeChartEngine.shutdownRenderExecutor();
+  }
+
+}
@@ -13,6 +13,7 @@
 
 package org.pentaho.platform.uifoundation.chart;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.batik.dom.GenericDOMImplementation;
 import org.apache.batik.svggen.SVGGraphics2D;
 import org.apache.commons.logging.Log;
@@ -99,10 +100,13 @@ import java.awt.Stroke;
 import java.awt.TexturePaint;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.Writer;
@@ -111,11 +115,18 @@ import java.text.SimpleDateFormat;
 import java.util.Iterator;
 import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class JFreeChartEngine {
 
   protected static final Log log = LogFactory.getLog( JFreeChartEngine.class );
 
+  private static volatile ExecutorService renderExecutor;
+
   public static final int OUTPUT_CHART = 3;
 
   public static final int OUTPUT_PNG = 1;
@@ -1093,50 +1104,38 @@ public class JFreeChartEngine {
   }
 
   /**
-   * Create a PNG image file from a JFreeChart object
+   * Render a JFreeChart object as a PNG image
    * 
    * @param chart
    *          The chart object to create an image from
-   * @param path
-   *          The path and name of the image file to create
+   * @param out
+   *          The stream to write the image to
    * @param width
    *          The width of the image in pixels
    * @param height
    *          The height of the image in pixels
-   * @param writer
-   *          A writer for the iamge map to be written to
    * @throws IOException
    */
-  private static void saveChartAsPNG( final JFreeChart chart, final String path, final int width, final int height,
-      final PrintWriter writer, final ChartRenderingInfo info ) throws IOException {
-    File file = new File( path + ".png" ); //$NON-NLS-1$
-    ChartUtilities.saveChartAsPNG( file, chart, width, height, info );
-
-    // TODO support tool tip generators
-
-    // TODO support URL fragment generators
-
-    // TODO: make the image map name unique on the page
-    if ( writer != null ) {
-      ChartUtilities.writeImageMap( writer, "map-name", info, true ); //$NON-NLS-1$
-    }
+  private static void renderChartAsPNG( final JFreeChart chart, final OutputStream out, final int width,
+      final int height, final ChartRenderingInfo info ) throws IOException {
+    ChartUtilities.writeChartAsPNG( out, chart, width, height, info );
   }
 
   /**
-   * Create an SVG image file from a JFreeChart object
+   * Render a JFreeChart object as an SVG image
    * 
    * @param chart
    *          The chart object to create an image from
-   * @param path
-   *          The path and name of the image file to create
+   * @param out
+   *          The stream to write the image to
    * @param width
    *          The width of the image in pixels
    * @param height
    *          The height of the image in pixels
    * @throws IOException
    */
-  private static void saveChartAsSVG( final JFreeChart chart, final String path, final int width, final int height,
-      final ChartRenderingInfo info ) throws IOException {
+  private static void renderChartAsSVG( final JFreeChart chart, final OutputStream out, final int width,
+      final int height, final ChartRenderingInfo info ) throws IOException {
     // THE FOLLOWING CODE BASED ON THE EXAMPLE IN THE BATIK DOCUMENTATION...
     // Get a DOMImplementation
     org.w3c.dom.DOMImplementation domImpl = GenericDOMImplementation.getDOMImplementation();
@@ -1148,38 +1147,130 @@ public class JFreeChartEngine {
     svgGenerator.getGeneratorContext().setPrecision( 6 );
     // Ask the chart to render into the SVG Graphics2D implementation
     chart.draw( svgGenerator, new Rectangle2D.Double( 0, 0, width, height ), info );
-    // Finally, stream out SVG to a file using UTF-8 character to byte
+    // Finally, stream out SVG using UTF-8 character to byte
     // encoding
     boolean useCSS = true;
-    Writer out =
-        new OutputStreamWriter( new FileOutputStream( new File( path + ".svg" ) ), LocaleHelper.getSystemEncoding() ); //$NON-NLS-1$
-    svgGenerator.stream( out, useCSS );
+    Writer writer = new OutputStreamWriter( out, LocaleHelper.getSystemEncoding() );
+    svgGenerator.stream( writer, useCSS );
+    writer.flush();
   }
 
   /**
-   * Create an image file from a JFreeChart object
+   * Render a JFreeChart object on the chart rendering pool. Rendering is CPU bound, so the number of charts rendered
+   * at once is bounded by the size of the pool rather than by the number of request threads.
    * 
    * @param chart
    *          The chart object to create an image from
-   * @param path
-   *          The path and name of the image file to create
+   * @param key
+   *          The content key of the chart, may be null
    * @param width
    *          The width of the image in pixels
    * @param height
    *          The height of the image in pixels
    * @param outputType
    *          The type of the image to create, OUPUT_PNG or OUTPUT_SVG
+   * @param info
+   *          Receives the chart entities for the image map
+   * @return the rendered chart
+   * @throws IOException
+   */
+  private static ChartRenderCache.RenderedChart renderChart( final JFreeChart chart, final String key,
+      final int width, final int height, final int outputType, final ChartRenderingInfo info ) throws IOException {
+    Future<ChartRenderCache.RenderedChart> future =
+        JFreeChartEngine.getRenderExecutor().submit( new Callable<ChartRenderCache.RenderedChart>() {
+          public ChartRenderCache.RenderedChart call() throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            if ( outputType == JFreeChartEngine.OUTPUT_PNG ) {
+              JFreeChartEngine.renderChartAsPNG( chart, out, width, height, info );
+            } else if ( outputType == JFreeChartEngine.OUTPUT_SVG ) {
+              JFreeChartEngine.renderChartAsSVG( chart, out, width, height, info );
+            }
+            // TODO support other image types, e.g. JPG, GIF
+            return new ChartRenderCache.RenderedChart( key, out.toByteArray(), outputType, info );
+          }
+        } );
+    try {
+      return future.get();
+    } catch ( InterruptedException e ) {
+      future.cancel( true );
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    } catch ( ExecutionException e ) {
+      if ( e.getCause() instanceof IOException ) {
+        throw (IOException) e.getCause();
+      }
+      if ( e.getCause() instanceof RuntimeException ) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IOException( e.getCause() );
+    }
+  }
+
+  /**
+   * Stops the threads charts are rendered on. The pool is started again by the next chart that is rendered.
+   */
+  public static void shutdownRenderExecutor() {
+    synchronized ( JFreeChartEngine.class ) {
+      if ( renderExecutor != null ) {
+        renderExecutor.shutdownNow();
+        renderExecutor = null;
+      }
+    }
+  }
+
+  /**
+   * @return the pool charts are rendered on, sized by the chart-render-cache/render-threads system setting
+   */
+  private static ExecutorService getRenderExecutor() {
+    if ( renderExecutor == null ) {
+      synchronized ( JFreeChartEngine.class ) {
+        if ( renderExecutor == null ) {
+          int threads = Runtime.getRuntime().availableProcessors();
+          try {
+            threads = Integer.parseInt( PentahoSystem.getSystemSetting( "chart-render-cache/render-threads", //$NON-NLS-1$
+                String.valueOf( threads ) ) );
+          } catch ( NumberFormatException ignored ) {
+            // go with the default
+          }
+          renderExecutor = Executors.newFixedThreadPool( Math.max( 1, threads ),
+              new ThreadFactoryBuilder().setNameFormat( "chart-render-%d" ).setDaemon( true ).build() ); //$NON-NLS-1$
+        }
+      }
+    }
+    return renderExecutor;
+  }
+
+  /**
+   * Save a rendered chart to an image file
+   * 
+   * @param rendered
+   *          The rendered chart
+   * @param path
+   *          The path and name of the image file to create, without extension
    * @param writer
+   *          A writer for the image map to be written to
+   * @param info
+   *          The rendering info of the chart
    * @throws IOException
    */
-  private static void saveChart( final JFreeChart chart, final String path, final int width, final int height,
-      final int outputType, final PrintWriter writer, final ChartRenderingInfo info ) throws IOException {
-    if ( outputType == JFreeChartEngine.OUTPUT_PNG ) {
-      JFreeChartEngine.saveChartAsPNG( chart, path, width, height, writer, info );
-    } else if ( outputType == JFreeChartEngine.OUTPUT_SVG ) {
-      JFreeChartEngine.saveChartAsSVG( chart, path, width, height, info );
-    }
-    // TODO support other image types, e.g. JPG, GIF
+  private static void saveChart( final ChartRenderCache.RenderedChart rendered, final String path,
+      final PrintWriter writer, final ChartRenderingInfo info ) throws IOException {
+    String extension = rendered.getOutputType() == JFreeChartEngine.OUTPUT_SVG ? ".svg" : ".png"; //$NON-NLS-1$ //$NON-NLS-2$
+    OutputStream out = new FileOutputStream( new File( path + extension ) );
+    try {
+      out.write( rendered.getContent() );
+    } finally {
+      out.close();
+    }
+
+    // TODO support tool tip generators
+
+    // TODO support URL fragment generators
+
+    // TODO: make the image map name unique on the page
+    if ( writer != null && rendered.getOutputType() == JFreeChartEngine.OUTPUT_PNG ) {
+      ChartUtilities.writeImageMap( writer, "map-name", info, true ); //$NON-NLS-1$
+    }
   }
 
   /**
@@ -1238,11 +1329,28 @@ public class JFreeChartEngine {
       final int width, final int height, final int outputType, final PrintWriter writer, final ChartRenderingInfo info,
       final ILogger logger ) {
 
-    JFreeChart chart = JFreeChartEngine.getChart( dataset, title, units, width, height, logger );
+    ChartRenderCache cache = ChartRenderCache.getInstance();
+    String key = cache.getKey( dataset, title, units, width, height, outputType );
 
     try {
       String filePath = PentahoSystem.getApplicationContext().getFileOutputPath( fileName );
-      JFreeChartEngine.saveChart( chart, filePath, width, height, outputType, writer, info );
+      final boolean[] renderedHere = { false };
+      ChartRenderCache.RenderedChart rendered = cache.get( key, new Callable<ChartRenderCache.RenderedChart>() {
+        public ChartRenderCache.RenderedChart call() throws IOException {
+          renderedHere[0] = true;
+          JFreeChart chart = JFreeChartEngine.getChart( dataset, title, units, width, height, logger );
+          return JFreeChartEngine.renderChart( chart, key, width, height, outputType, info );
+        }
+      } );
+      if ( !renderedHere[0] ) {
+        // identical chart already rendered, reuse the image and the entities of its image map
+        rendered.populate( info );
+      }
+      // the image file is still written, it is an output of chart actions
+      JFreeChartEngine.saveChart( rendered, filePath, writer, info );
+      if ( key != null ) {
+        cache.putImage( fileName + ( outputType == JFreeChartEngine.OUTPUT_SVG ? ".svg" : ".png" ), rendered ); //$NON-NLS-1$ //$NON-NLS-2$
+      }
     } catch ( IOException e ) {
       logger.error( Messages.getInstance().getString( "ChartEngine.ERROR_0001_COULD_NOT_CREATE_CHART" ), e ); //$NON-NLS-1$
     }
@@ -0,0 +1,114 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.util.trace;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with fixed, roughly logarithmic buckets from 100 microseconds to one minute.
+ * Percentiles are reported as the upper bound of the bucket they fall in.
+ */
+public class LatencyHistogram {
+
+  private static final long[] BUCKET_BOUNDS_MICROS = { 100, 250, 500, 1000, 2500, 5000, 10000, 25000, 50000,
+    100000, 250000, 500000, 1000000, 2500000, 5000000, 10000000, 30000000, 60000000 };
+
+  private final LongAdder[] counts = new LongAdder[ BUCKET_BOUNDS_MICROS.length + 1 ];
+
+  private final LongAdder totalNanos = new LongAdder();
+
+  private final AtomicLong maxNanos = new AtomicLong();
+
+  public LatencyHistogram() {
+    for ( int i = 0; i < counts.length; i++ ) {
+      counts[ i ] = new LongAdder();
+    }
+  }
+
+  public void record( final long nanos ) {
+    long micros = TimeUnit.NANOSECONDS.toMicros( Math.max( nanos, 0 ) );
+    int bucket = 0;
+    while ( bucket < BUCKET_BOUNDS_MICROS.length && micros > BUCKET_BOUNDS_MICROS[ bucket ] ) {
+      bucket++;
+    }
+    counts[ bucket ].increment();
+    totalNanos.add( nanos );
+    maxNanos.accumulateAndGet( nanos, Math::max );
+  }
+
+  public long getCount() {
+    long count = 0;
+    for ( LongAdder bucket : counts ) {
+      count += bucket.sum();
+    }
+    return count;
+  }
+
+  public double getMeanMillis() {
+    long count = getCount();
+    return count == 0 ? 0 : totalNanos.sum() / 1e6 / count;
+  }
+
+  public double getMaxMillis() {
+    return maxNanos.get() / 1e6;
+  }
+
+  /**
+   * @param percentile
+   *          between 0 and 100
+   * @return the upper bound, in milliseconds, of the bucket holding the given percentile, capped at the maximum
+   */
+  public double getPercentileMillis( final double percentile ) {
+    long[] snapshot = new long[ counts.length ];
+    long count = 0;
+    for ( int i = 0; i < counts.length; i++ ) {
+      snapshot[ i ] = counts[ i ].sum();
+      count += snapshot[ i ];
+    }
+    if ( count == 0 ) {
+      return 0;
+    }
+    long rank = (long) Math.ceil( percentile / 100 * count );
+    long seen = 0;
+    for ( int i = 0; i < BUCKET_BOUNDS_MICROS.length; i++ ) {
+      seen += snapshot[ i ];
+      if ( seen >= rank ) {
+        return Math.min( BUCKET_BOUNDS_MICROS[ i ] / 1e3, getMaxMillis() );
+      }
+    }
+    return getMaxMillis();
+  }
+
+  /**
+   * @return the count, mean, 50th, 90th and 99th percentile and maximum, in milliseconds
+   */
+  public Map<String, Object> toMap() {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put( "count", getCount() ); //$NON-NLS-1$
+    map.put( "meanMillis", round( getMeanMillis() ) ); //$NON-NLS-1$
+    map.put( "p50Millis", round( getPercentileMillis( 50 ) ) ); //$NON-NLS-1$
+    map.put( "p90Millis", round( getPercentileMillis( 90 ) ) ); //$NON-NLS-1$
+    map.put( "p99Millis", round( getPercentileMillis( 99 ) ) ); //$NON-NLS-1$
+    map.put( "maxMillis", round( getMaxMillis() ) ); //$NON-NLS-1$
+    return map;
+  }
+
+  private static double round( final double millis ) {
+    return Math.round( millis * 1000 ) / 1000.0;
+  }
+}
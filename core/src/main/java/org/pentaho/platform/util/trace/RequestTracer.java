@@ -0,0 +1,499 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.util.trace;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records where the time of a sample of web requests goes. A request is traced from the first instrumented filter
+ * that sees it; filters, REST resource methods, repository and database calls open nested {@link Span}s on the
+ * request thread, and the time spent in each stage, excluding the stages nested in it, is aggregated into
+ * {@link LatencyHistogram}s per endpoint.
+ * <p>
+ * A request that goes on asynchronously is handed over with {@link #startAsync()}; it is then recorded once its
+ * asynchronous processing completes rather than when the request thread returns.
+ * <p>
+ * Tracing is off unless enabled with the <code>request-tracing/enabled</code> setting in pentaho.xml. Requests that
+ * are not sampled only cost a thread local lookup per instrumented call.
+ */
+public class RequestTracer {
+
+  public static final String SETTING_ENABLED = "request-tracing/enabled"; //$NON-NLS-1$
+
+  public static final String SETTING_SAMPLE_RATE = "request-tracing/sample-rate"; //$NON-NLS-1$
+
+  public static final String SETTING_MAX_ENDPOINTS = "request-tracing/max-endpoints"; //$NON-NLS-1$
+
+  public static final double DEFAULT_SAMPLE_RATE = 0.01;
+
+  public static final int DEFAULT_MAX_ENDPOINTS = 200;
+
+  /**
+   * Endpoint that collects the requests of endpoints beyond the configured maximum.
+   */
+  public static final String OTHER_ENDPOINT = "other"; //$NON-NLS-1$
+
+  private static final String UNKNOWN_ENDPOINT = "unknown"; //$NON-NLS-1$
+
+  private static final Log logger = LogFactory.getLog( RequestTracer.class );
+
+  private static final ThreadLocal<Trace> currentTrace = new ThreadLocal<>();
+
+  /**
+   * Marks a request that was not sampled, so that the filters further down the chain do not sample it again.
+   */
+  private static final Trace UNSAMPLED = new Trace( null, null, null );
+
+  private static final Span NOOP = () -> {
+  };
+
+  private static final Span UNSAMPLED_ROOT = currentTrace::remove;
+
+  private static final AsyncTrace NOOP_ASYNC = new AsyncTrace() {
+    @Override
+    public Span resume( final String stage ) {
+      return NOOP;
+    }
+
+    @Override
+    public void complete() {
+    }
+  };
+
+  private static volatile RequestTracer instance;
+
+  private static volatile boolean initialized;
+
+  private final double sampleRate;
+
+  private final int maxEndpoints;
+
+  private final ConcurrentMap<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+  private final LongAdder sampledRequests = new LongAdder();
+
+  public RequestTracer( final double sampleRate, final int maxEndpoints ) {
+    this.sampleRate = sampleRate;
+    this.maxEndpoints = maxEndpoints;
+  }
+
+  /**
+   * @return the tracer configured in pentaho.xml, or null if request tracing is disabled
+   */
+  public static RequestTracer getInstance() {
+    if ( !initialized ) {
+      synchronized ( RequestTracer.class ) {
+        if ( !initialized ) {
+          if ( Boolean.parseBoolean( PentahoSystem.getSystemSetting( SETTING_ENABLED, "false" ) ) ) { //$NON-NLS-1$
+            double sampleRate = DEFAULT_SAMPLE_RATE;
+            int maxEndpoints = DEFAULT_MAX_ENDPOINTS;
+            try {
+              sampleRate = Double.parseDouble( PentahoSystem.getSystemSetting( SETTING_SAMPLE_RATE,
+                String.valueOf( DEFAULT_SAMPLE_RATE ) ) );
+              maxEndpoints = Integer.parseInt( PentahoSystem.getSystemSetting( SETTING_MAX_ENDPOINTS,
+                String.valueOf( DEFAULT_MAX_ENDPOINTS ) ) );
+            } catch ( NumberFormatException e ) {
+              logger.warn( "Invalid request-tracing setting, using defaults: " + e.getMessage() ); //$NON-NLS-1$
+            }
+            instance = new RequestTracer( sampleRate, maxEndpoints );
+          }
+          initialized = true;
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Replaces the tracer in use; <code>null</code> switches tracing off.
+   */
+  public static synchronized void setInstance( final RequestTracer tracer ) {
+    instance = tracer;
+    initialized = true;
+  }
+
+  /**
+   * Opens a span for a request stage. If no request is being traced on this thread yet, this decides whether to
+   * sample the request and, if so, starts tracing it with this span as the root.
+   *
+   * @param stage
+   *          the name the time spent in this stage is reported under
+   * @param requestId
+   *          the id of the request, reported for the slowest request of each endpoint; may be null
+   * @param endpoint
+   *          the endpoint the request is reported under, until a more specific one is set with
+   *          {@link #setEndpoint(String)}
+   */
+  public static Span startRequest( final String stage, final String requestId, final String endpoint ) {
+    Trace trace = currentTrace.get();
+    if ( trace != null ) {
+      return trace.startSpan( stage );
+    }
+    RequestTracer tracer = getInstance();
+    if ( tracer == null ) {
+      return NOOP;
+    }
+    if ( !tracer.sample() ) {
+      currentTrace.set( UNSAMPLED );
+      return UNSAMPLED_ROOT;
+    }
+    trace = new Trace( tracer, requestId, endpoint );
+    currentTrace.set( trace );
+    return trace.startSpan( stage );
+  }
+
+  /**
+   * Opens a span nested in the stage currently running for the request traced on this thread, if any.
+   */
+  public static Span startSpan( final String stage ) {
+    Trace trace = currentTrace.get();
+    return trace == null ? NOOP : trace.startSpan( stage );
+  }
+
+  /**
+   * Counts an event, e.g. a lazy load, against the request traced on this thread, if any. The events of the requests
+   * of an endpoint are reported as totals next to its stages.
+   */
+  public static void count( final String event ) {
+    Trace trace = currentTrace.get();
+    if ( trace != null && trace.tracer != null ) {
+      trace.addCount( event, 1 );
+    }
+  }
+
+  /**
+   * Reports the request traced on this thread, if any, under the given endpoint.
+   */
+  public static void setEndpoint( final String endpoint ) {
+    Trace trace = currentTrace.get();
+    if ( trace != null && trace != UNSAMPLED ) {
+      trace.getRoot().endpoint = endpoint;
+    }
+  }
+
+  /**
+   * Hands the request traced on this thread, if any, over to asynchronous processing. The spans open on this thread
+   * still close as the request thread returns, but the request is only recorded once
+   * {@link AsyncTrace#complete()} is called as well.
+   *
+   * @return the handle to continue the trace on another thread with, and to complete it
+   */
+  public static AsyncTrace startAsync() {
+    Trace trace = currentTrace.get();
+    if ( trace == null || trace.tracer == null ) {
+      return NOOP_ASYNC;
+    }
+    final Trace root = trace.getRoot();
+    root.hold();
+    final AtomicBoolean completed = new AtomicBoolean();
+    return new AsyncTrace() {
+      @Override
+      public Span resume( final String stage ) {
+        Trace branch = new Trace( root, currentTrace.get() );
+        currentTrace.set( branch );
+        return branch.startSpan( stage );
+      }
+
+      @Override
+      public void complete() {
+        if ( completed.compareAndSet( false, true ) ) {
+          root.release();
+        }
+      }
+    };
+  }
+
+  boolean sample() {
+    return sampleRate >= 1 || ( sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate );
+  }
+
+  void record( final Trace trace, final long totalNanos ) {
+    sampledRequests.increment();
+    String name = trace.endpoint == null ? UNKNOWN_ENDPOINT : trace.endpoint;
+    EndpointStats stats = endpoints.get( name );
+    if ( stats == null ) {
+      if ( endpoints.size() >= maxEndpoints ) {
+        name = OTHER_ENDPOINT;
+      }
+      stats = endpoints.computeIfAbsent( name, key -> new EndpointStats() );
+    }
+    stats.record( trace, totalNanos );
+  }
+
+  public double getSampleRate() {
+    return sampleRate;
+  }
+
+  public long getSampledRequests() {
+    return sampledRequests.sum();
+  }
+
+  /**
+   * @return the latency histogram of the requests of an endpoint, or null if none was sampled
+   */
+  public LatencyHistogram getHistogram( final String endpoint ) {
+    EndpointStats stats = endpoints.get( endpoint );
+    return stats == null ? null : stats.total;
+  }
+
+  /**
+   * @return the latency histogram of a stage of the requests of an endpoint, or null if none was sampled
+   */
+  public LatencyHistogram getHistogram( final String endpoint, final String stage ) {
+    EndpointStats stats = endpoints.get( endpoint );
+    return stats == null ? null : stats.stages.get( stage );
+  }
+
+  /**
+   * @return how many times an event was {@link #count(String) counted} by the sampled requests of an endpoint
+   */
+  public long getCount( final String endpoint, final String event ) {
+    EndpointStats stats = endpoints.get( endpoint );
+    LongAdder count = stats == null ? null : stats.counts.get( event );
+    return count == null ? 0 : count.sum();
+  }
+
+  /**
+   * @return the latencies of every endpoint and of their stages, ready to be serialized
+   */
+  public Map<String, Object> getSnapshot() {
+    Map<String, Object> endpointMaps = new TreeMap<>();
+    for ( Map.Entry<String, EndpointStats> entry : endpoints.entrySet() ) {
+      endpointMaps.put( entry.getKey(), entry.getValue().toMap() );
+    }
+    Map<String, Object> snapshot = new LinkedHashMap<>();
+    snapshot.put( "sampleRate", sampleRate ); //$NON-NLS-1$
+    snapshot.put( "sampledRequests", getSampledRequests() ); //$NON-NLS-1$
+    snapshot.put( "endpoints", endpointMaps ); //$NON-NLS-1$
+    return snapshot;
+  }
+
+  public void reset() {
+    endpoints.clear();
+    sampledRequests.reset();
+  }
+
+  /**
+   * A stage of a traced request. Closing a span also closes any span opened in it that was left open.
+   */
+  public interface Span extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  /**
+   * A request handed over to asynchronous processing by {@link RequestTracer#startAsync()}.
+   */
+  public interface AsyncTrace {
+    /**
+     * Continues the trace on the calling thread with a span for the given stage. The time spent until the span is
+     * closed is added to the request.
+     */
+    Span resume( String stage );
+
+    /**
+     * Marks the asynchronous processing as complete. The request is recorded once this has been called and the
+     * request thread has returned, whichever comes last.
+     */
+    void complete();
+  }
+
+  /**
+   * The spans of the request traced on a thread. A request continued on another thread gets a branch trace there,
+   * whose stage times are added to the request when its outermost span closes.
+   */
+  static class Trace {
+    private final RequestTracer tracer;
+    private final String requestId;
+    private volatile String endpoint;
+    private final Trace parent;
+    private final Trace previous;
+    private final long startNanos = System.nanoTime();
+    private final Deque<TraceSpan> spans = new ArrayDeque<>();
+    private final Map<String, Long> stageNanos = new HashMap<>();
+    private final Map<String, Long> counts = new HashMap<>();
+    // the request thread, and the asynchronous processing if the request was handed over
+    private int pending = 1;
+
+    Trace( final RequestTracer tracer, final String requestId, final String endpoint ) {
+      this.tracer = tracer;
+      this.requestId = requestId;
+      this.endpoint = endpoint;
+      this.parent = null;
+      this.previous = null;
+    }
+
+    Trace( final Trace parent, final Trace previous ) {
+      this.tracer = parent.tracer;
+      this.requestId = parent.requestId;
+      this.parent = parent;
+      this.previous = previous;
+    }
+
+    Trace getRoot() {
+      return parent == null ? this : parent;
+    }
+
+    Span startSpan( final String stage ) {
+      if ( tracer == null ) {
+        return NOOP;
+      }
+      TraceSpan span = new TraceSpan( this, stage );
+      spans.push( span );
+      return span;
+    }
+
+    synchronized void addStage( final String stage, final long nanos ) {
+      stageNanos.merge( stage, nanos, Long::sum );
+    }
+
+    synchronized void addCount( final String event, final long count ) {
+      counts.merge( event, count, Long::sum );
+    }
+
+    synchronized void hold() {
+      pending++;
+    }
+
+    void finish() {
+      if ( previous == null ) {
+        currentTrace.remove();
+      } else {
+        currentTrace.set( previous );
+      }
+      if ( parent == null ) {
+        release();
+        return;
+      }
+      synchronized ( this ) {
+        for ( Map.Entry<String, Long> stage : stageNanos.entrySet() ) {
+          parent.addStage( stage.getKey(), stage.getValue() );
+        }
+        for ( Map.Entry<String, Long> count : counts.entrySet() ) {
+          parent.addCount( count.getKey(), count.getValue() );
+        }
+      }
+    }
+
+    void release() {
+      synchronized ( this ) {
+        if ( --pending > 0 ) {
+          return;
+        }
+      }
+      tracer.record( this, System.nanoTime() - startNanos );
+    }
+  }
+
+  private static class TraceSpan implements Span {
+    private final Trace trace;
+    private final String stage;
+    private final long start = System.nanoTime();
+    private long childNanos;
+    private boolean closed;
+
+    TraceSpan( final Trace trace, final String stage ) {
+      this.trace = trace;
+      this.stage = stage;
+    }
+
+    @Override
+    public void close() {
+      if ( closed ) {
+        return;
+      }
+      long now = System.nanoTime();
+      // e.g. a resource method that threw before the span closing it ran
+      while ( !trace.spans.isEmpty() && trace.spans.peek() != this ) {
+        trace.spans.peek().finish( now );
+      }
+      finish( now );
+    }
+
+    private void finish( final long now ) {
+      closed = true;
+      trace.spans.remove( this );
+      long duration = now - start;
+      trace.addStage( stage, duration - childNanos );
+      TraceSpan parent = trace.spans.peek();
+      if ( parent != null ) {
+        parent.childNanos += duration;
+      } else {
+        trace.finish();
+      }
+    }
+  }
+
+  private static class EndpointStats {
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final ConcurrentMap<String, LatencyHistogram> stages = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> counts = new ConcurrentHashMap<>();
+    private volatile long slowestNanos;
+    private String slowestRequestId;
+
+    void record( final Trace trace, final long totalNanos ) {
+      total.record( totalNanos );
+      Map<String, Long> stageNanos;
+      Map<String, Long> traceCounts;
+      synchronized ( trace ) {
+        stageNanos = new HashMap<>( trace.stageNanos );
+        traceCounts = new HashMap<>( trace.counts );
+      }
+      for ( Map.Entry<String, Long> stage : stageNanos.entrySet() ) {
+        stages.computeIfAbsent( stage.getKey(), key -> new LatencyHistogram() ).record( stage.getValue() );
+      }
+      for ( Map.Entry<String, Long> count : traceCounts.entrySet() ) {
+        counts.computeIfAbsent( count.getKey(), key -> new LongAdder() ).add( count.getValue() );
+      }
+      if ( totalNanos > slowestNanos ) {
+        synchronized ( this ) {
+          if ( totalNanos > slowestNanos ) {
+            slowestNanos = totalNanos;
+            slowestRequestId = trace.requestId;
+          }
+        }
+      }
+    }
+
+    synchronized Map<String, Object> toMap() {
+      Map<String, Object> map = total.toMap();
+      map.put( "slowestRequestId", slowestRequestId ); //$NON-NLS-1$
+      Map<String, Object> stageMaps = new TreeMap<>();
+      for ( Map.Entry<String, LatencyHistogram> stage : stages.entrySet() ) {
+        stageMaps.put( stage.getKey(), stage.getValue().toMap() );
+      }
+      map.put( "stages", stageMaps ); //$NON-NLS-1$
+      Map<String, Object> countMap = new TreeMap<>();
+      for ( Map.Entry<String, LongAdder> count : counts.entrySet() ) {
+        countMap.put( count.getKey(), count.getValue().sum() );
+      }
+      map.put( "counts", countMap ); //$NON-NLS-1$
+      return map;
+    }
+  }
+}
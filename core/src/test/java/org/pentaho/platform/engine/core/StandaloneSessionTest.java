@@ -14,14 +14,25 @@
 package org.pentaho.platform.engine.core;
 
 import junit.framework.TestCase;
+import org.pentaho.platform.api.engine.IPentahoSession;
+import org.pentaho.platform.api.engine.ISessionContainer;
 import org.pentaho.platform.api.util.ITempFileDeleter;
 import org.pentaho.platform.engine.core.system.StandaloneApplicationContext;
 import org.pentaho.platform.engine.core.system.StandaloneSession;
 import org.pentaho.platform.engine.core.system.StandaloneTempFileDeleter;
 import org.pentaho.platform.util.UUIDUtil;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 
 @SuppressWarnings( "nls" )
 public class StandaloneSessionTest extends TestCase {
@@ -205,4 +216,115 @@ public class StandaloneSessionTest extends TestCase {
     }
   }
 
+  public void testSerialization() throws Exception {
+    StandaloneSession session =
+        new StandaloneSession( "testname", "testid", Locale.GERMANY ); //$NON-NLS-1$ //$NON-NLS-2$
+    session.setAuthenticated( "testuser" ); //$NON-NLS-1$
+    session.setProcessId( "testprocess" ); //$NON-NLS-1$
+    session.setBackgroundExecutionAlert();
+    session.setAttribute( "roles", //$NON-NLS-1$
+        new ArrayList<>( Arrays.asList( "Authenticated", "Author" ) ) ); //$NON-NLS-1$ //$NON-NLS-2$
+    Map<String, Object> cache = new HashMap<>();
+    cache.put( "loader", new Object() ); //$NON-NLS-1$
+    session.setAttribute( "cache", cache ); //$NON-NLS-1$
+    session.setAttribute( ITempFileDeleter.DELETER_SESSION_VARIABLE, new StandaloneTempFileDeleter() );
+    SessionHolder holder = new SessionHolder();
+    holder.setSession( session );
+    session.setAttribute( "holder", holder ); //$NON-NLS-1$
+
+    StandaloneSession copy = (StandaloneSession) deserialize( serialize( session ) );
+    assertEquals( "testuser", copy.getName() ); //$NON-NLS-1$
+    assertEquals( "testid", copy.getId() ); //$NON-NLS-1$
+    assertEquals( Locale.GERMANY, copy.getLocale() );
+    assertEquals( "testprocess", copy.getProcessId() ); //$NON-NLS-1$
+    assertEquals( "", copy.getActionName() ); //$NON-NLS-1$
+    assertTrue( copy.isAuthenticated() );
+    assertTrue( copy.getBackgroundExecutionAlert() );
+    assertEquals( session.getAttribute( "roles" ), copy.getAttribute( "roles" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+    // attributes that cannot be written are left out, to be rebuilt when needed
+    assertNull( copy.getAttribute( "cache" ) ); //$NON-NLS-1$
+    assertNull( copy.getAttribute( ITempFileDeleter.DELETER_SESSION_VARIABLE ) );
+    assertSame( copy, ( (SessionHolder) copy.getAttribute( "holder" ) ).session ); //$NON-NLS-1$
+
+    session.destroy();
+    try {
+      ( (StandaloneSession) deserialize( serialize( session ) ) ).getAttributeNames();
+      fail( "A destroyed session must stay destroyed" ); //$NON-NLS-1$
+    } catch ( IllegalStateException e ) {
+      // expected
+    }
+  }
+
+  /**
+   * Reports the size of a typical logged-in session and the time it takes to write and read it, as the container does
+   * when it persists or replicates the http session.
+   */
+  public void testSerializationCost() throws Exception {
+    StandaloneSession session = new StandaloneSession( "admin", UUIDUtil.getUUIDAsString(), Locale.US ); //$NON-NLS-1$
+    session.setAuthenticated( "admin" ); //$NON-NLS-1$
+    session.setAttribute( "roles", new ArrayList<>( //$NON-NLS-1$
+        Arrays.asList( "Authenticated", "Administrator", "Power User" ) ) ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    session.setAttribute( "org.pentaho.tenantId", "/pentaho/tenant0" ); //$NON-NLS-1$ //$NON-NLS-2$
+    session.setAttribute( "locale_override", Locale.FRANCE ); //$NON-NLS-1$
+    Map<String, String> settings = new HashMap<>();
+    for ( int i = 0; i < 20; i++ ) {
+      settings.put( "setting" + i, "value" + i ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    session.setAttribute( "user-settings", settings ); //$NON-NLS-1$
+    ArrayList<String> recent = new ArrayList<>();
+    for ( int i = 0; i < 10; i++ ) {
+      recent.add( "/home/admin/report" + i + ".prpt" ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    session.setAttribute( "recent", recent ); //$NON-NLS-1$
+    session.setAttribute( ITempFileDeleter.DELETER_SESSION_VARIABLE, new StandaloneTempFileDeleter() );
+
+    int warmup = 200;
+    int iterations = 1000;
+    byte[] bytes = null;
+    for ( int i = 0; i < warmup; i++ ) {
+      deserialize( serialize( session ) );
+    }
+    long start = System.nanoTime();
+    for ( int i = 0; i < iterations; i++ ) {
+      bytes = serialize( session );
+    }
+    long serializeNanos = System.nanoTime() - start;
+    StandaloneSession copy = null;
+    start = System.nanoTime();
+    for ( int i = 0; i < iterations; i++ ) {
+      copy = (StandaloneSession) deserialize( bytes );
+    }
+    long deserializeNanos = System.nanoTime() - start;
+
+    System.out.println( "Logged-in session: " + bytes.length + " bytes, serialize " //$NON-NLS-1$ //$NON-NLS-2$
+        + serializeNanos / iterations / 1000.0 + " us, deserialize " //$NON-NLS-1$
+        + deserializeNanos / iterations / 1000.0 + " us" ); //$NON-NLS-1$
+    assertEquals( settings, copy.getAttribute( "user-settings" ) ); //$NON-NLS-1$
+    assertEquals( Locale.FRANCE, copy.getAttribute( "locale_override" ) ); //$NON-NLS-1$
+  }
+
+  private static byte[] serialize( Object object ) throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try ( ObjectOutputStream out = new ObjectOutputStream( bytes ) ) {
+      out.writeObject( object );
+    }
+    return bytes.toByteArray();
+  }
+
+  private static Object deserialize( byte[] bytes ) throws Exception {
+    try ( ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( bytes ) ) ) {
+      return in.readObject();
+    }
+  }
+
+  private static class SessionHolder implements ISessionContainer, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private IPentahoSession session;
+
+    public void setSession( IPentahoSession sess ) {
+      this.session = sess;
+    }
+  }
+
 }
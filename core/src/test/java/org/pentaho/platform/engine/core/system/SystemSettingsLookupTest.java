@@ -0,0 +1,163 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.engine.core.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SystemSettingsLookupTest {
+
+  private static final String SETTINGS =
+      "<pentaho-system>"
+      + "<log-level>DEBUG</log-level>"
+      + "<cache><max-rows>10</max-rows></cache>"
+      + "<other><max-rows>20</max-rows><name>other</name></other>"
+      + "<objects><object>first</object><object>second</object></objects>"
+      + "</pentaho-system>";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private SystemSettings settings;
+
+  @Before
+  public void setUp() throws IOException {
+    write( "pentaho.xml", SETTINGS );
+    settings = new SystemSettings() {
+      @Override
+      protected String getAbsolutePath( final String path ) {
+        return new File( folder.getRoot(), path ).getAbsolutePath();
+      }
+    };
+  }
+
+  @After
+  public void tearDown() {
+    SystemSettings.closeSettingsWatcher();
+  }
+
+  @Test
+  public void testLookupsMatchXPath() {
+    assertEquals( "DEBUG", settings.getSystemSetting( "log-level", null ) );
+    assertEquals( "10", settings.getSystemSetting( "max-rows", null ) );
+    assertEquals( "10", settings.getSystemSetting( "cache/max-rows", null ) );
+    assertEquals( "20", settings.getSystemSetting( "other/max-rows", null ) );
+    assertEquals( "20", settings.getSystemSetting( "pentaho-system/other/max-rows", null ) );
+    assertEquals( "first", settings.getSystemSetting( "objects/object", null ) );
+    assertEquals( "20", settings.getSystemSetting( "other/*", null ) );
+    assertEquals( "default", settings.getSystemSetting( "cache/name", "default" ) );
+    assertEquals( "default", settings.getSystemSetting( "missing", "default" ) );
+    assertEquals( "default", settings.getSystemSetting( "other[1]", "default" ) );
+    assertEquals( "default", settings.getSystemSetting( "missing.xml", "log-level", "default" ) );
+  }
+
+  @Test
+  public void testResetSettingsCache() throws IOException {
+    System.setProperty( SystemSettings.SYSTEM_SETTINGS_WATCH_KEY, "false" );
+    try {
+      assertEquals( "10", settings.getSystemSetting( "cache/max-rows", null ) );
+      write( "pentaho.xml", SETTINGS.replace( "10", "11" ) );
+      assertEquals( "10", settings.getSystemSetting( "cache/max-rows", null ) );
+      settings.resetSettingsCache();
+      assertEquals( "11", settings.getSystemSetting( "cache/max-rows", null ) );
+    } finally {
+      System.clearProperty( SystemSettings.SYSTEM_SETTINGS_WATCH_KEY );
+    }
+  }
+
+  @Test
+  public void testReload() throws IOException {
+    assertEquals( "10", settings.getSystemSetting( "cache/max-rows", null ) );
+    assertEquals( 2, settings.getSystemSettings( "objects/object" ).size() );
+
+    write( "pentaho.xml", SETTINGS.replace( "10", "11" ).replace( "<object>second</object>", "" ) );
+    settings.reload( "pentaho.xml" );
+    assertEquals( "11", settings.getSystemSetting( "cache/max-rows", null ) );
+    assertEquals( 1, settings.getSystemSettings( "objects/object" ).size() );
+
+    // a file that does not parse keeps the previous settings
+    write( "pentaho.xml", "<pentaho-system>" );
+    settings.reload( "pentaho.xml" );
+    assertEquals( "11", settings.getSystemSetting( "cache/max-rows", null ) );
+
+    new File( folder.getRoot(), "pentaho.xml" ).delete();
+    settings.reload( "pentaho.xml" );
+    assertNull( settings.getSystemSetting( "cache/max-rows", null ) );
+  }
+
+  @Test
+  public void testChangedFileIsReloaded() throws Exception {
+    assertEquals( "10", settings.getSystemSetting( "cache/max-rows", null ) );
+    write( "pentaho.xml", SETTINGS.replace( "10", "12" ) );
+
+    long timeout = System.currentTimeMillis() + 30000;
+    while ( !"12".equals( settings.getSystemSetting( "cache/max-rows", null ) )
+        && System.currentTimeMillis() < timeout ) {
+      Thread.sleep( 50 );
+    }
+    assertEquals( "12", settings.getSystemSetting( "cache/max-rows", null ) );
+  }
+
+  @Test
+  public void testWatcherIsSharedAndClosed() throws Exception {
+    SystemSettings other = new SystemSettings() {
+      @Override
+      protected String getAbsolutePath( final String path ) {
+        return new File( folder.getRoot(), path ).getAbsolutePath();
+      }
+    };
+    // start from no watch, whatever other tests left running
+    SystemSettings.closeSettingsWatcher();
+    awaitWatcherThreads( 0 );
+    assertEquals( "10", settings.getSystemSetting( "cache/max-rows", null ) );
+    assertEquals( "10", other.getSystemSetting( "cache/max-rows", null ) );
+    assertEquals( 1, countWatcherThreads() );
+
+    SystemSettings.closeSettingsWatcher();
+    awaitWatcherThreads( 0 );
+    assertEquals( 0, countWatcherThreads() );
+  }
+
+  private static void awaitWatcherThreads( final int count ) throws InterruptedException {
+    long timeout = System.currentTimeMillis() + 30000;
+    while ( countWatcherThreads() != count && System.currentTimeMillis() < timeout ) {
+      Thread.sleep( 50 );
+    }
+  }
+
+  private static int countWatcherThreads() {
+    int count = 0;
+    for ( Thread thread : Thread.getAllStackTraces().keySet() ) {
+      if ( thread.isAlive() && "system-settings-watcher".equals( thread.getName() ) ) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private void write( final String name, final String content ) throws IOException {
+    Files.write( new File( folder.getRoot(), name ).toPath(), content.getBytes( StandardCharsets.UTF_8 ) );
+  }
+}
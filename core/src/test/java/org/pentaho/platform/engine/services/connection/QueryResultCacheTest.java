@@ -0,0 +1,146 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.engine.services.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.base.Ticker;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.commons.connection.IPentahoResultSet;
+import org.pentaho.commons.connection.memory.MemoryMetaData;
+import org.pentaho.commons.connection.memory.MemoryResultSet;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+public class QueryResultCacheTest {
+
+  private long nanos;
+  private QueryResultCache cache;
+
+  @Before
+  public void setUp() {
+    nanos = 0;
+    cache = new QueryResultCache( 10, 60, new Ticker() {
+      @Override
+      public long read() {
+        return nanos;
+      }
+    } );
+  }
+
+  @Test
+  public void testHitAndMiss() {
+    QueryResultCache.Key key = key( "SampleData", "select * from t where a = ?", "x", "Authenticated" );
+    assertNull( cache.get( key ) );
+
+    assertTrue( cache.put( key, resultSet( 3 ) ) );
+    IPentahoResultSet first = cache.get( key );
+    IPentahoResultSet second = cache.get( key );
+    assertNotNull( first );
+    assertNotSame( first, second );
+    assertEquals( 3, first.getRowCount() );
+    assertEquals( "row2", first.getValueAt( 2, 0 ) );
+    assertEquals( 2, cache.getStats().hitCount() );
+    assertEquals( 1, cache.getStats().missCount() );
+  }
+
+  @Test
+  public void testKeyNormalizesQueryAndRoleOrder() {
+    cache.put( QueryResultCache.createKey( "SampleData", "select *\n  from t", Collections.emptyList(),
+      Arrays.asList( "Power User", "Authenticated" ) ), resultSet( 1 ) );
+
+    assertNotNull( cache.get( QueryResultCache.createKey( "SampleData", " select * from t ", null,
+      Arrays.asList( "Authenticated", "Power User" ) ) ) );
+    assertNull( cache.get( QueryResultCache.createKey( "SampleData", "select * from t", null,
+      Arrays.asList( "Authenticated" ) ) ) );
+  }
+
+  @Test
+  public void testParametersArePartOfKey() {
+    cache.put( key( "SampleData", "select * from t where a = ?", "x", "Authenticated" ), resultSet( 1 ) );
+    assertNull( cache.get( key( "SampleData", "select * from t where a = ?", "y", "Authenticated" ) ) );
+  }
+
+  @Test
+  public void testMaxRowsAndDatasourceArePartOfKey() {
+    cache.put(
+      QueryResultCache.createKey( "SampleData", "select * from t", 10, null, Arrays.asList( "Authenticated" ) ),
+      resultSet( 3 ) );
+
+    assertNotNull( cache.get(
+      QueryResultCache.createKey( "SampleData", "select * from t", 10, null, Arrays.asList( "Authenticated" ) ) ) );
+    assertEquals( 1, cache.getStats().hitCount() );
+    assertNull( cache.get(
+      QueryResultCache.createKey( "SampleData", "select * from t", -1, null, Arrays.asList( "Authenticated" ) ) ) );
+    assertNull( cache.get(
+      QueryResultCache.createKey( "SampleData", "select * from t", 5, null, Arrays.asList( "Authenticated" ) ) ) );
+    assertNull( cache.get(
+      QueryResultCache.createKey( "Other", "select * from t", 10, null, Arrays.asList( "Authenticated" ) ) ) );
+    assertEquals( 1, cache.getStats().hitCount() );
+    assertEquals( 3, cache.getStats().missCount() );
+  }
+
+  @Test
+  public void testExpiresAfterTimeToLive() {
+    QueryResultCache.Key key = key( "SampleData", "select 1", "x", "Authenticated" );
+    cache.put( key, resultSet( 1 ) );
+    nanos += TimeUnit.SECONDS.toNanos( 59 );
+    assertNotNull( cache.get( key ) );
+    nanos += TimeUnit.SECONDS.toNanos( 2 );
+    assertNull( cache.get( key ) );
+  }
+
+  @Test
+  public void testResultsLargerThanCacheAreNotStored() {
+    QueryResultCache.Key key = key( "SampleData", "select 1", "x", "Authenticated" );
+    assertFalse( cache.put( key, resultSet( 11 ) ) );
+    assertNull( cache.get( key ) );
+  }
+
+  @Test
+  public void testInvalidateDatasource() {
+    QueryResultCache.Key sampleData = key( "SampleData", "select 1", "x", "Authenticated" );
+    QueryResultCache.Key other = key( "Other", "select 1", "x", "Authenticated" );
+    cache.put( sampleData, resultSet( 1 ) );
+    cache.put( other, resultSet( 1 ) );
+
+    cache.invalidate( "SampleData" );
+    assertNull( cache.get( sampleData ) );
+    assertNotNull( cache.get( other ) );
+
+    cache.invalidateAll();
+    assertEquals( 0, cache.size() );
+    assertEquals( QueryResultCache.CACHE_KEY, cache.getCacheKey() );
+  }
+
+  private static QueryResultCache.Key key( String datasource, String query, String param, String role ) {
+    return QueryResultCache.createKey( datasource, query, Arrays.asList( param ), Arrays.asList( role ) );
+  }
+
+  private static IPentahoResultSet resultSet( int rows ) {
+    MemoryResultSet resultSet = new MemoryResultSet( new MemoryMetaData( new String[][] { { "col" } }, null ) );
+    for ( int i = 0; i < rows; i++ ) {
+      resultSet.addRow( new Object[] { "row" + i } );
+    }
+    return resultSet;
+  }
+}
@@ -0,0 +1,164 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.uifoundation.chart;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.awt.Rectangle;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jfree.chart.ChartRenderingInfo;
+import org.jfree.chart.entity.ChartEntity;
+import org.jfree.chart.entity.StandardEntityCollection;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChartRenderCacheTest {
+
+  private ChartRenderCache cache;
+
+  @Before
+  public void setUp() {
+    cache = new ChartRenderCache( 1 );
+  }
+
+  @Test
+  public void testKeyIsContentAddressed() {
+    String key = cache.getKey( dataset( 1 ), "title", "", 300, 200, JFreeChartEngine.OUTPUT_PNG );
+    assertNotNull( key );
+    assertEquals( key, cache.getKey( dataset( 1 ), "title", "", 300, 200, JFreeChartEngine.OUTPUT_PNG ) );
+    assertNotEquals( key, cache.getKey( dataset( 2 ), "title", "", 300, 200, JFreeChartEngine.OUTPUT_PNG ) );
+    assertNotEquals( key, cache.getKey( dataset( 1 ), "title", "", 300, 201, JFreeChartEngine.OUTPUT_PNG ) );
+    assertNotEquals( key, cache.getKey( dataset( 1 ), "title", "", 300, 200, JFreeChartEngine.OUTPUT_SVG ) );
+  }
+
+  @Test
+  public void testPutAndGet() {
+    ChartRenderCache.RenderedChart chart =
+      new ChartRenderCache.RenderedChart( "key", new byte[] { 1, 2, 3 }, JFreeChartEngine.OUTPUT_PNG, null );
+    assertNull( cache.get( "key" ) );
+    assertNull( cache.get( null ) );
+    cache.put( "key", chart );
+    cache.putImage( "system/tmp/tmp_chart_1.png", chart );
+    assertSame( chart, cache.get( "key" ) );
+    assertSame( chart, cache.getImage( "system/tmp/tmp_chart_1.png" ) );
+    assertEquals( "image/png", chart.getMimeType() );
+
+    cache.clear();
+    assertNull( cache.get( "key" ) );
+    assertNull( cache.getImage( "system/tmp/tmp_chart_1.png" ) );
+  }
+
+  @Test
+  public void testEvictsBySize() {
+    cache.put( "big", new ChartRenderCache.RenderedChart( "big", new byte[2048], JFreeChartEngine.OUTPUT_PNG, null ) );
+    assertNull( cache.get( "big" ) );
+  }
+
+  @Test
+  public void testImagesAreBoundedByCharts() {
+    ChartRenderCache.RenderedChart chart =
+      new ChartRenderCache.RenderedChart( "key", new byte[] { 1 }, JFreeChartEngine.OUTPUT_PNG, null );
+    cache.putImage( "system/tmp/tmp_chart_1.png", chart );
+    assertNull( cache.getImage( "system/tmp/tmp_chart_1.png" ) );
+
+    cache.put( "key", chart );
+    assertSame( chart, cache.getImage( "system/tmp/tmp_chart_1.png" ) );
+
+    ChartRenderCache.RenderedChart big =
+      new ChartRenderCache.RenderedChart( "big", new byte[2048], JFreeChartEngine.OUTPUT_PNG, null );
+    cache.put( "big", big );
+    cache.putImage( "system/tmp/tmp_chart_2.png", big );
+    assertNull( cache.getImage( "system/tmp/tmp_chart_2.png" ) );
+  }
+
+  @Test
+  public void testConcurrentRequestsRenderOnce() throws Exception {
+    final AtomicInteger renders = new AtomicInteger();
+    final CountDownLatch rendering = new CountDownLatch( 1 );
+    final CountDownLatch release = new CountDownLatch( 1 );
+    final Callable<ChartRenderCache.RenderedChart> renderer = new Callable<ChartRenderCache.RenderedChart>() {
+      public ChartRenderCache.RenderedChart call() throws Exception {
+        renders.incrementAndGet();
+        rendering.countDown();
+        release.await( 10, TimeUnit.SECONDS );
+        return new ChartRenderCache.RenderedChart( "key", new byte[] { 1 }, JFreeChartEngine.OUTPUT_PNG, null );
+      }
+    };
+    Callable<ChartRenderCache.RenderedChart> request = new Callable<ChartRenderCache.RenderedChart>() {
+      public ChartRenderCache.RenderedChart call() throws Exception {
+        return cache.get( "key", renderer );
+      }
+    };
+    ExecutorService executor = Executors.newFixedThreadPool( 2 );
+    try {
+      Future<ChartRenderCache.RenderedChart> first = executor.submit( request );
+      rendering.await( 10, TimeUnit.SECONDS );
+      Future<ChartRenderCache.RenderedChart> second = executor.submit( request );
+      Thread.sleep( 100 );
+      release.countDown();
+      assertSame( first.get(), second.get() );
+      assertEquals( 1, renders.get() );
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testChartsWithoutKeyAreNotCached() throws Exception {
+    ChartRenderCache.RenderedChart chart =
+      cache.get( null, new Callable<ChartRenderCache.RenderedChart>() {
+        public ChartRenderCache.RenderedChart call() {
+          return new ChartRenderCache.RenderedChart( null, new byte[] { 1 }, JFreeChartEngine.OUTPUT_PNG, null );
+        }
+      } );
+    assertNotNull( chart );
+    assertEquals( 0, cache.getStats().requestCount() );
+  }
+
+  @Test
+  public void testPopulateCopiesEntities() {
+    ChartRenderingInfo renderInfo = new ChartRenderingInfo( new StandardEntityCollection() );
+    renderInfo.getEntityCollection().add( new ChartEntity( new Rectangle( 0, 0, 10, 10 ), "tip", "url" ) );
+    ChartRenderCache.RenderedChart chart =
+      new ChartRenderCache.RenderedChart( "key", new byte[ 0 ], JFreeChartEngine.OUTPUT_PNG, renderInfo );
+
+    ChartRenderingInfo first = new ChartRenderingInfo( new StandardEntityCollection() );
+    ChartRenderingInfo second = new ChartRenderingInfo( new StandardEntityCollection() );
+    chart.populate( first );
+    chart.populate( second );
+    assertEquals( 1, first.getEntityCollection().getEntityCount() );
+    assertEquals( 1, second.getEntityCollection().getEntityCount() );
+    assertNotSame( first.getEntityCollection().getEntity( 0 ), second.getEntityCollection().getEntity( 0 ) );
+    assertEquals( "url", first.getEntityCollection().getEntity( 0 ).getURLText() );
+  }
+
+  private static DefaultCategoryDataset dataset( int value ) {
+    DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+    dataset.addValue( value, "row", "column" );
+    return dataset;
+  }
+}
@@ -0,0 +1,171 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.util.trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class RequestTracerTest {
+
+  @After
+  public void tearDown() {
+    RequestTracer.setInstance( null );
+  }
+
+  @Test
+  @SuppressWarnings( "unchecked" )
+  public void testStagesExcludeNestedTime() throws Exception {
+    RequestTracer tracer = new RequestTracer( 1, 10 );
+    RequestTracer.setInstance( tracer );
+
+    try ( RequestTracer.Span root = RequestTracer.startRequest( "filter", "rid", "GET /api" ) ) {
+      try ( RequestTracer.Span inner = RequestTracer.startRequest( "other-filter", null, "GET /api" ) ) {
+        RequestTracer.setEndpoint( "GET FileResource.doGetChildren" );
+        try ( RequestTracer.Span jcr = RequestTracer.startSpan( "jcr" ) ) {
+          Thread.sleep( 20 );
+        }
+      }
+    }
+
+    assertEquals( 1, tracer.getSampledRequests() );
+    assertNull( tracer.getHistogram( "GET /api" ) );
+    LatencyHistogram total = tracer.getHistogram( "GET FileResource.doGetChildren" );
+    LatencyHistogram jcr = tracer.getHistogram( "GET FileResource.doGetChildren", "jcr" );
+    LatencyHistogram filter = tracer.getHistogram( "GET FileResource.doGetChildren", "filter" );
+    assertEquals( 1, total.getCount() );
+    assertEquals( 1, jcr.getCount() );
+    assertEquals( 1, tracer.getHistogram( "GET FileResource.doGetChildren", "other-filter" ).getCount() );
+    assertTrue( jcr.getMeanMillis() >= 20 );
+    assertTrue( total.getMeanMillis() >= jcr.getMeanMillis() );
+    assertTrue( filter.getMeanMillis() < jcr.getMeanMillis() );
+
+    Map<String, Object> endpoints = (Map<String, Object>) tracer.getSnapshot().get( "endpoints" );
+    assertEquals( "rid", ( (Map<String, Object>) endpoints.get( "GET FileResource.doGetChildren" ) )
+      .get( "slowestRequestId" ) );
+  }
+
+  @Test
+  public void testUnsampledRequestIsNotSampledFurtherDown() {
+    RequestTracer.setInstance( new RequestTracer( 0, 10 ) );
+    RequestTracer.Span root = RequestTracer.startRequest( "filter", null, "GET /api" );
+
+    // a filter further down the chain must not start tracing the same request
+    RequestTracer tracer = new RequestTracer( 1, 10 );
+    RequestTracer.setInstance( tracer );
+    RequestTracer.startRequest( "other-filter", null, "GET /api" ).close();
+    root.close();
+    assertEquals( 0, tracer.getSampledRequests() );
+
+    RequestTracer.startRequest( "filter", null, "GET /api" ).close();
+    assertEquals( 1, tracer.getSampledRequests() );
+  }
+
+  @Test
+  public void testSpansLeftOpenAreClosedWithTheirParent() {
+    RequestTracer tracer = new RequestTracer( 1, 10 );
+    RequestTracer.setInstance( tracer );
+
+    RequestTracer.Span root = RequestTracer.startRequest( "filter", null, "GET /api" );
+    RequestTracer.startSpan( "resource-method" );
+    root.close();
+    assertEquals( 1, tracer.getHistogram( "GET /api", "resource-method" ).getCount() );
+
+    // the trace is over, so this is not recorded anywhere
+    RequestTracer.startSpan( "jcr" ).close();
+    assertNull( tracer.getHistogram( "GET /api", "jcr" ) );
+    assertEquals( 1, tracer.getSampledRequests() );
+  }
+
+  @Test
+  public void testAsyncRequestIsRecordedWhenComplete() throws Exception {
+    RequestTracer tracer = new RequestTracer( 1, 10 );
+    RequestTracer.setInstance( tracer );
+
+    RequestTracer.Span root = RequestTracer.startRequest( "filter", null, "GET /api" );
+    RequestTracer.count( "load" );
+    final RequestTracer.AsyncTrace async = RequestTracer.startAsync();
+    Thread worker = new Thread( () -> {
+      try ( RequestTracer.Span span = async.resume( "worker" ) ) {
+        RequestTracer.setEndpoint( "GET FileResource.doGetChildren" );
+        RequestTracer.startSpan( "jcr" ).close();
+        RequestTracer.count( "load" );
+      }
+      // no longer traced
+      RequestTracer.count( "load" );
+    } );
+    worker.start();
+    worker.join();
+    // the request thread returns before the asynchronous processing completes
+    root.close();
+    assertEquals( 0, tracer.getSampledRequests() );
+
+    async.complete();
+    async.complete();
+    assertEquals( 1, tracer.getSampledRequests() );
+    assertEquals( 1, tracer.getHistogram( "GET FileResource.doGetChildren", "filter" ).getCount() );
+    assertEquals( 1, tracer.getHistogram( "GET FileResource.doGetChildren", "worker" ).getCount() );
+    assertEquals( 1, tracer.getHistogram( "GET FileResource.doGetChildren", "jcr" ).getCount() );
+    assertEquals( 2, tracer.getCount( "GET FileResource.doGetChildren", "load" ) );
+
+    // a task resumed on the request thread itself leaves the request thread's trace in place
+    root = RequestTracer.startRequest( "filter", null, "GET /api" );
+    RequestTracer.AsyncTrace inline = RequestTracer.startAsync();
+    inline.resume( "worker" ).close();
+    RequestTracer.startSpan( "jcr" ).close();
+    inline.complete();
+    root.close();
+    assertEquals( 2, tracer.getSampledRequests() );
+    assertEquals( 1, tracer.getHistogram( "GET /api", "jcr" ).getCount() );
+  }
+
+  @Test
+  public void testEndpointsAreBounded() {
+    RequestTracer tracer = new RequestTracer( 1, 1 );
+    RequestTracer.setInstance( tracer );
+
+    RequestTracer.startRequest( "filter", null, "GET /api" ).close();
+    RequestTracer.startRequest( "filter", null, "GET /content" ).close();
+    RequestTracer.startRequest( "filter", null, "GET /api" ).close();
+
+    assertEquals( 2, tracer.getHistogram( "GET /api" ).getCount() );
+    assertNull( tracer.getHistogram( "GET /content" ) );
+    assertEquals( 1, tracer.getHistogram( RequestTracer.OTHER_ENDPOINT ).getCount() );
+
+    tracer.reset();
+    assertNull( tracer.getHistogram( "GET /api" ) );
+  }
+
+  @Test
+  public void testHistogramPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for ( int i = 0; i < 98; i++ ) {
+      histogram.record( TimeUnit.MICROSECONDS.toNanos( 800 ) );
+    }
+    histogram.record( TimeUnit.MILLISECONDS.toNanos( 40 ) );
+    histogram.record( TimeUnit.SECONDS.toNanos( 120 ) );
+
+    assertEquals( 100, histogram.getCount() );
+    assertEquals( 1.0, histogram.getPercentileMillis( 50 ), 0.001 );
+    assertEquals( 50.0, histogram.getPercentileMillis( 99 ), 0.001 );
+    assertEquals( 120000.0, histogram.getPercentileMillis( 100 ), 0.001 );
+    assertEquals( 120000.0, histogram.getMaxMillis(), 0.001 );
+  }
+}
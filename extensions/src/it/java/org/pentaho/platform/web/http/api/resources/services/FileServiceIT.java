@@ -75,6 +75,7 @@ import java.security.GeneralSecurityException;
 import java.security.InvalidParameterException;
 import java.text.Collator;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -187,8 +188,8 @@ public class FileServiceIT {
 
     fileService.doDeleteFiles( PARAMS );
 
-    verify( fileService.getRepoWs(), times( 1 ) ).deleteFile( "file1", null );
-    verify( fileService.getRepoWs(), times( 1 ) ).deleteFile( "file2", null );
+    verify( fileService.getRepoWs(), times( 1 ) ).deleteFiles( Arrays.asList( "file1", "file2" ), false, null );
+    verify( fileService.getRepoWs(), never() ).deleteFile( nullable( String.class ), nullable( String.class ) );
   }
 
   @Test
@@ -331,7 +332,7 @@ public class FileServiceIT {
   public void testDoDeleteFilesException() throws Exception {
 
     doThrow( new IllegalArgumentException() ).when(
-      fileService.defaultUnifiedRepositoryWebService ).deleteFile( nullable( String.class ), nullable( String.class ) );
+      fileService.defaultUnifiedRepositoryWebService ).deleteFiles( anyList(), eq( false ), nullable( String.class ) );
 
     fileService.doDeleteFiles( PARAMS );
   }
@@ -457,8 +458,7 @@ public class FileServiceIT {
 
     fileService.doDeleteFilesPermanent( PARAMS );
 
-    verify( fileService.getRepoWs(), times( 1 ) ).deleteFileWithPermanentFlag( "file1", true, null );
-    verify( fileService.getRepoWs(), times( 1 ) ).deleteFileWithPermanentFlag( "file2", true, null );
+    verify( fileService.getRepoWs(), times( 1 ) ).deleteFiles( Arrays.asList( "file1", "file2" ), true, null );
   }
 
   @Test
@@ -499,8 +499,7 @@ public class FileServiceIT {
   public void testDoDeleteFilesPermanentException() throws Exception {
 
     doThrow( new IllegalArgumentException() ).when(
-      fileService.defaultUnifiedRepositoryWebService ).deleteFileWithPermanentFlag( nullable( String.class ), eq( true ),
-      nullable( String.class ) );
+      fileService.defaultUnifiedRepositoryWebService ).deleteFiles( anyList(), eq( true ), nullable( String.class ) );
 
     fileService.doDeleteFilesPermanent( PARAMS );
   }
@@ -517,8 +516,7 @@ public class FileServiceIT {
 
     fileService.doMoveFiles( destPathId, StringUtils.join( params, "," ) );
 
-    verify( fileService.getRepoWs(), times( 1 ) ).moveFile( params[ 0 ], destPathId, null );
-    verify( fileService.getRepoWs(), times( 1 ) ).moveFile( params[ 1 ], destPathId, null );
+    verify( fileService.getRepoWs(), times( 1 ) ).moveFiles( Arrays.asList( params ), destPathId, null );
   }
 
   @Test( expected = FileNotFoundException.class )
@@ -531,8 +529,8 @@ public class FileServiceIT {
     try {
       fileService.doMoveFiles( destPathId, StringUtils.join( params, "," ) );
     } catch ( FileNotFoundException e ) {
-      verify( fileService.getRepoWs(), times( 0 ) ).moveFile( params[ 0 ], destPathId, null );
-      verify( fileService.getRepoWs(), times( 0 ) ).moveFile( params[ 1 ], destPathId, null );
+      verify( fileService.getRepoWs(), times( 0 ) ).moveFiles( anyList(), nullable( String.class ),
+        nullable( String.class ) );
 
       throw e;
     }
@@ -547,14 +545,13 @@ public class FileServiceIT {
     doReturn( destPathId ).when( repositoryFileDto ).getPath();
 
     doReturn( repositoryFileDto ).when( fileService.defaultUnifiedRepositoryWebService ).getFile( destPathId );
-    doThrow( new InternalError() ).when( fileService.defaultUnifiedRepositoryWebService ).moveFile(
-      params[ 0 ], destPathId, null );
+    doThrow( new InternalError() ).when( fileService.defaultUnifiedRepositoryWebService ).moveFiles(
+      Arrays.asList( params ), destPathId, null );
 
     try {
       fileService.doMoveFiles( destPathId, StringUtils.join( params, "," ) );
     } catch ( Throwable e ) {
-      verify( fileService.getRepoWs(), times( 1 ) ).moveFile( params[ 0 ], destPathId, null );
-      verify( fileService.getRepoWs(), times( 0 ) ).moveFile( params[ 1 ], destPathId, null );
+      verify( fileService.getRepoWs(), times( 1 ) ).moveFiles( Arrays.asList( params ), destPathId, null );
 
       throw e;
     }
@@ -614,22 +611,20 @@ public class FileServiceIT {
 
     fileService.doRestoreFiles( StringUtils.join( params, "," ) );
 
-    verify( fileService.getRepoWs(), times( 1 ) ).undeleteFile( params[ 0 ], null );
-    verify( fileService.getRepoWs(), times( 1 ) ).undeleteFile( params[ 1 ], null );
+    verify( fileService.getRepoWs(), times( 1 ) ).undeleteFiles( Arrays.asList( params ), null );
   }
 
   @Test( expected = InternalError.class )
   public void testDoRestoreFilesException() throws InternalError {
     String[] params = { "file1", "file2" };
 
-    doThrow( new InternalError() ).when( fileService.defaultUnifiedRepositoryWebService ).undeleteFile(
-      params[ 0 ], null );
+    doThrow( new InternalError() ).when( fileService.defaultUnifiedRepositoryWebService ).undeleteFiles(
+      Arrays.asList( params ), null );
 
     try {
       fileService.doRestoreFiles( StringUtils.join( params, "," ) );
     } catch ( InternalError e ) {
-      verify( fileService.getRepoWs(), times( 1 ) ).undeleteFile( params[ 0 ], null );
-      verify( fileService.getRepoWs(), times( 0 ) ).undeleteFile( params[ 1 ], null );
+      verify( fileService.getRepoWs(), times( 1 ) ).undeleteFiles( Arrays.asList( params ), null );
 
       throw e;
     }
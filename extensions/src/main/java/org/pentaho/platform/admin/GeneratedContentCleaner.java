@@ -16,17 +16,31 @@ package org.pentaho.platform.admin;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.pentaho.platform.api.action.IAction;
+import org.pentaho.platform.api.engine.IPentahoSession;
 import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
 import org.pentaho.platform.api.repository2.unified.RepositoryFile;
 import org.pentaho.platform.api.repository2.unified.RepositoryFileTree;
 import org.pentaho.platform.api.scheduler2.IScheduler;
+import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.repository2.ClientRepositoryPaths;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 /*
  * This program is free software; you can redistribute it and/or modify it under the 
@@ -53,11 +67,23 @@ public class GeneratedContentCleaner implements IAction {
 
   private static final Log logger = LogFactory.getLog( GeneratedContentCleaner.class );
 
+  private static final String VERSION_MESSAGE = GeneratedContentCleaner.class.getName();
+
   // 180 days
   private long age = ( 180L * 24L * 60L * 60L * 1000L );
 
+  private int batchSize = 100;
+
+  private int pageSize = 1000;
+
+  private int threadCount = 4;
+
   private IUnifiedRepository repository;
 
+  private final AtomicLong deletedCount = new AtomicLong();
+
+  private final AtomicLong failedCount = new AtomicLong();
+
   /**
    * This class permanently deletes generated files which are older than the provided age. Generated content is
    * determined by using file metadata. If a file contains the "RESERVEDMAPKEY_LINEAGE_ID" key in the metadata, then
@@ -89,25 +115,150 @@ public class GeneratedContentCleaner implements IAction {
   }
 
   /*
-   * This method performs the actual work of the GeneratedContentCleaner by calling deleteFile with 'true' passed down
+   * This method performs the actual work of the GeneratedContentCleaner by calling deleteFiles with 'true' passed down
    * for the 'permanent' flag.
    * 
+   * Generated content is found with a repository query, a page at a time, and each page is deleted in batches which
+   * run in parallel. Repositories that cannot search file metadata are scanned as a whole instead.
+   * 
    * (non-Javadoc)
    * 
    * @see org.pentaho.platform.api.action.IAction#execute()
    */
   public void execute() throws Exception {
+    deletedCount.set( 0 );
+    failedCount.set( 0 );
+    long start = System.currentTimeMillis();
+    Date createdBefore = new Date( start - age );
+
+    if ( !repository.isMetadataSearchSupported() ) {
+      logger.debug( "Repository cannot search file metadata - scanning the whole repository" );
+      executeTreeScan();
+      return;
+    }
+    List<RepositoryFile> page =
+      repository.getFilesByMetadata( IScheduler.RESERVEDMAPKEY_LINEAGE_ID, createdBefore, 0, pageSize );
+
+    ExecutorService executor = Executors.newFixedThreadPool( Math.max( 1, threadCount ) );
+    try {
+      // files that could not be deleted stay at the head of the results, so the next page starts after them
+      int offset = 0;
+      Set<Serializable> previousPage = Collections.emptySet();
+      while ( !page.isEmpty() ) {
+        List<RepositoryFile> candidates = new ArrayList<RepositoryFile>( page.size() );
+        for ( RepositoryFile file : page ) {
+          if ( previousPage.contains( file.getId() ) ) {
+            offset++;
+          } else {
+            candidates.add( file );
+          }
+        }
+        deleteInBatches( executor, candidates );
+        logProgress( start );
+
+        previousPage = new HashSet<Serializable>();
+        for ( RepositoryFile file : candidates ) {
+          previousPage.add( file.getId() );
+        }
+        page = repository.getFilesByMetadata( IScheduler.RESERVEDMAPKEY_LINEAGE_ID, createdBefore, offset, pageSize );
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    logger.info( "GeneratedContentCleaner finished: " + deletedCount.get() + " files deleted, " + failedCount.get()
+      + " could not be deleted, in " + ( System.currentTimeMillis() - start ) + " ms" );
+  }
+
+  private void executeTreeScan() {
     // scan the repository for all files with a RESERVEDMAPKEY_LINEAGE_ID
     // we need to find and delete hidden generated files too (like .css and .png)
     RepositoryFileTree tree = repository.getTree( ClientRepositoryPaths.getRootFolderPath(), -1, null, true );
     ArrayList<RepositoryFile> generatedContentList = new ArrayList<RepositoryFile>();
     findGeneratedContent( generatedContentList, tree );
     for ( RepositoryFile deleteMe : generatedContentList ) {
-      repository.deleteFile( deleteMe.getId(), true, GeneratedContentCleaner.class.getName() );
+      repository.deleteFile( deleteMe.getId(), true, VERSION_MESSAGE );
       logger.info( "GeneratedContentCleaner deleting: " + deleteMe.getPath() );
     }
   }
 
+  private void deleteInBatches( ExecutorService executor, List<RepositoryFile> files )
+    throws InterruptedException, ExecutionException {
+    List<Future<Void>> batches = new ArrayList<Future<Void>>();
+    int size = Math.max( 1, batchSize );
+    for ( int i = 0; i < files.size(); i += size ) {
+      final List<RepositoryFile> batch = files.subList( i, Math.min( i + size, files.size() ) );
+      batches.add( executor.submit( inCurrentContext( new Callable<Void>() {
+        public Void call() {
+          deleteBatch( batch );
+          return null;
+        }
+      } ) ) );
+    }
+    for ( Future<Void> batch : batches ) {
+      batch.get();
+    }
+  }
+
+  private void deleteBatch( List<RepositoryFile> batch ) {
+    List<Serializable> ids = new ArrayList<Serializable>( batch.size() );
+    for ( RepositoryFile file : batch ) {
+      ids.add( file.getId() );
+    }
+    try {
+      // files the current user may not delete are skipped, and not counted
+      int deleted = repository.deleteFiles( ids, true, VERSION_MESSAGE );
+      deletedCount.addAndGet( deleted );
+      failedCount.addAndGet( batch.size() - deleted );
+      if ( logger.isDebugEnabled() ) {
+        logger.debug( "GeneratedContentCleaner deleted " + deleted + " of a batch of " + batch.size() + " files" );
+      }
+    } catch ( RuntimeException e ) {
+      // a batch is deleted as a whole; find out which of its files cannot be deleted
+      for ( RepositoryFile file : batch ) {
+        try {
+          repository.deleteFile( file.getId(), true, VERSION_MESSAGE );
+          if ( repository.getFileById( file.getId() ) == null ) {
+            deletedCount.incrementAndGet();
+          } else {
+            failedCount.incrementAndGet();
+            logger.warn( "GeneratedContentCleaner was not allowed to delete: " + file.getPath() );
+          }
+        } catch ( RuntimeException fileException ) {
+          failedCount.incrementAndGet();
+          logger.warn( "GeneratedContentCleaner could not delete: " + file.getPath(), fileException );
+        }
+      }
+    }
+  }
+
+  private void logProgress( long start ) {
+    long deleted = deletedCount.get();
+    long elapsed = Math.max( 1, System.currentTimeMillis() - start );
+    logger.info( "GeneratedContentCleaner progress: " + deleted + " files deleted (" + ( deleted * 1000 / elapsed )
+      + " files/s), " + failedCount.get() + " could not be deleted" );
+  }
+
+  /**
+   * Runs the task with the pentaho session and security context of the calling thread, which the repository checks
+   * access against.
+   */
+  private static <T> Callable<T> inCurrentContext( final Callable<T> task ) {
+    final IPentahoSession session = PentahoSessionHolder.getSession();
+    final SecurityContext securityContext = SecurityContextHolder.getContext();
+    return new Callable<T>() {
+      public T call() throws Exception {
+        PentahoSessionHolder.setSession( session );
+        SecurityContextHolder.setContext( securityContext );
+        try {
+          return task.call();
+        } finally {
+          PentahoSessionHolder.removeSession();
+          SecurityContextHolder.clearContext();
+        }
+      }
+    };
+  }
+
   /**
    * @return the age in milliseconds that the cleaner will use to determine if content should be removed
    */
@@ -125,4 +276,51 @@ public class GeneratedContentCleaner implements IAction {
     this.age = age;
   }
 
+  /**
+   * @return the number of files deleted together, in a single repository save
+   */
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize( int batchSize ) {
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * @return the number of generated files fetched from the repository at a time
+   */
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  public void setPageSize( int pageSize ) {
+    this.pageSize = pageSize;
+  }
+
+  /**
+   * @return the number of batches deleted in parallel
+   */
+  public int getThreadCount() {
+    return threadCount;
+  }
+
+  public void setThreadCount( int threadCount ) {
+    this.threadCount = threadCount;
+  }
+
+  /**
+   * @return the number of files deleted by the last run
+   */
+  public long getDeletedCount() {
+    return deletedCount.get();
+  }
+
+  /**
+   * @return the number of files the last run could not delete
+   */
+  public long getFailedCount() {
+    return failedCount.get();
+  }
+
 }
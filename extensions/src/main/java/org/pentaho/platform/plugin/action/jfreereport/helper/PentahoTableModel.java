@@ -34,6 +34,16 @@ public class PentahoTableModel extends AbstractTableModel implements CloseableTa
 
   private transient Object[][] rowHeaders;
 
+  /**
+   * rows known to exist in a result set that cannot tell its size up front
+   */
+  private transient int knownRows;
+
+  /**
+   * the highest row read so far
+   */
+  private transient int lastRowRead = -1;
+
   public PentahoTableModel( final IPentahoResultSet rs ) {
     super();
     resultSet = rs;
@@ -70,6 +80,7 @@ public class PentahoTableModel extends AbstractTableModel implements CloseableTa
     if ( resultSet == null ) {
       return null;
     }
+    lastRowRead = Math.max( lastRowRead, rowIndex );
 
     if ( rowHeaders == null ) {
       rowHeaders = resultSet.getMetaData().getRowHeaders();
@@ -106,11 +117,36 @@ public class PentahoTableModel extends AbstractTableModel implements CloseableTa
 
   public int getRowCount() {
     if ( resultSet != null ) {
-      return resultSet.getRowCount();
+      int rowCount = resultSet.getRowCount();
+      if ( rowCount < 0 ) {
+        // forward-only results know their size only once they have been read to the end
+        return countRowsAhead();
+      }
+      return rowCount;
     }
     return 0;
   }
 
+  /**
+   * Counts the rows of a result set that cannot tell its size up front as far as one row beyond the last row read.
+   * A reader walking the rows always finds the next one, and the result set is never read ahead of it to the end.
+   */
+  private int countRowsAhead() {
+    while ( knownRows <= lastRowRead + 1 && hasRow( knownRows ) ) {
+      knownRows++;
+    }
+    return knownRows;
+  }
+
+  private boolean hasRow( final int row ) {
+    try {
+      return resultSet.getDataRow( row ) != null;
+    } catch ( IndexOutOfBoundsException e ) {
+      // read past the last row
+      return false;
+    }
+  }
+
   @SuppressWarnings( "deprecation" )
   @Override
   public String getColumnName( int columnNumber ) {
@@ -154,6 +190,7 @@ public class PentahoTableModel extends AbstractTableModel implements CloseableTa
       resultSet.close();
     }
     resultSet = null;
+    countedRows = null;
     // JFreeReport wont listen, but it is always good style to comply to
     // the contract ..
     fireTableStructureChanged();
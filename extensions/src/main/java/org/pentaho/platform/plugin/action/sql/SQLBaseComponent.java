@@ -29,10 +29,14 @@ import org.pentaho.platform.api.data.IDataComponent;
 import org.pentaho.platform.api.data.IPreparedComponent;
 import org.pentaho.platform.api.engine.IParameterResolver;
 import org.pentaho.platform.engine.services.connection.PentahoConnectionFactory;
+import org.pentaho.platform.engine.services.connection.QueryResultCache;
 import org.pentaho.platform.engine.services.runtime.TemplateUtil;
 import org.pentaho.platform.engine.services.solution.ComponentBase;
 import org.pentaho.platform.plugin.action.messages.Messages;
 import org.pentaho.platform.plugin.services.connections.sql.SQLConnection;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.text.Format;
 import java.util.ArrayList;
@@ -54,6 +58,8 @@ public abstract class SQLBaseComponent extends ComponentBase implements IDataCom
 
   public static final String PREPARE_PARAMETER_PREFIX = "PREPARE"; //$NON-NLS-1$
 
+  public static final String CACHE_RESULTS_INPUT = "cache_results"; //$NON-NLS-1$
+
   /** stores the prepared query for later use */
   protected String preparedQuery = null;
 
@@ -63,6 +69,11 @@ public abstract class SQLBaseComponent extends ComponentBase implements IDataCom
   /** is set to false if using another IPreparedComponents connection vs own */
   protected boolean connectionOwner = true;
 
+  /**
+   * key of a result that was looked up, and missed, before the connection was opened
+   */
+  private QueryResultCache.Key resultCacheKey;
+
   /** reference to latest result set */
   private IPentahoResultSet rSet;
 
@@ -187,6 +198,8 @@ public abstract class SQLBaseComponent extends ComponentBase implements IDataCom
           this.setReadOnly( readOnlyInput.getBooleanValue() );
         }
 
+        IPentahoResultSet cachedResultSet = null;
+        resultCacheKey = null;
         if ( sharedConnection != null ) {
           connectionOwner = false;
           IPentahoConnection conn = sharedConnection.shareConnection();
@@ -203,10 +216,18 @@ public abstract class SQLBaseComponent extends ComponentBase implements IDataCom
           }
         } else {
           dispose();
-          connection = getDatasourceConnection();
+          if ( relationalDbAction.getOutputPreparedStatement() == null ) {
+            boolean live = !relationalDbAction.getPerformTransform().getBooleanValue( false )
+                && relationalDbAction.getLive().getBooleanValue( false );
+            int maxRows = maxRowsInput != ActionInputConstant.NULL_INPUT ? maxRowsInput.getIntValue() : getMaxRows();
+            cachedResultSet = getCachedResult( baseQuery, live, maxRows );
+          }
+          if ( cachedResultSet == null ) {
+            connection = getDatasourceConnection();
+          }
         }
 
-        if ( connection == null ) {
+        if ( connection == null && cachedResultSet == null ) {
           return false;
         }
 
@@ -233,8 +254,12 @@ public abstract class SQLBaseComponent extends ComponentBase implements IDataCom
         }
 
         if ( relationalDbAction.getPerformTransform().getBooleanValue( false ) ) {
-          runQuery( baseQuery, false ); // The side effect of
-          // transform rSet here
+          if ( cachedResultSet != null ) {
+            useCachedResult( relationalDbAction, cachedResultSet );
+          } else {
+            runQuery( baseQuery, false ); // The side effect of
+            // transform rSet here
+          }
 
           rSet =
               PentahoDataTransmuter.crossTab( rSet, relationalDbAction.getTransformPivotColumn().getIntValue( -1 ) - 1,
@@ -249,6 +274,8 @@ public abstract class SQLBaseComponent extends ComponentBase implements IDataCom
             actionOutput.setValue( rSet );
           }
           return true;
+        } else if ( cachedResultSet != null ) {
+          return useCachedResult( relationalDbAction, cachedResultSet );
         } else {
           return runQuery( baseQuery, relationalDbAction.getLive().getBooleanValue( false ) );
         }
@@ -563,6 +590,16 @@ public abstract class SQLBaseComponent extends ComponentBase implements IDataCom
       IPentahoResultSet resultSet = null;
       boolean isForwardOnly = relationalDbAction.getUseForwardOnlyResultSet().getBooleanValue( false );
 
+      QueryResultCache.Key cacheKey = resultCacheKey;
+      resultCacheKey = null;
+      if ( cacheKey == null && !live && isResultCacheEnabled() ) {
+        cacheKey = createResultCacheKey( query );
+        IPentahoResultSet cachedResultSet = cacheKey == null ? null : QueryResultCache.getInstance().get( cacheKey );
+        if ( cachedResultSet != null ) {
+          return useCachedResult( relationalDbAction, cachedResultSet );
+        }
+      }
+
       resultSet = doQuery( sqlConnection, query, isForwardOnly );
 
       if ( sqlConnection.isForcedForwardOnly() ) {
@@ -605,6 +642,9 @@ public abstract class SQLBaseComponent extends ComponentBase implements IDataCom
 
           IPentahoResultSet cachedResultSet = resultSet.memoryCopy();
           rSet = cachedResultSet;
+          if ( cacheKey != null ) {
+            QueryResultCache.getInstance().put( cacheKey, cachedResultSet );
+          }
 
           IActionOutput actionOutput = relationalDbAction.getOutputResultSet();
           if ( actionOutput != null ) {
@@ -626,6 +666,106 @@ public abstract class SQLBaseComponent extends ComponentBase implements IDataCom
     return false;
   }
 
+  /**
+   * result caching is enabled either by the cache_results input of the action or by listing the datasource in the
+   * sql-result-cache/datasources system setting.
+   *
+   * @return true if non-live results of this action may be served from the query result cache
+   */
+  protected boolean isResultCacheEnabled() {
+    if ( isDefinedInput( CACHE_RESULTS_INPUT ) ) {
+      return getInputBooleanValue( CACHE_RESULTS_INPUT, false );
+    }
+    return QueryResultCache.isCachedDatasource( getDatasourceName() );
+  }
+
+  /**
+   * looks the non-live result of the action up in the result cache before a connection is opened for it. On a miss,
+   * runQuery stores the result under the key that was looked up.
+   *
+   * @return the cached result, or null if there is none
+   */
+  protected IPentahoResultSet getCachedResult( final String rawQuery, final boolean live, final int maxRows ) {
+    resultCacheKey = null;
+    if ( live || !isResultCacheEnabled() ) {
+      return null;
+    }
+    QueryResultCache.Key cacheKey = createResultCacheKey( applyInputsToFormat( rawQuery ), maxRows );
+    // runQuery formats the query, and binds its parameters, again
+    preparedParameters.clear();
+    if ( cacheKey == null ) {
+      return null;
+    }
+    IPentahoResultSet cachedResultSet = QueryResultCache.getInstance().get( cacheKey );
+    if ( cachedResultSet == null ) {
+      resultCacheKey = cacheKey;
+    }
+    return cachedResultSet;
+  }
+
+  protected QueryResultCache.Key createResultCacheKey( final String query ) {
+    return createResultCacheKey( query, getMaxRows() );
+  }
+
+  /**
+   * builds the result cache key from the datasource, the formatted query, the row limit, the bound parameter values
+   * and the roles of the current user, so that results are never shared between users with different data access.
+   *
+   * @return the key, or null if the datasource of the connection is not known (for instance because the connection
+   *         was shared with this action), in which case the result is not cached
+   */
+  protected QueryResultCache.Key createResultCacheKey( final String query, final int maxRows ) {
+    String datasourceName = connectionOwner ? getDatasourceName() : null;
+    if ( datasourceName == null ) {
+      return null;
+    }
+    List<String> roles = new ArrayList<String>();
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if ( authentication != null ) {
+      for ( GrantedAuthority authority : authentication.getAuthorities() ) {
+        roles.add( authority.getAuthority() );
+      }
+    }
+    return QueryResultCache.createKey( datasourceName, query, maxRows, preparedParameters, roles );
+  }
+
+  private boolean useCachedResult( final AbstractRelationalDbAction relationalDbAction,
+      final IPentahoResultSet cachedResultSet ) {
+    try {
+      if ( ComponentBase.debug ) {
+        debug( Messages.getInstance().getString( "SQLBaseComponent.DEBUG_USING_CACHED_RESULT" ) ); //$NON-NLS-1$
+        QueryResultCache.getInstance().logStats();
+      }
+      preparedParameters.clear();
+      rSet = cachedResultSet;
+      IActionOutput actionOutput = relationalDbAction.getOutputResultSet();
+      if ( actionOutput != null ) {
+        actionOutput.setValue( cachedResultSet );
+      }
+      return true;
+    } finally {
+      if ( connectionOwner && connection != null ) {
+        connection.close();
+        connection = null;
+      }
+    }
+  }
+
+  /**
+   * @return the jndi name of the action's datasource, or its connection url when no jndi name is given
+   */
+  protected String getDatasourceName() {
+    String datasourceName = null;
+    if ( getActionDefinition() instanceof AbstractRelationalDbAction ) {
+      AbstractRelationalDbAction relationalDbAction = (AbstractRelationalDbAction) getActionDefinition();
+      datasourceName = relationalDbAction.getJndi().getStringValue();
+      if ( datasourceName == null ) {
+        datasourceName = relationalDbAction.getDbUrl().getStringValue();
+      }
+    }
+    return datasourceName;
+  }
+
   public IPentahoResultSet doQuery( final SQLConnection sqlConnection, final String query, boolean forwardOnlyResultset ) throws Exception {
     //
     // At this point, 'connection' and 'sqlConnection' should be pointers to
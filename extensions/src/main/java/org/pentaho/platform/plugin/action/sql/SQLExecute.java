@@ -47,6 +47,14 @@ public class SQLExecute extends SQLLookupRule {
     return result;
   }
 
+  /**
+   * statements are executed for their side effects, so their results are never served from the result cache.
+   */
+  @Override
+  protected boolean isResultCacheEnabled() {
+    return false;
+  }
+
   @Override
   protected boolean runQuery( final String rawQuery, final boolean live ) {
     SQLConnection conn = (SQLConnection) connection;
@@ -23,6 +23,7 @@ import org.pentaho.platform.api.engine.ObjectFactoryException;
 import org.pentaho.platform.api.engine.PentahoSystemException;
 import org.pentaho.platform.engine.core.system.IPentahoLoggingConnection;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.util.trace.RequestTracer;
 import org.pentaho.platform.plugin.services.messages.Messages;
 import org.pentaho.platform.engine.services.connection.datasource.dbcp.PooledDatasourceHelper;
 
@@ -406,6 +407,13 @@ public class SQLConnection implements IPentahoLoggingConnection, ILimitableConne
    */
   public IPentahoResultSet executeQuery( final String query, final int scrollType, final int concur )
     throws SQLException, InterruptedException, PentahoSystemException {
+    try ( RequestTracer.Span span = RequestTracer.startSpan( "jdbc" ) ) { //$NON-NLS-1$
+      return internalExecuteQuery( query, scrollType, concur );
+    }
+  }
+
+  private IPentahoResultSet internalExecuteQuery( final String query, final int scrollType, final int concur )
+    throws SQLException, InterruptedException, PentahoSystemException {
 
     if ( this.getReadOnly() ) {
       try {
@@ -445,7 +453,9 @@ public class SQLConnection implements IPentahoLoggingConnection, ILimitableConne
         setForcedForwardOnly( true );
       }
     }
-    sqlResultSet = new SQLResultSet( resultSet, this );
+    SQLResultSet queryResultSet = new SQLResultSet( resultSet, this );
+    queryResultSet.setQuery( query );
+    sqlResultSet = queryResultSet;
     // add to list of resultsets for cleanup later.
     resultSets.add( sqlResultSet );
     lastQuery = query;
@@ -514,6 +524,13 @@ public class SQLConnection implements IPentahoLoggingConnection, ILimitableConne
 
   public IPentahoResultSet prepareAndExecuteQuery( final String query, final List parameters, final int scrollType,
       final int concur ) throws SQLException {
+    try ( RequestTracer.Span span = RequestTracer.startSpan( "jdbc" ) ) { //$NON-NLS-1$
+      return internalPrepareAndExecuteQuery( query, parameters, scrollType, concur );
+    }
+  }
+
+  private IPentahoResultSet internalPrepareAndExecuteQuery( final String query, final List parameters,
+      final int scrollType, final int concur ) throws SQLException {
 
     if ( this.getReadOnly() ) {
       try {
@@ -636,6 +653,12 @@ public class SQLConnection implements IPentahoLoggingConnection, ILimitableConne
   }
 
   public int execute( final String query, final int scrollType, final int concur ) throws SQLException {
+    try ( RequestTracer.Span span = RequestTracer.startSpan( "jdbc" ) ) { //$NON-NLS-1$
+      return internalExecute( query, scrollType, concur );
+    }
+  }
+
+  private int internalExecute( final String query, final int scrollType, final int concur ) throws SQLException {
 
     // Create a statement for a scrollable resultset.
     Statement stmt = nativeConnection.createStatement( scrollType, concur );
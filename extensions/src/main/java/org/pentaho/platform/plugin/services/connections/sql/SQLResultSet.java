@@ -21,8 +21,12 @@ import org.pentaho.commons.connection.IPentahoResultSet;
 import org.pentaho.commons.connection.memory.MemoryResultSet;
 import org.pentaho.platform.plugin.services.messages.Messages;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author wseyler
@@ -47,6 +51,26 @@ public class SQLResultSet implements IPentahoResultSet, IPeekable {
 
   private IPentahoMetaData metaData;
 
+  /** number of rows buffered per block when serving random access from a forward-only cursor */
+  public static final int DEFAULT_WINDOW_SIZE = 500;
+
+  /** the query that produced the result set, used to re-open a forward-only cursor on a backward jump */
+  private String query;
+
+  private int windowSize = SQLResultSet.DEFAULT_WINDOW_SIZE;
+
+  /** rows buffered from a forward-only cursor; row <code>windowStart + i</code> is <code>window[i]</code> */
+  private Object[][] window;
+
+  private int windowStart;
+
+  private int windowRowCount;
+
+  /** number of rows consumed from the forward-only cursor so far */
+  private int cursorRow;
+
+  private boolean cursorExhausted;
+
   /**
    * 
    */
@@ -54,6 +78,28 @@ public class SQLResultSet implements IPentahoResultSet, IPeekable {
     super();
     this.connection = nativeConnection;
     this.nativeResultSet = nativeResultSet;
+    if ( nativeConnection != null && nativeConnection.getFetchSize() > 0 ) {
+      this.windowSize = nativeConnection.getFetchSize();
+    }
+  }
+
+  /**
+   * Sets the query that produced this result set. For a forward-only result set over a plain statement, the query is
+   * needed to re-open the cursor when a row before the buffered window is requested.
+   */
+  void setQuery( final String query ) {
+    this.query = query;
+  }
+
+  public int getWindowSize() {
+    return windowSize;
+  }
+
+  /**
+   * Sets the number of rows buffered per block when random access is served from a forward-only cursor.
+   */
+  public void setWindowSize( final int windowSize ) {
+    this.windowSize = Math.max( 1, windowSize );
   }
 
   public void setMetaData( final IPentahoMetaData metadata ) {
@@ -103,12 +149,14 @@ public class SQLResultSet implements IPentahoResultSet, IPeekable {
     try {
       int columns = nativeResultSet.getMetaData().getColumnCount();
       if ( nativeResultSet.next() ) {
+        cursorRow++;
         Object[] currentRow = new Object[columns];
         for ( int column = 0; column < columns; column++ ) {
           currentRow[column] = nativeResultSet.getObject( column + 1 );
         }
         return currentRow;
       }
+      cursorExhausted = true;
     } catch ( SQLException e ) {
       // TODO surface this error
       SQLResultSet.log.error( Messages.getInstance().getErrorString( "SQLResultSet.ERROR_0005_NEXT" ), e ); //$NON-NLS-1$
@@ -194,7 +242,8 @@ public class SQLResultSet implements IPentahoResultSet, IPeekable {
    */
   public int getRowCount() {
     if ( !isScrollable() ) {
-      return -1;
+      // a forward-only cursor only knows its size once it has been read to the end
+      return ( nativeResultSet != null && cursorExhausted && peekRow == null ) ? cursorRow : -1;
     }
     if ( rowCount != SQLResultSet.COUNT_NEVER_OBTAINED ) {
       // We have already calculated rowcount, return what we have
@@ -251,6 +300,10 @@ public class SQLResultSet implements IPentahoResultSet, IPeekable {
    * @return the value.
    */
   public Object getValueAt( final int row, final int column ) {
+    if ( nativeResultSet != null && !isScrollable() ) {
+      Object[] rowData = getWindowRow( row );
+      return rowData[column];
+    }
     if ( nativeResultSet != null ) {
       try {
         /*
@@ -313,6 +366,13 @@ public class SQLResultSet implements IPentahoResultSet, IPeekable {
   }
 
   public Object[] getDataColumn( final int column ) {
+    if ( nativeResultSet != null && !isScrollable() ) {
+      List<Object> values = new ArrayList<Object>();
+      for ( int row = 0; hasWindowRow( row ); row++ ) {
+        values.add( getWindowRow( row )[column] );
+      }
+      return values.toArray();
+    }
     Object[] result = null;
     result = new Object[getRowCount()];
     for ( int row = 0; row < result.length; row++ ) {
@@ -322,10 +382,112 @@ public class SQLResultSet implements IPentahoResultSet, IPeekable {
   }
 
   public Object[] getDataRow( final int row ) {
+    if ( nativeResultSet != null && !isScrollable() ) {
+      return getWindowRow( row ).clone();
+    }
     Object[] rowData = new Object[this.getColumnCount()];
     for ( int column = 0; column < rowData.length; column++ ) {
       rowData[column] = getValueAt( row, column );
     }
     return rowData;
   }
+
+  /**
+   * Serves random access to a forward-only cursor from a window of buffered rows. Rows ahead of the window are read
+   * block by block from the cursor; a row before the window re-executes the query and reads forward again, so the
+   * driver never needs a scrollable (client-side buffered) cursor.
+   */
+  private Object[] getWindowRow( final int row ) {
+    if ( !hasWindowRow( row ) ) {
+      throw new IndexOutOfBoundsException( Messages.getInstance().getErrorString(
+        "SQLResultSet.ERROR_0009_ROW_OUT_OF_RANGE", Integer.toString( row ) ) ); //$NON-NLS-1$
+    }
+    return window[row - windowStart];
+  }
+
+  private boolean hasWindowRow( final int row ) {
+    if ( row < 0 ) {
+      return false;
+    }
+    try {
+      if ( row < windowStart ) {
+        reopenCursor();
+      }
+      if ( !readWindowsTo( row ) ) {
+        return false;
+      }
+      if ( row < windowStart ) {
+        // rows consumed through next() since the last window was read can only be read again from the start
+        reopenCursor();
+        return readWindowsTo( row );
+      }
+      return true;
+    } catch ( SQLException ex ) {
+      SQLResultSet.log.error( Messages.getInstance().getErrorString( "SQLResultSet.ERROR_0002_GET_VALUE" ), ex ); //$NON-NLS-1$
+      throw new IllegalStateException( Messages.getInstance().getErrorString(
+        "SQLResultSet.ERROR_0008_FORWARDED_SQL_MSG" ), ex ); //$NON-NLS-1$
+    }
+  }
+
+  /**
+   * Reads blocks of rows from the cursor until the window reaches the given row. The window may then start after the
+   * row, if the cursor had already been moved past it.
+   *
+   * @return false if the cursor ends before the row
+   */
+  private boolean readWindowsTo( final int row ) {
+    while ( row >= windowStart + windowRowCount ) {
+      if ( !readWindow() ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Replaces the window with the next block of rows from the cursor.
+   *
+   * @return false if the cursor has no more rows
+   */
+  private boolean readWindow() {
+    if ( window == null ) {
+      window = new Object[windowSize][];
+    }
+    int start = cursorRow - ( peekRow != null ? 1 : 0 );
+    int count = 0;
+    while ( count < windowSize ) {
+      Object[] rowData = next();
+      if ( rowData == null ) {
+        break;
+      }
+      window[count++] = rowData;
+    }
+    if ( count == 0 ) {
+      return false;
+    }
+    windowStart = start;
+    windowRowCount = count;
+    return true;
+  }
+
+  private void reopenCursor() throws SQLException {
+    Statement statement = nativeResultSet.getStatement();
+    ResultSet reopened;
+    if ( statement instanceof PreparedStatement ) {
+      reopened = ( (PreparedStatement) statement ).executeQuery();
+    } else if ( statement != null && query != null ) {
+      reopened = statement.executeQuery( query );
+    } else {
+      throw new SQLException( Messages.getInstance().getErrorString( "SQLResultSet.ERROR_0010_CANNOT_REOPEN_CURSOR" ) ); //$NON-NLS-1$
+    }
+    if ( log.isDebugEnabled() ) {
+      log.debug( "Re-executing query to move a forward-only cursor back to row " + windowStart ); //$NON-NLS-1$
+    }
+    nativeResultSet = reopened;
+    peekRow = null;
+    cursorRow = 0;
+    cursorExhausted = false;
+    windowStart = 0;
+    windowRowCount = 0;
+  }
 }
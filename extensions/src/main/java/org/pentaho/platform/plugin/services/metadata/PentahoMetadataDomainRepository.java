@@ -13,6 +13,8 @@
 
 package org.pentaho.platform.plugin.services.metadata;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringEscapeUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -35,6 +37,7 @@ import org.pentaho.platform.api.repository2.unified.RepositoryFileAcl;
 import org.pentaho.platform.api.repository2.unified.RepositoryFilePermission;
 import org.pentaho.platform.api.repository2.unified.UnifiedRepositoryException;
 import org.pentaho.platform.api.repository2.unified.data.simple.SimpleRepositoryFileData;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.plugin.services.messages.Messages;
 import org.pentaho.platform.repository2.unified.RepositoryUtils;
 import org.pentaho.platform.repository2.unified.fileio.RepositoryFileInputStream;
@@ -49,16 +52,26 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Supplier;
 
@@ -87,7 +100,17 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
   private static final Messages messages = Messages.getInstance();
 
   private static final Map<IUnifiedRepository, PentahoMetadataInformationMap> metaMapStore =
-    new HashMap<IUnifiedRepository, PentahoMetadataInformationMap>();
+    new ConcurrentHashMap<IUnifiedRepository, PentahoMetadataInformationMap>();
+
+  // The number of threads parsing changed domains when the domains are reloaded
+  static final String SETTING_RELOAD_THREADS = "metadata-domain-repository/reload-threads"; //$NON-NLS-1$
+
+  static final int DEFAULT_RELOAD_THREADS = 4;
+
+  // The number of parsed domains kept in memory
+  static final String SETTING_PARSED_DOMAINS = "metadata-domain-repository/parsed-domains"; //$NON-NLS-1$
+
+  static final int DEFAULT_PARSED_DOMAINS = 200;
 
   // The type of repository file (domain, locale)
   static final String PROPERTY_NAME_TYPE = "file-type";
@@ -141,6 +164,10 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
   private final ReentrantReadWriteLock lock;
   private boolean needToReload;
 
+  // Parsed domains by Domain ID, reparsed only once the repository file of the domain has changed
+  private final Cache<String, ParsedDomain> parsedDomains = CacheBuilder.newBuilder()
+    .maximumSize( getIntSetting( SETTING_PARSED_DOMAINS, DEFAULT_PARSED_DOMAINS ) ).build();
+
   private static final String ERROR_0005_ERROR_RETRIEVING_DOMAIN = "PentahoMetadataDomainRepository.ERROR_0005_ERROR_RETRIEVING_DOMAIN";
 
   private static final String ERROR_0004_DOMAIN_ID_INVALID = "PentahoMetadataDomainRepository.ERROR_0004_DOMAIN_ID_INVALID";
@@ -369,6 +396,7 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
     } else {
       newDomainFile = updateFile( domainFile, data );
     }
+    parsedDomains.invalidate( domainId );
 
     // This invalidates any caching
     flushDomains();
@@ -471,23 +499,11 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
       final RepositoryFile file = getMetadataRepositoryFile( domainId );
       if ( file != null ) {
         if ( hasAccessFor( file ) ) {
-          SimpleRepositoryFileData data = repository.getDataForRead( file.getId(), SimpleRepositoryFileData.class );
-          if ( data != null ) {
-            InputStream is = data.getStream();
-            try {
-              domain = xmiParser.parseXmi( is );
-            } finally {
-              IOUtils.closeQuietly( is );
-            }
-            domain.setId( domainId );
-            logger.debug( "loaded domain" );
-            // Load any I18N bundles
-            loadLocaleStrings( domainId, domain );
-            logger.debug( "loaded I18N bundles" );
-          } else {
-            throw new UnifiedRepositoryException( messages.getErrorString(
-                    ERROR_0005_ERROR_RETRIEVING_DOMAIN, domainId, "data not found" ) );
-          }
+          domain = getParsedDomain( domainId, file );
+          logger.debug( "loaded domain" );
+          // Load any I18N bundles
+          loadLocaleStrings( domainId, domain );
+          logger.debug( "loaded I18N bundles" );
         } else {
           throw new PentahoAccessControlException( messages.getErrorString(
                   ERROR_0005_ERROR_RETRIEVING_DOMAIN, domainId, "access denied" ) );
@@ -505,6 +521,59 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
     return domain;
   }
 
+  /**
+   * Returns a private copy of the parsed domain stored in the given file, parsing the file only if it changed since it
+   * was last parsed.
+   */
+  private Domain getParsedDomain( final String domainId, final RepositoryFile file ) throws Exception {
+    final RepositoryFile current = repository.getFileById( file.getId() );
+    final String version = current == null ? null : getVersionStamp( current );
+    ParsedDomain parsed = version == null ? null : parsedDomains.getIfPresent( domainId );
+    if ( parsed == null || !version.equals( parsed.version ) ) {
+      SimpleRepositoryFileData data = repository.getDataForRead( file.getId(), SimpleRepositoryFileData.class );
+      if ( data == null ) {
+        throw new UnifiedRepositoryException( messages.getErrorString(
+                ERROR_0005_ERROR_RETRIEVING_DOMAIN, domainId, "data not found" ) );
+      }
+      InputStream is = data.getStream();
+      try {
+        parsed = parseDomain( domainId, version, is );
+      } finally {
+        IOUtils.closeQuietly( is );
+      }
+      if ( version == null ) {
+        return parsed.domain;
+      }
+      parsedDomains.put( domainId, parsed );
+    }
+    // callers add locale strings to and edit the domain they get
+    return (Domain) parsed.domain.clone();
+  }
+
+  private ParsedDomain parseDomain( final String domainId, final String version, final InputStream is )
+    throws Exception {
+    final long start = System.currentTimeMillis();
+    final Domain domain = xmiParser.parseXmi( is );
+    domain.setId( domainId );
+    final long millis = System.currentTimeMillis() - start;
+    if ( logger.isDebugEnabled() ) {
+      logger.debug( "Parsed domain " + domainId + " in " + millis + " ms" ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    return new ParsedDomain( version, domain, millis );
+  }
+
+  /**
+   * @return a stamp that changes whenever the file is updated, or null if the repository does not track changes of
+   * the file
+   */
+  static String getVersionStamp( final RepositoryFile file ) {
+    if ( file.getVersionId() == null && file.getLastModifiedDate() == null ) {
+      return null;
+    }
+    return file.getVersionId() + "/" //$NON-NLS-1$
+      + ( file.getLastModifiedDate() == null ? "" : file.getLastModifiedDate().getTime() ); //$NON-NLS-1$
+  }
+
   /**
    * Parses SimpleRepositoryFileData to Domain object.
    * @param fileMetadata jcr file metadata information.
@@ -666,6 +735,7 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
     } finally {
       lock.writeLock().unlock();
     }
+    parsedDomains.invalidate( domainId );
 
     if ( domainFile != null ) {
       // it no node exists, nothing would happen
@@ -740,6 +810,7 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
   public void reloadDomains() {
     logger.debug( "reloadDomains()" );
     internalReloadDomains();
+    parseChangedDomains();
   }
 
   /**
@@ -755,35 +826,46 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
       final List<RepositoryFile> children = repository.getChildren( getMetadataDir().getId(), "*" );
       logger.trace( "\tFound " + children.size() + " files in the repository" );
 
+      final List<RepositoryFile> readableChildren = new ArrayList<>( children.size() );
+      final List<Serializable> readableIds = new ArrayList<>( children.size() );
       for ( final RepositoryFile child : children ) {
         if ( getAclHelper().canAccess( child, READ ) ) {
-          // Get the metadata for this file
-          final Map<String, Serializable> fileMetadata = getFileMetadataHelper( child.getId() );
-          if ( fileMetadata == null || StringUtils.isEmpty( (String) fileMetadata.get( PROPERTY_NAME_DOMAIN_ID ) ) ) {
-            logger.warn( messages.getString( "PentahoMetadataDomainRepository.WARN_0001_FILE_WITHOUT_METADATA",
-                    child.getName() ) );
-            continue;
-          }
-          final String domainId = (String) fileMetadata.get( PROPERTY_NAME_DOMAIN_ID );
-          final String type = (String) fileMetadata.get( PROPERTY_NAME_TYPE );
-          final String locale = (String) fileMetadata.get( PROPERTY_NAME_LOCALE );
-          final String datasourceType = (String) fileMetadata.get( PROPERTY_NAME_DATASOURCE_TYPE );
-
-          logger.trace( "\tprocessing file [type=" + type + " : domainId=" + domainId + " : locale=" + locale + "]" );
-
-          // Save the data in the map
-          if ( StringUtils.equals( type, TYPE_DOMAIN ) ) {
-            metadataMapping.addDomain( domainId, child );
-          } else if ( StringUtils.equals( type, TYPE_LOCALE ) ) {
-            metadataMapping.addLocale( domainId, locale, child );
-          }
+          readableChildren.add( child );
+          readableIds.add( child.getId() );
+        }
+      }
+      // Get the metadata for all files in one repository call
+      final Map<Serializable, Map<String, Serializable>> filesMetadata = readableIds.isEmpty()
+        ? emptyMap() : repository.getFilesMetadata( readableIds );
+
+      for ( final RepositoryFile child : readableChildren ) {
+        // Get the metadata for this file
+        final Map<String, Serializable> fileMetadata =
+          getFileMetadataHelper( child.getId(), filesMetadata.get( child.getId() ) );
+        if ( fileMetadata == null || StringUtils.isEmpty( (String) fileMetadata.get( PROPERTY_NAME_DOMAIN_ID ) ) ) {
+          logger.warn( messages.getString( "PentahoMetadataDomainRepository.WARN_0001_FILE_WITHOUT_METADATA",
+                  child.getName() ) );
+          continue;
+        }
+        final String domainId = (String) fileMetadata.get( PROPERTY_NAME_DOMAIN_ID );
+        final String type = (String) fileMetadata.get( PROPERTY_NAME_TYPE );
+        final String locale = (String) fileMetadata.get( PROPERTY_NAME_LOCALE );
+        final String datasourceType = (String) fileMetadata.get( PROPERTY_NAME_DATASOURCE_TYPE );
+
+        logger.trace( "\tprocessing file [type=" + type + " : domainId=" + domainId + " : locale=" + locale + "]" );
+
+        // Save the data in the map
+        if ( StringUtils.equals( type, TYPE_DOMAIN ) ) {
+          metadataMapping.addDomain( domainId, child );
+        } else if ( StringUtils.equals( type, TYPE_LOCALE ) ) {
+          metadataMapping.addLocale( domainId, locale, child );
+        }
 
-          // keep track of datasource type
-          if ( StringUtils.isNotEmpty( datasourceType ) ) {
-            logger.trace( String.format( "\tTracking domainId: %s with datasource type: %s with id: %s",
-                    domainId, datasourceType, child.getId() ) );
-            dataSourceTypeMapping.addDatasourceType( datasourceType, domainId );
-          }
+        // keep track of datasource type
+        if ( StringUtils.isNotEmpty( datasourceType ) ) {
+          logger.trace( String.format( "\tTracking domainId: %s with datasource type: %s with id: %s",
+                  domainId, datasourceType, child.getId() ) );
+          dataSourceTypeMapping.addDatasourceType( datasourceType, domainId );
         }
       }
 
@@ -793,6 +875,116 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
     }
   }
 
+  /**
+   * Parses the domains whose repository file changed since they were last parsed, so that {@link #getDomain(String)}
+   * does not have to. The files are read on the calling thread, which holds the session the repository checks access
+   * against; only the parsing is spread over a bounded pool of threads.
+   */
+  private void parseChangedDomains() {
+    final Map<String, RepositoryFile> domainFiles = new LinkedHashMap<>();
+    lock.readLock().lock();
+    try {
+      for ( final String domainId : metadataMapping.getDomainIds() ) {
+        final RepositoryFile file = metadataMapping.getDomainFile( domainId );
+        if ( file != null ) {
+          domainFiles.put( domainId, file );
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    parsedDomains.asMap().keySet().retainAll( domainFiles.keySet() );
+
+    final long start = System.currentTimeMillis();
+    final Map<String, Future<ParsedDomain>> parsing = new LinkedHashMap<>();
+    ExecutorService executor = null;
+    try {
+      for ( final Map.Entry<String, RepositoryFile> entry : domainFiles.entrySet() ) {
+        final String domainId = entry.getKey();
+        final String version = getVersionStamp( entry.getValue() );
+        final ParsedDomain parsed = parsedDomains.getIfPresent( domainId );
+        if ( version == null || ( parsed != null && version.equals( parsed.version ) ) ) {
+          continue;
+        }
+        final byte[] xmi = readDomainFile( domainId, entry.getValue() );
+        if ( xmi == null ) {
+          continue;
+        }
+        if ( executor == null ) {
+          executor = createParserPool( domainFiles.size() );
+        }
+        parsing.put( domainId,
+          executor.submit( () -> parseDomain( domainId, version, new ByteArrayInputStream( xmi ) ) ) );
+      }
+
+      ParsedDomain slowest = null;
+      for ( final Map.Entry<String, Future<ParsedDomain>> entry : parsing.entrySet() ) {
+        try {
+          final ParsedDomain parsed = entry.getValue().get();
+          parsedDomains.put( entry.getKey(), parsed );
+          if ( slowest == null || parsed.millis > slowest.millis ) {
+            slowest = parsed;
+          }
+        } catch ( ExecutionException e ) {
+          parsedDomains.invalidate( entry.getKey() );
+          logger.warn( messages.getString( "PentahoMetadataDomainRepository.WARN_0002_DOMAIN_NOT_PARSED",
+            entry.getKey(), e.getCause().getLocalizedMessage() ) );
+        }
+      }
+      if ( !parsing.isEmpty() && logger.isInfoEnabled() ) {
+        logger.info( messages.getString( "PentahoMetadataDomainRepository.INFO_0001_DOMAINS_PARSED", parsing.size(),
+          domainFiles.size() - parsing.size(), System.currentTimeMillis() - start,
+          slowest == null ? "-" : slowest.domain.getId(), slowest == null ? 0 : slowest.millis ) );
+      }
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    } finally {
+      if ( executor != null ) {
+        executor.shutdownNow();
+      }
+    }
+  }
+
+  private byte[] readDomainFile( final String domainId, final RepositoryFile file ) {
+    InputStream is = null;
+    try {
+      final SimpleRepositoryFileData data =
+        repository.getDataForRead( file.getId(), SimpleRepositoryFileData.class );
+      if ( data == null ) {
+        return null;
+      }
+      is = data.getStream();
+      return IOUtils.toByteArray( is );
+    } catch ( Exception e ) {
+      logger.warn( messages.getString( "PentahoMetadataDomainRepository.WARN_0002_DOMAIN_NOT_PARSED", domainId,
+        e.getLocalizedMessage() ) );
+      return null;
+    } finally {
+      IOUtils.closeQuietly( is );
+    }
+  }
+
+  private static ExecutorService createParserPool( final int domainCount ) {
+    int threads = Math.max( 1, Math.min( getIntSetting( SETTING_RELOAD_THREADS, DEFAULT_RELOAD_THREADS ),
+      domainCount ) );
+    final AtomicInteger count = new AtomicInteger();
+    return new ThreadPoolExecutor( threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+      runnable -> {
+        Thread thread = new Thread( runnable, "metadata-domain-parser-" + count.incrementAndGet() ); //$NON-NLS-1$
+        thread.setDaemon( true );
+        return thread;
+      } );
+  }
+
+  private static int getIntSetting( final String setting, final int defaultValue ) {
+    try {
+      return Integer.parseInt( PentahoSystem.getSystemSetting( setting, String.valueOf( defaultValue ) ) );
+    } catch ( NumberFormatException e ) {
+      logger.warn( "Invalid " + setting + " setting, using " + defaultValue ); //$NON-NLS-1$ //$NON-NLS-2$
+      return defaultValue;
+    }
+  }
+
   /**
    * Only migrate if certain properties don't exist and other conditions.
    * Else return file metadata.
@@ -800,7 +992,14 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
    * @return
    */
   public Map<String, Serializable> getFileMetadataHelper( Serializable serializableId ) {
-    Map<String, Serializable> fileMetadata = repository.getFileMetadata( serializableId );
+    return getFileMetadataHelper( serializableId, null );
+  }
+
+  private Map<String, Serializable> getFileMetadataHelper( Serializable serializableId,
+                                                           Map<String, Serializable> fileMetadata ) {
+    if ( fileMetadata == null ) {
+      fileMetadata = repository.getFileMetadata( serializableId );
+    }
 
     // check for domain, has not been previously migrated, flag set to migrate
     if ( isDomain( fileMetadata ) && !hasDatasourceType( fileMetadata ) ) {
@@ -1158,13 +1357,8 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
    * @param repository the repository for which a map is specified
    * @return the MatadataInformationMap for the repository
    */
-  private static synchronized PentahoMetadataInformationMap getMetadataMapping( final IUnifiedRepository repository ) {
-    PentahoMetadataInformationMap metaMap = metaMapStore.get( repository );
-    if ( null == metaMap ) {
-      metaMap = new PentahoMetadataInformationMap();
-      metaMapStore.put( repository, metaMap );
-    }
-    return metaMap;
+  private static PentahoMetadataInformationMap getMetadataMapping( final IUnifiedRepository repository ) {
+    return metaMapStore.computeIfAbsent( repository, r -> new PentahoMetadataInformationMap() );
   }
 
   @Override
@@ -1254,4 +1448,19 @@ public class PentahoMetadataDomainRepository implements IMetadataDomainRepositor
   protected Log getLogger() {
     return logger;
   }
+
+  /**
+   * A parsed domain together with the version stamp of the file it was parsed from.
+   */
+  private static class ParsedDomain {
+    private final String version;
+    private final Domain domain;
+    private final long millis;
+
+    ParsedDomain( final String version, final Domain domain, final long millis ) {
+      this.version = version;
+      this.domain = domain;
+      this.millis = millis;
+    }
+  }
 }
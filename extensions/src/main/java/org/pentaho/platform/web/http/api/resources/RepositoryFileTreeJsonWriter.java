@@ -0,0 +1,141 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.http.api.resources;
+
+import com.sun.jersey.api.json.JSONJAXBContext;
+import com.sun.jersey.api.json.JSONMarshaller;
+import org.pentaho.platform.api.repository2.unified.webservices.RepositoryFileTreeDto;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.ContextResolver;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.Providers;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import java.io.BufferedWriter;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes repository file trees as JSON one node at a time. The JSON of every file is produced by the same
+ * {@link JSONJAXBContext} that would marshal the whole tree, so the output is the one of the JAXB provider, but the
+ * marshaller only ever holds a single file, and subtrees that have been written are released.
+ */
+@Provider
+@Produces( MediaType.APPLICATION_JSON )
+public class RepositoryFileTreeJsonWriter implements MessageBodyWriter<RepositoryFileTreeDto> {
+
+  @Context
+  private Providers providers;
+
+  public RepositoryFileTreeJsonWriter() {
+  }
+
+  RepositoryFileTreeJsonWriter( Providers providers ) {
+    this.providers = providers;
+  }
+
+  @Override
+  public boolean isWriteable( Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType ) {
+    return RepositoryFileTreeDto.class.isAssignableFrom( type )
+      && MediaType.APPLICATION_JSON_TYPE.isCompatible( mediaType ) && getContext() != null;
+  }
+
+  @Override
+  public long getSize( RepositoryFileTreeDto tree, Class<?> type, Type genericType, Annotation[] annotations,
+                       MediaType mediaType ) {
+    return -1;
+  }
+
+  @Override
+  public void writeTo( RepositoryFileTreeDto tree, Class<?> type, Type genericType, Annotation[] annotations,
+                       MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream )
+    throws IOException, WebApplicationException {
+    String charset = mediaType.getParameters().get( "charset" ); //$NON-NLS-1$
+    Writer writer = new BufferedWriter( new OutputStreamWriter( entityStream,
+      charset == null ? StandardCharsets.UTF_8 : Charset.forName( charset ) ) );
+    try {
+      write( getContext().createJSONMarshaller(), tree, new NonClosingWriter( writer ) );
+    } catch ( JAXBException e ) {
+      throw new WebApplicationException( e );
+    }
+    writer.flush();
+  }
+
+  private void write( JSONMarshaller marshaller, RepositoryFileTreeDto tree, Writer writer )
+    throws IOException, JAXBException {
+    writer.write( '{' );
+    boolean first = true;
+    if ( tree.getFile() != null ) {
+      writer.write( "\"file\":" ); //$NON-NLS-1$
+      marshaller.marshallToJSON( tree.getFile(), writer );
+      first = false;
+    }
+    // like JAXB, leave out empty children
+    List<RepositoryFileTreeDto> children = tree.getChildren();
+    if ( children != null && !children.isEmpty() ) {
+      writer.write( first ? "\"children\":[" : ",\"children\":[" ); //$NON-NLS-1$ //$NON-NLS-2$
+      for ( int i = 0; i < children.size(); i++ ) {
+        if ( i > 0 ) {
+          writer.write( ',' );
+        }
+        write( marshaller, children.get( i ), writer );
+        // the tree is built for this response only, so a written subtree can be garbage collected
+        children.set( i, null );
+      }
+      writer.write( ']' );
+    }
+    writer.write( '}' );
+  }
+
+  private JSONJAXBContext getContext() {
+    if ( providers == null ) {
+      return null;
+    }
+    ContextResolver<JAXBContext> resolver =
+      providers.getContextResolver( JAXBContext.class, MediaType.APPLICATION_JSON_TYPE );
+    JAXBContext context = resolver == null ? null : resolver.getContext( RepositoryFileTreeDto.class );
+    return context instanceof JSONJAXBContext ? (JSONJAXBContext) context : null;
+  }
+
+  /**
+   * Keeps the marshaller from closing or flushing the response writer after each file.
+   */
+  private static class NonClosingWriter extends FilterWriter {
+    NonClosingWriter( Writer out ) {
+      super( out );
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -14,6 +14,8 @@
 package org.pentaho.platform.web.http.api.resources;
 
 import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 
@@ -25,11 +27,13 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import com.sun.jersey.multipart.FormDataBodyPart;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.codehaus.enunciate.Facet;
+import org.pentaho.platform.api.engine.IPentahoSession;
 import org.pentaho.platform.api.engine.PentahoAccessControlException;
 import org.pentaho.platform.api.mimetype.IPlatformMimeResolver;
 import org.pentaho.platform.api.repository2.unified.IPlatformImportBundle;
@@ -45,7 +49,9 @@ import org.pentaho.platform.web.http.api.resources.services.FileService;
 import com.sun.jersey.core.header.FormDataContentDisposition;
 import com.sun.jersey.multipart.FormDataParam;
 import org.pentaho.platform.web.http.api.resources.utils.SystemUtils;
+import org.pentaho.platform.web.servlet.ChunkedUpload;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -217,6 +223,66 @@ public class RepositoryImportResource {
         retainOwnership, charSet, logLevel, fileInfo, fileNameOverride );
   }
 
+  /**
+   * Imports files that have been uploaded in chunks through the UploadFileServlet. The staged files are read in place
+   * instead of being uploaded again, and are deleted once the import is over.
+   *
+   * @param importDir               JCR Directory to which the zip structure or single file will be uploaded to.
+   * @param uploadIds               Comma separated ids of the chunked uploads to import.
+   * @param overwriteFile           The flag indicates ability to overwrite existing file.
+   * @param overwriteAclPermissions The flag indicates ability to overwrite Acl permissions.
+   * @param applyAclPermission      The flag indicates ability to apply Acl permissions.
+   * @param retainOwnership         The flag indicates ability to retain ownership.
+   * @param charSet                 The charset for imported file.
+   * @param logLevel                The level of logging.
+   * @param fileNameOverride        Comma separated file names to store the uploads with; the names the uploads were
+   *                                started with are used if not present.
+   * @return A jax-rs Response object with the appropriate header and body.
+   */
+  @POST()
+  @Path( "/staged" )
+  @Consumes( MediaType.MULTIPART_FORM_DATA )
+  @Produces( MediaType.TEXT_HTML )
+  @Facet( name = "Unsupported" )
+  public Response doPostStagedImport( @FormDataParam( "importDir" ) String importDir,
+                                      @FormDataParam( "uploadId" ) String uploadIds,
+                                      @FormDataParam( "overwriteFile" ) String overwriteFile,
+                                      @FormDataParam( "overwriteAclPermissions" ) String overwriteAclPermissions,
+                                      @FormDataParam( "applyAclPermissions" ) String applyAclPermission,
+                                      @FormDataParam( "retainOwnership" ) String retainOwnership,
+                                      @FormDataParam( "charSet" ) String charSet,
+                                      @FormDataParam( "logLevel" ) String logLevel,
+                                      @FormDataParam( "fileNameOverride" ) String fileNameOverride ) {
+    if ( StringUtils.isBlank( uploadIds ) ) {
+      return Response.status( Response.Status.BAD_REQUEST ).build();
+    }
+    IPentahoSession session = PentahoSessionHolder.getSession();
+    List<String> ids = Arrays.stream( uploadIds.split( "," ) ).map( String::trim ).collect( Collectors.toList() );
+    // all or none of the uploads are taken, so that a wrong id does not discard the uploads named along with it
+    List<ChunkedUpload> uploads = ChunkedUpload.finish( session, ids );
+    if ( uploads == null ) {
+      String missingId = ids.stream().filter( id -> ChunkedUpload.get( session, id ) == null ).findFirst()
+          .orElse( uploadIds );
+      return Response.status( Response.Status.NOT_FOUND ).entity( missingId ).build();
+    }
+    List<InputStream> fileUploads = new ArrayList<>();
+    try {
+      for ( ChunkedUpload upload : uploads ) {
+        fileUploads.add( new FileInputStream( upload.getFile() ) );
+      }
+      if ( StringUtils.isBlank( fileNameOverride ) ) {
+        fileNameOverride = uploads.stream().map( ChunkedUpload::getFileName ).collect( Collectors.joining( "," ) );
+      }
+      return doPostImportCommon( importDir, fileUploads, overwriteFile, overwriteAclPermissions, applyAclPermission,
+          retainOwnership, charSet, logLevel, null, fileNameOverride );
+    } catch ( IOException e ) {
+      return Response.serverError().entity( e.toString() ).build();
+    } finally {
+      fileUploads.forEach( IOUtils::closeQuietly );
+      uploads.forEach( ChunkedUpload::delete );
+    }
+  }
+
   /**
    * common code extracted to this new method
    *
@@ -13,6 +13,7 @@
 
 package org.pentaho.platform.web.http.api.resources;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang3.LocaleUtils;
 import org.apache.commons.logging.Log;
@@ -30,17 +31,21 @@ import org.pentaho.platform.api.usersettings.IUserSettingService;
 import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.api.repository2.unified.webservices.ExecutableFileTypeDto;
+import org.pentaho.platform.repository2.unified.jcr.sejcr.GuavaCachePoolPentahoJcrSessionFactory;
 import org.pentaho.platform.security.policy.rolebased.actions.AdministerSecurityAction;
 import org.pentaho.platform.security.policy.rolebased.actions.RepositoryCreateAction;
 import org.pentaho.platform.security.policy.rolebased.actions.RepositoryReadAction;
 import org.pentaho.platform.util.messages.LocaleHelper;
+import org.pentaho.platform.util.trace.RequestTracer;
 import org.pentaho.platform.web.http.api.resources.services.SystemService;
 import org.pentaho.platform.web.http.messages.Messages;
 
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.MediaType;
@@ -54,6 +59,7 @@ import java.util.TimeZone;
 
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
 import static javax.ws.rs.core.Response.Status.UNAUTHORIZED;
 
 /**
@@ -226,6 +232,53 @@ public class SystemResource extends AbstractJaxRSResource {
     return Response.ok( entity ).build();
   }
 
+  /**
+   * Returns the latency histograms of the sampled web requests, per endpoint and per stage (filters, resource method,
+   * repository and database calls), when request tracing is enabled in pentaho.xml
+   *
+   * @param reset
+   *          if true, the histograms are cleared after being returned
+   * @return the histograms as JSON, 401 if the user cannot administer the server or 404 if tracing is disabled
+   * @throws Exception
+   */
+  @GET
+  @Path( "/request-trace" )
+  @Produces( { APPLICATION_JSON } )
+  @Facet ( name = "Unsupported" )
+  public Response getRequestTrace( @QueryParam( "reset" ) @DefaultValue( "false" ) boolean reset ) throws Exception {
+    if ( !canAdminister() ) {
+      return Response.status( UNAUTHORIZED ).build();
+    }
+    RequestTracer tracer = RequestTracer.getInstance();
+    if ( tracer == null ) {
+      return Response.status( NOT_FOUND ).build();
+    }
+    Map<String, Object> snapshot = tracer.getSnapshot();
+    if ( reset ) {
+      tracer.reset();
+    }
+    return Response.ok( new ObjectMapper().writeValueAsString( snapshot ), APPLICATION_JSON ).build();
+  }
+
+  /**
+   * Returns the counters of the pools of JCR sessions, by pool: cached sessions, hits and misses, logins and their
+   * average time, spare sessions, and sessions found orphaned or dead
+   *
+   * @return the counters as JSON, or 401 if the user cannot administer the server
+   * @throws Exception
+   */
+  @GET
+  @Path( "/jcr-session-pools" )
+  @Produces( { APPLICATION_JSON } )
+  @Facet ( name = "Unsupported" )
+  public Response getJcrSessionPools() throws Exception {
+    if ( !canAdminister() ) {
+      return Response.status( UNAUTHORIZED ).build();
+    }
+    return Response.ok( new ObjectMapper().writeValueAsString( GuavaCachePoolPentahoJcrSessionFactory.getSnapshots() ),
+      APPLICATION_JSON ).build();
+  }
+
   private boolean hasOperationId( final List<IPluginOperation> operations, final String operationId ) {
     if ( operations != null && StringUtils.isNotBlank( operationId ) ) {
       for ( IPluginOperation operation : operations ) {
@@ -13,6 +13,8 @@
 
 package org.pentaho.platform.web.http.api.resources;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.codehaus.enunciate.Facet;
@@ -42,8 +44,12 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
 
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.MediaType.APPLICATION_XML;
@@ -62,6 +68,8 @@ import static javax.ws.rs.core.Response.Status.FORBIDDEN;
  *   <li>{@link UserConsoleResource#registeredPlugins()}</li>
  * </ul>
  * <p>
+ * {@link UserConsoleResource#getBootstrap()} gathers, in a single request, the state the User Console needs on load.
+ * <p>
  * The {@code UserConsoleResource} exposes operations to access and manage <i>user session variables</i>.
  * User session variables are unique per user session and reset to their default values at every user session creation.
  * Contrast session variables with <i>user settings</i>, accessed via {@link UserSettingsResource},
@@ -424,6 +432,58 @@ public class UserConsoleResource extends AbstractJaxRSResource {
     return buildOkResponse( registeredPlugins.toString() );
   }
 
+  /**
+   * Returns, in a single request, the state the User Console otherwise requests from several services on load:
+   * whether the user can administer, the authentication provider, the active and available themes, the user settings,
+   * the user console settings and the platform version. Entries that could not be computed are left out, and the
+   * client requests them from their own services instead.
+   *
+   * <p><b>Example Request:</b><br />
+   *    GET pentaho/api/mantle/bootstrap
+   * </p>
+   *
+   * <p><b>Example Response:</b></p>
+   *  <pre function="syntax.json">
+   *    { "canAdminister": true, "authenticationType": "jackrabbit", "activeTheme": "ruby",
+   *      "themes": [ { "id": "ruby", "name": "Ruby" } ], "userSettings": [ { "name": "MANTLE_SHOW_NAVIGATOR",
+   *      "value": "true" } ], "mantleSettings": [ ... ], "version": "10.2.0.0" }
+   *  </pre>
+   *
+   * @return the user console state as JSON
+   */
+  @GET
+  @Path ( "/bootstrap" )
+  @Produces ( { APPLICATION_JSON } )
+  @StatusCodes ( {
+      @ResponseCode ( code = 200, condition = "Returns the user console state" )
+  } )
+  @Facet ( name = "Unsupported" )
+  public Response getBootstrap() {
+    Map<String, Object> bootstrap = new LinkedHashMap<>();
+    bootstrap.put( "canAdminister", userConsoleService.isAdministrator() );
+    bootstrap.put( "authenticationType", systemConfig.getProperty( "security.provider" ) );
+
+    // the remaining entries read the repository or walk plugins, so they are computed concurrently
+    Map<String, Callable<?>> tasks = new LinkedHashMap<>();
+    tasks.put( "activeTheme", () -> new ThemeResource().getActiveTheme().getEntity() );
+    tasks.put( "themes", () -> {
+      List<Theme> themes = new ThemeResource().getSystemThemes();
+      themes.sort( Comparator.comparing( Theme::getName, Comparator.nullsFirst( Comparator.naturalOrder() ) ) );
+      return themes;
+    } );
+    tasks.put( "userSettings", () -> new UserSettingsResource().getUserSettings() );
+    tasks.put( "mantleSettings", this::getMantleSettings );
+    tasks.put( "version", () -> new VersionResource().getVersion().getEntity() );
+    bootstrap.putAll( userConsoleService.invokeAll( tasks ) );
+
+    try {
+      return Response.ok( new ObjectMapper().writeValueAsString( bootstrap ), APPLICATION_JSON ).build();
+    } catch ( JsonProcessingException e ) {
+      logger.error( e.getMessage(), e );
+      return Response.serverError().build();
+    }
+  }
+
   protected Response buildOkResponse( Object entity ) {
     return Response.ok( entity ).build();
   }
@@ -98,22 +98,24 @@ import java.nio.channels.IllegalSelectorException;
 import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
 import java.security.InvalidParameterException;
+import java.text.CollationKey;
 import java.text.Collator;
 import java.text.SimpleDateFormat;
+import java.util.AbstractMap;
 import java.util.Date;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.function.Function;
 
 public class FileService {
 
@@ -277,9 +279,7 @@ public class FileService {
   public void doDeleteFiles( String params ) throws Exception {
     String[] sourceFileIds = FileUtils.convertCommaSeparatedStringToArray( params );
     try {
-      for ( int i = 0; i < sourceFileIds.length; i++ ) {
-        getRepoWs().deleteFile( sourceFileIds[ i ], null );
-      }
+      getRepoWs().deleteFiles( Arrays.asList( sourceFileIds ), false, null );
     } catch ( Exception e ) {
       throw e;
     }
@@ -296,9 +296,7 @@ public class FileService {
   public void doDeleteFilesPermanent( String params ) throws Exception {
     String[] sourceFileIds = FileUtils.convertCommaSeparatedStringToArray( params ); //$NON-NLS-1$
     try {
-      for ( int i = 0; i < sourceFileIds.length; i++ ) {
-        getRepoWs().deleteFileWithPermanentFlag( sourceFileIds[ i ], true, null );
-      }
+      getRepoWs().deleteFiles( Arrays.asList( sourceFileIds ), true, null );
     } catch ( Exception e ) {
       logger.error( Messages.getInstance().getString( "SystemResource.GENERAL_ERROR" ), e );
       throw e;
@@ -411,11 +409,8 @@ public class FileService {
       throw new FileNotFoundException( idToPath );
     }
     String[] sourceFileIds = FileUtils.convertCommaSeparatedStringToArray( params );
-    int i = 0;
     try {
-      for ( ; i < sourceFileIds.length; i++ ) {
-        getRepoWs().moveFile( sourceFileIds[ i ], repositoryFileDto.getPath(), null );
-      }
+      getRepoWs().moveFiles( Arrays.asList( sourceFileIds ), repositoryFileDto.getPath(), null );
     } catch ( IllegalArgumentException | UnifiedRepositoryAccessDeniedException e ) {
       throw e;
     } catch ( Exception e ) {
@@ -435,9 +430,7 @@ public class FileService {
   public void doRestoreFiles( String params ) throws InternalError {
     String[] sourceFileIds = FileUtils.convertCommaSeparatedStringToArray( params );
     try {
-      for ( int i = 0; i < sourceFileIds.length; i++ ) {
-        getRepoWs().undeleteFile( sourceFileIds[ i ], null );
-      }
+      getRepoWs().undeleteFiles( Arrays.asList( sourceFileIds ), null );
     } catch ( Exception e ) {
       if ( e instanceof UnifiedRepositoryAccessDeniedException ) {
         throw (UnifiedRepositoryAccessDeniedException) e;
@@ -1533,19 +1526,32 @@ public class FileService {
     for ( RepositoryFileTreeDto rft : tree.getChildren() ) {
       sortByLocaleTitle( collator, rft );
     }
-    Collections.sort( tree.getChildren(), new Comparator<RepositoryFileTreeDto>() {
-      @Override
-      public int compare( RepositoryFileTreeDto repositoryFileTree, RepositoryFileTreeDto repositoryFileTree2 ) {
-        String title1 = repositoryFileTree.getFile().getTitle();
-        String title2 = repositoryFileTree2.getFile().getTitle();
-
-        if ( collator.compare( title1, title2 ) == 0 ) {
-          return title1.compareTo( title2 ); // use lexical order if equals ignore case
-        }
+    sortByCollationKey( collator, tree.getChildren(), rft -> rft.getFile().getTitle() );
+  }
 
-        return collator.compare( title1, title2 );
+  /**
+   * Sorts the files of one folder by title, computing the collation key of every title once instead of collating
+   * titles on every comparison.
+   */
+  private static <T> void sortByCollationKey( final Collator collator, final List<T> items,
+                                              final Function<T, String> title ) {
+    List<Map.Entry<CollationKey, T>> keyed = new ArrayList<>( items.size() );
+    for ( T item : items ) {
+      keyed.add( new AbstractMap.SimpleImmutableEntry<>( collator.getCollationKey( title.apply( item ) ), item ) );
+    }
+    keyed.sort( ( entry1, entry2 ) -> {
+      int result = entry1.getKey().compareTo( entry2.getKey() );
+      if ( result == 0 ) {
+        // use lexical order if equals ignore case
+        return entry1.getKey().getSourceString().compareTo( entry2.getKey().getSourceString() );
       }
+      return result;
     } );
+    ListIterator<T> it = items.listIterator();
+    for ( Map.Entry<CollationKey, T> entry : keyed ) {
+      it.next();
+      it.set( entry.getValue() );
+    }
   }
 
   /**
@@ -1886,7 +1892,10 @@ public class FileService {
   }
 
   protected RepositoryRequest getRepositoryRequest( String path, Boolean showHidden, Integer depth, String filter ) {
-    return new RepositoryRequest( path, showHidden, depth, filter );
+    RepositoryRequest repositoryRequest = new RepositoryRequest( path, showHidden, depth, filter );
+    // the files are marshaled once the repository session is closed
+    repositoryRequest.setPrefetch( true );
+    return repositoryRequest;
   }
 
   protected Collator getCollatorInstance() {
@@ -1960,25 +1969,14 @@ public class FileService {
       return;
     }
 
-    Collections.sort( repositoryFileDtoList, new Comparator<RepositoryFileDto>() {
-      @Override
-      public int compare( RepositoryFileDto repositoryFile, RepositoryFileDto repositoryFile2 ) {
-        String title1 = repositoryFile.getTitle();
-        String title2 = repositoryFile2.getTitle();
-
-        if ( collator.compare( title1, title2 ) == 0 ) {
-          return title1.compareTo( title2 ); // use lexical order if equals ignore case
-        }
-
-        return collator.compare( title1, title2 );
-      }
-    } );
+    sortByCollationKey( collator, repositoryFileDtoList, RepositoryFileDto::getTitle );
   }
 
   protected RepositoryRequest getRepositoryRequest( RepositoryFileDto repositoryFileDto, Boolean showHidden,
                                                     String filter, Boolean includeAcls ) {
     RepositoryRequest repositoryRequest = new RepositoryRequest( repositoryFileDto.getId(), showHidden, 0, filter );
     repositoryRequest.setIncludeAcls( includeAcls );
+    repositoryRequest.setPrefetch( true );
     return repositoryRequest;
   }
 
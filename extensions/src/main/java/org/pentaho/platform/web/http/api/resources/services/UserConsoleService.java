@@ -19,14 +19,30 @@ import org.pentaho.platform.api.engine.IPentahoSession;
 import org.pentaho.platform.api.engine.IPluginManager;
 import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.util.messages.LocaleHelper;
 import org.pentaho.platform.web.http.api.resources.utils.SystemUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class UserConsoleService {
 
   private static final Log logger = LogFactory.getLog( UserConsoleService.class );
 
+  private static final int BOOTSTRAP_THREADS = 8;
+
+  private static volatile ThreadPoolExecutor bootstrapExecutor;
+
   public static IPentahoSession getPentahoSession() {
     return PentahoSessionHolder.getSession();
   }
@@ -57,4 +73,75 @@ public class UserConsoleService {
   public List<String> getRegisteredPlugins() {
     return PentahoSystem.get( IPluginManager.class, UserConsoleService.getPentahoSession() ).getRegisteredPlugins();
   }
+
+  /**
+   * Runs independent tasks concurrently on behalf of the current user, for instance to assemble everything the User
+   * Console needs on load in one request. Each task sees the calling thread's Pentaho session, security context and
+   * locale. When the shared pool is saturated, tasks run on the calling thread.
+   *
+   * @param tasks tasks by name
+   * @return results by task name, in the order of {@code tasks}; tasks that failed are logged and left out
+   */
+  public Map<String, Object> invokeAll( Map<String, Callable<?>> tasks ) {
+    final IPentahoSession session = getPentahoSession();
+    final SecurityContext securityContext = SecurityContextHolder.getContext();
+    final Locale localeBase = LocaleHelper.getThreadLocaleBase();
+    final Locale localeOverride = LocaleHelper.getThreadLocaleOverride();
+
+    Map<String, Future<?>> futures = new LinkedHashMap<>();
+    for ( final Map.Entry<String, Callable<?>> task : tasks.entrySet() ) {
+      futures.put( task.getKey(), getBootstrapExecutor().submit( new Callable<Object>() {
+        @Override
+        public Object call() throws Exception {
+          IPentahoSession origSession = PentahoSessionHolder.getSession();
+          SecurityContext origContext = SecurityContextHolder.getContext();
+          Locale origLocaleBase = LocaleHelper.getThreadLocaleBase();
+          Locale origLocaleOverride = LocaleHelper.getThreadLocaleOverride();
+          try {
+            PentahoSessionHolder.setSession( session );
+            SecurityContextHolder.setContext( securityContext );
+            LocaleHelper.setThreadLocaleBase( localeBase );
+            LocaleHelper.setThreadLocaleOverride( localeOverride );
+            return task.getValue().call();
+          } finally {
+            PentahoSessionHolder.setSession( origSession );
+            SecurityContextHolder.setContext( origContext );
+            LocaleHelper.setThreadLocaleBase( origLocaleBase );
+            LocaleHelper.setThreadLocaleOverride( origLocaleOverride );
+          }
+        }
+      } ) );
+    }
+
+    Map<String, Object> results = new LinkedHashMap<>();
+    for ( Map.Entry<String, Future<?>> future : futures.entrySet() ) {
+      try {
+        results.put( future.getKey(), future.getValue().get() );
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch ( ExecutionException e ) {
+        logger.error( "Could not get " + future.getKey(), e.getCause() ); //$NON-NLS-1$
+      }
+    }
+    return results;
+  }
+
+  private static ThreadPoolExecutor getBootstrapExecutor() {
+    if ( bootstrapExecutor == null ) {
+      synchronized ( UserConsoleService.class ) {
+        if ( bootstrapExecutor == null ) {
+          ThreadPoolExecutor executor = new ThreadPoolExecutor( BOOTSTRAP_THREADS, BOOTSTRAP_THREADS, 60,
+            TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>( BOOTSTRAP_THREADS * 16 ), runnable -> {
+              Thread thread = new Thread( runnable, "user-console-bootstrap" ); //$NON-NLS-1$
+              thread.setDaemon( true );
+              return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy() );
+          executor.allowCoreThreadTimeOut( true );
+          bootstrapExecutor = executor;
+        }
+      }
+    }
+    return bootstrapExecutor;
+  }
 }
@@ -21,8 +21,11 @@ import org.pentaho.platform.api.util.ITempFileDeleter;
 import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.engine.core.system.StandaloneSession;
+import org.pentaho.platform.util.RequestIdUtil;
 import org.pentaho.platform.util.messages.LocaleHelper;
+import org.pentaho.platform.util.trace.RequestTracer;
 import org.pentaho.platform.web.http.session.PentahoHttpSession;
+import org.pentaho.platform.web.http.session.PentahoSessionRegistry;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.security.authentication.AuthenticationProvider;
 
@@ -41,6 +44,9 @@ import javax.servlet.http.HttpSession;
 import java.io.IOException;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Populates the {@link PentahoSessionHolder} with information obtained from the <code>HttpSession</code>.
@@ -96,6 +102,12 @@ import java.util.Locale;
  * This filter MUST be executed BEFORE any code that expects the <code>PentahoSessionHolder</code> to contain a valid
  * <code>IPentahoSession</code> by the time they execute.
  * </p>
+ * <p/>
+ * When the web application has a {@link PentahoSessionRegistry}, the Hitachi Vantara session is looked up there rather
+ * than in the <code>HttpSession</code>. It is still written back to the <code>HttpSession</code> at the end of every
+ * request, so that the container persists and replicates changes made to it in place. The time spent in the rest of
+ * the filter chain is recorded in {@link #getStats()}.
+ * </p>
  */
 public class HttpSessionPentahoSessionIntegrationFilter implements Filter, InitializingBean {
   // ~ Static fields/initializers =====================================================================================
@@ -143,6 +155,22 @@ public class HttpSessionPentahoSessionIntegrationFilter implements Filter, Initi
 
   private boolean ssoEnabled = false;
 
+  /**
+   * Authentication providers are registered at startup, so once some are found there is no need to look them up on
+   * every request.
+   */
+  private volatile boolean authenticationProvidersFound = false;
+
+  private final LongAdder requestCount = new LongAdder();
+
+  private final LongAdder registryHitCount = new LongAdder();
+
+  private final LongAdder sessionWriteCount = new LongAdder();
+
+  private final LongAdder totalChainNanos = new LongAdder();
+
+  private final AtomicLong maxChainNanos = new AtomicLong();
+
   // ~ Methods ========================================================================================================
 
   /**
@@ -235,6 +263,15 @@ public class HttpSessionPentahoSessionIntegrationFilter implements Filter, Initi
       return;
     }
 
+    try ( RequestTracer.Span span = RequestTracer.startRequest( "HttpSessionPentahoSessionIntegrationFilter",
+      httpRequest.getHeader( RequestIdUtil.X_REQUEST_ID ),
+      httpRequest.getMethod() + " " + httpRequest.getServletPath() ) ) { //$NON-NLS-1$ //$NON-NLS-2$
+      doFilterWithPentahoSession( httpRequest, httpResponse, chain );
+    }
+  }
+
+  private void doFilterWithPentahoSession( HttpServletRequest httpRequest, HttpServletResponse httpResponse,
+                                           FilterChain chain ) throws IOException, ServletException {
     HttpSession httpSession = safeGetSession( httpRequest, forceEagerSessionCreation );
     boolean httpSessionExistedAtStartOfRequest = httpSession != null;
     IPentahoSession pentahoSessionBeforeChainExecution = readPentahoSessionFromHttpSession( httpSession );
@@ -272,12 +309,15 @@ public class HttpSessionPentahoSessionIntegrationFilter implements Filter, Initi
 
     // Proceed with chain
 
+    long chainStart = System.nanoTime();
     try {
       // This is the only place in this class where PentahoSessionHolder.setSession() is called
       PentahoSessionHolder.setSession( pentahoSessionBeforeChainExecution );
 
       chain.doFilter( httpRequest, responseWrapper );
     } finally {
+      recordChainTime( System.nanoTime() - chainStart );
+
       // This is the only place in this class where PentahoSessionHolder.getSession() is called
       IPentahoSession pentahoSessionAfterChainExecution = PentahoSessionHolder.getSession();
 
@@ -320,10 +360,23 @@ public class HttpSessionPentahoSessionIntegrationFilter implements Filter, Initi
       return null;
     }
 
-    // HTTP session exists, so try to obtain a Hitachi Vantara session from it.
+    String httpSessionId = safeGetId( httpSession );
+    PentahoSessionRegistry registry = getRegistry( httpSession );
+    IPentahoSession registeredSession = registry == null ? null : registry.get( httpSessionId );
+    if ( registeredSession != null ) {
+      registryHitCount.increment();
+      return bindHttpSession( registeredSession, httpSession );
+    }
+
+    // Not registered yet (e.g. a session restored from a persistent store), so try to obtain it from the HTTP session.
 
-    IPentahoSession pentahoSessionFromHttpSession =
-      (IPentahoSession) httpSession.getAttribute( PentahoSystem.PENTAHO_SESSION_KEY );
+    IPentahoSession pentahoSessionFromHttpSession;
+    try {
+      pentahoSessionFromHttpSession = (IPentahoSession) httpSession.getAttribute( PentahoSystem.PENTAHO_SESSION_KEY );
+    } catch ( IllegalStateException e ) {
+      // invalidated concurrently
+      pentahoSessionFromHttpSession = null;
+    }
 
     if ( pentahoSessionFromHttpSession == null ) {
       if ( logger.isDebugEnabled() ) {
@@ -333,7 +386,30 @@ public class HttpSessionPentahoSessionIntegrationFilter implements Filter, Initi
       return null;
     }
 
-    return pentahoSessionFromHttpSession;
+    if ( registry != null ) {
+      registry.put( httpSessionId, pentahoSessionFromHttpSession );
+    }
+    return bindHttpSession( pentahoSessionFromHttpSession, httpSession );
+  }
+
+  /**
+   * Binds a {@link PentahoHttpSession} that was replicated without the container activating its HTTP session, such
+   * as by delta replication, to the HTTP session it was found in.
+   */
+  private static IPentahoSession bindHttpSession( IPentahoSession pentahoSession, HttpSession httpSession ) {
+    if ( pentahoSession instanceof PentahoHttpSession && !( (PentahoHttpSession) pentahoSession ).hasHttpSession() ) {
+      ( (PentahoHttpSession) pentahoSession ).bindHttpSession( httpSession );
+    }
+    return pentahoSession;
+  }
+
+  private static PentahoSessionRegistry getRegistry( HttpSession httpSession ) {
+    try {
+      return PentahoSessionRegistry.getInstance( httpSession.getServletContext() );
+    } catch ( IllegalStateException e ) {
+      // invalidated concurrently
+      return null;
+    }
   }
 
   /**
@@ -392,6 +468,7 @@ public class HttpSessionPentahoSessionIntegrationFilter implements Filter, Initi
       // See SEC-766
 
       httpSession.setAttribute( PentahoSystem.PENTAHO_SESSION_KEY, pentahoSession );
+      sessionWriteCount.increment();
 
       if ( logger.isDebugEnabled() ) {
         logger.debug( "Pentaho session stored to HttpSession: '" + pentahoSession + "'" );
@@ -426,12 +503,15 @@ public class HttpSessionPentahoSessionIntegrationFilter implements Filter, Initi
 
     if ( "true".equals( showDialog ) ) {
 
-      final List<AuthenticationProvider> authenticationProviders =
-        PentahoSystem.getAll( AuthenticationProvider.class, pentahoSession );
+      if ( !authenticationProvidersFound ) {
+        final List<AuthenticationProvider> authenticationProviders =
+          PentahoSystem.getAll( AuthenticationProvider.class, pentahoSession );
 
-      //No authentication - no session expiration
-      if ( null == authenticationProviders || authenticationProviders.isEmpty() ) {
-        return;
+        //No authentication - no session expiration
+        if ( null == authenticationProviders || authenticationProviders.isEmpty() ) {
+          return;
+        }
+        authenticationProvidersFound = true;
       }
 
       //No session expired dialog when SSO is used
@@ -481,6 +561,28 @@ public class HttpSessionPentahoSessionIntegrationFilter implements Filter, Initi
     }
   }
 
+  private String safeGetId( HttpSession httpSession ) {
+    try {
+      return httpSession == null ? null : httpSession.getId();
+    } catch ( IllegalStateException ignored ) {
+      return null;
+    }
+  }
+
+  private void recordChainTime( long nanos ) {
+    requestCount.increment();
+    totalChainNanos.add( nanos );
+    maxChainNanos.accumulateAndGet( nanos, Math::max );
+  }
+
+  /**
+   * @return counters of the requests that went through this filter and of the time spent in the rest of the chain
+   */
+  public Stats getStats() {
+    return new Stats( requestCount.sum(), registryHitCount.sum(), sessionWriteCount.sum(), totalChainNanos.sum(),
+      maxChainNanos.get() );
+  }
+
   public boolean isAllowSessionCreation() {
     return allowSessionCreation;
   }
@@ -598,6 +700,63 @@ public class HttpSessionPentahoSessionIntegrationFilter implements Filter, Initi
 
   }
 
+  /**
+   * Counters of the requests that went through the filter.
+   */
+  public static class Stats {
+    private final long requestCount;
+    private final long registryHitCount;
+    private final long sessionWriteCount;
+    private final long totalChainNanos;
+    private final long maxChainNanos;
+
+    Stats( long requestCount, long registryHitCount, long sessionWriteCount, long totalChainNanos,
+           long maxChainNanos ) {
+      this.requestCount = requestCount;
+      this.registryHitCount = registryHitCount;
+      this.sessionWriteCount = sessionWriteCount;
+      this.totalChainNanos = totalChainNanos;
+      this.maxChainNanos = maxChainNanos;
+    }
+
+    public long getRequestCount() {
+      return requestCount;
+    }
+
+    /**
+     * @return the number of requests whose Hitachi Vantara session was found in the {@link PentahoSessionRegistry}
+     */
+    public long getRegistryHitCount() {
+      return registryHitCount;
+    }
+
+    /**
+     * @return the number of times a Hitachi Vantara session was written to an <code>HttpSession</code>
+     */
+    public long getSessionWriteCount() {
+      return sessionWriteCount;
+    }
+
+    public long getTotalChainTime( TimeUnit unit ) {
+      return unit.convert( totalChainNanos, TimeUnit.NANOSECONDS );
+    }
+
+    public long getMaxChainTime( TimeUnit unit ) {
+      return unit.convert( maxChainNanos, TimeUnit.NANOSECONDS );
+    }
+
+    public double getAverageChainMillis() {
+      return requestCount == 0 ? 0 : totalChainNanos / 1e6 / requestCount;
+    }
+
+    @Override
+    public String toString() {
+      return "requests=" + requestCount + ", registryHits=" + registryHitCount + ", sessionWrites="
+        + sessionWriteCount + ", averageChainMillis=" + getAverageChainMillis() + ", maxChainMillis="
+        + getMaxChainTime( TimeUnit.MILLISECONDS );
+    }
+  }
+
   /**
    * An {@code StandaloneSession} that does nothing in its destroy implementation.
    * {@code InheritableThreadLocalPentahoSessionHolderStrategy} has the following code in {@code removeSession}:
@@ -18,6 +18,8 @@ import org.apache.commons.logging.LogFactory;
 import org.pentaho.platform.api.engine.IPentahoRequestContext;
 import org.pentaho.platform.engine.core.system.BasePentahoRequestContext;
 import org.pentaho.platform.engine.core.system.PentahoRequestContextHolder;
+import org.pentaho.platform.util.RequestIdUtil;
+import org.pentaho.platform.util.trace.RequestTracer;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -75,7 +77,9 @@ public class PentahoRequestContextFilter implements Filter {
 
     httpRequest.setAttribute( FILTER_APPLIED, Boolean.TRUE );
 
-    try {
+    try ( RequestTracer.Span span = RequestTracer.startRequest( "PentahoRequestContextFilter",
+      httpRequest.getHeader( RequestIdUtil.X_REQUEST_ID ),
+      httpRequest.getMethod() + " " + httpRequest.getServletPath() ) ) { //$NON-NLS-1$ //$NON-NLS-2$
       if ( requestContext == null ) {
         initContext( httpRequest );
       }
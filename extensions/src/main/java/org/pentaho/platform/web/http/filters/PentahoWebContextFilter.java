@@ -30,7 +30,9 @@ import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.repository2.ClientRepositoryPaths;
 import org.pentaho.platform.repository2.unified.jcr.JcrRepositoryFileUtils;
+import org.pentaho.platform.util.RequestIdUtil;
 import org.pentaho.platform.util.messages.LocaleHelper;
+import org.pentaho.platform.util.trace.RequestTracer;
 import org.pentaho.platform.web.http.ConfigurationAdminNonOsgiProxy;
 import org.pentaho.platform.web.http.api.resources.services.FileService;
 
@@ -138,7 +140,8 @@ public class PentahoWebContextFilter implements Filter {
     if ( isWebContextJSRequest && httpRequest.getAttribute( FILTER_APPLIED ) == null ) {
       httpRequest.setAttribute( FILTER_APPLIED, Boolean.TRUE );
 
-      try {
+      try ( RequestTracer.Span span = RequestTracer.startRequest( "PentahoWebContextFilter",
+        httpRequest.getHeader( RequestIdUtil.X_REQUEST_ID ), "GET " + WEB_CONTEXT_JS ) ) { //$NON-NLS-1$ //$NON-NLS-2$
         response.setContentType( "text/javascript" );
         OutputStream out = response.getOutputStream();
         HashMap<String, String> webContextVariables = getWebContextVariables( httpRequest );
@@ -16,6 +16,7 @@ package org.pentaho.platform.web.http.filters;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.pentaho.platform.util.RequestIdUtil;
+import org.pentaho.platform.util.trace.RequestTracer;
 import org.slf4j.MDC;
 
 import javax.servlet.Filter;
@@ -50,7 +51,10 @@ public class RequestIdFilter implements Filter {
       }
       MDC.put( RequestIdUtil.REQUEST_ID, RequestIdUtil.getFormattedRequestUid( requestId ) );
 
-      chain.doFilter( req, resp );
+      try ( RequestTracer.Span span = RequestTracer.startRequest( "RequestIdFilter", requestId,
+        request.getMethod() + " " + request.getServletPath() ) ) { //$NON-NLS-1$ //$NON-NLS-2$
+        chain.doFilter( req, resp );
+      }
 
     } finally {
 
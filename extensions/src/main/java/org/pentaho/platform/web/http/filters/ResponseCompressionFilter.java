@@ -0,0 +1,316 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.http.filters;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Enumeration;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip-compresses textual responses (xml, json and text) for clients that accept it, such as the SOAP responses of
+ * the repository web service, which carry large, highly repetitive XML payloads. Multipart responses, which carry
+ * MTOM attachments, and responses that already have a content encoding are passed through unchanged. So are
+ * responses written asynchronously or with non-blocking I/O, which the container streams on its own terms, unless
+ * compression had already begun, in which case the compressed stream is finished when the request completes. Every
+ * response carries <code>Vary: Accept-Encoding</code>, so that caches keep compressed and plain responses apart.
+ */
+public class ResponseCompressionFilter implements Filter {
+
+  private static final String ACCEPT_ENCODING = "Accept-Encoding"; //$NON-NLS-1$
+  private static final String CONTENT_ENCODING = "Content-Encoding"; //$NON-NLS-1$
+  private static final String CONTENT_LENGTH = "Content-Length"; //$NON-NLS-1$
+  private static final String GZIP = "gzip"; //$NON-NLS-1$
+  private static final String VARY = "Vary"; //$NON-NLS-1$
+
+  public void init( FilterConfig config ) throws ServletException {
+  }
+
+  public void destroy() {
+  }
+
+  public void doFilter( ServletRequest req, ServletResponse resp, FilterChain chain )
+    throws IOException, ServletException {
+    if ( resp instanceof HttpServletResponse ) {
+      ( (HttpServletResponse) resp ).addHeader( VARY, ACCEPT_ENCODING );
+    }
+    if ( !( req instanceof HttpServletRequest ) || !acceptsGzip( (HttpServletRequest) req ) ) {
+      chain.doFilter( req, resp );
+      return;
+    }
+    CompressingResponse response = new CompressingResponse( (HttpServletRequest) req, (HttpServletResponse) resp );
+    try {
+      chain.doFilter( req, response );
+    } finally {
+      if ( !req.isAsyncStarted() ) {
+        response.finish();
+      } else if ( response.isCompressing() ) {
+        // compression began before the request went asynchronous; the rest is written by another thread, and the
+        // gzip trailer once the request completes
+        req.getAsyncContext().addListener( new FinishingListener( response ) );
+      }
+    }
+  }
+
+  /**
+   * Finishes a compressed response when its asynchronous processing completes.
+   */
+  private static class FinishingListener implements AsyncListener {
+    private final CompressingResponse response;
+
+    FinishingListener( final CompressingResponse response ) {
+      this.response = response;
+    }
+
+    @Override
+    public void onComplete( final AsyncEvent event ) throws IOException {
+      response.finish();
+    }
+
+    @Override
+    public void onTimeout( final AsyncEvent event ) {
+    }
+
+    @Override
+    public void onError( final AsyncEvent event ) {
+    }
+
+    @Override
+    public void onStartAsync( final AsyncEvent event ) {
+    }
+  }
+
+  static boolean acceptsGzip( final HttpServletRequest request ) {
+    Enumeration<String> values = request.getHeaders( ACCEPT_ENCODING );
+    while ( values != null && values.hasMoreElements() ) {
+      for ( String coding : values.nextElement().split( "," ) ) { //$NON-NLS-1$
+        String[] parts = coding.trim().split( ";" ); //$NON-NLS-1$
+        if ( GZIP.equalsIgnoreCase( parts[ 0 ].trim() ) ) {
+          return parts.length < 2 || !parts[ 1 ].trim().matches( "q=0(\\.0*)?" ); //$NON-NLS-1$
+        }
+      }
+    }
+    return false;
+  }
+
+  static boolean isCompressible( final String contentType ) {
+    if ( contentType == null ) {
+      return false;
+    }
+    String type = contentType.toLowerCase();
+    if ( type.startsWith( "multipart/" ) ) { //$NON-NLS-1$
+      return false;
+    }
+    return type.startsWith( "text/" ) || type.contains( "xml" ) || type.contains( "json" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+  }
+
+  /**
+   * Decides whether to compress when the first byte is written, once the servlet has set the content type. Content
+   * lengths set before then are only passed on when the response is not compressed.
+   */
+  static class CompressingResponse extends HttpServletResponseWrapper {
+
+    private final HttpServletRequest request;
+    private final HttpServletResponse response;
+    private ServletOutputStream stream;
+    private PrintWriter writer;
+    private OutputStream target;
+    private long contentLength = -1;
+    private boolean finished;
+    private boolean nonBlocking;
+
+    CompressingResponse( final HttpServletRequest request, final HttpServletResponse response ) {
+      super( response );
+      this.request = request;
+      this.response = response;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      if ( writer != null ) {
+        throw new IllegalStateException();
+      }
+      if ( stream == null ) {
+        stream = new CompressingStream();
+      }
+      return stream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      if ( writer == null ) {
+        if ( stream != null ) {
+          throw new IllegalStateException();
+        }
+        stream = new CompressingStream();
+        writer = new PrintWriter( new OutputStreamWriter( stream, getCharacterEncoding() ) );
+      }
+      return writer;
+    }
+
+    @Override
+    public void setContentLength( final int length ) {
+      setContentLengthLong( length );
+    }
+
+    @Override
+    public void setContentLengthLong( final long length ) {
+      if ( target == null ) {
+        contentLength = length;
+      } else if ( !( target instanceof GZIPOutputStream ) ) {
+        response.setContentLengthLong( length );
+      }
+    }
+
+    @Override
+    public void setHeader( final String name, final String value ) {
+      if ( CONTENT_LENGTH.equalsIgnoreCase( name ) ) {
+        setContentLengthLong( Long.parseLong( value ) );
+      } else {
+        super.setHeader( name, value );
+      }
+    }
+
+    @Override
+    public void addHeader( final String name, final String value ) {
+      if ( CONTENT_LENGTH.equalsIgnoreCase( name ) ) {
+        setContentLengthLong( Long.parseLong( value ) );
+      } else {
+        super.addHeader( name, value );
+      }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      if ( writer != null ) {
+        writer.flush();
+      }
+      if ( target != null ) {
+        target.flush();
+      }
+      super.flushBuffer();
+    }
+
+    @Override
+    public void reset() {
+      if ( target != null ) {
+        throw new IllegalStateException();
+      }
+      super.reset();
+      response.addHeader( VARY, ACCEPT_ENCODING );
+      contentLength = -1;
+    }
+
+    private OutputStream getTarget() throws IOException {
+      if ( target == null ) {
+        if ( !nonBlocking && !request.isAsyncStarted() && isCompressible( getContentType() )
+          && !response.containsHeader( CONTENT_ENCODING ) ) {
+          response.setHeader( CONTENT_ENCODING, GZIP );
+          target = new GZIPOutputStream( response.getOutputStream(), true );
+        } else {
+          if ( contentLength >= 0 ) {
+            response.setContentLengthLong( contentLength );
+          }
+          target = response.getOutputStream();
+        }
+      }
+      return target;
+    }
+
+    boolean isCompressing() {
+      return target instanceof GZIPOutputStream;
+    }
+
+    void finish() throws IOException {
+      if ( finished ) {
+        return;
+      }
+      finished = true;
+      if ( writer != null ) {
+        writer.flush();
+      }
+      if ( target instanceof GZIPOutputStream ) {
+        ( (GZIPOutputStream) target ).finish();
+      } else if ( target == null && contentLength >= 0 ) {
+        response.setContentLengthLong( contentLength );
+      }
+    }
+
+    private class CompressingStream extends ServletOutputStream {
+
+      @Override
+      public void write( final int b ) throws IOException {
+        getTarget().write( b );
+      }
+
+      @Override
+      public void write( final byte[] b, final int off, final int len ) throws IOException {
+        getTarget().write( b, off, len );
+      }
+
+      @Override
+      public void flush() throws IOException {
+        if ( target != null ) {
+          target.flush();
+        }
+      }
+
+      @Override
+      public void close() throws IOException {
+        finish();
+        if ( target != null ) {
+          target.close();
+        }
+      }
+
+      @Override
+      public boolean isReady() {
+        if ( target instanceof GZIPOutputStream ) {
+          return true;
+        }
+        try {
+          return response.getOutputStream().isReady();
+        } catch ( IOException e ) {
+          return false;
+        }
+      }
+
+      @Override
+      public void setWriteListener( final WriteListener writeListener ) {
+        // non-blocking writes go to the container's stream uncompressed
+        nonBlocking = true;
+        try {
+          response.getOutputStream().setWriteListener( writeListener );
+        } catch ( IOException e ) {
+          throw new IllegalStateException( e );
+        }
+      }
+    }
+  }
+}
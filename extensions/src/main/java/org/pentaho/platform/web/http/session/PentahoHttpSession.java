@@ -25,14 +25,22 @@ import org.pentaho.platform.engine.core.system.BaseSession;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 
 import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionActivationListener;
+import javax.servlet.http.HttpSessionEvent;
 import java.util.Iterator;
 import java.util.Locale;
 
-public class PentahoHttpSession extends BaseSession {
+/**
+ * A session whose attributes live in the http session. The http session is not written with this session; it is bound
+ * again when the container activates the http session this session is stored in, after persisting or replicating it.
+ * Replication that only applies changed attributes does not activate the http session, so whoever finds this session
+ * in an http session binds it with {@link #bindHttpSession(HttpSession)} if it {@link #hasHttpSession() has none}.
+ */
+public class PentahoHttpSession extends BaseSession implements HttpSessionActivationListener {
 
   private static final long serialVersionUID = 1500696455420691764L;
 
-  private HttpSession session;
+  private transient HttpSession session;
 
   private long authenticationTime = 0L;
 
@@ -79,6 +87,27 @@ public class PentahoHttpSession extends BaseSession {
     authenticationTime = System.currentTimeMillis();
   }
 
+  /**
+   * @return false if this session was read from a persisted or replicated http session and not bound to it yet
+   */
+  public boolean hasHttpSession() {
+    return session != null;
+  }
+
+  /**
+   * Binds the http session this session is stored in, after it was read from a persisted or replicated one.
+   */
+  public void bindHttpSession( final HttpSession httpSession ) {
+    session = httpSession;
+  }
+
+  public void sessionWillPassivate( final HttpSessionEvent event ) {
+  }
+
+  public void sessionDidActivate( final HttpSessionEvent event ) {
+    bindHttpSession( event.getSession() );
+  }
+
   @Override
   public void destroy() {
     // audit session destruction
@@ -21,20 +21,40 @@ import org.pentaho.platform.util.logging.Logger;
 import org.pentaho.platform.util.messages.LocaleHelper;
 import org.pentaho.platform.web.http.messages.Messages;
 
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
 import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionAttributeListener;
+import javax.servlet.http.HttpSessionBindingEvent;
 import javax.servlet.http.HttpSessionEvent;
+import javax.servlet.http.HttpSessionIdListener;
 import javax.servlet.http.HttpSessionListener;
 import java.util.Date;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
-public class PentahoHttpSessionListener implements HttpSessionListener {
+/**
+ * Audits the end of HTTP sessions, destroys the Pentaho sessions they hold and keeps the
+ * {@link PentahoSessionRegistry} of the web application in step with the Pentaho session attribute of every HTTP
+ * session.
+ */
+public class PentahoHttpSessionListener implements HttpSessionListener, HttpSessionAttributeListener,
+    HttpSessionIdListener, ServletContextListener {
 
   private static final boolean debug = PentahoSystem.debug;
 
   private static final Map<String, String[]> sessionMap = new ConcurrentHashMap<String, String[]>();
 
+  public void contextInitialized( final ServletContextEvent event ) {
+    // the container only creates listeners it delivers session events to
+    PentahoSessionRegistry.register( event.getServletContext() );
+  }
+
+  public void contextDestroyed( final ServletContextEvent event ) {
+    PentahoSessionRegistry.unregister( event.getServletContext() );
+  }
+
   public void sessionCreated( final HttpSessionEvent event ) {
     // We can't find out what the locale of the request is so we go with the
     // default for now...
@@ -57,9 +77,17 @@ public class PentahoHttpSessionListener implements HttpSessionListener {
     try {
       if ( session != null ) {
         String sessionId = event.getSession().getId();
+        PentahoSessionRegistry registry = getRegistry( session );
+        if ( registry != null ) {
+          registry.remove( sessionId );
+        }
         Object obj = session.getAttribute( PentahoSystem.PENTAHO_SESSION_KEY ); //$NON-NLS-1$
         if ( obj != null ) {
           IPentahoSession userSession = (IPentahoSession) obj;
+          if ( userSession instanceof PentahoHttpSession && !( (PentahoHttpSession) userSession ).hasHttpSession() ) {
+            // replicated without the session being activated
+            ( (PentahoHttpSession) userSession ).bindHttpSession( session );
+          }
           PentahoSystem.invokeLogoutListeners( userSession );
           userSession.destroy();
         } else {
@@ -89,6 +117,46 @@ public class PentahoHttpSessionListener implements HttpSessionListener {
 
   }
 
+  public void attributeAdded( final HttpSessionBindingEvent event ) {
+    if ( PentahoSystem.PENTAHO_SESSION_KEY.equals( event.getName() ) ) {
+      updateRegistry( event.getSession() );
+    }
+  }
+
+  public void attributeRemoved( final HttpSessionBindingEvent event ) {
+    PentahoSessionRegistry registry = getRegistry( event.getSession() );
+    if ( registry != null && PentahoSystem.PENTAHO_SESSION_KEY.equals( event.getName() ) ) {
+      registry.remove( event.getSession().getId() );
+    }
+  }
+
+  public void attributeReplaced( final HttpSessionBindingEvent event ) {
+    if ( PentahoSystem.PENTAHO_SESSION_KEY.equals( event.getName() ) ) {
+      updateRegistry( event.getSession() );
+    }
+  }
+
+  public void sessionIdChanged( final HttpSessionEvent event, final String oldSessionId ) {
+    PentahoSessionRegistry registry = getRegistry( event.getSession() );
+    if ( registry != null ) {
+      registry.rename( oldSessionId, event.getSession().getId() );
+    }
+  }
+
+  private void updateRegistry( final HttpSession session ) {
+    PentahoSessionRegistry registry = getRegistry( session );
+    if ( registry == null ) {
+      return;
+    }
+    // the event value is the old value on replacement, so read the current one from the session
+    Object value = session.getAttribute( PentahoSystem.PENTAHO_SESSION_KEY );
+    registry.put( session.getId(), value instanceof IPentahoSession ? (IPentahoSession) value : null );
+  }
+
+  private static PentahoSessionRegistry getRegistry( final HttpSession session ) {
+    return session == null ? null : PentahoSessionRegistry.getInstance( session.getServletContext() );
+  }
+
   public static void registerHttpSession( final String sessionId, final String processId, final String activityId,
       final String objectName, final String userName, final String id, final long start ) {
     PentahoHttpSessionListener.sessionMap.put( id, new String[] { processId, activityId, objectName, userName,
@@ -0,0 +1,108 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.http.session;
+
+import org.pentaho.platform.api.engine.IPentahoSession;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+
+import javax.servlet.ServletContext;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the Pentaho session of every live HTTP session of a web application by HTTP session id, so that it can be
+ * looked up on each request without going through the attributes of the HTTP session, which servlet containers guard
+ * with locks.
+ * <p>
+ * A registry is kept in step with the {@link PentahoSystem#PENTAHO_SESSION_KEY} attribute of each HTTP session by
+ * {@link PentahoHttpSessionListener}, which stores it in the servlet context of the web application while it runs.
+ * Without that listener there is no registry, since nothing would remove the entries of destroyed sessions.
+ */
+public final class PentahoSessionRegistry {
+
+  /**
+   * The servlet context attribute the registry of a web application is stored under.
+   */
+  public static final String CONTEXT_ATTRIBUTE = PentahoSessionRegistry.class.getName();
+
+  private final Map<String, IPentahoSession> sessions = new ConcurrentHashMap<>();
+
+  PentahoSessionRegistry() {
+  }
+
+  /**
+   * @return the registry of the web application, or null if HTTP session events are not delivered to one
+   */
+  public static PentahoSessionRegistry getInstance( final ServletContext servletContext ) {
+    Object registry = servletContext == null ? null : servletContext.getAttribute( CONTEXT_ATTRIBUTE );
+    return registry instanceof PentahoSessionRegistry ? (PentahoSessionRegistry) registry : null;
+  }
+
+  /**
+   * Creates the registry of a web application, unless it already has one.
+   */
+  static synchronized PentahoSessionRegistry register( final ServletContext servletContext ) {
+    PentahoSessionRegistry registry = getInstance( servletContext );
+    if ( registry == null ) {
+      registry = new PentahoSessionRegistry();
+      servletContext.setAttribute( CONTEXT_ATTRIBUTE, registry );
+    }
+    return registry;
+  }
+
+  static void unregister( final ServletContext servletContext ) {
+    servletContext.removeAttribute( CONTEXT_ATTRIBUTE );
+  }
+
+  /**
+   * @return the Pentaho session stored in the HTTP session with the given id, or null if none is known
+   */
+  public IPentahoSession get( final String httpSessionId ) {
+    return httpSessionId == null ? null : sessions.get( httpSessionId );
+  }
+
+  public void put( final String httpSessionId, final IPentahoSession pentahoSession ) {
+    if ( httpSessionId == null ) {
+      return;
+    }
+    if ( pentahoSession == null ) {
+      sessions.remove( httpSessionId );
+    } else {
+      sessions.put( httpSessionId, pentahoSession );
+    }
+  }
+
+  public void remove( final String httpSessionId ) {
+    if ( httpSessionId != null ) {
+      sessions.remove( httpSessionId );
+    }
+  }
+
+  /**
+   * Moves the entry of an HTTP session whose id was changed, for instance to prevent session fixation on login.
+   */
+  public void rename( final String oldHttpSessionId, final String newHttpSessionId ) {
+    if ( oldHttpSessionId == null ) {
+      return;
+    }
+    IPentahoSession pentahoSession = sessions.remove( oldHttpSessionId );
+    if ( pentahoSession != null ) {
+      put( newHttpSessionId, pentahoSession );
+    }
+  }
+
+  public int size() {
+    return sessions.size();
+  }
+}
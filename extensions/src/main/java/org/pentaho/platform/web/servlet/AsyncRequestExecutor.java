@@ -0,0 +1,316 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.servlet;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.api.engine.IPentahoRequestContext;
+import org.pentaho.platform.api.engine.IPentahoSession;
+import org.pentaho.platform.engine.core.system.PentahoRequestContextHolder;
+import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.util.messages.LocaleHelper;
+import org.pentaho.platform.util.trace.RequestTracer;
+import org.slf4j.MDC;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs servlet requests on a bounded pool of worker threads instead of the container's request thread, so that a
+ * handful of long running requests (reports, queries, transformations) cannot take all of the container's threads
+ * and starve cheap requests.
+ * <p>
+ * The mode is off unless {@code async-request-execution/enabled} is set in pentaho.xml. The worker runs with the
+ * pentaho session, security context, request context, locale, logging MDC and request trace of the request thread,
+ * and a traced request is recorded when its asynchronous processing completes. When the pool and its queue are full,
+ * requests run on the request thread as they do when the mode is off.
+ */
+public class AsyncRequestExecutor {
+
+  public static final String SETTING_ENABLED = "async-request-execution/enabled"; //$NON-NLS-1$
+
+  public static final String SETTING_MAX_THREADS = "async-request-execution/max-threads"; //$NON-NLS-1$
+
+  public static final String SETTING_QUEUE_SIZE = "async-request-execution/queue-size"; //$NON-NLS-1$
+
+  public static final String SETTING_TIMEOUT_SECONDS = "async-request-execution/timeout-seconds"; //$NON-NLS-1$
+
+  public static final int DEFAULT_MAX_THREADS = 50;
+
+  public static final int DEFAULT_QUEUE_SIZE = 100;
+
+  /**
+   * Tomcat only lets a request go asynchronous when every filter and servlet it went through declares async support,
+   * which the Servlet 2.3 web.xml cannot do. Setting this request attribute marks the request as async capable.
+   */
+  static final String ASYNC_SUPPORTED_ATTR = "org.apache.catalina.ASYNC_SUPPORTED"; //$NON-NLS-1$
+
+  private static final Log logger = LogFactory.getLog( AsyncRequestExecutor.class );
+
+  private static volatile boolean initialized;
+
+  private static AsyncRequestExecutor instance;
+
+  private final ThreadPoolExecutor executor;
+
+  private final long timeoutMillis;
+
+  /**
+   * Work that a servlet would otherwise run on the request thread.
+   */
+  public interface RequestTask {
+    void run() throws ServletException, IOException;
+  }
+
+  /**
+   * @param maxThreads
+   *          number of worker threads
+   * @param queueSize
+   *          number of requests that may wait for a worker
+   * @param timeoutMillis
+   *          time after which the container times out a request, 0 for none
+   */
+  public AsyncRequestExecutor( final int maxThreads, final int queueSize, final long timeoutMillis ) {
+    final AtomicInteger threadCount = new AtomicInteger();
+    executor = new ThreadPoolExecutor( maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+      new ArrayBlockingQueue<Runnable>( Math.max( 1, queueSize ) ), runnable -> {
+        Thread thread = new Thread( runnable, "pentaho-request-" + threadCount.incrementAndGet() ); //$NON-NLS-1$
+        thread.setDaemon( true );
+        return thread;
+      } );
+    executor.allowCoreThreadTimeOut( true );
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * @return the shared executor, or null if asynchronous request execution is not enabled
+   */
+  public static AsyncRequestExecutor getInstance() {
+    if ( !initialized ) {
+      synchronized ( AsyncRequestExecutor.class ) {
+        if ( !initialized ) {
+          if ( Boolean.parseBoolean( PentahoSystem.getSystemSetting( SETTING_ENABLED, "false" ) ) ) { //$NON-NLS-1$
+            instance = new AsyncRequestExecutor( getSetting( SETTING_MAX_THREADS, DEFAULT_MAX_THREADS ),
+              getSetting( SETTING_QUEUE_SIZE, DEFAULT_QUEUE_SIZE ),
+              TimeUnit.SECONDS.toMillis( getSetting( SETTING_TIMEOUT_SECONDS, 0 ) ) );
+          }
+          initialized = true;
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Stops the shared executor, if one was created. Requests already handed over still run; later requests run on the
+   * request thread.
+   */
+  public static void shutdownInstance() {
+    AsyncRequestExecutor executor;
+    synchronized ( AsyncRequestExecutor.class ) {
+      executor = instance;
+      instance = null;
+      initialized = true;
+    }
+    if ( executor != null ) {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Runs the task on a worker thread if asynchronous request execution is enabled.
+   *
+   * @return {@code true} if the task was handed over, in which case the caller must return without touching the
+   *         response; {@code false} if the caller should run the task itself
+   */
+  public static boolean dispatch( final HttpServletRequest request, final HttpServletResponse response,
+                                  final RequestTask task ) {
+    AsyncRequestExecutor executor = getInstance();
+    return executor != null && executor.execute( request, response, task );
+  }
+
+  /**
+   * Starts asynchronous processing of the request and runs the task on a worker thread.
+   *
+   * @return {@code false} if the request cannot go asynchronous, for instance because it is already running on a
+   *         worker or is an include or forward
+   */
+  public boolean execute( final HttpServletRequest request, final HttpServletResponse response,
+                          final RequestTask task ) {
+    if ( request.getDispatcherType() != DispatcherType.REQUEST || request.isAsyncStarted() ) {
+      return false;
+    }
+    request.setAttribute( ASYNC_SUPPORTED_ATTR, Boolean.TRUE );
+    if ( !request.isAsyncSupported() ) {
+      return false;
+    }
+    AsyncContext asyncContext;
+    try {
+      asyncContext = request.startAsync( request, response );
+    } catch ( IllegalStateException e ) {
+      if ( logger.isDebugEnabled() ) {
+        logger.debug( "Request cannot be processed asynchronously: " + e.getMessage() ); //$NON-NLS-1$
+      }
+      return false;
+    }
+    asyncContext.setTimeout( timeoutMillis );
+    final RequestTracer.AsyncTrace trace = RequestTracer.startAsync();
+    asyncContext.addListener( new AsyncListener() {
+      @Override
+      public void onComplete( final AsyncEvent event ) {
+        trace.complete();
+      }
+
+      @Override
+      public void onTimeout( final AsyncEvent event ) {
+      }
+
+      @Override
+      public void onError( final AsyncEvent event ) {
+      }
+
+      @Override
+      public void onStartAsync( final AsyncEvent event ) {
+      }
+    } );
+
+    ContextTask contextTask = new ContextTask( asyncContext, response, task, trace );
+    try {
+      executor.execute( contextTask );
+    } catch ( RejectedExecutionException e ) {
+      // every worker is busy and the queue is full; hold on to the request thread as when the mode is off
+      contextTask.run();
+    }
+    return true;
+  }
+
+  public int getActiveCount() {
+    return executor.getActiveCount();
+  }
+
+  public int getQueueSize() {
+    return executor.getQueue().size();
+  }
+
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  private static int getSetting( final String name, final int defaultValue ) {
+    String value = PentahoSystem.getSystemSetting( name, String.valueOf( defaultValue ) );
+    try {
+      return Integer.parseInt( value.trim() );
+    } catch ( NumberFormatException e ) {
+      logger.warn( "Invalid " + name + " setting, using " + defaultValue ); //$NON-NLS-1$ //$NON-NLS-2$
+      return defaultValue;
+    }
+  }
+
+  /**
+   * Carries the thread-bound state of the request thread over to the thread running the task, and completes the
+   * request when the task is done.
+   */
+  private static class ContextTask implements Runnable {
+    private final AsyncContext asyncContext;
+    private final HttpServletResponse response;
+    private final RequestTask task;
+    private final RequestTracer.AsyncTrace trace;
+    private final IPentahoSession session = PentahoSessionHolder.getSession();
+    private final SecurityContext securityContext = SecurityContextHolder.getContext();
+    private final IPentahoRequestContext requestContext = PentahoRequestContextHolder.getRequestContext();
+    private final Locale localeBase = LocaleHelper.getThreadLocaleBase();
+    private final Locale localeOverride = LocaleHelper.getThreadLocaleOverride();
+    private final Map<String, String> mdc = MDC.getCopyOfContextMap();
+    private final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+    ContextTask( final AsyncContext asyncContext, final HttpServletResponse response, final RequestTask task,
+                 final RequestTracer.AsyncTrace trace ) {
+      this.asyncContext = asyncContext;
+      this.response = response;
+      this.task = task;
+      this.trace = trace;
+    }
+
+    @Override
+    public void run() {
+      Thread thread = Thread.currentThread();
+      IPentahoSession origSession = PentahoSessionHolder.getSession();
+      SecurityContext origSecurityContext = SecurityContextHolder.getContext();
+      IPentahoRequestContext origRequestContext = PentahoRequestContextHolder.getRequestContext();
+      Locale origLocaleBase = LocaleHelper.getThreadLocaleBase();
+      Locale origLocaleOverride = LocaleHelper.getThreadLocaleOverride();
+      Map<String, String> origMdc = MDC.getCopyOfContextMap();
+      ClassLoader origClassLoader = thread.getContextClassLoader();
+      try {
+        PentahoSessionHolder.setSession( session );
+        SecurityContextHolder.setContext( securityContext );
+        PentahoRequestContextHolder.setRequestContext( requestContext );
+        LocaleHelper.setThreadLocaleBase( localeBase );
+        LocaleHelper.setThreadLocaleOverride( localeOverride );
+        setMdc( mdc );
+        thread.setContextClassLoader( contextClassLoader );
+
+        try ( RequestTracer.Span span = trace.resume( "AsyncRequestExecutor" ) ) { //$NON-NLS-1$
+          task.run();
+        }
+      } catch ( ServletException | IOException | RuntimeException e ) {
+        logger.error( "Error processing request", e ); //$NON-NLS-1$
+        sendError();
+      } finally {
+        PentahoSessionHolder.setSession( origSession );
+        SecurityContextHolder.setContext( origSecurityContext );
+        PentahoRequestContextHolder.setRequestContext( origRequestContext );
+        LocaleHelper.setThreadLocaleBase( origLocaleBase );
+        LocaleHelper.setThreadLocaleOverride( origLocaleOverride );
+        setMdc( origMdc );
+        thread.setContextClassLoader( origClassLoader );
+        asyncContext.complete();
+      }
+    }
+
+    private void sendError() {
+      if ( !response.isCommitted() ) {
+        try {
+          response.sendError( HttpServletResponse.SC_INTERNAL_SERVER_ERROR );
+        } catch ( IOException | IllegalStateException e ) {
+          logger.debug( "Could not send error response", e ); //$NON-NLS-1$
+        }
+      }
+    }
+
+    private static void setMdc( final Map<String, String> contextMap ) {
+      if ( contextMap == null ) {
+        MDC.clear();
+      } else {
+        MDC.setContextMap( contextMap );
+      }
+    }
+  }
+}
@@ -0,0 +1,433 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.servlet;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.api.engine.IPentahoSession;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.web.servlet.messages.Messages;
+
+import javax.servlet.http.Part;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A file uploaded in chunks. Every chunk is written at its offset straight into a single staging file in the
+ * system/tmp folder, so an interrupted upload can be resumed from the last acknowledged offset instead of restarting
+ * from zero. The local headers of a zip archive are validated while it is being uploaded, which rejects archives that
+ * would expand beyond the size limit as early as possible; the central directory of the finished archive is still
+ * checked when it is processed.
+ * <p>
+ * Uploads in progress are registered by id and expire when they have not been touched for a while; the staging file
+ * of an expired upload is deleted. The number of uploads in progress is limited per user and in total, which together
+ * with the size limit of each upload bounds the space taken by staging files.
+ */
+public class ChunkedUpload {
+
+  public static final String SETTING_EXPIRY_MINUTES = "file-upload-defaults/chunked-upload-expiry-minutes"; //$NON-NLS-1$
+
+  public static final long DEFAULT_EXPIRY_MINUTES = 60;
+
+  public static final String SETTING_USER_LIMIT = "file-upload-defaults/chunked-upload-user-limit"; //$NON-NLS-1$
+
+  public static final long DEFAULT_USER_LIMIT = 10;
+
+  public static final String SETTING_TOTAL_LIMIT = "file-upload-defaults/chunked-upload-total-limit"; //$NON-NLS-1$
+
+  public static final long DEFAULT_TOTAL_LIMIT = 100;
+
+  private static final Log logger = LogFactory.getLog( ChunkedUpload.class );
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+  private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+
+  private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+
+  private static final int LOCAL_HEADER_LENGTH = 30;
+
+  private static final int DATA_DESCRIPTOR_FLAG = 0x08;
+
+  private static final long ZIP64_SIZE = 0xFFFFFFFFL;
+
+  private static volatile Cache<String, ChunkedUpload> uploads;
+
+  private enum ZipScan {
+    SCANNING, COMPLETE, UNKNOWN
+  }
+
+  private final String id;
+  private final String owner;
+  private final String fileName;
+  private final File file;
+  private final long maxSize;
+  private long size;
+  private ZipScan zipScan;
+  private long zipPosition;
+  private long uncompressedSize;
+
+  ChunkedUpload( final String id, final String owner, final String fileName, final File file, final long maxSize ) {
+    this.id = id;
+    this.owner = owner;
+    this.fileName = fileName;
+    this.file = file;
+    this.maxSize = maxSize;
+    this.zipScan = "zip".equalsIgnoreCase( FilenameUtils.getExtension( fileName ) ) //$NON-NLS-1$
+      ? ZipScan.SCANNING : ZipScan.UNKNOWN;
+  }
+
+  /**
+   * Starts a chunked upload for the given session, staging it in the system/tmp folder.
+   *
+   * @param session  the session of the uploading user; the staging file is deleted when it ends
+   * @param fileName the name of the uploaded file
+   * @param maxSize  the maximum size, in bytes, of the upload and of the uncompressed content of a zip archive
+   * @return the new upload, or null if the user or the server already has as many uploads in progress as allowed
+   * @throws IOException if the staging file cannot be created
+   */
+  public static ChunkedUpload start( final IPentahoSession session, final String fileName, final long maxSize )
+    throws IOException {
+    synchronized ( ChunkedUpload.class ) {
+      Cache<String, ChunkedUpload> inProgress = getUploads();
+      // drop expired uploads so that they do not count against the limits
+      inProgress.cleanUp();
+      long userUploads = inProgress.asMap().values().stream()
+        .filter( upload -> upload.owner.equals( session.getName() ) ).count();
+      if ( userUploads >= getSetting( SETTING_USER_LIMIT, DEFAULT_USER_LIMIT )
+        || inProgress.size() >= getSetting( SETTING_TOTAL_LIMIT, DEFAULT_TOTAL_LIMIT ) ) {
+        return null;
+      }
+      File file = PentahoSystem.getApplicationContext()
+        .createTempFile( session, "upload", ".part", true ); //$NON-NLS-1$ //$NON-NLS-2$
+      ChunkedUpload upload =
+        new ChunkedUpload( UUID.randomUUID().toString(), session.getName(), fileName, file, maxSize );
+      inProgress.put( upload.getId(), upload );
+      return upload;
+    }
+  }
+
+  /**
+   * @return the upload in progress with the given id, or null if there is none or it belongs to another user
+   */
+  public static ChunkedUpload get( final IPentahoSession session, final String id ) {
+    if ( id == null || session == null ) {
+      return null;
+    }
+    ChunkedUpload upload = getUploads().getIfPresent( id );
+    return upload != null && upload.owner.equals( session.getName() ) ? upload : null;
+  }
+
+  /**
+   * Removes an upload from the uploads in progress. From then on the caller owns its staging file.
+   *
+   * @return the finished upload, or null if there is none with the given id for the session's user
+   */
+  public static ChunkedUpload finish( final IPentahoSession session, final String id ) {
+    ChunkedUpload upload = get( session, id );
+    if ( upload != null ) {
+      getUploads().invalidate( id );
+    }
+    return upload;
+  }
+
+  /**
+   * Removes several uploads from the uploads in progress, but only if all of them are there, so that a request naming
+   * an unknown upload leaves the others to be resumed or used again. From then on the caller owns their staging files.
+   *
+   * @return the finished uploads in the order of the ids, or null if any of them is not an upload of the session's user
+   */
+  public static List<ChunkedUpload> finish( final IPentahoSession session, final List<String> ids ) {
+    synchronized ( ChunkedUpload.class ) {
+      List<ChunkedUpload> finished = new ArrayList<>();
+      for ( String id : ids ) {
+        ChunkedUpload upload = get( session, id );
+        if ( upload == null ) {
+          return null;
+        }
+        finished.add( upload );
+      }
+      getUploads().invalidateAll( ids );
+      return finished;
+    }
+  }
+
+  private static Cache<String, ChunkedUpload> getUploads() {
+    if ( uploads == null ) {
+      synchronized ( ChunkedUpload.class ) {
+        if ( uploads == null ) {
+          long expiry = getSetting( SETTING_EXPIRY_MINUTES, DEFAULT_EXPIRY_MINUTES );
+          uploads = CacheBuilder.newBuilder()
+            .expireAfterAccess( expiry, TimeUnit.MINUTES )
+            .<String, ChunkedUpload>removalListener( notification -> {
+              // finished uploads are handed over to the caller, abandoned ones are discarded
+              if ( notification.getCause() != RemovalCause.EXPLICIT ) {
+                notification.getValue().delete();
+              }
+            } )
+            .build();
+        }
+      }
+    }
+    return uploads;
+  }
+
+  private static long getSetting( final String setting, final long defaultValue ) {
+    try {
+      return Long.parseLong( PentahoSystem.getSystemSetting( setting, String.valueOf( defaultValue ) ) );
+    } catch ( NumberFormatException e ) {
+      logger.warn( "Invalid " + setting + " setting, using " + defaultValue ); //$NON-NLS-1$ //$NON-NLS-2$
+      return defaultValue;
+    }
+  }
+
+  /**
+   * Writes a chunk at the given offset. A chunk is only accepted at the current end of the upload, which lets a client
+   * that lost track of an interrupted upload resume it from {@link #getSize()}.
+   *
+   * @param offset   the offset of the chunk in the file
+   * @param chunk    the content of the chunk
+   * @param checksum the hex encoded SHA-256 digest of the chunk, or null to skip verification
+   * @return false if the offset does not match the current size of the upload, in which case nothing is written
+   * @throws IOException if the chunk is corrupt, makes the upload too big or cannot be written; a rejected chunk is
+   *                     discarded and the upload can be resumed from its previous size
+   */
+  public synchronized boolean append( final long offset, final InputStream chunk, final String checksum )
+    throws IOException {
+    if ( offset != size ) {
+      return false;
+    }
+
+    MessageDigest digest = checksum != null ? getDigest() : null;
+    try ( FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.WRITE,
+      StandardOpenOption.READ, StandardOpenOption.CREATE ) ) {
+      long position = offset;
+      try {
+        byte[] bytes = new byte[ BUFFER_SIZE ];
+        ByteBuffer buffer = ByteBuffer.wrap( bytes );
+        int read;
+        while ( ( read = chunk.read( bytes ) ) != -1 ) {
+          if ( position + read > maxSize ) {
+            throw new IOException(
+              Messages.getInstance().getErrorString( "UploadFileServlet.ERROR_0003_FILE_TOO_BIG" ) ); //$NON-NLS-1$
+          }
+          if ( digest != null ) {
+            digest.update( bytes, 0, read );
+          }
+          buffer.clear().limit( read );
+          while ( buffer.hasRemaining() ) {
+            position += channel.write( buffer, position );
+          }
+        }
+        if ( digest != null && !checksum.equalsIgnoreCase( Hex.encodeHexString( digest.digest() ) ) ) {
+          throw new IOException(
+            Messages.getInstance().getErrorString( "UploadFileServlet.ERROR_0014_CHECKSUM_MISMATCH" ) ); //$NON-NLS-1$
+        }
+        scanZip( channel, position );
+      } catch ( IOException | RuntimeException e ) {
+        channel.truncate( offset );
+        throw e;
+      }
+      size = position;
+    }
+    return true;
+  }
+
+  /**
+   * Walks the local headers of a zip archive that have been uploaded so far, adding up the uncompressed size of the
+   * entries. The scan gives up, leaving the check to the finished archive, on entries whose sizes are only known after
+   * their data (streamed or zip64 entries).
+   */
+  private void scanZip( final FileChannel channel, final long available ) throws IOException {
+    long position = zipPosition;
+    long uncompressed = uncompressedSize;
+    ByteBuffer header = ByteBuffer.allocate( LOCAL_HEADER_LENGTH ).order( ByteOrder.LITTLE_ENDIAN );
+    while ( zipScan == ZipScan.SCANNING && position + 4 <= available ) {
+      header.clear().limit( (int) Math.min( LOCAL_HEADER_LENGTH, available - position ) );
+      read( channel, header, position );
+      int signature = header.getInt( 0 );
+      if ( signature == CENTRAL_HEADER_SIGNATURE || signature == END_OF_CENTRAL_DIRECTORY_SIGNATURE ) {
+        zipScan = ZipScan.COMPLETE;
+      } else if ( signature != LOCAL_HEADER_SIGNATURE ) {
+        zipScan = ZipScan.UNKNOWN;
+      } else if ( header.limit() < LOCAL_HEADER_LENGTH ) {
+        break;
+      } else {
+        int flags = header.getShort( 6 ) & 0xFFFF;
+        long compressedSize = header.getInt( 18 ) & 0xFFFFFFFFL;
+        long entrySize = header.getInt( 22 ) & 0xFFFFFFFFL;
+        if ( ( flags & DATA_DESCRIPTOR_FLAG ) != 0 || compressedSize == ZIP64_SIZE || entrySize == ZIP64_SIZE ) {
+          zipScan = ZipScan.UNKNOWN;
+        } else {
+          uncompressed += entrySize;
+          if ( uncompressed > maxSize ) {
+            throw new IOException(
+              Messages.getInstance().getErrorString( "UploadFileServlet.ERROR_0006_FILE_TOO_BIG" ) ); //$NON-NLS-1$
+          }
+          position += LOCAL_HEADER_LENGTH + ( header.getShort( 26 ) & 0xFFFF ) + ( header.getShort( 28 ) & 0xFFFF )
+            + compressedSize;
+          // only entries whose header has been read completely are accounted for
+          zipPosition = position;
+          uncompressedSize = uncompressed;
+        }
+      }
+    }
+  }
+
+  private static void read( final FileChannel channel, final ByteBuffer buffer, final long position )
+    throws IOException {
+    long current = position;
+    while ( buffer.hasRemaining() ) {
+      int read = channel.read( buffer, current );
+      if ( read < 0 ) {
+        throw new IOException( "Unexpected end of file" ); //$NON-NLS-1$
+      }
+      current += read;
+    }
+  }
+
+  private static MessageDigest getDigest() throws IOException {
+    try {
+      return MessageDigest.getInstance( "SHA-256" ); //$NON-NLS-1$
+    } catch ( NoSuchAlgorithmException e ) {
+      throw new IOException( e );
+    }
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getFileName() {
+    return fileName;
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  public synchronized long getSize() {
+    return size;
+  }
+
+  /**
+   * @return the uncompressed size of a zip archive according to the local headers that have all been validated during
+   * the upload, or -1 if it is not known
+   */
+  public synchronized long getUncompressedZipSize() {
+    return zipScan == ZipScan.COMPLETE ? uncompressedSize : -1;
+  }
+
+  public void delete() {
+    try {
+      Files.deleteIfExists( file.toPath() );
+    } catch ( IOException e ) {
+      logger.warn( "Could not delete staged upload " + file, e ); //$NON-NLS-1$
+    }
+  }
+
+  /**
+   * @return the finished upload as a multipart request part, so it can be processed like a regular file upload
+   */
+  public Part toPart() {
+    return new StagedPart( this );
+  }
+
+  /**
+   * A part backed by the staging file of a chunked upload. The upload processing moves its file into place instead of
+   * copying its content.
+   */
+  static class StagedPart implements Part {
+    private final ChunkedUpload upload;
+
+    StagedPart( final ChunkedUpload upload ) {
+      this.upload = upload;
+    }
+
+    ChunkedUpload getUpload() {
+      return upload;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+      return Files.newInputStream( upload.getFile().toPath() );
+    }
+
+    @Override
+    public String getContentType() {
+      return null;
+    }
+
+    @Override
+    public String getName() {
+      return upload.getId();
+    }
+
+    @Override
+    public String getSubmittedFileName() {
+      return upload.getFileName();
+    }
+
+    @Override
+    public long getSize() {
+      return upload.getSize();
+    }
+
+    @Override
+    public void write( final String fileName ) throws IOException {
+      Files.copy( upload.getFile().toPath(), new File( fileName ).toPath() );
+    }
+
+    @Override
+    public void delete() {
+      upload.delete();
+    }
+
+    @Override
+    public String getHeader( final String name ) {
+      return null;
+    }
+
+    @Override
+    public Collection<String> getHeaders( final String name ) {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public Collection<String> getHeaderNames() {
+      return Collections.emptyList();
+    }
+  }
+}
@@ -189,6 +189,15 @@ public class GenericServlet extends ServletBase {
     return "true".equals( pluginManager.getPluginSetting( pluginId, "settings/cache", "false" ) );
   }
 
+  @Override
+  protected void service( final HttpServletRequest request, final HttpServletResponse response )
+    throws ServletException, IOException {
+    // content generators may block for a long time, so hand them to the request workers when that mode is on
+    if ( !AsyncRequestExecutor.dispatch( request, response, () -> super.service( request, response ) ) ) {
+      super.service( request, response );
+    }
+  }
+
   @Override
   protected void doPost( final HttpServletRequest request, final HttpServletResponse response )
     throws ServletException, IOException {
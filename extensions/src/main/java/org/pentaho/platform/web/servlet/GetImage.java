@@ -16,6 +16,7 @@ package org.pentaho.platform.web.servlet;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.uifoundation.chart.ChartRenderCache;
 import org.pentaho.platform.util.StringUtil;
 import org.pentaho.platform.web.servlet.messages.Messages;
 
@@ -82,6 +83,13 @@ public class GetImage extends ServletBase {
         location = "system/tmp/" + image; //$NON-NLS-1$
       }
 
+      // charts rendered by the JFreeChartEngine are served from memory
+      ChartRenderCache.RenderedChart chart = ChartRenderCache.getInstance().getImage( location );
+      if ( chart != null ) {
+        writeRenderedChart( request, response, chart );
+        return;
+      }
+
       File tmpFile = new File( PentahoSystem.getApplicationContext().getSolutionPath( location ) );
       // if (image.charAt(0) != '/' && image.charAt(0) != '\\') {
       // file = new File(tempDirectory, image);
@@ -138,4 +146,26 @@ public class GetImage extends ServletBase {
 
   }
 
+  /**
+   * Writes a cached chart image. Identical charts share the same content key, which is used as the ETag so that
+   * browsers can revalidate instead of downloading the image again.
+   */
+  protected void writeRenderedChart( final HttpServletRequest request, final HttpServletResponse response,
+                                     final ChartRenderCache.RenderedChart chart ) throws IOException {
+    String etag = "\"" + chart.getKey() + "\""; //$NON-NLS-1$ //$NON-NLS-2$
+    response.setHeader( "ETag", etag ); //$NON-NLS-1$
+    if ( etag.equals( request.getHeader( "If-None-Match" ) ) ) { //$NON-NLS-1$
+      response.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+      return;
+    }
+    response.setContentType( chart.getMimeType() );
+    response.setContentLength( chart.getContent().length );
+    OutputStream out = response.getOutputStream();
+    try {
+      out.write( chart.getContent() );
+    } finally {
+      out.close();
+    }
+  }
+
 }
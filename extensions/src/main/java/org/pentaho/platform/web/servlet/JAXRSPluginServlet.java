@@ -23,6 +23,7 @@ import org.apache.commons.logging.LogFactory;
 import org.pentaho.platform.api.engine.IPentahoSession;
 import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.objfac.spring.SpringScopeSessionHolder;
+import org.pentaho.platform.util.trace.RequestTracer;
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
@@ -75,6 +76,11 @@ public class JAXRSPluginServlet extends SpringServlet implements ApplicationCont
 
   @Override
   public void service( HttpServletRequest request, HttpServletResponse response ) throws ServletException, IOException {
+    final HttpServletRequest containerRequest = request;
+    if ( AsyncRequestExecutor.dispatch( request, response, () -> service( containerRequest, response ) ) ) {
+      return;
+    }
+
     logger.debug( "servicing request for resource " + request.getPathInfo() ); //$NON-NLS-1$
 
     // Jersey's Servlet only responds to 'application.wadl', Plugin requests always have 'plugin/PLUGIN_NAME/api' as a
@@ -119,7 +125,7 @@ public class JAXRSPluginServlet extends SpringServlet implements ApplicationCont
     // but this is the place which is solving the current need, and with a lesser impact.
     IPentahoSession previousSpringSession = SpringScopeSessionHolder.SESSION.get();
     SpringScopeSessionHolder.SESSION.set( PentahoSessionHolder.getSession() );
-    try {
+    try ( RequestTracer.Span span = RequestTracer.startSpan( "JAXRSPluginServlet" ) ) { //$NON-NLS-1$
       callParentServiceMethod( request, response );
     } finally {
       SpringScopeSessionHolder.SESSION.set( previousSpringSession );
@@ -151,6 +157,7 @@ public class JAXRSPluginServlet extends SpringServlet implements ApplicationCont
       rc.getFeatures().put( ResourceConfig.FEATURE_TRACE, true );
       rc.getFeatures().put( ResourceConfig.FEATURE_TRACE_PER_REQUEST, true );
     }
+    rc.getResourceFilterFactories().add( new RequestTracingResourceFilterFactory() );
     super.initiate( rc, wa );
   }
 
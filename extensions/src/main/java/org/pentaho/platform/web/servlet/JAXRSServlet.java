@@ -33,6 +33,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.engine.core.system.objfac.spring.PentahoBeanScopeValidatorPostProcessor;
+import org.pentaho.platform.util.trace.RequestTracer;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.core.io.FileSystemResource;
@@ -93,6 +94,10 @@ public class JAXRSServlet extends SpringServlet {
 
   @Override
   public void service( HttpServletRequest request, HttpServletResponse response ) throws ServletException, IOException {
+    final HttpServletRequest containerRequest = request;
+    if ( AsyncRequestExecutor.dispatch( request, response, () -> service( containerRequest, response ) ) ) {
+      return;
+    }
 
     if ( logger.isDebugEnabled() ) {
       logger.debug( "servicing request for resource " + request.getPathInfo() ); //$NON-NLS-1$
@@ -129,7 +134,9 @@ public class JAXRSServlet extends SpringServlet {
             } );
       }
     }
-    super.service( request, response );
+    try ( RequestTracer.Span span = RequestTracer.startSpan( "JAXRSServlet" ) ) { //$NON-NLS-1$
+      super.service( request, response );
+    }
   }
 
   @Override
@@ -144,6 +151,7 @@ public class JAXRSServlet extends SpringServlet {
       rc.getFeatures().put( ResourceConfig.FEATURE_TRACE, true );
       rc.getFeatures().put( ResourceConfig.FEATURE_TRACE_PER_REQUEST, true );
     }
+    rc.getResourceFilterFactories().add( new RequestTracingResourceFilterFactory() );
     callSuperInitiate( rc, wa );
     if ( logger.isDebugEnabled() ) {
       MessageBodyWorkers messageBodyWorkers = wa.getMessageBodyWorkers();
@@ -99,7 +99,10 @@ public class PluginDispatchServlet implements Servlet {
       return;
     }
 
-    pluginServlet.service( req, res );
+    // plugin servlets run their own blocking work, so hand them to the request workers when that mode is on
+    if ( !AsyncRequestExecutor.dispatch( request, response, () -> pluginServlet.service( req, res ) ) ) {
+      pluginServlet.service( req, res );
+    }
   }
 
   protected Servlet getTargetServlet( HttpServletRequest request, HttpServletResponse response )
@@ -0,0 +1,87 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.servlet;
+
+import com.sun.jersey.api.model.AbstractMethod;
+import com.sun.jersey.api.model.AbstractResourceMethod;
+import com.sun.jersey.spi.container.ContainerRequest;
+import com.sun.jersey.spi.container.ContainerRequestFilter;
+import com.sun.jersey.spi.container.ContainerResponse;
+import com.sun.jersey.spi.container.ContainerResponseFilter;
+import com.sun.jersey.spi.container.ResourceFilter;
+import com.sun.jersey.spi.container.ResourceFilterFactory;
+import org.pentaho.platform.util.trace.RequestTracer;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reports traced requests under the JAX-RS resource method that handles them, and times that method as the
+ * <code>resource-method</code> stage.
+ *
+ * @see RequestTracer
+ */
+public class RequestTracingResourceFilterFactory implements ResourceFilterFactory {
+
+  public static final String STAGE = "resource-method"; //$NON-NLS-1$
+
+  private static final String SPAN_PROPERTY = RequestTracingResourceFilterFactory.class.getName() + ".span";
+
+  @Override
+  public List<ResourceFilter> create( final AbstractMethod am ) {
+    if ( !( am instanceof AbstractResourceMethod ) ) {
+      // sub-resource locators are followed by the resource method they lead to
+      return null;
+    }
+    AbstractResourceMethod method = (AbstractResourceMethod) am;
+    String endpoint = method.getHttpMethod() + " " + method.getResource().getResourceClass().getSimpleName() //$NON-NLS-1$
+      + "." + method.getMethod().getName(); //$NON-NLS-1$
+    return Collections.singletonList( new TracingFilter( endpoint ) );
+  }
+
+  private static class TracingFilter implements ResourceFilter, ContainerRequestFilter, ContainerResponseFilter {
+    private final String endpoint;
+
+    TracingFilter( final String endpoint ) {
+      this.endpoint = endpoint;
+    }
+
+    @Override
+    public ContainerRequestFilter getRequestFilter() {
+      return this;
+    }
+
+    @Override
+    public ContainerResponseFilter getResponseFilter() {
+      return this;
+    }
+
+    @Override
+    public ContainerRequest filter( final ContainerRequest request ) {
+      RequestTracer.setEndpoint( endpoint );
+      request.getProperties().put( SPAN_PROPERTY, RequestTracer.startSpan( STAGE ) );
+      return request;
+    }
+
+    @Override
+    public ContainerResponse filter( final ContainerRequest request, final ContainerResponse response ) {
+      // a method that throws leaves its span to be closed with the enclosing servlet span
+      Object span = request.getProperties().remove( SPAN_PROPERTY );
+      if ( span instanceof RequestTracer.Span ) {
+        ( (RequestTracer.Span) span ).close();
+      }
+      return response;
+    }
+  }
+}
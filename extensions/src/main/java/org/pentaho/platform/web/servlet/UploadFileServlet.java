@@ -17,6 +17,7 @@ import org.pentaho.platform.api.engine.IAuthorizationPolicy;
 import org.pentaho.platform.api.engine.IPentahoSession;
 import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.security.policy.rolebased.actions.RepositoryCreateAction;
 import org.pentaho.platform.web.servlet.messages.Messages;
 import org.pentaho.reporting.libraries.base.util.StringUtils;
 
@@ -36,10 +37,61 @@ public class UploadFileServlet extends HttpServlet implements Servlet {
 
   private static final long serialVersionUID = 8305367618713715640L;
 
+  private static final String UPLOAD_ID = "upload_id";
+
+  private static final int SC_TOO_MANY_REQUESTS = 429;
+
+  /**
+   * Returns the number of bytes received so far for the chunked upload given by the <code>upload_id</code> parameter,
+   * which is the offset an interrupted upload is resumed from.
+   */
+  protected void doGet( HttpServletRequest request, HttpServletResponse response )
+    throws ServletException, IOException {
+    IPentahoSession session = PentahoSessionHolder.getSession();
+    if ( !canStageUpload( session ) ) {
+      response.sendError( 403, Messages.getInstance().getErrorString( "UploadFileServlet.ERROR_0009_UNAUTHORIZED" ) );
+      return;
+    }
+    ChunkedUpload upload = getChunkedUpload( session, request, response );
+    if ( upload != null ) {
+      response.setContentType( "text/plain" );
+      response.getWriter().write( String.valueOf( upload.getSize() ) );
+    }
+  }
+
+  /**
+   * Uploads a file, either in a single multipart request or in chunks:
+   * <ul>
+   * <li><code>chunked=true&amp;file_name=...</code> starts a chunked upload and returns its id;</li>
+   * <li><code>upload_id=...&amp;offset=...[&amp;checksum=...]</code> appends the request body at the given offset and
+   * returns the new size of the upload, the optional checksum being the hex encoded SHA-256 digest of the chunk;</li>
+   * <li><code>upload_id=...&amp;complete=true&amp;file_name=...</code> processes the finished upload like a single
+   * request upload.</li>
+   * </ul>
+   * A chunked upload can also be handed over to the repository import with its id.
+   */
   protected void doPost( HttpServletRequest request, HttpServletResponse response )
     throws ServletException, IOException {
     try {
       IPentahoSession session = PentahoSessionHolder.getSession();
+      String uploadId = request.getParameter( UPLOAD_ID );
+      boolean complete = Boolean.parseBoolean( request.getParameter( "complete" ) );
+      if ( Boolean.parseBoolean( request.getParameter( "chunked" ) )
+        || ( !StringUtils.isEmpty( uploadId ) && !complete ) ) {
+        if ( !canStageUpload( session ) ) {
+          response.sendError( 403,
+            Messages.getInstance().getErrorString( "UploadFileServlet.ERROR_0009_UNAUTHORIZED" ) );
+          return;
+        }
+        response.setContentType( "text/plain" );
+        if ( StringUtils.isEmpty( uploadId ) ) {
+          startChunkedUpload( session, request, response );
+        } else {
+          appendChunk( session, request, response );
+        }
+        return;
+      }
+
       if ( !hasManageDataAccessPermission( session ) ) {
         response.sendError( 403, Messages.getInstance().getErrorString( "UploadFileServlet.ERROR_0009_UNAUTHORIZED" ) );
         return;
@@ -47,7 +99,19 @@ public class UploadFileServlet extends HttpServlet implements Servlet {
 
       response.setContentType( "text/plain" );
 
-      Part uploadPart = request.getPart( "uploadFormElement" );
+      ChunkedUpload upload = null;
+      Part uploadPart;
+      if ( complete ) {
+        upload = ChunkedUpload.finish( session, uploadId );
+        if ( upload == null ) {
+          response.sendError( 404,
+            Messages.getInstance().getErrorString( "UploadFileServlet.ERROR_0015_UPLOAD_NOT_FOUND", uploadId ) );
+          return;
+        }
+        uploadPart = upload.toPart();
+      } else {
+        uploadPart = request.getPart( "uploadFormElement" );
+      }
       if ( uploadPart == null ) {
         String error = Messages.getInstance().getErrorString( "UploadFileServlet.ERROR_0001_NO_FILE_TO_UPLOAD" );
         response.getWriter().write( error );
@@ -80,8 +144,14 @@ public class UploadFileServlet extends HttpServlet implements Servlet {
       utils.setWriter( response.getWriter() );
       utils.setUploadedPart( uploadPart );
 
-      // Do nothing with success value - the output should already have been written to the servlet response.
-      utils.process();
+      try {
+        // Do nothing with success value - the output should already have been written to the servlet response.
+        utils.process();
+      } finally {
+        if ( upload != null ) {
+          upload.delete();
+        }
+      }
 
     } catch ( FileNotFoundException e ) {
       response.getWriter().write( Messages.getInstance().getErrorString( "UploadFileServlet.ERROR_0013_NO_SUCH_FILE_OR_DIRECTORY" ) );
@@ -93,6 +163,74 @@ public class UploadFileServlet extends HttpServlet implements Servlet {
     }
   }
 
+  private void startChunkedUpload( IPentahoSession session, HttpServletRequest request, HttpServletResponse response )
+    throws ServletException, IOException {
+    String fileName = request.getParameter( "file_name" );
+    if ( StringUtils.isEmpty( fileName ) ) {
+      throw new ServletException(
+        Messages.getInstance().getErrorString( "UploadFileServlet.ERROR_0010_FILE_NAME_INVALID" ) );
+    }
+    long maxSize = new UploadFileUtils( session ).getMaxFileSize();
+    ChunkedUpload upload = ChunkedUpload.start( session, fileName, maxSize );
+    if ( upload == null ) {
+      response.sendError( SC_TOO_MANY_REQUESTS,
+        Messages.getInstance().getErrorString( "UploadFileServlet.ERROR_0016_TOO_MANY_UPLOADS" ) );
+      return;
+    }
+    response.getWriter().write( upload.getId() );
+  }
+
+  private void appendChunk( IPentahoSession session, HttpServletRequest request, HttpServletResponse response )
+    throws IOException {
+    ChunkedUpload upload = getChunkedUpload( session, request, response );
+    if ( upload == null ) {
+      return;
+    }
+    long offset;
+    try {
+      offset = Long.parseLong( request.getParameter( "offset" ) );
+    } catch ( NumberFormatException e ) {
+      offset = -1;
+    }
+    try {
+      if ( !upload.append( offset, request.getInputStream(), request.getParameter( "checksum" ) ) ) {
+        // the client is out of step with the upload; tell it where to resume from
+        response.setStatus( HttpServletResponse.SC_CONFLICT );
+      }
+    } catch ( IOException e ) {
+      response.sendError( HttpServletResponse.SC_BAD_REQUEST, e.getLocalizedMessage() );
+      return;
+    }
+    response.getWriter().write( String.valueOf( upload.getSize() ) );
+  }
+
+  private ChunkedUpload getChunkedUpload( IPentahoSession session, HttpServletRequest request,
+                                          HttpServletResponse response ) throws IOException {
+    String uploadId = request.getParameter( UPLOAD_ID );
+    ChunkedUpload upload = ChunkedUpload.get( session, uploadId );
+    if ( upload == null ) {
+      response.sendError( HttpServletResponse.SC_NOT_FOUND,
+        Messages.getInstance().getErrorString( "UploadFileServlet.ERROR_0015_UPLOAD_NOT_FOUND", uploadId ) );
+    }
+    return upload;
+  }
+
+  /**
+   * Returns true if the current user may stage a chunked upload, which either this servlet or the repository import
+   * consumes. Each of them checks its own permission when the upload is handed over. How many uploads may be in
+   * progress at once is limited when an upload is started.
+   *
+   * @param session
+   * @return
+   */
+  protected boolean canStageUpload( IPentahoSession session ) {
+    if ( hasManageDataAccessPermission( session ) ) {
+      return true;
+    }
+    IAuthorizationPolicy policy = PentahoSystem.get( IAuthorizationPolicy.class );
+    return policy != null && policy.isAllowed( RepositoryCreateAction.NAME );
+  }
+
   /**
    * Returns true if the current user has Manage Data Source Security. Otherwise returns false.
    *
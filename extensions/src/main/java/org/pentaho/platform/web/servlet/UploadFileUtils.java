@@ -36,6 +36,8 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
@@ -173,11 +175,33 @@ public class UploadFileUtils {
       return false;
     }
 
+    if ( getUploadedPart() instanceof ChunkedUpload.StagedPart ) {
+      return process( (ChunkedUpload.StagedPart) getUploadedPart() );
+    }
+
     boolean res = process( getUploadedPart().getInputStream() );
     getUploadedPart().delete(); // Forcibly deletes temp file - now WE track it.
     return res;
   }
 
+  /**
+   * process a finished chunked upload. Its staging file already holds the whole upload, so it is moved into place
+   * rather than copied.
+   *
+   * @param part the staged upload
+   * @return <code>true</code> if the processing finished successfully and <code>false</code> otherwise
+   * @throws IOException
+   */
+  private boolean process( ChunkedUpload.StagedPart part ) throws IOException {
+    File file = getTargetFile();
+    if ( file == null ) {
+      part.delete();
+      return false;
+    }
+    Files.move( part.getUpload().getFile().toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING );
+    return handleUploadedFile( file );
+  }
+
   /**
    * process uploading using inputStream instead of UploadedFileItem do not support unzipping
    *
@@ -190,6 +214,32 @@ public class UploadFileUtils {
       return false;
     }
 
+    File file = getTargetFile();
+    if ( file == null ) {
+      return false;
+    }
+
+    try {
+      OutputStream outputStream = new BufferedOutputStream( new FileOutputStream( file ) );
+      try {
+        IOUtils.copy( inputStream, outputStream );
+      } finally {
+        IOUtils.closeQuietly( outputStream ); // note - close calls flush.
+      }
+    } finally {
+      IOUtils.closeQuietly( inputStream );
+    }
+
+    return handleUploadedFile( file );
+  }
+
+  /**
+   * Creates the file an upload is stored to.
+   *
+   * @return the file, or <code>null</code> if it would be outside of the upload folder
+   * @throws IOException
+   */
+  private File getTargetFile() throws IOException {
     File file = null;
     if ( isTemporary() ) {
       // Use the full filename because GZip relies on the extensions of the file to discover it's content
@@ -209,21 +259,13 @@ public class UploadFileUtils {
         getWriter()
           .write( Messages.getInstance()
             .getErrorString( "UploadFileServlet.ERROR_0008_FILE_LOCATION_INVALID" ) );
-        return false;
+        return null;
       }
     }
+    return file;
+  }
 
-    try {
-      OutputStream outputStream = new BufferedOutputStream( new FileOutputStream( file ) );
-      try {
-        IOUtils.copy( inputStream, outputStream );
-      } finally {
-        IOUtils.closeQuietly( outputStream ); // note - close calls flush.
-      }
-    } finally {
-      IOUtils.closeQuietly( inputStream );
-    }
-
+  private boolean handleUploadedFile( File file ) throws IOException {
     if ( shouldUnzip && getUploadedPart() != null ) {
       return handleUnzip( file );
     } else {
@@ -251,7 +293,13 @@ public class UploadFileUtils {
 
     if ( "zip".equals( extension ) || "application/zip".equals( contentType ) ) {
       // handle a zip
-      if ( checkLimits( getUncompressedZipFileSize( file ), true ) ) {
+      long uncompressedSize = getUncompressedZipFileSize( file );
+      // a chunked upload has also added up the local headers, which may disagree with the central directory
+      if ( getUploadedPart() instanceof ChunkedUpload.StagedPart ) {
+        uncompressedSize = Math.max( uncompressedSize,
+          ( (ChunkedUpload.StagedPart) getUploadedPart() ).getUpload().getUncompressedZipSize() );
+      }
+      if ( checkLimits( uncompressedSize, true ) ) {
         fileNames = handleZip( file );
       } else {
         file.delete(); // delete immediately (see requirements on BISERVER-4321)
@@ -703,6 +751,10 @@ public class UploadFileUtils {
     return this.relativePath;
   }
 
+  public long getMaxFileSize() {
+    return this.maxFileSize;
+  }
+
   void setAllowsNoExtension( boolean value ) {
     this.allowsNoExtension = value;
   }
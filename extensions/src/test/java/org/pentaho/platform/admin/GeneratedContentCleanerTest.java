@@ -23,11 +23,13 @@ import org.mockito.junit.MockitoJUnitRunner;
 import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
 import org.pentaho.platform.api.repository2.unified.RepositoryFile;
 import org.pentaho.platform.api.repository2.unified.RepositoryFileTree;
+import org.pentaho.platform.api.repository2.unified.UnifiedRepositoryException;
 import org.pentaho.platform.api.scheduler2.IScheduler;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 
 import java.io.Serializable;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -35,8 +37,13 @@ import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -92,6 +99,7 @@ public class GeneratedContentCleanerTest {
     RepositoryFileTree rootRepoFileTree =
       new RepositoryFileTree( folder, Collections.singletonList( childRepoFileTree ) );
     when( repo.getTree( nullable( String.class ), eq( -1 ), nullable( String.class ), eq( true ) ) ).thenReturn( rootRepoFileTree );
+    when( repo.isMetadataSearchSupported() ).thenReturn( false );
 
     Map<String, Serializable> values = new HashMap<>();
     values.put( IScheduler.RESERVEDMAPKEY_LINEAGE_ID, "lineageIdGoesHere" );
@@ -99,6 +107,51 @@ public class GeneratedContentCleanerTest {
 
     generatedContentCleaner.execute();
     verify( repo ).deleteFile( eq( FILE_ID ), eq( true ), nullable( String.class ) );
+    verify( repo, never() ).getFilesByMetadata( anyString(), any( Date.class ), anyInt(), anyInt() );
     assertEquals( 1000, generatedContentCleaner.getAge() );
   }
+
+  @Test
+  public void testExecute_generatedContentDeletedInBatches() throws Exception {
+    generatedContentCleaner.setBatchSize( 2 );
+    when( repo.isMetadataSearchSupported() ).thenReturn( true );
+    when( repo.getFilesByMetadata( eq( IScheduler.RESERVEDMAPKEY_LINEAGE_ID ), any( Date.class ), anyInt(), anyInt() ) )
+      .thenReturn( Arrays.asList( file( "1" ), file( "2" ), file( "3" ) ), Collections.<RepositoryFile>emptyList() );
+    when( repo.deleteFiles( eq( Arrays.<Serializable>asList( "1", "2" ) ), eq( true ), nullable( String.class ) ) )
+      .thenReturn( 2 );
+    // file 3 is skipped by the repository, for instance because an access voter denies its deletion
+    when( repo.deleteFiles( eq( Arrays.<Serializable>asList( "3" ) ), eq( true ), nullable( String.class ) ) )
+      .thenReturn( 0 );
+
+    generatedContentCleaner.execute();
+    verify( repo ).deleteFiles( eq( Arrays.<Serializable>asList( "1", "2" ) ), eq( true ), nullable( String.class ) );
+    verify( repo ).deleteFiles( eq( Arrays.<Serializable>asList( "3" ) ), eq( true ), nullable( String.class ) );
+    verify( repo, never() ).getTree( nullable( String.class ), anyInt(), nullable( String.class ), anyBoolean() );
+    assertEquals( 2, generatedContentCleaner.getDeletedCount() );
+    assertEquals( 1, generatedContentCleaner.getFailedCount() );
+  }
+
+  @Test
+  public void testExecute_failedBatchIsRetriedFileByFile() throws Exception {
+    generatedContentCleaner.setBatchSize( 2 );
+    when( repo.isMetadataSearchSupported() ).thenReturn( true );
+    when( repo.getFilesByMetadata( eq( IScheduler.RESERVEDMAPKEY_LINEAGE_ID ), any( Date.class ), anyInt(), anyInt() ) )
+      .thenReturn( Arrays.asList( file( "1" ), file( "2" ) ), Collections.singletonList( file( "2" ) ),
+        Collections.<RepositoryFile>emptyList() );
+    doThrow( new UnifiedRepositoryException() ).when( repo )
+      .deleteFiles( anyList(), eq( true ), nullable( String.class ) );
+    doThrow( new UnifiedRepositoryException() ).when( repo ).deleteFile( eq( "2" ), eq( true ), nullable( String.class ) );
+
+    generatedContentCleaner.execute();
+    verify( repo ).deleteFile( eq( "1" ), eq( true ), nullable( String.class ) );
+    assertEquals( 1, generatedContentCleaner.getDeletedCount() );
+    assertEquals( 1, generatedContentCleaner.getFailedCount() );
+    // the file that could not be deleted is skipped by the next query
+    verify( repo ).getFilesByMetadata( eq( IScheduler.RESERVEDMAPKEY_LINEAGE_ID ), any( Date.class ), eq( 1 ),
+      anyInt() );
+  }
+
+  private static RepositoryFile file( String id ) {
+    return new RepositoryFile.Builder( id, id ).folder( false ).createdDate( new Date( 0 ) ).build();
+  }
 }
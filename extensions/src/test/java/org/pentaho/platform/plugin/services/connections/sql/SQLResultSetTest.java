@@ -16,6 +16,7 @@ package org.pentaho.platform.plugin.services.connections.sql;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -29,6 +30,7 @@ import org.pentaho.commons.connection.IPentahoMetaData;
 import org.pentaho.commons.connection.IPentahoResultSet;
 import org.pentaho.commons.connection.memory.MemoryMetaData;
 import org.pentaho.metadata.query.model.util.QueryModelMetaData;
+import org.pentaho.platform.plugin.action.jfreereport.helper.PentahoTableModel;
 
 public class SQLResultSetTest {
 
@@ -206,4 +208,116 @@ public class SQLResultSetTest {
     assertEquals( metadata.getClass(), memoryCopyResultSet.getMetaData().getClass() );
   }
 
+  @Test
+  public void testForwardOnlyRandomAccessWithinWindow() throws SQLException {
+    PreparedStatement statement = mockForwardOnly( 10 );
+    SQLResultSet resultSet = new SQLResultSet( nativeResultSet, nativeConnection );
+    resultSet.setWindowSize( 4 );
+
+    assertEquals( "r2c1", resultSet.getValueAt( 2, 1 ) );
+    assertEquals( "r0c0", resultSet.getValueAt( 0, 0 ) );
+    assertEquals( "r7c0", resultSet.getValueAt( 7, 0 ) );
+    assertEquals( "r5c1", resultSet.getValueAt( 5, 1 ) );
+    assertTrue( Arrays.equals( new Object[] { "r6c0", "r6c1" }, resultSet.getDataRow( 6 ) ) );
+    verify( statement, never() ).executeQuery();
+    verify( nativeResultSet, never() ).absolute( anyInt() );
+  }
+
+  @Test
+  public void testForwardOnlyBackwardJumpReexecutes() throws SQLException {
+    PreparedStatement statement = mockForwardOnly( 10 );
+    SQLResultSet resultSet = new SQLResultSet( nativeResultSet, nativeConnection );
+    resultSet.setWindowSize( 4 );
+
+    assertEquals( "r9c0", resultSet.getValueAt( 9, 0 ) );
+    assertEquals( "r1c1", resultSet.getValueAt( 1, 1 ) );
+    verify( statement, times( 1 ) ).executeQuery();
+  }
+
+  @Test
+  public void testForwardOnlyRowCountAndBounds() throws SQLException {
+    mockForwardOnly( 3 );
+    SQLResultSet resultSet = new SQLResultSet( nativeResultSet, nativeConnection );
+
+    assertEquals( -1, resultSet.getRowCount() );
+    assertEquals( 3, resultSet.getDataColumn( 0 ).length );
+    assertEquals( 3, resultSet.getRowCount() );
+    try {
+      resultSet.getValueAt( 3, 0 );
+      fail();
+    } catch ( IndexOutOfBoundsException expected ) {
+      // no such row
+    }
+  }
+
+  @Test
+  public void testForwardOnlyRandomAccessAfterNext() throws SQLException {
+    PreparedStatement statement = mockForwardOnly( 10 );
+    SQLResultSet resultSet = new SQLResultSet( nativeResultSet, nativeConnection );
+    resultSet.setWindowSize( 4 );
+
+    assertEquals( "r0c0", resultSet.getValueAt( 0, 0 ) );
+    // rows 4 and 5 are consumed past the window
+    resultSet.next();
+    resultSet.next();
+    assertEquals( "r5c1", resultSet.getValueAt( 5, 1 ) );
+    assertEquals( "r9c0", resultSet.getValueAt( 9, 0 ) );
+    verify( statement, times( 1 ) ).executeQuery();
+  }
+
+  @Test
+  public void testForwardOnlyRowCountInTableModel() throws SQLException {
+    PreparedStatement statement = mockForwardOnly( 6 );
+    SQLResultSet resultSet = new SQLResultSet( nativeResultSet, nativeConnection );
+    resultSet.setWindowSize( 4 );
+    PentahoTableModel model = new PentahoTableModel( resultSet );
+
+    int rows = 0;
+    for ( int row = 0; row < model.getRowCount(); row++ ) {
+      assertEquals( "r" + row + "c0", model.getValueAt( row, 0 ) );
+      rows++;
+    }
+    assertEquals( 6, rows );
+    assertEquals( 6, model.getRowCount() );
+    // the rows were counted while they were read, without reading the cursor twice
+    verify( statement, never() ).executeQuery();
+  }
+
+  @Test
+  public void testWindowSizeFollowsFetchSize() {
+    when( nativeConnection.getFetchSize() ).thenReturn( 50 );
+    assertEquals( 50, new SQLResultSet( nativeResultSet, nativeConnection ).getWindowSize() );
+  }
+
+  /**
+   * Makes the native result set a forward-only cursor over <code>rows</code> rows whose cells are "r{row}c{column}".
+   * Re-executing the statement rewinds the cursor.
+   */
+  private PreparedStatement mockForwardOnly( final int rows ) throws SQLException {
+    final int[] position = { 0 };
+    PreparedStatement statement = mock( PreparedStatement.class );
+    when( statement.executeQuery() ).thenAnswer( new Answer<ResultSet>() {
+      @Override
+      public ResultSet answer( InvocationOnMock invocation ) {
+        position[0] = 0;
+        return nativeResultSet;
+      }
+    } );
+    when( nativeResultSet.getStatement() ).thenReturn( statement );
+    when( nativeResultSet.getType() ).thenReturn( ResultSet.TYPE_FORWARD_ONLY );
+    when( nativeResultSet.next() ).thenAnswer( new Answer<Boolean>() {
+      @Override
+      public Boolean answer( InvocationOnMock invocation ) {
+        return ++position[0] <= rows;
+      }
+    } );
+    when( nativeResultSet.getObject( anyInt() ) ).thenAnswer( new Answer<Object>() {
+      @Override
+      public Object answer( InvocationOnMock invocation ) {
+        return "r" + ( position[0] - 1 ) + "c" + ( (Integer) invocation.getArguments()[0] - 1 );
+      }
+    } );
+    return statement;
+  }
+
 }
@@ -29,6 +29,7 @@ import org.pentaho.metadata.model.Domain;
 import org.pentaho.metadata.model.LogicalModel;
 import org.pentaho.metadata.util.XmiParser;
 import org.pentaho.platform.api.engine.IUserRoleListService;
+import org.pentaho.platform.api.repository2.unified.IAclNodeHelper;
 import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
 import org.pentaho.platform.api.repository2.unified.RepositoryFile;
 import org.pentaho.platform.api.repository2.unified.RepositoryFileAcl;
@@ -60,12 +61,14 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.pentaho.platform.api.repository2.unified.RepositoryFilePermission.READ;
@@ -830,6 +833,59 @@ public class PentahoMetadataDomainRepositoryTest {
             argThat( map -> equalMaps( fileMetadataExpected, map ) ) );
   }
 
+  @Test
+  public void testReloadDomainsParsesOnlyChangedDomains() throws Exception {
+    // SETUP
+    RepositoryFile metadataDir = new RepositoryFile.Builder( "metadata" ).id( "metadataDir" ).folder( true ).build();
+    RepositoryFile domain1 = new RepositoryFile.Builder( "domain1.xmi" ).id( "domain1" ).versionId( "1.0" ).build();
+    RepositoryFile domain2 = new RepositoryFile.Builder( "domain2.xmi" ).id( "domain2" ).versionId( "1.0" ).build();
+    RepositoryFile domain2Changed = new RepositoryFile.Builder( domain2 ).versionId( "1.1" ).build();
+
+    Map<Serializable, Map<String, Serializable>> filesMetadata = new HashMap<>();
+    for ( String domainId : Arrays.asList( "domain1", "domain2" ) ) {
+      Map<String, Serializable> fileMetadata = new HashMap<>();
+      fileMetadata.put( PROPERTY_NAME_DOMAIN_ID, domainId );
+      fileMetadata.put( PROPERTY_NAME_TYPE, TYPE_DOMAIN );
+      fileMetadata.put( PROPERTY_NAME_DATASOURCE_TYPE, PentahoDataSourceType.METADATA.toString() );
+      filesMetadata.put( domainId, fileMetadata );
+    }
+
+    IUnifiedRepository repository = Mockito.mock( IUnifiedRepository.class );
+    when( repository.getFile( any() ) ).thenReturn( metadataDir );
+    when( repository.getChildren( "metadataDir", "*" ) ).thenReturn( Arrays.asList( domain1, domain2 ),
+      Arrays.asList( domain1, domain2Changed ) );
+    when( repository.getFilesMetadata( any() ) ).thenReturn( filesMetadata );
+    when( repository.getDataForRead( any(), eq( SimpleRepositoryFileData.class ) ) ).thenAnswer(
+      invocation -> new SimpleRepositoryFileData( new ByteArrayInputStream( new byte[ 0 ] ), "UTF-8", "text/xml" ) );
+    when( repository.getFileById( "domain1" ) ).thenReturn( domain1 );
+
+    XmiParser xmiParser = Mockito.mock( XmiParser.class );
+    when( xmiParser.parseXmi( any( InputStream.class ) ) ).thenAnswer( invocation -> new Domain() );
+
+    IAclNodeHelper aclHelper = Mockito.mock( IAclNodeHelper.class );
+    when( aclHelper.canAccess( any(), any() ) ).thenReturn( true );
+
+    PentahoMetadataDomainRepository pmdr = new PentahoMetadataDomainRepository( repository, null, xmiParser, null ) {
+      @Override
+      protected IAclNodeHelper getAclHelper() {
+        return aclHelper;
+      }
+    };
+
+    // EXECUTE / VERIFY
+    pmdr.reloadDomains();
+    verify( xmiParser, times( 2 ) ).parseXmi( any( InputStream.class ) );
+    verify( repository, never() ).getFileMetadata( any() );
+
+    pmdr.reloadDomains();
+    verify( xmiParser, times( 3 ) ).parseXmi( any( InputStream.class ) );
+
+    Domain domain = pmdr.getDomain( "domain1" );
+    assertEquals( "domain1", domain.getId() );
+    assertNotSame( domain, pmdr.getDomain( "domain1" ) );
+    verify( xmiParser, times( 3 ) ).parseXmi( any( InputStream.class ) );
+  }
+
   Domain createDSWTestObject() {
     Domain domain = new Domain();
 
@@ -0,0 +1,94 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.http.api.resources;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.jersey.api.json.JSONJAXBContext;
+import com.sun.jersey.core.util.MultivaluedMapImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.api.repository2.unified.webservices.RepositoryFileDto;
+import org.pentaho.platform.api.repository2.unified.webservices.RepositoryFileTreeDto;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.ext.Providers;
+import javax.xml.bind.JAXBContext;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RepositoryFileTreeJsonWriterTest {
+
+  private JAXBContextResolver resolver;
+  private RepositoryFileTreeJsonWriter writer;
+
+  @Before
+  public void setUp() throws Exception {
+    resolver = new JAXBContextResolver();
+    Providers providers = mock( Providers.class );
+    when( providers.getContextResolver( JAXBContext.class, MediaType.APPLICATION_JSON_TYPE ) ).thenReturn( resolver );
+    writer = new RepositoryFileTreeJsonWriter( providers );
+  }
+
+  @Test
+  public void testIsWriteable() {
+    assertTrue( writer.isWriteable( RepositoryFileTreeDto.class, null, null, MediaType.APPLICATION_JSON_TYPE ) );
+    assertFalse( writer.isWriteable( RepositoryFileTreeDto.class, null, null, MediaType.APPLICATION_XML_TYPE ) );
+    assertFalse( writer.isWriteable( RepositoryFileDto.class, null, null, MediaType.APPLICATION_JSON_TYPE ) );
+  }
+
+  @Test
+  public void testWritesSameJsonAsJaxb() throws Exception {
+    RepositoryFileTreeDto tree = node( "/", true,
+      node( "/public", true,
+        node( "/public/a.prpt", false ),
+        node( "/public/empty", true ) ),
+      node( "/home", true,
+        node( "/home/admin", true,
+          node( "/home/admin/b.xaction", false ) ) ) );
+
+    StringWriter expected = new StringWriter();
+    ( (JSONJAXBContext) resolver.getContext( RepositoryFileTreeDto.class ) ).createJSONMarshaller()
+      .marshallToJSON( tree, expected );
+
+    ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    writer.writeTo( tree, RepositoryFileTreeDto.class, RepositoryFileTreeDto.class, null,
+      MediaType.APPLICATION_JSON_TYPE, new MultivaluedMapImpl(), actual );
+
+    ObjectMapper mapper = new ObjectMapper();
+    assertEquals( mapper.readTree( expected.toString() ),
+      mapper.readTree( new String( actual.toByteArray(), StandardCharsets.UTF_8 ) ) );
+  }
+
+  private static RepositoryFileTreeDto node( String path, boolean folder, RepositoryFileTreeDto... children ) {
+    RepositoryFileDto file = new RepositoryFileDto();
+    file.setPath( path );
+    file.setName( path.substring( path.lastIndexOf( '/' ) + 1 ) );
+    file.setTitle( "\"" + file.getName() + "\"" );
+    file.setId( path.hashCode() + "" );
+    file.setFolder( folder );
+    RepositoryFileTreeDto tree = new RepositoryFileTreeDto();
+    tree.setFile( file );
+    tree.setChildren( new ArrayList<>( Arrays.asList( children ) ) );
+    return tree;
+  }
+}
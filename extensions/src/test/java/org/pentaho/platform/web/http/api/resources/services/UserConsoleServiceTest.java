@@ -0,0 +1,75 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.http.api.resources.services;
+
+import org.junit.After;
+import org.junit.Test;
+import org.pentaho.platform.api.engine.IPentahoSession;
+import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+public class UserConsoleServiceTest {
+
+  @After
+  public void tearDown() {
+    PentahoSessionHolder.removeSession();
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  public void testInvokeAllRunsTasksOnBehalfOfTheCaller() {
+    IPentahoSession session = mock( IPentahoSession.class );
+    PentahoSessionHolder.setSession( session );
+    SecurityContext securityContext = SecurityContextHolder.getContext();
+
+    Map<String, Callable<?>> tasks = new LinkedHashMap<>();
+    for ( int i = 0; i < 32; i++ ) {
+      tasks.put( "session" + i, PentahoSessionHolder::getSession );
+    }
+    tasks.put( "securityContext", SecurityContextHolder::getContext );
+
+    Map<String, Object> results = new UserConsoleService().invokeAll( tasks );
+    assertEquals( new ArrayList<>( tasks.keySet() ), new ArrayList<>( results.keySet() ) );
+    for ( int i = 0; i < 32; i++ ) {
+      assertSame( session, results.get( "session" + i ) );
+    }
+    assertSame( securityContext, results.get( "securityContext" ) );
+    assertSame( session, PentahoSessionHolder.getSession() );
+  }
+
+  @Test
+  public void testInvokeAllLeavesOutFailedTasks() {
+    Map<String, Callable<?>> tasks = new LinkedHashMap<>();
+    tasks.put( "failed", () -> {
+      throw new IllegalStateException( "expected" );
+    } );
+    tasks.put( "themes", () -> Arrays.asList( "ruby", "crystal" ) );
+
+    Map<String, Object> results = new UserConsoleService().invokeAll( tasks );
+    assertFalse( results.containsKey( "failed" ) );
+    assertEquals( Arrays.asList( "ruby", "crystal" ), results.get( "themes" ) );
+  }
+}
@@ -22,14 +22,28 @@ import org.mockito.Mockito;
 import org.pentaho.platform.api.engine.IPentahoSession;
 import org.pentaho.platform.api.engine.ISystemSettings;
 import org.pentaho.platform.api.engine.ObjectFactoryException;
+import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.web.http.session.PentahoHttpSession;
+import org.pentaho.platform.web.http.session.PentahoHttpSessionListener;
+import org.pentaho.platform.web.http.session.PentahoSessionRegistry;
 import org.springframework.security.authentication.AuthenticationProvider;
 
+import javax.servlet.FilterChain;
 import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
 import javax.servlet.SessionCookieConfig;
 import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionEvent;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 public class HttpSessionPentahoSessionIntegrationFilterTest {
 
@@ -144,4 +158,94 @@ public class HttpSessionPentahoSessionIntegrationFilterTest {
     }
   }
 
+  @Test
+  public void testRegisteredSessionIsReadOnceAndStillWrittenBack() throws Exception {
+    startRegistry();
+    HttpServletRequest request = mockRequest( "id1" );
+    Mockito.when( httpSession.getAttribute( PentahoSystem.PENTAHO_SESSION_KEY ) ).thenReturn( pentahoSession );
+    FilterChain chain = ( req, res ) -> assertSame( pentahoSession, PentahoSessionHolder.getSession() );
+
+    HttpSessionPentahoSessionIntegrationFilter filter = new HttpSessionPentahoSessionIntegrationFilter();
+    filter.doFilter( request, servletResponse, chain );
+    filter.doFilter( request, servletResponse, chain );
+
+    Mockito.verify( httpSession, Mockito.times( 1 ) ).getAttribute( PentahoSystem.PENTAHO_SESSION_KEY );
+    // written back every time, so that the container persists and replicates changes made to it in place
+    Mockito.verify( httpSession, Mockito.times( 2 ) ).setAttribute( PentahoSystem.PENTAHO_SESSION_KEY, pentahoSession );
+    assertEquals( 2, filter.getStats().getRequestCount() );
+    assertEquals( 1, filter.getStats().getRegistryHitCount() );
+    assertEquals( 2, filter.getStats().getSessionWriteCount() );
+  }
+
+  @Test
+  public void testReplacedSessionIsWrittenBack() throws Exception {
+    startRegistry().put( "id1", pentahoSession );
+    HttpServletRequest request = mockRequest( "id1" );
+    IPentahoSession replacement = Mockito.mock( IPentahoSession.class );
+
+    HttpSessionPentahoSessionIntegrationFilter filter = new HttpSessionPentahoSessionIntegrationFilter();
+    filter.doFilter( request, servletResponse, ( req, res ) -> PentahoSessionHolder.setSession( replacement ) );
+
+    Mockito.verify( httpSession ).setAttribute( PentahoSystem.PENTAHO_SESSION_KEY, replacement );
+    assertEquals( 1, filter.getStats().getSessionWriteCount() );
+  }
+
+  @Test
+  public void testReplicatedSessionIsBoundToItsHttpSession() throws Exception {
+    HttpServletRequest request = mockRequest( "id1" );
+    PentahoHttpSession replicated = Mockito.mock( PentahoHttpSession.class );
+    Mockito.when( replicated.hasHttpSession() ).thenReturn( false );
+    Mockito.when( httpSession.getAttribute( PentahoSystem.PENTAHO_SESSION_KEY ) ).thenReturn( replicated );
+
+    new HttpSessionPentahoSessionIntegrationFilter().doFilter( request, servletResponse, ( req, res ) -> { } );
+
+    Mockito.verify( replicated ).bindHttpSession( httpSession );
+  }
+
+  @Test
+  public void testListenerKeepsRegistryInStep() {
+    PentahoHttpSessionListener listener = new PentahoHttpSessionListener();
+    PentahoSessionRegistry registry = startRegistry( listener );
+    Mockito.when( httpSession.getId() ).thenReturn( "id1" );
+    Mockito.when( httpSession.getAttribute( PentahoSystem.PENTAHO_SESSION_KEY ) ).thenReturn( pentahoSession );
+    listener.attributeAdded( new HttpSessionBindingEvent( httpSession, PentahoSystem.PENTAHO_SESSION_KEY,
+      pentahoSession ) );
+    assertSame( pentahoSession, registry.get( "id1" ) );
+    // the registry belongs to the web application
+    assertNull( PentahoSessionRegistry.getInstance( Mockito.mock( ServletContext.class ) ) );
+
+    Mockito.when( httpSession.getId() ).thenReturn( "id2" );
+    listener.sessionIdChanged( new HttpSessionEvent( httpSession ), "id1" );
+    assertNull( registry.get( "id1" ) );
+    assertSame( pentahoSession, registry.get( "id2" ) );
+
+    listener.sessionDestroyed( new HttpSessionEvent( httpSession ) );
+    assertNull( registry.get( "id2" ) );
+    assertEquals( 0, registry.size() );
+
+    listener.contextDestroyed( new ServletContextEvent( servletContext ) );
+    Mockito.verify( servletContext ).removeAttribute( PentahoSessionRegistry.CONTEXT_ATTRIBUTE );
+  }
+
+  private PentahoSessionRegistry startRegistry() {
+    return startRegistry( new PentahoHttpSessionListener() );
+  }
+
+  private PentahoSessionRegistry startRegistry( PentahoHttpSessionListener listener ) {
+    listener.contextInitialized( new ServletContextEvent( servletContext ) );
+    ArgumentCaptor<Object> registry = ArgumentCaptor.forClass( Object.class );
+    Mockito.verify( servletContext )
+      .setAttribute( Mockito.eq( PentahoSessionRegistry.CONTEXT_ATTRIBUTE ), registry.capture() );
+    Mockito.when( servletContext.getAttribute( PentahoSessionRegistry.CONTEXT_ATTRIBUTE ) )
+      .thenReturn( registry.getValue() );
+    return PentahoSessionRegistry.getInstance( servletContext );
+  }
+
+  private HttpServletRequest mockRequest( String httpSessionId ) {
+    HttpServletRequest request = Mockito.mock( HttpServletRequest.class );
+    Mockito.when( request.getSession( Mockito.anyBoolean() ) ).thenReturn( httpSession );
+    Mockito.when( request.getLocale() ).thenReturn( Locale.US );
+    Mockito.when( httpSession.getId() ).thenReturn( httpSessionId );
+    return request;
+  }
 }
@@ -0,0 +1,194 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.http.filters;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ResponseCompressionFilterTest {
+
+  private static final byte[] CONTENT = "<soap:Envelope></soap:Envelope>".getBytes( StandardCharsets.UTF_8 );
+
+  private HttpServletRequest request;
+  private HttpServletResponse response;
+  private ByteArrayOutputStream body;
+  private WriteListener writeListener;
+
+  @Before
+  public void setUp() throws IOException {
+    request = Mockito.mock( HttpServletRequest.class );
+    response = Mockito.mock( HttpServletResponse.class );
+    body = new ByteArrayOutputStream();
+    when( response.getOutputStream() ).thenReturn( new ServletOutputStream() {
+      @Override
+      public void write( int b ) {
+        body.write( b );
+      }
+
+      @Override
+      public boolean isReady() {
+        return true;
+      }
+
+      @Override
+      public void setWriteListener( WriteListener listener ) {
+        writeListener = listener;
+      }
+    } );
+  }
+
+  @Test
+  public void testCompressesXmlWhenAccepted() throws Exception {
+    when( request.getHeaders( "Accept-Encoding" ) ).thenReturn( Collections.enumeration(
+      Collections.singletonList( "deflate, gzip" ) ) );
+    when( response.getContentType() ).thenReturn( "text/xml; charset=utf-8" );
+
+    new ResponseCompressionFilter().doFilter( request, response, chain() );
+
+    verify( response ).setHeader( "Content-Encoding", "gzip" );
+    verify( response ).addHeader( "Vary", "Accept-Encoding" );
+    verify( response, never() ).setContentLengthLong( anyLong() );
+    assertArrayEquals( CONTENT, IOUtils.toByteArray( new GZIPInputStream(
+      new ByteArrayInputStream( body.toByteArray() ) ) ) );
+  }
+
+  @Test
+  public void testPassesThroughAttachmentsAndPlainClients() throws Exception {
+    when( request.getHeaders( "Accept-Encoding" ) ).thenReturn( Collections.enumeration(
+      Collections.singletonList( "gzip" ) ) );
+    when( response.getContentType() ).thenReturn( "multipart/related; type=\"application/xop+xml\"" );
+
+    new ResponseCompressionFilter().doFilter( request, response, chain() );
+
+    verify( response, never() ).setHeader( "Content-Encoding", "gzip" );
+    verify( response ).setContentLengthLong( CONTENT.length );
+    assertArrayEquals( CONTENT, body.toByteArray() );
+
+    // a client that does not accept gzip still gets the Vary header
+    HttpServletResponse plainResponse = Mockito.mock( HttpServletResponse.class );
+    new ResponseCompressionFilter().doFilter( request( "identity" ), plainResponse, Mockito.mock( FilterChain.class ) );
+    verify( plainResponse ).addHeader( "Vary", "Accept-Encoding" );
+  }
+
+  @Test
+  public void testPassesThroughAsyncAndNonBlockingResponses() throws Exception {
+    when( request.getHeaders( "Accept-Encoding" ) ).thenReturn( Collections.enumeration(
+      Collections.singletonList( "gzip" ) ) );
+    when( request.isAsyncStarted() ).thenReturn( true );
+    when( response.getContentType() ).thenReturn( "text/xml" );
+
+    new ResponseCompressionFilter().doFilter( request, response, chain() );
+
+    verify( response, never() ).setHeader( "Content-Encoding", "gzip" );
+    assertArrayEquals( CONTENT, body.toByteArray() );
+
+    when( request.isAsyncStarted() ).thenReturn( false );
+    ResponseCompressionFilter.CompressingResponse nonBlocking =
+      new ResponseCompressionFilter.CompressingResponse( request, response );
+    WriteListener listener = Mockito.mock( WriteListener.class );
+    ServletOutputStream stream = nonBlocking.getOutputStream();
+    stream.setWriteListener( listener );
+    assertSame( listener, writeListener );
+    assertTrue( stream.isReady() );
+    stream.write( CONTENT );
+    verify( response, never() ).setHeader( "Content-Encoding", "gzip" );
+  }
+
+  @Test
+  public void testFinishesCompressionBegunBeforeAsync() throws Exception {
+    when( request.getHeaders( "Accept-Encoding" ) ).thenReturn( Collections.enumeration(
+      Collections.singletonList( "gzip" ) ) );
+    when( response.getContentType() ).thenReturn( "text/xml" );
+    AsyncContext asyncContext = Mockito.mock( AsyncContext.class );
+    when( request.getAsyncContext() ).thenReturn( asyncContext );
+    boolean[] asyncStarted = new boolean[ 1 ];
+    when( request.isAsyncStarted() ).thenAnswer( invocation -> asyncStarted[ 0 ] );
+    FilterChain chain = Mockito.mock( FilterChain.class );
+    ServletOutputStream[] stream = new ServletOutputStream[ 1 ];
+    doAnswer( invocation -> {
+      stream[ 0 ] = ( (HttpServletResponse) invocation.getArguments()[ 1 ] ).getOutputStream();
+      stream[ 0 ].write( CONTENT, 0, 10 );
+      asyncStarted[ 0 ] = true;
+      return null;
+    } ).when( chain ).doFilter( any(), any() );
+
+    new ResponseCompressionFilter().doFilter( request, response, chain );
+
+    // another thread writes the rest, and the stream is finished once the request completes
+    stream[ 0 ].write( CONTENT, 10, CONTENT.length - 10 );
+    ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass( AsyncListener.class );
+    verify( asyncContext ).addListener( listener.capture() );
+    listener.getValue().onComplete( new AsyncEvent( asyncContext ) );
+    verify( response ).setHeader( "Content-Encoding", "gzip" );
+    assertArrayEquals( CONTENT, IOUtils.toByteArray( new GZIPInputStream(
+      new ByteArrayInputStream( body.toByteArray() ) ) ) );
+  }
+
+  @Test
+  public void testAcceptsGzip() {
+    assertTrue( ResponseCompressionFilter.acceptsGzip( request( "gzip;q=0.5" ) ) );
+    assertFalse( ResponseCompressionFilter.acceptsGzip( request( "gzip;q=0" ) ) );
+    assertFalse( ResponseCompressionFilter.acceptsGzip( request( "identity" ) ) );
+    assertFalse( ResponseCompressionFilter.isCompressible( "application/octet-stream" ) );
+    assertTrue( ResponseCompressionFilter.isCompressible( "application/soap+xml" ) );
+    assertFalse( ResponseCompressionFilter.isCompressible( null ) );
+  }
+
+  private static HttpServletRequest request( String acceptEncoding ) {
+    HttpServletRequest request = Mockito.mock( HttpServletRequest.class );
+    when( request.getHeaders( "Accept-Encoding" ) ).thenReturn( Collections.enumeration(
+      Collections.singletonList( acceptEncoding ) ) );
+    return request;
+  }
+
+  private static FilterChain chain() throws Exception {
+    FilterChain chain = Mockito.mock( FilterChain.class );
+    doAnswer( invocation -> {
+      HttpServletResponse response = (HttpServletResponse) invocation.getArguments()[ 1 ];
+      response.setContentLength( CONTENT.length );
+      response.getOutputStream().write( CONTENT );
+      return null;
+    } ).when( chain ).doFilter( any(), any() );
+    return chain;
+  }
+}
@@ -0,0 +1,184 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.servlet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.pentaho.platform.api.engine.IPentahoSession;
+import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
+import org.pentaho.platform.util.trace.RequestTracer;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AsyncRequestExecutorTest {
+
+  private AsyncRequestExecutor executor;
+  private HttpServletResponse response;
+
+  @Before
+  public void setUp() {
+    executor = new AsyncRequestExecutor( 2, 1, 0 );
+    response = mock( HttpServletResponse.class );
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdown();
+    PentahoSessionHolder.removeSession();
+  }
+
+  @Test
+  public void testTaskRunsOnWorkerWithRequestContext() throws Exception {
+    IPentahoSession session = mock( IPentahoSession.class );
+    PentahoSessionHolder.setSession( session );
+    HttpServletRequest request = request();
+    AsyncContext asyncContext = request.startAsync( request, response );
+    AtomicReference<IPentahoSession> workerSession = new AtomicReference<>();
+    AtomicReference<Thread> workerThread = new AtomicReference<>();
+
+    assertTrue( executor.execute( request, response, () -> {
+      workerSession.set( PentahoSessionHolder.getSession() );
+      workerThread.set( Thread.currentThread() );
+    } ) );
+
+    verify( asyncContext, timeout( 5000 ) ).complete();
+    assertSame( session, workerSession.get() );
+    assertNotEquals( Thread.currentThread(), workerThread.get() );
+    verify( asyncContext ).setTimeout( 0 );
+  }
+
+  @Test
+  public void testSlowRequestsDoNotHoldRequestThread() throws Exception {
+    CountDownLatch release = new CountDownLatch( 1 );
+    CountDownLatch fastDone = new CountDownLatch( 1 );
+    long start = System.nanoTime();
+    for ( int i = 0; i < 2; i++ ) {
+      assertTrue( executor.execute( request(), response, () -> await( release ) ) );
+    }
+    // both workers are busy; a cheap request queues and the request thread is free straight away
+    assertTrue( executor.execute( request(), response, fastDone::countDown ) );
+    assertTrue( TimeUnit.NANOSECONDS.toSeconds( System.nanoTime() - start ) < 5 );
+    assertEquals( 1, executor.getQueueSize() );
+
+    release.countDown();
+    assertTrue( fastDone.await( 5, TimeUnit.SECONDS ) );
+  }
+
+  @Test
+  public void testSaturatedPoolRunsOnRequestThread() throws Exception {
+    CountDownLatch release = new CountDownLatch( 1 );
+    for ( int i = 0; i < 3; i++ ) {
+      executor.execute( request(), response, () -> await( release ) );
+    }
+    AtomicReference<Thread> thread = new AtomicReference<>();
+    HttpServletRequest request = request();
+
+    assertTrue( executor.execute( request, response, () -> thread.set( Thread.currentThread() ) ) );
+
+    assertSame( Thread.currentThread(), thread.get() );
+    verify( request.startAsync( request, response ) ).complete();
+    release.countDown();
+  }
+
+  @Test
+  public void testFailingTaskSendsError() throws Exception {
+    HttpServletRequest request = request();
+
+    executor.execute( request, response, () -> {
+      throw new ServletException( "failed" );
+    } );
+
+    verify( request.startAsync( request, response ), timeout( 5000 ) ).complete();
+    verify( response ).sendError( HttpServletResponse.SC_INTERNAL_SERVER_ERROR );
+  }
+
+  @Test
+  public void testTraceIsRecordedWhenRequestCompletes() throws Exception {
+    RequestTracer tracer = new RequestTracer( 1, 10 );
+    RequestTracer.setInstance( tracer );
+    try {
+      HttpServletRequest request = request();
+      AsyncContext asyncContext = request.startAsync( request, response );
+      try ( RequestTracer.Span root = RequestTracer.startRequest( "filter", null, "GET /api" ) ) {
+        assertTrue( executor.execute( request, response, () -> RequestTracer.startSpan( "jcr" ).close() ) );
+      }
+      verify( asyncContext, timeout( 5000 ) ).complete();
+      assertEquals( 0, tracer.getSampledRequests() );
+
+      ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass( AsyncListener.class );
+      verify( asyncContext ).addListener( listener.capture() );
+      listener.getValue().onComplete( new AsyncEvent( asyncContext ) );
+      assertEquals( 1, tracer.getSampledRequests() );
+      assertEquals( 1, tracer.getHistogram( "GET /api", "AsyncRequestExecutor" ).getCount() );
+      assertEquals( 1, tracer.getHistogram( "GET /api", "jcr" ).getCount() );
+    } finally {
+      RequestTracer.setInstance( null );
+    }
+  }
+
+  @Test
+  public void testRequestsThatCannotGoAsyncAreNotDispatched() throws Exception {
+    HttpServletRequest started = request();
+    when( started.isAsyncStarted() ).thenReturn( true );
+    assertFalse( executor.execute( started, response, () -> { } ) );
+
+    HttpServletRequest include = request();
+    when( include.getDispatcherType() ).thenReturn( DispatcherType.INCLUDE );
+    assertFalse( executor.execute( include, response, () -> { } ) );
+
+    HttpServletRequest unsupported = request();
+    when( unsupported.isAsyncSupported() ).thenReturn( false );
+    assertFalse( executor.execute( unsupported, response, () -> { } ) );
+    verify( unsupported, never() ).startAsync( unsupported, response );
+  }
+
+  private HttpServletRequest request() {
+    HttpServletRequest request = mock( HttpServletRequest.class );
+    AsyncContext asyncContext = mock( AsyncContext.class );
+    when( request.getDispatcherType() ).thenReturn( DispatcherType.REQUEST );
+    when( request.isAsyncSupported() ).thenReturn( true );
+    when( request.startAsync( request, response ) ).thenReturn( asyncContext );
+    return request;
+  }
+
+  private static void await( final CountDownLatch latch ) {
+    try {
+      latch.await( 10, TimeUnit.SECONDS );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
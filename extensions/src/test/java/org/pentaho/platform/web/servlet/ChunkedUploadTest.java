@@ -0,0 +1,200 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.web.servlet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.platform.api.engine.IApplicationContext;
+import org.pentaho.platform.api.engine.IPentahoSession;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.engine.core.system.StandaloneSession;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class ChunkedUploadTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private ChunkedUpload upload;
+
+  @Before
+  public void setUp() throws IOException {
+    upload = new ChunkedUpload( "id", "admin", "data.csv", folder.newFile( "upload.part" ), 100 );
+
+    IApplicationContext applicationContext = mock( IApplicationContext.class );
+    when( applicationContext.createTempFile( any(), anyString(), anyString(), anyBoolean() ) )
+      .thenAnswer( invocation -> folder.newFile() );
+    PentahoSystem.setApplicationContext( applicationContext );
+  }
+
+  @After
+  public void tearDown() {
+    PentahoSystem.setApplicationContext( null );
+  }
+
+  @Test
+  public void testChunksAreWrittenAtTheirOffset() throws IOException {
+    assertTrue( upload.append( 0, chunk( "abc" ), null ) );
+    assertTrue( upload.append( 3, chunk( "def" ), DigestUtils.sha256Hex( "def" ) ) );
+    assertEquals( 6, upload.getSize() );
+    assertEquals( "abcdef", new String( Files.readAllBytes( upload.getFile().toPath() ) ) );
+    assertEquals( 6, upload.toPart().getSize() );
+    assertEquals( "data.csv", upload.toPart().getSubmittedFileName() );
+  }
+
+  @Test
+  public void testChunkAtWrongOffsetIsNotWritten() throws IOException {
+    assertTrue( upload.append( 0, chunk( "abc" ), null ) );
+    assertFalse( upload.append( 0, chunk( "abc" ), null ) );
+    assertFalse( upload.append( 5, chunk( "abc" ), null ) );
+    assertEquals( 3, upload.getSize() );
+  }
+
+  @Test
+  public void testCorruptChunkIsDiscarded() throws IOException {
+    upload.append( 0, chunk( "abc" ), null );
+    try {
+      upload.append( 3, chunk( "def" ), DigestUtils.sha256Hex( "xyz" ) );
+      fail();
+    } catch ( IOException e ) {
+      // expected
+    }
+    assertEquals( 3, upload.getSize() );
+    assertEquals( 3, upload.getFile().length() );
+    assertTrue( upload.append( 3, chunk( "def" ), DigestUtils.sha256Hex( "def" ) ) );
+  }
+
+  @Test( expected = IOException.class )
+  public void testUploadIsLimitedToMaxSize() throws IOException {
+    upload.append( 0, new ByteArrayInputStream( new byte[ 101 ] ), null );
+  }
+
+  @Test
+  public void testZipIsScannedWhileUploaded() throws IOException {
+    byte[] zip = storedZip( 10, 20 );
+    upload = new ChunkedUpload( "id", "admin", "data.zip", folder.newFile( "zip.part" ), 1000 );
+    // chunks that split the local headers
+    int offset = 0;
+    while ( offset < zip.length ) {
+      int end = Math.min( offset + 17, zip.length );
+      assertTrue( upload.append( offset, new ByteArrayInputStream( Arrays.copyOfRange( zip, offset, end ) ), null ) );
+      offset = end;
+    }
+    assertArrayEquals( zip, Files.readAllBytes( upload.getFile().toPath() ) );
+    assertEquals( 30, upload.getUncompressedZipSize() );
+  }
+
+  @Test
+  public void testZipExpandingBeyondLimitIsRejectedEarly() throws IOException {
+    byte[] zip = storedZip( 10 );
+    // the local header claims the entry expands to 1000 bytes
+    zip[ 22 ] = (byte) 0xE8;
+    zip[ 23 ] = (byte) 0x03;
+    upload = new ChunkedUpload( "id", "admin", "data.zip", folder.newFile( "zip.part" ), 100 );
+    try {
+      upload.append( 0, new ByteArrayInputStream( Arrays.copyOf( zip, 40 ) ), null );
+      fail();
+    } catch ( IOException e ) {
+      // expected
+    }
+    assertEquals( 0, upload.getSize() );
+  }
+
+  @Test
+  public void testStreamedZipIsLeftToFinalCheck() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try ( ZipOutputStream out = new ZipOutputStream( bytes ) ) {
+      out.putNextEntry( new ZipEntry( "a.csv" ) );
+      out.write( new byte[ 10 ] );
+    }
+    upload = new ChunkedUpload( "id", "admin", "data.zip", folder.newFile( "zip.part" ), 1000 );
+    upload.append( 0, new ByteArrayInputStream( bytes.toByteArray() ), null );
+    assertEquals( -1, upload.getUncompressedZipSize() );
+  }
+
+  @Test
+  public void testUploadsInProgressAreLimitedPerUser() throws IOException {
+    IPentahoSession session = new StandaloneSession( "carol" );
+    for ( int i = 0; i < ChunkedUpload.DEFAULT_USER_LIMIT; i++ ) {
+      assertNotNull( ChunkedUpload.start( session, "data.csv", 100 ) );
+    }
+    assertNull( ChunkedUpload.start( session, "data.csv", 100 ) );
+    assertNotNull( ChunkedUpload.start( new StandaloneSession( "dave" ), "data.csv", 100 ) );
+  }
+
+  @Test
+  public void testNoUploadIsFinishedIfOneIsMissing() throws IOException {
+    IPentahoSession session = new StandaloneSession( "erin" );
+    ChunkedUpload first = ChunkedUpload.start( session, "a.csv", 100 );
+    ChunkedUpload second = ChunkedUpload.start( session, "b.csv", 100 );
+
+    assertNull( ChunkedUpload.finish( session, Arrays.asList( first.getId(), "unknown", second.getId() ) ) );
+    assertSame( first, ChunkedUpload.get( session, first.getId() ) );
+    assertTrue( first.getFile().exists() );
+
+    assertEquals( Arrays.asList( first, second ),
+      ChunkedUpload.finish( session, Arrays.asList( first.getId(), second.getId() ) ) );
+    assertNull( ChunkedUpload.get( session, second.getId() ) );
+    assertTrue( second.getFile().exists() );
+  }
+
+  private static ByteArrayInputStream chunk( String content ) {
+    return new ByteArrayInputStream( content.getBytes() );
+  }
+
+  private static byte[] storedZip( int... sizes ) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try ( ZipOutputStream out = new ZipOutputStream( bytes ) ) {
+      for ( int i = 0; i < sizes.length; i++ ) {
+        byte[] content = new byte[ sizes[ i ] ];
+        CRC32 crc = new CRC32();
+        crc.update( content );
+        ZipEntry entry = new ZipEntry( "file" + i + ".csv" );
+        entry.setMethod( ZipEntry.STORED );
+        entry.setSize( content.length );
+        entry.setCrc( crc.getValue() );
+        out.putNextEntry( entry );
+        out.write( content );
+        out.closeEntry();
+      }
+    }
+    return bytes.toByteArray();
+  }
+}
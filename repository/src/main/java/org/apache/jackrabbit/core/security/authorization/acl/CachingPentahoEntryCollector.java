@@ -13,7 +13,9 @@
 
 package org.apache.jackrabbit.core.security.authorization.acl;
 
-import org.apache.commons.collections4.map.LRUMap;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import org.apache.jackrabbit.core.NodeImpl;
 import org.apache.jackrabbit.core.SessionImpl;
 import org.apache.jackrabbit.core.cache.GrowingLRUMap;
@@ -27,12 +29,13 @@ import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.jcr.ItemNotFoundException;
 import javax.jcr.RepositoryException;
-import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -40,6 +43,10 @@ import java.util.regex.Pattern;
  * <code>CachingEntryCollector</code> extends <code>PentahoEntryCollector</code> by keeping a cache of ACEs per access
  * controlled nodeId.
  * <p/>
+ * The effective ACEs of a node include magic ACEs granted to the current user, so they are cached per session. Which
+ * ancestor a node inherits its ACL from does not depend on the user, and is cached once for all sessions so that a
+ * fresh session does not walk up the hierarchy reading the ACL of every inheriting ancestor again.
+ * <p/>
  * This class is a copy of the one in trunk of Jackrabbit. Backported here for performance reasons.
  */
 public class CachingPentahoEntryCollector extends PentahoEntryCollector {
@@ -52,8 +59,20 @@ public class CachingPentahoEntryCollector extends PentahoEntryCollector {
   private final ICacheManager cacheManager;
 
 
-  private final Map<IPentahoSession, ConcurrentMap<NodeId, FutureEntries>> futuresBySession = Collections
-      .synchronizedMap( new LRUMap<IPentahoSession, ConcurrentMap<NodeId, FutureEntries>>( 512, 128 ) );
+  private final Cache<IPentahoSession, ConcurrentMap<NodeId, FutureEntries>> futuresBySession =
+      CacheBuilder.newBuilder().maximumSize( 512 ).build();
+
+  // computations made without a pentaho session, which the session keyed cache cannot hold
+  private final ConcurrentMap<NodeId, FutureEntries> futuresWithoutSession =
+      new ConcurrentHashMap<NodeId, FutureEntries>();
+
+  /**
+   * Nearest non-inheriting access controlled ancestor (or self) by node id, shared by all sessions.
+   */
+  private final Cache<NodeId, NodeId> nonInheritingNodes;
+
+  // bumped whenever the shared cache is cleared, so that lookups racing with an ACL change do not cache stale results
+  private final AtomicLong sharedCacheGeneration = new AtomicLong();
 
   /**
    * Create a new instance.
@@ -77,20 +96,41 @@ public class CachingPentahoEntryCollector extends PentahoEntryCollector {
     } );
 
     cacheManager = PentahoSystem.getCacheManager( null ); // not session instanced
+
+    int maxsize = 100000;
+    String propname = "org.apache.jackrabbit.core.security.authorization.acl.CachingEntryCollector.sharedMaxsize";
+    try {
+      maxsize = Integer.parseInt( System.getProperty( propname, Integer.toString( maxsize ) ) );
+    } catch ( NumberFormatException ex ) {
+      log.debug( "Parsing system property " + propname + " with value: " + System.getProperty( propname ), ex );
+    }
+    log.info( "Creating shared ACL inheritance cache with max size of: " + maxsize );
+    nonInheritingNodes = CacheBuilder.newBuilder().maximumSize( maxsize ).recordStats().build();
   }
 
   private void flushCachesOfSession( IPentahoSession iPentahoSession ) {
 
     cacheManager.removeFromSessionCache( iPentahoSession, ENTRY_COLLECTOR );
 
-    synchronized ( futuresBySession ) {
-      if ( futuresBySession.containsKey( iPentahoSession ) ) {
-        futuresBySession.get( iPentahoSession ).clear();
-        futuresBySession.remove( iPentahoSession );
-      }
+    ConcurrentMap<NodeId, FutureEntries> futures = futuresBySession.getIfPresent( iPentahoSession );
+    if ( futures != null ) {
+      futures.clear();
+      futuresBySession.invalidate( iPentahoSession );
     }
   }
 
+  private void clearSharedCache() {
+    sharedCacheGeneration.incrementAndGet();
+    nonInheritingNodes.invalidateAll();
+  }
+
+  /**
+   * @return hit and miss statistics of the ACL inheritance cache shared by all sessions
+   */
+  public CacheStats getSharedCacheStats() {
+    return nonInheritingNodes.stats();
+  }
+
   private EntryCache getCache() {
     IPentahoSession session = PentahoSessionHolder.getSession();
     EntryCache cache = (EntryCache) cacheManager.getFromSessionCache( session, ENTRY_COLLECTOR );
@@ -104,11 +144,17 @@ public class CachingPentahoEntryCollector extends PentahoEntryCollector {
 
   private ConcurrentMap<NodeId, FutureEntries> getFutures() {
     IPentahoSession session = PentahoSessionHolder.getSession();
-    if ( futuresBySession.containsKey( session ) ) {
-      return futuresBySession.get( session );
+    if ( session == null ) {
+      return futuresWithoutSession;
+    }
+    ConcurrentMap<NodeId, FutureEntries> futures = futuresBySession.getIfPresent( session );
+    if ( futures == null ) {
+      ConcurrentMap<NodeId, FutureEntries> newFutures = new ConcurrentHashMap<NodeId, FutureEntries>();
+      futures = futuresBySession.asMap().putIfAbsent( session, newFutures );
+      if ( futures == null ) {
+        futures = newFutures;
+      }
     }
-    ConcurrentMap<NodeId, FutureEntries> futures = new ConcurrentHashMap<NodeId, FutureEntries>();
-    futuresBySession.put( session, futures );
     return futures;
   }
 
@@ -122,13 +168,34 @@ public class CachingPentahoEntryCollector extends PentahoEntryCollector {
       }
     } );
 
-    synchronized ( futuresBySession ) {
-      for ( Map.Entry<IPentahoSession, ConcurrentMap<NodeId, FutureEntries>> entry : this.futuresBySession
-          .entrySet() ) {
-        entry.getValue().clear();
+    for ( ConcurrentMap<NodeId, FutureEntries> futures : futuresBySession.asMap().values() ) {
+      futures.clear();
+    }
+    futuresBySession.invalidateAll();
+    futuresWithoutSession.clear();
+    clearSharedCache();
+  }
+
+  /**
+   * Looks up the nearest non-inheriting ancestor in the cache shared by all sessions.
+   */
+  @Override
+  protected NodeImpl findNonInheritingNode( final NodeImpl node ) throws RepositoryException {
+    NodeId nodeId = node.getNodeId();
+    NodeId nonInheritingId = nonInheritingNodes.getIfPresent( nodeId );
+    if ( nonInheritingId != null ) {
+      try {
+        return getNodeById( nonInheritingId );
+      } catch ( ItemNotFoundException e ) {
+        nonInheritingNodes.invalidate( nodeId );
       }
-      futuresBySession.clear();
     }
+    long generation = sharedCacheGeneration.get();
+    NodeImpl nonInheritingNode = super.findNonInheritingNode( node );
+    if ( generation == sharedCacheGeneration.get() ) {
+      nonInheritingNodes.put( nodeId, nonInheritingNode.getNodeId() );
+    }
+    return nonInheritingNode;
   }
 
   // -----------------------------------------------------< EntryCollector >---
@@ -312,6 +379,11 @@ public class CachingPentahoEntryCollector extends PentahoEntryCollector {
   @Override
   @SuppressWarnings( "unchecked" )
   public void notifyListeners( AccessControlModifications modifications ) {
+    if ( !modifications.getNodeIdentifiers().isEmpty() ) {
+      // any ACL change may switch inheritance on or off for a whole subtree
+      log.debug( "ACL modified, clearing the shared cache" );
+      clearSharedCache();
+    }
     /* Update cache for all affected access controlled nodes */
     for ( Object key : modifications.getNodeIdentifiers() ) {
       if ( !( key instanceof NodeId ) ) {
@@ -114,25 +114,26 @@ public class PentahoEntryCollector extends EntryCollector {
    * Find the ancestor (maybe the node itself) that is not inheriting ACEs.
    */
   protected NodeImpl findNonInheritingNode( final NodeImpl node ) throws RepositoryException {
-    NodeImpl currentNode = node;
-    ACLTemplate acl;
-    while ( true ) {
-      currentNode = findAccessControlledNode( currentNode );
-      NodeImpl aclNode = currentNode.getNode( N_POLICY );
-      String path = aclNode != null ? aclNode.getParent().getPath() : null;
-      acl = new ACLTemplate( aclNode, path, false /* allowUnknownPrincipals */ );
-
-      // skip all nodes that are inheriting
-      AclMetadata aclMetadata = JcrRepositoryFileAclUtils.getAclMetadata( systemSession, currentNode.getPath(), acl );
-      if ( aclMetadata != null && aclMetadata.isEntriesInheriting() ) {
-        currentNode = (NodeImpl) currentNode.getParent();
-        continue;
-      }
-      break;
+    NodeImpl currentNode = findAccessControlledNode( node );
+    // skip all nodes that are inheriting
+    while ( isEntriesInheriting( currentNode ) ) {
+      currentNode = findAccessControlledNode( (NodeImpl) currentNode.getParent() );
     }
     return currentNode;
   }
 
+  /**
+   * Whether the ACL of the given access-controlled node inherits the entries of its parent.
+   */
+  protected boolean isEntriesInheriting( final NodeImpl accessControlledNode ) throws RepositoryException {
+    NodeImpl aclNode = accessControlledNode.getNode( N_POLICY );
+    String path = aclNode != null ? aclNode.getParent().getPath() : null;
+    ACLTemplate acl = new ACLTemplate( aclNode, path, false /* allowUnknownPrincipals */ );
+    AclMetadata aclMetadata =
+        JcrRepositoryFileAclUtils.getAclMetadata( systemSession, accessControlledNode.getPath(), acl );
+    return aclMetadata != null && aclMetadata.isEntriesInheriting();
+  }
+
   /**
    * Returns an {@code Entries} for the given node. This is where most of the customization lives.
    */
@@ -21,7 +21,6 @@ import org.pentaho.platform.api.usersettings.IUserSettingService;
 import org.pentaho.platform.api.usersettings.pojo.IUserSetting;
 import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
-import org.pentaho.platform.engine.security.SecurityHelper;
 import org.pentaho.platform.repository.usersettings.pojo.UserSetting;
 import org.pentaho.platform.repository2.ClientRepositoryPaths;
 import org.pentaho.platform.security.policy.rolebased.actions.AdministerSecurityAction;
@@ -35,13 +34,11 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Callable;
 
 public class UserSettingService implements IAnyUserSettingService, IUserSettingService {
 
   public static final String SETTING_PREFIX = "_USERSETTING"; //$NON-NLS-1$
   IPentahoSession session = null;
-  private static final byte[] lock = new byte[0];
 
   protected IUnifiedRepository repository;
   private Logger log = LoggerFactory.getLogger( getClass() );
@@ -60,7 +57,10 @@ public class UserSettingService implements IAnyUserSettingService, IUserSettingS
 
   // delete all settings for a given user
   public void deleteUserSettings() {
-    String homePath = ClientRepositoryPaths.getUserHomeFolderPath( PentahoSessionHolder.getSession().getName() );
+    String name = PentahoSessionHolder.getSession().getName();
+    String homePath = ClientRepositoryPaths.getUserHomeFolderPath( name );
+    // pending changes would otherwise be written back after the deletion
+    UserSettingsCache.getInstance().invalidateUser( name );
     Serializable id = repository.getFile( homePath ).getId();
 
     Map<String, Serializable> fileMetadata = repository.getFileMetadata( id );
@@ -72,6 +72,7 @@ public class UserSettingService implements IAnyUserSettingService, IUserSettingS
       }
     }
     repository.setFileMetadata( id, finalMetadata );
+    UserSettingsCache.getInstance().invalidateUser( name );
   }
 
   // ////////////////////////////////////////////////////////////////////////////////////////////////
@@ -94,9 +95,8 @@ public class UserSettingService implements IAnyUserSettingService, IUserSettingS
     // merge unseen global settings into the user settings list
     List<IUserSetting> userSettings = new ArrayList<IUserSetting>();
 
-    String tentantHomePath = ClientRepositoryPaths.getEtcFolderPath();
-    Serializable tenantHomeId = repository.getFile( tentantHomePath ).getId();
-    Map<String, Serializable> tenantMetadata = repository.getFileMetadata( tenantHomeId );
+    UserSettingsCache cache = UserSettingsCache.getInstance();
+    Map<String, Serializable> tenantMetadata = cache.getGlobalSettings( repository );
 
     for ( Map.Entry<String, Serializable> entry : tenantMetadata.entrySet() ) {
       String key = entry.getKey();
@@ -106,9 +106,8 @@ public class UserSettingService implements IAnyUserSettingService, IUserSettingS
       }
     }
 
-    String homePath = ClientRepositoryPaths.getUserHomeFolderPath( PentahoSessionHolder.getSession().getName() );
-    Serializable userHomeId = repository.getFile( homePath ).getId();
-    Map<String, Serializable> userMetadata = repository.getFileMetadata( userHomeId );
+    Map<String, Serializable> userMetadata =
+      cache.getUserSettings( repository, PentahoSessionHolder.getSession().getName() );
 
     for ( Map.Entry<String, Serializable> entry : userMetadata.entrySet() ) {
       String key = entry.getKey();
@@ -129,33 +128,16 @@ public class UserSettingService implements IAnyUserSettingService, IUserSettingS
     boolean hasAuth = PentahoSessionHolder.getSession().getAttribute( "SPRING_SECURITY_CONTEXT" ) != null;
     if ( hasAuth ) {
       try {
-        String homePath = ClientRepositoryPaths.getUserHomeFolderPath( PentahoSessionHolder.getSession().getName() );
-
-        Serializable userHomeId = repository.getFile( homePath ).getId();
-        Map<String, Serializable> userMetadata = repository.getFileMetadata( userHomeId );
+        UserSettingsCache cache = UserSettingsCache.getInstance();
+        String key = SETTING_PREFIX + settingName;
 
-        for ( Map.Entry<String, Serializable> entry : userMetadata.entrySet() ) {
-          String key = entry.getKey();
-          if ( key.startsWith( SETTING_PREFIX ) ) {
-            String settingFromKey = key.substring( SETTING_PREFIX.length() );
-            if ( settingFromKey.equals( settingName ) ) {
-              return createSetting( settingFromKey, entry.getValue() );
-            }
-          }
+        Serializable value =
+          cache.getUserSettings( repository, PentahoSessionHolder.getSession().getName() ).get( key );
+        if ( value == null ) {
+          value = cache.getGlobalSettings( repository ).get( key );
         }
-
-        String tentantHomePath = ClientRepositoryPaths.getEtcFolderPath();
-        Serializable tenantHomeId = repository.getFile( tentantHomePath ).getId();
-        Map<String, Serializable> tenantMetadata = repository.getFileMetadata( tenantHomeId );
-
-        for ( Map.Entry<String, Serializable> entry : tenantMetadata.entrySet() ) {
-          String key = entry.getKey();
-          if ( key.startsWith( SETTING_PREFIX ) ) {
-            String settingFromKey = key.substring( SETTING_PREFIX.length() );
-            if ( settingFromKey.equals( settingName ) ) {
-              return createSetting( settingFromKey, entry.getValue() );
-            }
-          }
+        if ( value != null ) {
+          return createSetting( settingName, value );
         }
       } catch ( Throwable ignored ) {
         // if anything goes wrong with authentication (anonymous user) or permissions
@@ -167,37 +149,14 @@ public class UserSettingService implements IAnyUserSettingService, IUserSettingS
   }
 
   public void setUserSetting( String settingName, String settingValue ) {
-
     String name = PentahoSessionHolder.getSession().getName();
-    String homePath = ClientRepositoryPaths.getUserHomeFolderPath( name );
-
-    synchronized ( lock ) {
-
-      final Serializable id = repository.getFile( homePath ).getId();
-
-      final Map<String, Serializable> fileMetadata = repository.getFileMetadata( id );
-      fileMetadata.put( SETTING_PREFIX + settingName, settingValue );
-      try {
-        SecurityHelper.getInstance().runAsSystem( new Callable<Void>() {
-          @Override
-          public Void call() throws Exception {
-            repository.setFileMetadata( id, fileMetadata );
-            return null;
-          }
-        } );
-      } catch ( Exception e ) {
-        if ( log.isDebugEnabled() ) {
-          log.debug( "Error storing user setting for user: " + name + ", setting: " + settingName + ", value: "
-            + settingValue, e );
-        }
-        log.error( "Error storing user setting", e );
-      }
-    }
+    UserSettingsCache.getInstance().setUserSetting( repository, name, SETTING_PREFIX + settingName, settingValue );
   }
 
   @Override public void deleteUserSettings( String username ) throws SecurityException {
     if( canAdminister() ) {
       String homePath = ClientRepositoryPaths.getUserHomeFolderPath( username );
+      UserSettingsCache.getInstance().invalidateUser( username );
       Serializable id = repository.getFile( homePath ).getId();
 
       Map<String, Serializable> fileMetadata = repository.getFileMetadata( id );
@@ -209,6 +168,7 @@ public class UserSettingService implements IAnyUserSettingService, IUserSettingS
         }
       }
       repository.setFileMetadata( id, finalMetadata );
+      UserSettingsCache.getInstance().invalidateUser( username );
     } else {
       throw new SecurityException( "Unauthorized User" );
     }
@@ -278,30 +238,8 @@ public class UserSettingService implements IAnyUserSettingService, IUserSettingS
     throws SecurityException {
 
     if ( canAdminister() ) {
-      String homePath = ClientRepositoryPaths.getUserHomeFolderPath( username );
-
-      synchronized ( lock ) {
-
-        final Serializable id = repository.getFile( homePath ).getId();
-
-        final Map<String, Serializable> fileMetadata = repository.getFileMetadata( id );
-        fileMetadata.put( SETTING_PREFIX + settingName, settingValue );
-        try {
-          SecurityHelper.getInstance().runAsSystem( new Callable<Void>() {
-            @Override
-            public Void call() throws Exception {
-              repository.setFileMetadata( id, fileMetadata );
-              return null;
-            }
-          } );
-        } catch ( Exception e ) {
-          if ( log.isDebugEnabled() ) {
-            log.debug( "Error storing user setting for user: " + username + ", setting: " + settingName + ", value: "
-              + settingValue, e );
-          }
-          log.error( "Error storing user setting", e );
-        }
-      }
+      UserSettingsCache.getInstance().setUserSetting( repository, username, SETTING_PREFIX + settingName,
+        settingValue );
     } else {
       throw new SecurityException( "Unauthorized User" );
     }
@@ -312,9 +250,7 @@ public class UserSettingService implements IAnyUserSettingService, IUserSettingS
   // ////////////////////////////////////////////////////////////////////////////////////////////////
 
   public IUserSetting getGlobalUserSetting( String settingName, String defaultValue ) {
-    String tentantHomePath = ClientRepositoryPaths.getEtcFolderPath();
-    Serializable tenantHomeId = repository.getFile( tentantHomePath ).getId();
-    Map<String, Serializable> tenantMetadata = repository.getFileMetadata( tenantHomeId );
+    Map<String, Serializable> tenantMetadata = UserSettingsCache.getInstance().getGlobalSettings( repository );
 
     String key = SETTING_PREFIX + settingName;
     Serializable value = tenantMetadata.get( key );
@@ -327,9 +263,7 @@ public class UserSettingService implements IAnyUserSettingService, IUserSettingS
 
   public List<IUserSetting> getGlobalUserSettings() {
 
-    String tentantHomePath = ClientRepositoryPaths.getEtcFolderPath();
-    Serializable tenantHomeId = repository.getFile( tentantHomePath ).getId();
-    Map<String, Serializable> tenantMetadata = repository.getFileMetadata( tenantHomeId );
+    Map<String, Serializable> tenantMetadata = UserSettingsCache.getInstance().getGlobalSettings( repository );
 
     List<IUserSetting> userSettings = new ArrayList<IUserSetting>( tenantMetadata.size() );
     for ( Map.Entry<String, Serializable> entry : tenantMetadata.entrySet() ) {
@@ -348,6 +282,7 @@ public class UserSettingService implements IAnyUserSettingService, IUserSettingS
       Map<String, Serializable> tenantMetadata = repository.getFileMetadata( tenantHomeId );
       tenantMetadata.put( SETTING_PREFIX + settingName, settingValue );
       repository.setFileMetadata( tenantHomeId, tenantMetadata );
+      UserSettingsCache.getInstance().invalidateGlobal();
     }
   }
 
@@ -0,0 +1,344 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.repository.usersettings;
+
+import org.pentaho.platform.api.engine.ILogoutListener;
+import org.pentaho.platform.api.engine.IPentahoSession;
+import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
+import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.engine.security.SecurityHelper;
+import org.pentaho.platform.repository2.ClientRepositoryPaths;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the user settings stored in the metadata of the user home folders and of the tenant etc folder, and writes
+ * changed user settings behind.
+ * <p/>
+ * The settings of a folder are read once and then served from memory for up to cache-seconds, after which they are read
+ * again so that changes made on other cluster nodes are picked up. A changed user setting is visible to the user right
+ * away and is written to the repository at most write-delay-ms later, together with any other setting the user changed
+ * meanwhile. Each user has a lock of their own, and pending changes are written when the user logs out and when the
+ * platform shuts down. Changes that could not be written stay pending and are written with the next change, logout
+ * or flush.
+ * <p/>
+ * The same paths name different folders in different tenants, so the settings are cached per tenant of the current
+ * session.
+ */
+public class UserSettingsCache {
+
+  public static final String SETTING_WRITE_DELAY = "user-settings/write-delay-ms"; //$NON-NLS-1$
+
+  public static final String SETTING_CACHE_SECONDS = "user-settings/cache-seconds"; //$NON-NLS-1$
+
+  public static final long DEFAULT_WRITE_DELAY = 2000;
+
+  public static final long DEFAULT_CACHE_SECONDS = 60;
+
+  private static final Logger log = LoggerFactory.getLogger( UserSettingsCache.class );
+
+  private static volatile UserSettingsCache instance;
+
+  private final long writeDelayMillis;
+
+  private final long cacheNanos;
+
+  /**
+   * User settings by tenant id, then by user name.
+   */
+  private final ConcurrentMap<String, ConcurrentMap<String, FolderSettings>> users = new ConcurrentHashMap<>();
+
+  /**
+   * Tenant etc folder settings by tenant id.
+   */
+  private final ConcurrentMap<String, FolderSettings> globals = new ConcurrentHashMap<>();
+
+  private volatile ScheduledExecutorService writer;
+
+  public UserSettingsCache( final long writeDelayMillis, final long cacheSeconds ) {
+    this.writeDelayMillis = writeDelayMillis;
+    this.cacheNanos = TimeUnit.SECONDS.toNanos( Math.max( 0, cacheSeconds ) );
+  }
+
+  public static UserSettingsCache getInstance() {
+    if ( instance == null ) {
+      synchronized ( UserSettingsCache.class ) {
+        if ( instance == null ) {
+          instance = new UserSettingsCache( getSetting( SETTING_WRITE_DELAY, DEFAULT_WRITE_DELAY ),
+            getSetting( SETTING_CACHE_SECONDS, DEFAULT_CACHE_SECONDS ) );
+          PentahoSystem.addLogoutListener( new ILogoutListener() {
+            @Override
+            public void onLogout( final IPentahoSession session ) {
+              if ( session != null && session.getName() != null ) {
+                getInstance().logout( getTenantId( session ), session.getName() );
+              }
+            }
+          } );
+        }
+      }
+    }
+    return instance;
+  }
+
+  public static void setInstance( final UserSettingsCache cache ) {
+    instance = cache;
+  }
+
+  /**
+   * Writes the pending changes of the cache in use, if one was created, and stops its writer thread.
+   */
+  public static void shutdownInstance() {
+    UserSettingsCache cache = instance;
+    if ( cache != null ) {
+      cache.shutdown();
+    }
+  }
+
+  private static long getSetting( final String name, final long defaultValue ) {
+    try {
+      return Long.parseLong( PentahoSystem.getSystemSetting( name, String.valueOf( defaultValue ) ) );
+    } catch ( NumberFormatException e ) {
+      log.warn( "Invalid " + name + " setting, using " + defaultValue ); //$NON-NLS-1$ //$NON-NLS-2$
+      return defaultValue;
+    }
+  }
+
+  /**
+   * @return the id of the tenant of the given session, or an empty string if it has none
+   */
+  private static String getTenantId( final IPentahoSession session ) {
+    Object tenantId = session != null ? session.getAttribute( IPentahoSession.TENANT_ID_KEY ) : null;
+    return tenantId != null ? tenantId.toString() : ""; //$NON-NLS-1$
+  }
+
+  /**
+   * @return the metadata entries holding settings on the home folder of the given user, including changes not yet
+   * written
+   */
+  public Map<String, Serializable> getUserSettings( final IUnifiedRepository repository, final String userName ) {
+    return getFolderSettings( userName ).get( repository );
+  }
+
+  /**
+   * @return the metadata entries holding settings on the etc folder of the current tenant
+   */
+  public Map<String, Serializable> getGlobalSettings( final IUnifiedRepository repository ) {
+    return globals.computeIfAbsent( getTenantId( PentahoSessionHolder.getSession() ), id -> new FolderSettings( null ) )
+      .get( repository );
+  }
+
+  public void setUserSetting( final IUnifiedRepository repository, final String userName, final String key,
+                              final Serializable value ) {
+    final FolderSettings settings = getFolderSettings( userName );
+    synchronized ( settings ) {
+      // the home folder is resolved in the tenant of the caller, not in the one of the writer thread
+      settings.getFolderId( repository );
+      settings.pending.put( key, value );
+      if ( settings.values != null ) {
+        Map<String, Serializable> values = new HashMap<>( settings.values );
+        values.put( key, value );
+        settings.values = Collections.unmodifiableMap( values );
+      }
+      if ( writeDelayMillis <= 0 ) {
+        write( repository, userName, settings );
+      } else if ( !settings.writeScheduled ) {
+        settings.writeScheduled = true;
+        getWriter().schedule( () -> write( repository, userName, settings ), writeDelayMillis,
+          TimeUnit.MILLISECONDS );
+      }
+    }
+  }
+
+  /**
+   * Drops the cached settings and any pending change of the given user, for instance because their settings were
+   * deleted.
+   */
+  public void invalidateUser( final String userName ) {
+    final Map<String, FolderSettings> tenantUsers = users.get( getTenantId( PentahoSessionHolder.getSession() ) );
+    final FolderSettings settings = tenantUsers != null ? tenantUsers.remove( userName ) : null;
+    if ( settings != null ) {
+      synchronized ( settings ) {
+        settings.pending.clear();
+        settings.values = null;
+      }
+    }
+  }
+
+  public void invalidateGlobal() {
+    final FolderSettings global = globals.get( getTenantId( PentahoSessionHolder.getSession() ) );
+    if ( global != null ) {
+      synchronized ( global ) {
+        global.values = null;
+      }
+    }
+  }
+
+  /**
+   * Writes the pending changes of all users.
+   */
+  public void flush() {
+    for ( Map<String, FolderSettings> tenantUsers : users.values() ) {
+      for ( Map.Entry<String, FolderSettings> entry : tenantUsers.entrySet() ) {
+        IUnifiedRepository repository = entry.getValue().repository;
+        if ( repository != null ) {
+          write( repository, entry.getKey(), entry.getValue() );
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the pending changes of all users and stops the writer thread.
+   */
+  public void shutdown() {
+    flush();
+    ScheduledExecutorService executor;
+    synchronized ( this ) {
+      executor = writer;
+      writer = null;
+    }
+    if ( executor != null ) {
+      executor.shutdownNow();
+    }
+  }
+
+  private void logout( final String tenantId, final String userName ) {
+    final ConcurrentMap<String, FolderSettings> tenantUsers = users.get( tenantId );
+    final FolderSettings settings = tenantUsers != null ? tenantUsers.remove( userName ) : null;
+    if ( settings != null && settings.repository != null && !write( settings.repository, userName, settings ) ) {
+      // keep the changes that could not be written, for the next flush
+      tenantUsers.putIfAbsent( userName, settings );
+    }
+  }
+
+  private FolderSettings getFolderSettings( final String userName ) {
+    return users.computeIfAbsent( getTenantId( PentahoSessionHolder.getSession() ), id -> new ConcurrentHashMap<>() )
+      .computeIfAbsent( userName, name -> new FolderSettings( name ) );
+  }
+
+  /**
+   * @return {@code false} if the pending changes could not be written; they then stay pending
+   */
+  private boolean write( final IUnifiedRepository repository, final String userName, final FolderSettings settings ) {
+    synchronized ( settings ) {
+      settings.writeScheduled = false;
+      if ( settings.pending.isEmpty() ) {
+        return true;
+      }
+      final Map<String, Serializable> changes = new HashMap<>( settings.pending );
+      try {
+        SecurityHelper.getInstance().runAsSystem( () -> {
+          Serializable id = settings.getFolderId( repository );
+          Map<String, Serializable> fileMetadata = repository.getFileMetadata( id );
+          fileMetadata.putAll( changes );
+          repository.setFileMetadata( id, fileMetadata );
+          settings.pending.clear();
+          // the folder was just read, so it also carries what other cluster nodes changed
+          settings.load( fileMetadata );
+          return null;
+        } );
+        return true;
+      } catch ( Exception e ) {
+        if ( log.isDebugEnabled() ) {
+          log.debug( "Error storing user settings for user: " + userName + ", settings: " + changes, e );
+        }
+        log.error( "Error storing user setting", e );
+        return false;
+      }
+    }
+  }
+
+  private ScheduledExecutorService getWriter() {
+    ScheduledExecutorService current = writer;
+    if ( current == null ) {
+      synchronized ( this ) {
+        if ( writer == null ) {
+          ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor( 1, runnable -> {
+            Thread thread = new Thread( runnable, "user-settings-writer" ); //$NON-NLS-1$
+            thread.setDaemon( true );
+            return thread;
+          } );
+          executor.setRemoveOnCancelPolicy( true );
+          writer = executor;
+        }
+        current = writer;
+      }
+    }
+    return current;
+  }
+
+  /**
+   * The settings stored on one folder: a user home folder, or the tenant etc folder when no user name is given.
+   */
+  private class FolderSettings {
+    private final String userName;
+    private final Map<String, Serializable> pending = new HashMap<>();
+    private volatile Map<String, Serializable> values;
+    private volatile long loadedNanos;
+    private volatile Serializable folderId;
+    private volatile IUnifiedRepository repository;
+    private boolean writeScheduled;
+
+    FolderSettings( final String userName ) {
+      this.userName = userName;
+    }
+
+    Map<String, Serializable> get( final IUnifiedRepository repository ) {
+      Map<String, Serializable> current = values;
+      if ( current != null && System.nanoTime() - loadedNanos < cacheNanos ) {
+        return current;
+      }
+      synchronized ( this ) {
+        if ( values == null || System.nanoTime() - loadedNanos >= cacheNanos ) {
+          load( repository.getFileMetadata( getFolderId( repository ) ) );
+        }
+        return values;
+      }
+    }
+
+    Serializable getFolderId( final IUnifiedRepository repository ) {
+      this.repository = repository;
+      if ( folderId == null ) {
+        String path = userName == null ? ClientRepositoryPaths.getEtcFolderPath()
+          : ClientRepositoryPaths.getUserHomeFolderPath( userName );
+        folderId = repository.getFile( path ).getId();
+      }
+      return folderId;
+    }
+
+    void load( final Map<String, Serializable> fileMetadata ) {
+      Map<String, Serializable> loaded = new HashMap<>();
+      for ( Map.Entry<String, Serializable> entry : fileMetadata.entrySet() ) {
+        if ( entry.getKey().startsWith( UserSettingService.SETTING_PREFIX ) ) {
+          loaded.put( entry.getKey(), entry.getValue() );
+        }
+      }
+      // changes not written yet win over what is stored
+      loaded.putAll( pending );
+      values = Collections.unmodifiableMap( loaded );
+      loadedNanos = System.nanoTime();
+    }
+  }
+}
@@ -0,0 +1,32 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.repository.usersettings;
+
+import org.pentaho.platform.api.engine.IPentahoSession;
+import org.pentaho.platform.api.engine.IPentahoSystemListener;
+
+/**
+ * Writes the user settings changes not yet written, and stops the thread writing them, when the platform shuts down.
+ */
+public class UserSettingsCacheSystemListener implements IPentahoSystemListener {
+
+  public boolean startup( final IPentahoSession session ) {
+    return true;
+  }
+
+  public void shutdown() {
+    UserSettingsCache.shutdownInstance();
+  }
+
+}
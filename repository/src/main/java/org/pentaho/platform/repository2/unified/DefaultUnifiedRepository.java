@@ -15,6 +15,7 @@ package org.pentaho.platform.repository2.unified;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Locale;
@@ -310,6 +311,37 @@ public class DefaultUnifiedRepository implements IUnifiedRepository {
     }
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int deleteFiles( final List<Serializable> fileIds, final boolean permanent, final String versionMessage ) {
+    Assert.notNull( fileIds );
+    if ( permanent ) {
+      return repositoryFileDao.permanentlyDeleteFiles( fileIds, versionMessage );
+    }
+    return repositoryFileDao.deleteFiles( fileIds, versionMessage );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isMetadataSearchSupported() {
+    return repositoryFileDao.isMetadataSearchSupported();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<RepositoryFile> getFilesByMetadata( final String metadataKey, final Date createdBefore,
+                                                  final int offset, final int limit ) {
+    Assert.hasLength( metadataKey );
+    Assert.notNull( createdBefore );
+    return repositoryFileDao.getFilesByMetadata( metadataKey, createdBefore, offset, limit );
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -363,6 +395,14 @@ public class DefaultUnifiedRepository implements IUnifiedRepository {
     repositoryFileDao.undeleteFile( fileId, versionMessage );
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  public void undeleteFiles( final List<Serializable> fileIds, final String versionMessage ) {
+    Assert.notNull( fileIds );
+    repositoryFileDao.undeleteFiles( fileIds, versionMessage );
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -449,6 +489,15 @@ public class DefaultUnifiedRepository implements IUnifiedRepository {
     repositoryFileDao.moveFile( fileId, destAbsPath, versionMessage );
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  public void moveFiles( final List<Serializable> fileIds, final String destAbsPath, final String versionMessage ) {
+    Assert.notNull( fileIds );
+    Assert.hasText( destAbsPath );
+    repositoryFileDao.moveFiles( fileIds, destAbsPath, versionMessage );
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -535,6 +584,12 @@ public class DefaultUnifiedRepository implements IUnifiedRepository {
     return repositoryFileDao.getFileMetadata( fileId );
   }
 
+  @Override
+  public Map<Serializable, Map<String, Serializable>> getFilesMetadata( final List<Serializable> fileIds ) {
+    Assert.notNull( fileIds );
+    return repositoryFileDao.getFilesMetadata( fileIds );
+  }
+
   public List<Character> getReservedChars() {
     return repositoryFileDao.getReservedChars();
   }
@@ -17,6 +17,7 @@ import java.io.Serializable;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Collections;
+import java.util.Date;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Locale;
@@ -119,6 +120,30 @@ public class ExceptionLoggingDecorator implements IUnifiedRepository {
     }, Messages.getInstance().getString( "ExceptionLoggingDecorator.deleteFile", fileId ) ); //$NON-NLS-1$
   }
 
+  @Override
+  public int deleteFiles( final List<Serializable> fileIds, final boolean permanent, final String versionMessage ) {
+    return callLogThrow( new Callable<Integer>() {
+      public Integer call() throws Exception {
+        return delegatee.deleteFiles( fileIds, permanent, versionMessage );
+      }
+    }, Messages.getInstance().getString( "ExceptionLoggingDecorator.deleteFiles", fileIds.size() ) ); //$NON-NLS-1$
+  }
+
+  @Override
+  public boolean isMetadataSearchSupported() {
+    return delegatee.isMetadataSearchSupported();
+  }
+
+  @Override
+  public List<RepositoryFile> getFilesByMetadata( final String metadataKey, final Date createdBefore,
+                                                  final int offset, final int limit ) {
+    return callLogThrow( new Callable<List<RepositoryFile>>() {
+      public List<RepositoryFile> call() throws Exception {
+        return delegatee.getFilesByMetadata( metadataKey, createdBefore, offset, limit );
+      }
+    }, Messages.getInstance().getString( "ExceptionLoggingDecorator.getFilesByMetadata", metadataKey ) ); //$NON-NLS-1$
+  }
+
   public void deleteFile( final Serializable fileId, final String versionMessage ) {
     callLogThrow( new Callable<Void>() {
       public Void call() throws Exception {
@@ -396,6 +421,16 @@ public class ExceptionLoggingDecorator implements IUnifiedRepository {
     }, Messages.getInstance().getString( "ExceptionLoggingDecorator.moveFile", fileId, destAbsPath ) ); //$NON-NLS-1$
   }
 
+  @Override
+  public void moveFiles( final List<Serializable> fileIds, final String destAbsPath, final String versionMessage ) {
+    callLogThrow( new Callable<Void>() {
+      public Void call() throws Exception {
+        delegatee.moveFiles( fileIds, destAbsPath, versionMessage );
+        return null;
+      }
+    }, Messages.getInstance().getString( "ExceptionLoggingDecorator.moveFiles", fileIds.size(), destAbsPath ) ); //$NON-NLS-1$
+  }
+
   public void copyFile( final Serializable fileId, final String destAbsPath, final String versionMessage ) {
     callLogThrow( new Callable<Void>() {
       public Void call() throws Exception {
@@ -424,6 +459,16 @@ public class ExceptionLoggingDecorator implements IUnifiedRepository {
     }, Messages.getInstance().getString( "ExceptionLoggingDecorator.undeleteFile", fileId ) ); //$NON-NLS-1$
   }
 
+  @Override
+  public void undeleteFiles( final List<Serializable> fileIds, final String versionMessage ) {
+    callLogThrow( new Callable<Void>() {
+      public Void call() throws Exception {
+        delegatee.undeleteFiles( fileIds, versionMessage );
+        return null;
+      }
+    }, Messages.getInstance().getString( "ExceptionLoggingDecorator.undeleteFiles", fileIds.size() ) ); //$NON-NLS-1$
+  }
+
   public void unlockFile( final Serializable fileId ) {
     callLogThrow( new Callable<Void>() {
       public Void call() throws Exception {
@@ -589,6 +634,15 @@ public class ExceptionLoggingDecorator implements IUnifiedRepository {
     }, Messages.getInstance().getString( "ExceptionLoggingDecorator.getFileMetadata", fileId ) ); //$NON-NLS-1$
   }
 
+  @Override
+  public Map<Serializable, Map<String, Serializable>> getFilesMetadata( final List<Serializable> fileIds ) {
+    return callLogThrow( new Callable<Map<Serializable, Map<String, Serializable>>>() {
+      public Map<Serializable, Map<String, Serializable>> call() throws Exception {
+        return delegatee.getFilesMetadata( fileIds );
+      }
+    }, Messages.getInstance().getString( "ExceptionLoggingDecorator.getFilesMetadata", fileIds.size() ) ); //$NON-NLS-1$
+  }
+
   public List<Character> getReservedChars() {
     return callLogThrow( new Callable<List<Character>>() {
       public List<Character> call() throws Exception {
@@ -14,6 +14,9 @@
 package org.pentaho.platform.repository2.unified;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -79,12 +82,55 @@ public interface IRepositoryFileDao {
 
   void deleteFile( final Serializable fileId, final String versionMessage );
 
+  /**
+   * @return number of files deleted, not counting files skipped because the current user may not delete them
+   */
+  default int deleteFiles( final List<Serializable> fileIds, final String versionMessage ) {
+    int deleted = 0;
+    for ( Serializable fileId : fileIds ) {
+      RepositoryFile file = getFileById( fileId );
+      deleteFile( fileId, versionMessage );
+      // a deleted file is either gone or moved to the trash
+      RepositoryFile deletedFile = getFileById( fileId );
+      if ( file != null && ( deletedFile == null || !file.getPath().equals( deletedFile.getPath() ) ) ) {
+        deleted++;
+      }
+    }
+    return deleted;
+  }
+
   void deleteFileAtVersion( final Serializable fileId, final Serializable versionId );
 
   void undeleteFile( final Serializable fileId, final String versionMessage );
 
+  default void undeleteFiles( final List<Serializable> fileIds, final String versionMessage ) {
+    for ( Serializable fileId : fileIds ) {
+      undeleteFile( fileId, versionMessage );
+    }
+  }
+
   void permanentlyDeleteFile( final Serializable fileId, final String versionMessage );
 
+  default int permanentlyDeleteFiles( final List<Serializable> fileIds, final String versionMessage ) {
+    int deleted = 0;
+    for ( Serializable fileId : fileIds ) {
+      permanentlyDeleteFile( fileId, versionMessage );
+      if ( getFileById( fileId ) == null ) {
+        deleted++;
+      }
+    }
+    return deleted;
+  }
+
+  default boolean isMetadataSearchSupported() {
+    return false;
+  }
+
+  default List<RepositoryFile> getFilesByMetadata( final String metadataKey, final Date createdBefore,
+                                                   final int offset, final int limit ) {
+    return Collections.emptyList();
+  }
+
   List<RepositoryFile> getDeletedFiles( final String origParentFolderPath, final String filter );
 
   List<RepositoryFile> getDeletedFiles();
@@ -107,6 +153,12 @@ public interface IRepositoryFileDao {
 
   void moveFile( final Serializable fileId, final String destRelPath, final String versionMessage );
 
+  default void moveFiles( final List<Serializable> fileIds, final String destRelPath, final String versionMessage ) {
+    for ( Serializable fileId : fileIds ) {
+      moveFile( fileId, destRelPath, versionMessage );
+    }
+  }
+
   void copyFile( final Serializable fileId, final String destAbsPath, final String versionMessage );
 
   void restoreFileAtVersion( final Serializable fileId, final Serializable versionId, final String versionMessage );
@@ -117,6 +169,21 @@ public interface IRepositoryFileDao {
 
   Map<String, Serializable> getFileMetadata( final Serializable fileId );
 
+  default Map<Serializable, Map<String, Serializable>> getFilesMetadata( final List<Serializable> fileIds ) {
+    Map<Serializable, Map<String, Serializable>> metadata = new LinkedHashMap<>();
+    for ( Serializable fileId : fileIds ) {
+      try {
+        metadata.put( fileId, getFileMetadata( fileId ) );
+      } catch ( RuntimeException e ) {
+        // files deleted since the caller listed them are left out
+        if ( getFileById( fileId ) != null ) {
+          throw e;
+        }
+      }
+    }
+    return metadata;
+  }
+
   List<Character> getReservedChars();
 
   List<Locale> getAvailableLocalesForFileById( final Serializable fileId );
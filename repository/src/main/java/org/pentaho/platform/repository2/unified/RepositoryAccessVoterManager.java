@@ -51,6 +51,13 @@ public class RepositoryAccessVoterManager implements IRepositoryAccessVoterManag
     voters.add( voter );
   }
 
+  /**
+   * @return whether any voters are registered; without voters {@link #hasAccess} grants every operation
+   */
+  public boolean hasVoters() {
+    return voters != null && !voters.isEmpty();
+  }
+
   @Override
   public boolean hasAccess( RepositoryFile file, RepositoryFilePermission operation,
       RepositoryFileAcl repositoryFileAcl, IPentahoSession session ) {
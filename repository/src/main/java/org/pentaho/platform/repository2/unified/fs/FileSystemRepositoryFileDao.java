@@ -218,23 +218,29 @@ public class FileSystemRepositoryFileDao implements IRepositoryFileDao {
 
     RepositoryFile file = null;
     if ( f.exists() ) {
-      String jcrPath = f.getAbsolutePath().substring( rootDir.getAbsolutePath().length() );
-      if ( jcrPath.length() == 0 ) {
-        jcrPath = "/";
-      } else if ( IS_WINDOWS ) {
-        jcrPath = FilenameUtils.separatorsToUnix( jcrPath );
-      }
-
-      file =
-          new RepositoryFile.Builder( f.getAbsolutePath(), f.getName() ).createdDate( new Date( f.lastModified() ) )
-              .lastModificationDate( new Date( f.lastModified() ) ).folder( f.isDirectory() ).versioned( false ).path(
-                  jcrPath ).versionId( f.getName() ).locked( false ).lockDate( null ).lockMessage( null ).lockOwner(
-                  null ).title( f.getName() ).description( f.getName() ).locale( null ).fileSize( f.length() ).build();
+      file = toRepositoryFile( f, f.isDirectory(), f.lastModified(), f.length() );
     }
     return file;
 
   }
 
+  /**
+   * Describes an existing file from its attributes.
+   */
+  protected RepositoryFile toRepositoryFile( File f, boolean folder, long lastModified, long length ) {
+    String jcrPath = f.getAbsolutePath().substring( rootDir.getAbsolutePath().length() );
+    if ( jcrPath.length() == 0 ) {
+      jcrPath = "/";
+    } else if ( IS_WINDOWS ) {
+      jcrPath = FilenameUtils.separatorsToUnix( jcrPath );
+    }
+
+    return new RepositoryFile.Builder( f.getAbsolutePath(), f.getName() ).createdDate( new Date( lastModified ) )
+        .lastModificationDate( new Date( lastModified ) ).folder( folder ).versioned( false ).path(
+            jcrPath ).versionId( f.getName() ).locked( false ).lockDate( null ).lockMessage( null ).lockOwner(
+            null ).title( f.getName() ).description( f.getName() ).locale( null ).fileSize( length ).build();
+  }
+
   public RepositoryFile getFile( String relPath ) {
     return internalGetFile( new File( getPhysicalFileLocation( relPath ) ) );
   }
@@ -546,7 +552,7 @@ public class FileSystemRepositoryFileDao implements IRepositoryFileDao {
     throw new UnsupportedOperationException( "This operation is not support by this repository" );
   }
 
-  private String getPhysicalFileLocation( String relPath ) {
+  protected String getPhysicalFileLocation( String relPath ) {
 
     if ( StringUtils.isEmpty( relPath ) ) {
       return relPath;
@@ -0,0 +1,275 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.repository2.unified.fs;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.api.repository2.unified.UnifiedRepositoryException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory index of the directory listings of a file system repository. A directory is listed, with the attributes
+ * of its children, the first time it is asked for and then served from memory until it changes.
+ * <p>
+ * When watching, every listed directory is registered with a {@link WatchService} and a change to it drops its
+ * listing, so the index follows changes made outside of the repository (for instance by replication). Without
+ * watching, callers have to {@link #invalidate(Path) invalidate} the paths they change.
+ */
+public class FileSystemRepositoryIndex implements Closeable {
+
+  private static final Log logger = LogFactory.getLog( FileSystemRepositoryIndex.class );
+
+  private final ConcurrentMap<Path, Map<String, Entry>> directories = new ConcurrentHashMap<>();
+
+  /**
+   * Counts changes, so that a listing read while a change was reported is not cached.
+   */
+  private final AtomicLong changes = new AtomicLong();
+
+  private final AtomicLong hits = new AtomicLong();
+
+  private final AtomicLong misses = new AtomicLong();
+
+  private final WatchService watchService;
+
+  private final boolean caching;
+
+  public FileSystemRepositoryIndex( final boolean watch ) {
+    WatchService service = null;
+    if ( watch ) {
+      try {
+        service = FileSystems.getDefault().newWatchService();
+        Thread watcher = new Thread( this::watch, "fs-repository-index-watcher" ); //$NON-NLS-1$
+        watcher.setDaemon( true );
+        watcher.start();
+      } catch ( IOException | UnsupportedOperationException e ) {
+        logger.warn( "File system changes cannot be watched, directory listings will not be cached", e ); //$NON-NLS-1$
+      }
+    }
+    this.watchService = service;
+    // a watched index that cannot watch must not serve stale listings
+    this.caching = !watch || service != null;
+  }
+
+  /**
+   * @return the entry of the given path, or null if it does not exist
+   */
+  public Entry get( final Path path ) {
+    Path normalized = path.toAbsolutePath().normalize();
+    Path parent = normalized.getParent();
+    if ( parent == null || normalized.getFileName() == null ) {
+      return stat( normalized );
+    }
+    Map<String, Entry> listing = listing( parent );
+    return listing == null ? null : listing.get( normalized.getFileName().toString() );
+  }
+
+  /**
+   * @return the entries of the given directory, or null if it is not a directory
+   */
+  public Collection<Entry> list( final Path directory ) {
+    Map<String, Entry> listing = listing( directory.toAbsolutePath().normalize() );
+    return listing == null ? null : listing.values();
+  }
+
+  /**
+   * Drops what the index knows about the given path, its parent directory and, for a directory, everything below it.
+   */
+  public void invalidate( final Path path ) {
+    Path normalized = path.toAbsolutePath().normalize();
+    changes.incrementAndGet();
+    drop( normalized );
+    if ( normalized.getParent() != null ) {
+      directories.remove( normalized.getParent() );
+    }
+  }
+
+  public void clear() {
+    changes.incrementAndGet();
+    directories.clear();
+  }
+
+  public int size() {
+    return directories.size();
+  }
+
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  public boolean isWatching() {
+    return watchService != null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if ( watchService != null ) {
+      watchService.close();
+    }
+    directories.clear();
+  }
+
+  private Map<String, Entry> listing( final Path directory ) {
+    Map<String, Entry> listing = directories.get( directory );
+    if ( listing != null ) {
+      hits.incrementAndGet();
+      return listing;
+    }
+    misses.incrementAndGet();
+    long before = changes.get();
+    boolean cacheable = caching;
+    if ( watchService != null ) {
+      // register before reading, so that no change made after the read goes unnoticed
+      try {
+        directory.register( watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+          StandardWatchEventKinds.ENTRY_MODIFY );
+      } catch ( NoSuchFileException | NotDirectoryException e ) {
+        return null;
+      } catch ( IOException | ClosedWatchServiceException e ) {
+        cacheable = false;
+      }
+    }
+    listing = read( directory );
+    if ( listing != null && cacheable && changes.get() == before ) {
+      directories.put( directory, listing );
+    }
+    return listing;
+  }
+
+  private static Map<String, Entry> read( final Path directory ) {
+    if ( !Files.isDirectory( directory ) ) {
+      return null;
+    }
+    Map<String, Entry> listing = new LinkedHashMap<>();
+    try ( DirectoryStream<Path> stream = Files.newDirectoryStream( directory ) ) {
+      for ( Path child : stream ) {
+        Entry entry = stat( child );
+        // a child removed while listing, or a broken link, does not exist
+        if ( entry != null ) {
+          listing.put( entry.getName(), entry );
+        }
+      }
+    } catch ( NoSuchFileException | NotDirectoryException e ) {
+      return null;
+    } catch ( IOException e ) {
+      throw new UnifiedRepositoryException( "Error listing directory [" + directory + "]", //$NON-NLS-1$ //$NON-NLS-2$
+        e );
+    }
+    return Collections.unmodifiableMap( listing );
+  }
+
+  private static Entry stat( final Path path ) {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes( path, BasicFileAttributes.class );
+      return new Entry( path, attributes.isDirectory(), attributes.lastModifiedTime().toMillis(), attributes.size() );
+    } catch ( IOException e ) {
+      return null;
+    }
+  }
+
+  /**
+   * Drops the listings of a directory and of all directories below it.
+   */
+  private void drop( final Path path ) {
+    directories.keySet().removeIf( directory -> directory.startsWith( path ) );
+  }
+
+  private void watch() {
+    while ( true ) {
+      WatchKey key;
+      try {
+        key = watchService.take();
+      } catch ( InterruptedException | ClosedWatchServiceException e ) {
+        return;
+      }
+      Path directory = (Path) key.watchable();
+      for ( WatchEvent<?> event : key.pollEvents() ) {
+        changes.incrementAndGet();
+        if ( event.kind() == StandardWatchEventKinds.OVERFLOW ) {
+          directories.clear();
+        } else if ( event.kind() != StandardWatchEventKinds.ENTRY_MODIFY ) {
+          // a created or deleted child may be a directory replacing one that was listed before
+          drop( directory.resolve( (Path) event.context() ) );
+        }
+      }
+      changes.incrementAndGet();
+      directories.remove( directory );
+      if ( !key.reset() ) {
+        drop( directory );
+      }
+    }
+  }
+
+  /**
+   * The attributes of a file or directory, as of when its parent was listed.
+   */
+  public static class Entry {
+    private final Path path;
+    private final boolean directory;
+    private final long lastModified;
+    private final long size;
+
+    Entry( final Path path, final boolean directory, final long lastModified, final long size ) {
+      this.path = path;
+      this.directory = directory;
+      this.lastModified = lastModified;
+      this.size = size;
+    }
+
+    public Path getPath() {
+      return path;
+    }
+
+    public String getName() {
+      return path.getFileName() == null ? path.toString() : path.getFileName().toString();
+    }
+
+    public boolean isDirectory() {
+      return directory;
+    }
+
+    public long getLastModified() {
+      return lastModified;
+    }
+
+    public long getSize() {
+      return size;
+    }
+  }
+}
@@ -0,0 +1,190 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.repository2.unified.fs;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.filefilter.WildcardFileFilter;
+import org.pentaho.platform.api.repository2.unified.IRepositoryFileData;
+import org.pentaho.platform.api.repository2.unified.RepositoryFile;
+import org.pentaho.platform.api.repository2.unified.RepositoryFileAcl;
+import org.pentaho.platform.api.repository2.unified.RepositoryFileTree;
+import org.pentaho.platform.api.repository2.unified.RepositoryRequest;
+import org.pentaho.platform.repository.RepositoryFilenameUtils;
+
+/**
+ * A {@link FileSystemRepositoryFileDao} for read-mostly content that serves files, children and trees from a
+ * {@link FileSystemRepositoryIndex} instead of stating every file on every call. Writes made through this dao are
+ * visible immediately; changes made to the file system directly are picked up when the index watches for them.
+ */
+@SuppressWarnings( "nls" )
+public class IndexedFileSystemRepositoryFileDao extends FileSystemRepositoryFileDao implements Closeable {
+
+  private final FileSystemRepositoryIndex index;
+
+  public IndexedFileSystemRepositoryFileDao() {
+    this( new File( System.getProperty( "solution.root.dir", System.getProperty( "user.dir" ) ) ) );
+  }
+
+  public IndexedFileSystemRepositoryFileDao( final String baseDir ) {
+    this( new File( baseDir ) );
+  }
+
+  public IndexedFileSystemRepositoryFileDao( final File baseDir ) {
+    this( baseDir, true );
+  }
+
+  public IndexedFileSystemRepositoryFileDao( final File baseDir, final boolean watch ) {
+    super( baseDir );
+    this.index = new FileSystemRepositoryIndex( watch );
+  }
+
+  public FileSystemRepositoryIndex getIndex() {
+    return index;
+  }
+
+  @Override
+  public RepositoryFile internalGetFile( File f ) {
+    if ( f.getPath().isEmpty() ) {
+      return null;
+    }
+    FileSystemRepositoryIndex.Entry entry = index.get( f.toPath() );
+    return entry == null ? null : toRepositoryFile( f, entry );
+  }
+
+  @Override
+  public List<RepositoryFile> getChildren( RepositoryRequest repositoryRequest ) {
+    File folder = new File( getPhysicalFileLocation( repositoryRequest.getPath() ) );
+    Collection<FileSystemRepositoryIndex.Entry> entries =
+        folder.getPath().isEmpty() ? null : index.list( folder.toPath() );
+    if ( entries == null ) {
+      // not a folder, fail the way the plain dao does
+      return super.getChildren( repositoryRequest );
+    }
+    WildcardFileFilter filter = new WildcardFileFilter( repositoryRequest.getChildNodeFilter() );
+    List<RepositoryFile> children = new ArrayList<RepositoryFile>();
+    for ( FileSystemRepositoryIndex.Entry entry : entries ) {
+      if ( !entry.isDirectory() && filter.accept( folder, entry.getName() ) ) {
+        children.add( toRepositoryFile( new File( folder, entry.getName() ), entry ) );
+      }
+    }
+    return children;
+  }
+
+  @Override
+  public RepositoryFileTree getTree( RepositoryRequest repositoryRequest ) {
+    File root = new File( getPhysicalFileLocation( repositoryRequest.getPath() ) );
+    return getTree( root, internalGetFile( root ), repositoryRequest.getDepth().intValue(),
+        repositoryRequest.getTypes() );
+  }
+
+  @Deprecated
+  @Override
+  public RepositoryFileTree getTree( String relPath, int depth, String filter, boolean showHidden ) {
+    File root = new File( getPhysicalFileLocation( relPath ) );
+    return getTree( root, internalGetFile( root ), depth, RepositoryRequest.FILES_TYPE_FILTER.FILES_FOLDERS );
+  }
+
+  private RepositoryFileTree getTree( final File file, final RepositoryFile rootFile, final int depth,
+      final RepositoryRequest.FILES_TYPE_FILTER types ) {
+    List<RepositoryFileTree> children;
+    if ( depth != 0 ) {
+      children = new ArrayList<RepositoryFileTree>();
+      if ( rootFile != null && rootFile.isFolder() ) {
+        Collection<FileSystemRepositoryIndex.Entry> entries = index.list( file.toPath() );
+        for ( FileSystemRepositoryIndex.Entry entry : entries == null
+            ? Collections.<FileSystemRepositoryIndex.Entry>emptyList() : entries ) {
+          File child = new File( file, entry.getName() );
+          if ( !entry.isDirectory() ) {
+            if ( types == RepositoryRequest.FILES_TYPE_FILTER.FILES_FOLDERS
+                || types == RepositoryRequest.FILES_TYPE_FILTER.FILES ) {
+              children.add( new RepositoryFileTree( toRepositoryFile( child, entry ), new ArrayList<>() ) );
+            }
+            continue;
+          }
+          children.add( getTree( child, toRepositoryFile( child, entry ), depth - 1, types ) );
+        }
+      }
+      Collections.sort( children );
+    } else {
+      children = null;
+    }
+    return new RepositoryFileTree( rootFile, children );
+  }
+
+  @Override
+  public RepositoryFile createFile( Serializable parentFolderId, RepositoryFile file, IRepositoryFileData data,
+      RepositoryFileAcl acl, String versionMessage ) {
+    super.createFile( parentFolderId, file, data, acl, versionMessage );
+    return changed( new File( RepositoryFilenameUtils.concat( parentFolderId.toString(), file.getName() ) ) );
+  }
+
+  @Override
+  public RepositoryFile createFolder( Serializable parentFolderId, RepositoryFile file, RepositoryFileAcl acl,
+      String versionMessage ) {
+    super.createFolder( parentFolderId, file, acl, versionMessage );
+    return changed( new File( parentFolderId + "/" + file.getName() ) );
+  }
+
+  @Override
+  public void deleteFile( Serializable fileId, String versionMessage ) {
+    super.deleteFile( fileId, versionMessage );
+    index.invalidate( new File( fileId.toString() ).toPath() );
+  }
+
+  @Override
+  public RepositoryFile updateFile( RepositoryFile file, IRepositoryFileData data, String versionMessage ) {
+    super.updateFile( file, data, versionMessage );
+    index.invalidate( new File( file.getId().toString() ).toPath() );
+    return getFile( file.getPath() );
+  }
+
+  @Override
+  public void setFileMetadata( final Serializable fileId, Map<String, Serializable> metadataMap ) {
+    super.setFileMetadata( fileId, metadataMap );
+    File metadataDir = new File( new File( fileId.toString() ).getParentFile(), ".metadata" );
+    index.invalidate( metadataDir.toPath() );
+  }
+
+  @Override
+  public void setRootDir( File rootDir ) {
+    super.setRootDir( rootDir );
+    index.clear();
+  }
+
+  @Override
+  public void close() throws IOException {
+    index.close();
+  }
+
+  /**
+   * Drops the stale index entries of a file written by the superclass and describes the file as it now is.
+   */
+  private RepositoryFile changed( final File f ) {
+    index.invalidate( f.toPath() );
+    return internalGetFile( f );
+  }
+
+  private RepositoryFile toRepositoryFile( final File f, final FileSystemRepositoryIndex.Entry entry ) {
+    return toRepositoryFile( f, entry.isDirectory(), entry.getLastModified(), entry.getSize() );
+  }
+}
@@ -0,0 +1,96 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.repository2.unified.jcr;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+/**
+ * Remembers the identifier of the node found at an absolute repository path, so that frequently resolved paths (home
+ * folders, /public, /etc/...) are looked up by identifier instead of being encoded and walked segment by segment.
+ * <p/>
+ * An entry is only trusted once the node it names is found, in the caller's session, still at the path it was cached
+ * for. Moved, renamed, deleted and recreated nodes therefore never resolve to a wrong node, whichever cluster node
+ * changed them, and read access is enforced by the session as for any other lookup.
+ */
+public class JcrPathCache {
+
+  public static final int DEFAULT_MAX_SIZE = 10000;
+
+  private final Cache<String, Entry> entries;
+
+  public JcrPathCache() {
+    this( DEFAULT_MAX_SIZE );
+  }
+
+  public JcrPathCache( final int maxSize ) {
+    entries = CacheBuilder.newBuilder().maximumSize( Math.max( 0, maxSize ) ).recordStats().build();
+  }
+
+  /**
+   * @return the node at the given absolute (unencoded) path, or null if the path is not cached or no longer leads to
+   * the cached node in the given session
+   */
+  public Node getNode( final Session session, final String absPath ) {
+    Entry entry = entries.getIfPresent( absPath );
+    if ( entry == null ) {
+      return null;
+    }
+    try {
+      Node node = session.getNodeByIdentifier( entry.identifier );
+      if ( entry.jcrPath.equals( node.getPath() ) ) {
+        return node;
+      }
+    } catch ( RepositoryException e ) {
+      // deleted, or not readable in this session; the caller resolves the path
+    }
+    entries.invalidate( absPath );
+    return null;
+  }
+
+  public void put( final String absPath, final Node node ) throws RepositoryException {
+    String identifier = node.getIdentifier();
+    String jcrPath = node.getPath();
+    if ( identifier != null && jcrPath != null ) {
+      entries.put( absPath, new Entry( identifier, jcrPath ) );
+    }
+  }
+
+  public void invalidateAll() {
+    entries.invalidateAll();
+  }
+
+  public long size() {
+    return entries.size();
+  }
+
+  public CacheStats getStats() {
+    return entries.stats();
+  }
+
+  private static class Entry {
+    private final String identifier;
+    private final String jcrPath;
+
+    Entry( final String identifier, final String jcrPath ) {
+      this.identifier = identifier;
+      this.jcrPath = jcrPath;
+    }
+  }
+}
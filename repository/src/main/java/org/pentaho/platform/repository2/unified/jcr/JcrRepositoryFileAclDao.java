@@ -329,12 +329,18 @@ public class JcrRepositoryFileAclDao implements IRepositoryFileAclDao {
   public RepositoryFileAcl getAcl( final Serializable id ) {
     return (RepositoryFileAcl) jcrTemplate.execute( new JcrCallback() {
       public Object doInJcr( final Session session ) throws RepositoryException, IOException {
-        PentahoJcrConstants pentahoJcrConstants = new PentahoJcrConstants( session );
-        return toAcl( session, pentahoJcrConstants, id );
+        return getAcl( session, id );
       }
     } );
   }
 
+  /**
+   * Reads the ACL of a file in a session the caller already holds.
+   */
+  public RepositoryFileAcl getAcl( final Session session, final Serializable id ) throws RepositoryException {
+    return toAcl( session, new PentahoJcrConstants( session ), id );
+  }
+
   protected RepositoryFileAcl getParentAcl( final Serializable id ) {
     return (RepositoryFileAcl) jcrTemplate.execute( new JcrCallback() {
       public Object doInJcr( final Session session ) throws RepositoryException, IOException {
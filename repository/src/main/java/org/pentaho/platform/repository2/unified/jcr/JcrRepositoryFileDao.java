@@ -17,8 +17,12 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -36,6 +40,8 @@ import javax.jcr.PropertyIterator;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.jcr.lock.Lock;
+import javax.jcr.query.Query;
+import javax.jcr.query.RowIterator;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -57,6 +63,7 @@ import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.pentaho.platform.repository2.messages.Messages;
 import org.pentaho.platform.repository2.unified.IRepositoryFileAclDao;
 import org.pentaho.platform.repository2.unified.IRepositoryFileDao;
+import org.pentaho.platform.repository2.unified.RepositoryAccessVoterManager;
 import org.pentaho.platform.repository2.unified.ServerRepositoryPaths;
 import org.springframework.extensions.jcr.JcrCallback;
 import org.springframework.extensions.jcr.JcrTemplate;
@@ -92,6 +99,10 @@ public class JcrRepositoryFileDao implements IRepositoryFileDao {
 
   private IRepositoryAccessVoterManager accessVoterManager;
 
+  private int batchSaveSize = 500;
+
+  private JcrPathCache pathCache = new JcrPathCache();
+
   // ~ Constructors
   // ====================================================================================================
 
@@ -255,6 +266,7 @@ public class JcrRepositoryFileDao implements IRepositoryFileDao {
     JcrRepositoryFileUtils.updateFileNode( session, pentahoJcrConstants, file, content,
         findTransformerForWrite( content.getClass() ) );
     session.save();
+    LocalePropertiesCache.getInstance().invalidate( file.getId().toString() );
     JcrRepositoryFileUtils.checkinNearestVersionableFileIfNecessary( session, pentahoJcrConstants, file.getId(),
         versionMessage, file.getCreatedDate() != null ? file.getCreatedDate() : new java.util.Date(), true );
     lockHelper.removeLockTokenFromSessionIfNecessary( session, pentahoJcrConstants, file.getId() );
@@ -274,6 +286,7 @@ public class JcrRepositoryFileDao implements IRepositoryFileDao {
     JcrRepositoryFileUtils.checkoutNearestVersionableFileIfNecessary( session, pentahoJcrConstants, folder.getId() );
     JcrRepositoryFileUtils.updateFolderNode( session, pentahoJcrConstants, folder );
     session.save();
+    LocalePropertiesCache.getInstance().invalidate( folder.getId().toString() );
     JcrRepositoryFileUtils.checkinNearestVersionableFileIfNecessary( session, pentahoJcrConstants, folder.getId(),
         versionMessage );
     lockHelper.removeLockTokenFromSessionIfNecessary( session, pentahoJcrConstants, folder.getId() );
@@ -392,13 +405,8 @@ public class JcrRepositoryFileDao implements IRepositoryFileDao {
         RepositoryFile file =
             fileNode != null ? JcrRepositoryFileUtils.nodeToFile( session, pentahoJcrConstants, pathConversionHelper,
                 lockHelper, fileNode, loadMaps, locale ) : null;
-        if ( file != null ) {
-          RepositoryFileAcl acl = aclDao.getAcl( file.getId() );
-          // Invoke accessVoterManager to see if we have access to perform this operation
-          if ( !accessVoterManager.hasAccess( file, RepositoryFilePermission.READ, acl, PentahoSessionHolder
-              .getSession() ) ) {
-            return null;
-          }
+        if ( file != null && !canRead( session, file ) ) {
+          return null;
         }
         return file;
       }
@@ -448,27 +456,42 @@ public class JcrRepositoryFileDao implements IRepositoryFileDao {
       final IPentahoLocale locale ) throws RepositoryException {
 
     PentahoJcrConstants pentahoJcrConstants = new PentahoJcrConstants( session );
-    Item fileNode;
-    try {
-      fileNode = session.getItem( JcrStringHelper.pathEncode( absPath ) );
-      // items are nodes or properties; this must be a node
-      Assert.isTrue( fileNode.isNode() );
-    } catch ( PathNotFoundException e ) {
-      fileNode = null;
+    Node fileNode = pathCache.getNode( session, absPath );
+    if ( fileNode == null ) {
+      try {
+        Item item = session.getItem( JcrStringHelper.pathEncode( absPath ) );
+        // items are nodes or properties; this must be a node
+        Assert.isTrue( item.isNode() );
+        fileNode = (Node) item;
+        pathCache.put( absPath, fileNode );
+      } catch ( PathNotFoundException e ) {
+        fileNode = null;
+      }
     }
     RepositoryFile file =
         fileNode != null ? JcrRepositoryFileUtils.nodeToFile( session, pentahoJcrConstants, pathConversionHelper,
-            lockHelper, (Node) fileNode, loadMaps, locale ) : null;
-    if ( file != null ) {
-      RepositoryFileAcl acl = aclDao.getAcl( file.getId() );
-      // Invoke accessVoterManager to see if we have access to perform this operation
-      if ( !accessVoterManager.hasAccess( file, RepositoryFilePermission.READ, acl, PentahoSessionHolder.getSession() ) ) {
-        return null;
-      }
+            lockHelper, fileNode, loadMaps, locale ) : null;
+    if ( file != null && !canRead( session, file ) ) {
+      return null;
     }
     return file;
   }
 
+  /**
+   * Consults the access voters on reading a file the session could already read. Without voters access is granted
+   * whatever the ACL says, so the ACL is only read, in the given session, when voters are registered.
+   */
+  private boolean canRead( final Session session, final RepositoryFile file ) throws RepositoryException {
+    if ( accessVoterManager instanceof RepositoryAccessVoterManager
+        && !( (RepositoryAccessVoterManager) accessVoterManager ).hasVoters() ) {
+      return true;
+    }
+    RepositoryFileAcl acl = aclDao instanceof JcrRepositoryFileAclDao
+        ? ( (JcrRepositoryFileAclDao) aclDao ).getAcl( session, file.getId() ) : aclDao.getAcl( file.getId() );
+    // Invoke accessVoterManager to see if we have access to perform this operation
+    return accessVoterManager.hasAccess( file, RepositoryFilePermission.READ, acl, PentahoSessionHolder.getSession() );
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -644,22 +667,8 @@ public class JcrRepositoryFileDao implements IRepositoryFileDao {
     jcrTemplate.execute( new JcrCallback() {
       @Override
       public Object doInJcr( final Session session ) throws RepositoryException, IOException {
-        RepositoryFile fileToBeDeleted = getFileById( fileId );
-        // Get repository file info and acl info of parent
-        if ( fileToBeDeleted != null ) {
-          RepositoryFileAcl toBeDeletedFileAcl = aclDao.getAcl( fileToBeDeleted.getId() );
-          // Invoke accessVoterManager to see if we have access to perform this operation
-          if ( !accessVoterManager.hasAccess( fileToBeDeleted, RepositoryFilePermission.DELETE, toBeDeletedFileAcl,
-                  PentahoSessionHolder.getSession() ) ) {
-            return null;
-          }
-
-          List<RepositoryFilePermission> perms = new ArrayList<RepositoryFilePermission>();
-          perms.add( RepositoryFilePermission.DELETE );
-          if ( !aclDao.hasAccess( fileToBeDeleted.getPath(), EnumSet.copyOf( perms ) ) ) {
-            throw new AccessDeniedException( Messages.getInstance().getString(
-                    "JcrRepositoryFileDao.ERROR_0006_ACCESS_DENIED_DELETE", fileId ) );
-          }
+        if ( !checkDeleteAccess( fileId ) ) {
+          return null;
         }
         PentahoJcrConstants pentahoJcrConstants = new PentahoJcrConstants( session );
         Serializable parentFolderId = JcrRepositoryFileUtils.getParentId( session, fileId );
@@ -673,6 +682,94 @@ public class JcrRepositoryFileDao implements IRepositoryFileDao {
     } );
   }
 
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * <p>
+   * The files are deleted in one JCR session. Each parent folder is checked out and checked in once for the whole list
+   * and pending changes are saved every {@link #getBatchSaveSize()} files. As with
+   * {@link #deleteFile(Serializable, String)}, files the access voters deny are skipped. Access is checked for every
+   * file before any of them is deleted, so that a file the current user may not delete leaves all of them in place even
+   * though earlier batches are saved on their own. Skipped files are not counted.
+   * </p>
+   */
+  @Override
+  public int deleteFiles( final List<Serializable> fileIds, final String versionMessage ) {
+    if ( isKioskEnabled() ) {
+      throw new RuntimeException( Messages.getInstance().getString( "JcrRepositoryFileDao.ERROR_0006_ACCESS_DENIED" ) ); //$NON-NLS-1$
+    }
+
+    Assert.notNull( fileIds );
+    if ( fileIds.isEmpty() ) {
+      return 0;
+    }
+    return (Integer) jcrTemplate.execute( new JcrCallback() {
+      @Override
+      public Object doInJcr( final Session session ) throws RepositoryException, IOException {
+        PentahoJcrConstants pentahoJcrConstants = new PentahoJcrConstants( session );
+        List<Serializable> allowedFileIds = new ArrayList<Serializable>( fileIds.size() );
+        for ( Serializable fileId : fileIds ) {
+          if ( checkDeleteAccess( fileId ) ) {
+            allowedFileIds.add( fileId );
+          }
+        }
+        Set<Serializable> parentFolderIds = new LinkedHashSet<Serializable>();
+        int pending = 0;
+        for ( Serializable fileId : allowedFileIds ) {
+          Serializable parentFolderId = JcrRepositoryFileUtils.getParentId( session, fileId );
+          if ( parentFolderIds.add( parentFolderId ) ) {
+            JcrRepositoryFileUtils.checkoutNearestVersionableFileIfNecessary( session, pentahoJcrConstants,
+                parentFolderId );
+          }
+          deleteHelper.deleteFile( session, pentahoJcrConstants, fileId );
+          if ( ++pending % batchSaveSize == 0 ) {
+            session.save();
+          }
+        }
+        session.save();
+        checkinFolders( session, pentahoJcrConstants, parentFolderIds, versionMessage );
+        return allowedFileIds.size();
+      }
+    } );
+  }
+
+  /**
+   * Checks that the current user may delete the file.
+   * 
+   * @return {@code false} if an access voter denies the deletion
+   * @throws AccessDeniedException
+   *           if the file's ACL does not grant delete permission
+   */
+  private boolean checkDeleteAccess( final Serializable fileId ) throws AccessDeniedException {
+    RepositoryFile fileToBeDeleted = getFileById( fileId );
+    // Get repository file info and acl info of parent
+    if ( fileToBeDeleted != null ) {
+      RepositoryFileAcl toBeDeletedFileAcl = aclDao.getAcl( fileToBeDeleted.getId() );
+      // Invoke accessVoterManager to see if we have access to perform this operation
+      if ( !accessVoterManager.hasAccess( fileToBeDeleted, RepositoryFilePermission.DELETE, toBeDeletedFileAcl,
+              PentahoSessionHolder.getSession() ) ) {
+        return false;
+      }
+
+      List<RepositoryFilePermission> perms = new ArrayList<RepositoryFilePermission>();
+      perms.add( RepositoryFilePermission.DELETE );
+      if ( !aclDao.hasAccess( fileToBeDeleted.getPath(), EnumSet.copyOf( perms ) ) ) {
+        throw new AccessDeniedException( Messages.getInstance().getString(
+                "JcrRepositoryFileDao.ERROR_0006_ACCESS_DENIED_DELETE", fileId ) );
+      }
+    }
+    return true;
+  }
+
+  private void checkinFolders( final Session session, final PentahoJcrConstants pentahoJcrConstants,
+                               final Set<Serializable> folderIds, final String versionMessage )
+    throws RepositoryException {
+    for ( Serializable folderId : folderIds ) {
+      JcrRepositoryFileUtils.checkinNearestVersionableFileIfNecessary( session, pentahoJcrConstants, folderId,
+          versionMessage );
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -784,6 +881,107 @@ public class JcrRepositoryFileDao implements IRepositoryFileDao {
     } );
   }
 
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * <p>
+   * The files are removed in a single session save. As with {@link #permanentlyDeleteFile(Serializable, String)}, files
+   * the access voters deny are skipped; they are not counted.
+   * </p>
+   */
+  @Override
+  public int permanentlyDeleteFiles( final List<Serializable> fileIds, final String versionMessage ) {
+    if ( isKioskEnabled() ) {
+      throw new RuntimeException( Messages.getInstance().getString( "JcrRepositoryFileDao.ERROR_0006_ACCESS_DENIED" ) ); //$NON-NLS-1$
+    }
+
+    Assert.notNull( fileIds );
+    if ( fileIds.isEmpty() ) {
+      return 0;
+    }
+    return (Integer) jcrTemplate.execute( new JcrCallback() {
+      @Override
+      public Object doInJcr( final Session session ) throws RepositoryException, IOException {
+        PentahoJcrConstants pentahoJcrConstants = new PentahoJcrConstants( session );
+        int deleted = 0;
+        for ( Serializable fileId : fileIds ) {
+          RepositoryFile fileToBeDeleted = getFileById( fileId );
+          if ( fileToBeDeleted == null || !isDeleteAllowed( fileToBeDeleted ) ) {
+            continue;
+          }
+          try {
+            session.getNodeByIdentifier( fileId.toString() );
+          } catch ( ItemNotFoundException e ) {
+            // already removed along with a folder earlier in the list
+            continue;
+          }
+          deleteHelper.permanentlyDeleteFile( session, pentahoJcrConstants, fileId );
+          deleted++;
+        }
+        session.save();
+        return deleted;
+      }
+    } );
+  }
+
+  private boolean isDeleteAllowed( final RepositoryFile file ) {
+    RepositoryFileAcl acl = aclDao.getAcl( file.getId() );
+    return accessVoterManager.hasAccess( file, RepositoryFilePermission.DELETE, acl,
+        PentahoSessionHolder.getSession() );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isMetadataSearchSupported() {
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * <p>
+   * Runs an indexed query joining the files with their metadata nodes, so that the repository tree is not walked.
+   * </p>
+   */
+  @Override
+  @SuppressWarnings( "unchecked" )
+  public List<RepositoryFile> getFilesByMetadata( final String metadataKey, final Date createdBefore,
+                                                  final int offset, final int limit ) {
+    Assert.hasLength( metadataKey );
+    Assert.notNull( createdBefore );
+    return (List<RepositoryFile>) jcrTemplate.execute( new JcrCallback() {
+      @Override
+      public Object doInJcr( final Session session ) throws RepositoryException, IOException {
+        PentahoJcrConstants pentahoJcrConstants = new PentahoJcrConstants( session );
+        String prefix = session.getNamespacePrefix( PentahoJcrConstants.PHO_NS );
+        String created = pentahoJcrConstants.getJCR_CREATED();
+        String statement = "SELECT file.* FROM [" + pentahoJcrConstants.getPHO_NT_PENTAHOFILE() + "] AS file " //$NON-NLS-1$ //$NON-NLS-2$
+            + "INNER JOIN [nt:base] AS metadata ON ISCHILDNODE(metadata, file) " //$NON-NLS-1$
+            + "WHERE ISDESCENDANTNODE(file, [" + ServerRepositoryPaths.getTenantRootFolderPath() + "]) " //$NON-NLS-1$ //$NON-NLS-2$
+            + "AND metadata.[" + prefix + ":" + metadataKey + "] IS NOT NULL " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            + "AND file.[" + created + "] < $createdBefore " //$NON-NLS-1$ //$NON-NLS-2$
+            + "ORDER BY file.[" + created + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+        Query query = session.getWorkspace().getQueryManager().createQuery( statement, Query.JCR_SQL2 );
+        Calendar createdBeforeCalendar = Calendar.getInstance();
+        createdBeforeCalendar.setTime( createdBefore );
+        query.bindValue( "createdBefore", session.getValueFactory().createValue( createdBeforeCalendar ) ); //$NON-NLS-1$
+        query.setOffset( offset );
+        query.setLimit( limit );
+
+        List<RepositoryFile> files = new ArrayList<RepositoryFile>();
+        RowIterator rows = query.execute().getRows();
+        while ( rows.hasNext() ) {
+          Node fileNode = rows.nextRow().getNode( "file" ); //$NON-NLS-1$
+          files.add( JcrRepositoryFileUtils.nodeToFile( session, pentahoJcrConstants, pathConversionHelper,
+              lockHelper, fileNode ) );
+        }
+        return files;
+      }
+    } );
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -798,41 +996,10 @@ public class JcrRepositoryFileDao implements IRepositoryFileDao {
       @Override
       public Object doInJcr( final Session session ) throws RepositoryException, IOException {
         PentahoJcrConstants pentahoJcrConstants = new PentahoJcrConstants( session );
-        String absOrigParentFolderPath =
-            deleteHelper.getOriginalParentFolderPath( session, pentahoJcrConstants, fileId );
-        Serializable origParentFolderId = null;
-        RepositoryFile file = getFileById( fileId );
-        RepositoryFileAcl acl = aclDao.getAcl( fileId );
-        if ( !accessVoterManager.hasAccess( file, RepositoryFilePermission.WRITE, acl, PentahoSessionHolder
-            .getSession() ) ) {
+        if ( !isUndeleteAllowed( fileId ) ) {
           return null;
         }
-        // original parent folder path may no longer exist!
-        if ( session.itemExists( JcrStringHelper.pathEncode( absOrigParentFolderPath ) ) ) {
-          origParentFolderId =
-              ( (Node) session.getItem( JcrStringHelper.pathEncode( absOrigParentFolderPath ) ) ).getIdentifier();
-        } else {
-          // go through each of the segments of the original parent folder path, creating as necessary
-          String[] segments = pathConversionHelper.absToRel( absOrigParentFolderPath ).split( RepositoryFile.SEPARATOR );
-          RepositoryFile lastParentFolder =
-              internalGetFile( session, ServerRepositoryPaths.getTenantRootFolderPath(), false, null );
-          for ( String segment : segments ) {
-            if ( StringUtils.hasLength( segment ) ) {
-              RepositoryFile tmp =
-                  internalGetFile( session, pathConversionHelper
-                      .relToAbs( ( lastParentFolder.getPath().equals( RepositoryFile.SEPARATOR )
-                          ? "" : lastParentFolder.getPath() ) + RepositoryFile.SEPARATOR + segment ), false, null ); //$NON-NLS-1$
-              if ( tmp == null ) {
-                lastParentFolder =
-                    internalCreateFolder( session, lastParentFolder.getId(), new RepositoryFile.Builder( segment )
-                        .folder( true ).build(), defaultAclHandler.createDefaultAcl( lastParentFolder ), null );
-              } else {
-                lastParentFolder = tmp;
-              }
-            }
-          }
-          origParentFolderId = lastParentFolder.getId();
-        }
+        Serializable origParentFolderId = getOriginalParentFolderId( session, pentahoJcrConstants, fileId );
         JcrRepositoryFileUtils.checkoutNearestVersionableFileIfNecessary( session, pentahoJcrConstants,
             origParentFolderId );
         deleteHelper.undeleteFile( session, pentahoJcrConstants, fileId );
@@ -844,122 +1011,109 @@ public class JcrRepositoryFileDao implements IRepositoryFileDao {
     } );
   }
 
-  private void internalCopyOrMove( final Serializable fileId, final String destRelPath, final String versionMessage,
-      final boolean copy ) {
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * <p>
+   * The files are recovered in one JCR session. Each original parent folder is checked out and checked in once for the
+   * whole list and pending changes are saved every {@link #getBatchSaveSize()} files. Files the access voters deny are
+   * skipped; access is checked for every file before any of them is recovered.
+   * </p>
+   */
+  @Override
+  public void undeleteFiles( final List<Serializable> fileIds, final String versionMessage ) {
     if ( isKioskEnabled() ) {
       throw new RuntimeException( Messages.getInstance().getString( "JcrRepositoryFileDao.ERROR_0006_ACCESS_DENIED" ) ); //$NON-NLS-1$
     }
 
-    Assert.notNull( fileId );
+    Assert.notNull( fileIds );
+    if ( fileIds.isEmpty() ) {
+      return;
+    }
     jcrTemplate.execute( new JcrCallback() {
       @Override
       public Object doInJcr( final Session session ) throws RepositoryException, IOException {
-        // if we're moving the file,
-        // check that user has permissions to remove the file from it's current location
-        RepositoryFile file = getFileById( fileId );
-        if ( !copy ) {
-          RepositoryFileAcl acl = aclDao.getAcl( fileId );
-          if ( !accessVoterManager.hasAccess( file, RepositoryFilePermission.WRITE, acl,
-            PentahoSessionHolder.getSession() ) ) {
-            throw new AccessDeniedException( Messages.getInstance().getString(
-              "JcrRepositoryFileDao.ERROR_0006_ACCESS_DENIED_DELETE", fileId ) );
-          }
-        }
-
-        // check that user has permissions to write to the destination folder
-        RepositoryFile destFolder = getFile( destRelPath );
-        if ( destFolder != null ) {
-          RepositoryFileAcl destFolderAcl = aclDao.getAcl( destFolder.getId() );
-          if ( !accessVoterManager.hasAccess( destFolder, RepositoryFilePermission.WRITE, destFolderAcl,
-            PentahoSessionHolder.getSession() ) ) {
-            throw new AccessDeniedException( Messages.getInstance().getString(
-              "JcrRepositoryFileDao.ERROR_0006_ACCESS_DENIED_CREATE", destFolder.getId() ) );
-          }
-        }
-
         PentahoJcrConstants pentahoJcrConstants = new PentahoJcrConstants( session );
-        String destAbsPath = pathConversionHelper.relToAbs( destRelPath );
-        String cleanDestAbsPath = destAbsPath;
-        if ( cleanDestAbsPath.endsWith( RepositoryFile.SEPARATOR ) ) {
-          cleanDestAbsPath.substring( 0, cleanDestAbsPath.length() - 1 );
-        }
-        Node srcFileNode = session.getNodeByIdentifier( fileId.toString() );
-        Serializable srcParentFolderId = JcrRepositoryFileUtils.getParentId( session, fileId );
-        boolean appendFileName = false;
-        boolean destExists = true;
-        Node destFileNode = null;
-        Node destParentFolderNode = null;
-        try {
-          destFileNode = (Node) session.getItem( JcrStringHelper.pathEncode( cleanDestAbsPath ) );
-        } catch ( PathNotFoundException e ) {
-          destExists = false;
+        List<Serializable> allowedFileIds = new ArrayList<Serializable>( fileIds.size() );
+        for ( Serializable fileId : fileIds ) {
+          if ( isUndeleteAllowed( fileId ) ) {
+            allowedFileIds.add( fileId );
+          }
         }
-        if ( destExists ) {
-          // make sure it's a file or folder
-          Assert.isTrue( JcrRepositoryFileUtils.isSupportedNodeType( pentahoJcrConstants, destFileNode ) );
-          // existing item; make sure src is not a folder if dest is a file
-          Assert.isTrue(
-              !( JcrRepositoryFileUtils.isPentahoFolder( pentahoJcrConstants, srcFileNode ) && JcrRepositoryFileUtils
-                  .isPentahoFile( pentahoJcrConstants, destFileNode ) ), Messages.getInstance().getString(
-                  "JcrRepositoryFileDao.ERROR_0002_CANNOT_OVERWRITE_FILE_WITH_FOLDER" ) ); //$NON-NLS-1$
-          if ( JcrRepositoryFileUtils.isPentahoFolder( pentahoJcrConstants, destFileNode ) ) {
-            // existing item; caller is not renaming file, only moving it
-            appendFileName = true;
-            destParentFolderNode = destFileNode;
-          } else {
-            // get parent of existing dest item
-            int lastSlashIndex = cleanDestAbsPath.lastIndexOf( RepositoryFile.SEPARATOR );
-            Assert.isTrue( lastSlashIndex > 1, Messages.getInstance().getString(
-                "JcrRepositoryFileDao.ERROR_0003_ILLEGAL_DEST_PATH" ) ); //$NON-NLS-1$
-            String absPathToDestParentFolder = cleanDestAbsPath.substring( 0, lastSlashIndex );
-            destParentFolderNode = (Node) session.getItem( JcrStringHelper.pathEncode( absPathToDestParentFolder ) );
+        Set<Serializable> origParentFolderIds = new LinkedHashSet<Serializable>();
+        int pending = 0;
+        for ( Serializable fileId : allowedFileIds ) {
+          Serializable origParentFolderId = getOriginalParentFolderId( session, pentahoJcrConstants, fileId );
+          if ( origParentFolderIds.add( origParentFolderId ) ) {
+            JcrRepositoryFileUtils.checkoutNearestVersionableFileIfNecessary( session, pentahoJcrConstants,
+                origParentFolderId );
           }
-        } else {
-          // destination doesn't exist; go up one level to a folder that does exist
-          int lastSlashIndex = cleanDestAbsPath.lastIndexOf( RepositoryFile.SEPARATOR );
-          Assert.isTrue( lastSlashIndex > 1, Messages.getInstance().getString(
-              "JcrRepositoryFileDao.ERROR_0003_ILLEGAL_DEST_PATH" ) ); //$NON-NLS-1$
-          String absPathToDestParentFolder = cleanDestAbsPath.substring( 0, lastSlashIndex );
-          // Not need to check the name if we encoded it
-          // JcrRepositoryFileUtils.checkName( cleanDestAbsPath.substring( lastSlashIndex + 1 ) );
-          try {
-            destParentFolderNode = (Node) session.getItem( JcrStringHelper.pathEncode( absPathToDestParentFolder ) );
-          } catch ( PathNotFoundException e1 ) {
-            Assert.isTrue( false, Messages.getInstance()
-                .getString( "JcrRepositoryFileDao.ERROR_0004_PARENT_MUST_EXIST" ) ); //$NON-NLS-1$
+          deleteHelper.undeleteFile( session, pentahoJcrConstants, fileId );
+          if ( ++pending % batchSaveSize == 0 ) {
+            session.save();
           }
-          Assert.isTrue( JcrRepositoryFileUtils.isPentahoFolder( pentahoJcrConstants, destParentFolderNode ), Messages
-              .getInstance().getString( "JcrRepositoryFileDao.ERROR_0005_PARENT_MUST_BE_FOLDER" ) ); //$NON-NLS-1$
-        }
-        if ( !copy ) {
-          JcrRepositoryFileUtils.checkoutNearestVersionableFileIfNecessary( session, pentahoJcrConstants,
-              srcParentFolderId );
         }
-        JcrRepositoryFileUtils.checkoutNearestVersionableNodeIfNecessary( session, pentahoJcrConstants,
-            destParentFolderNode );
-        String finalEncodedSrcAbsPath = srcFileNode.getPath();
-        String finalEncodedDestAbsPath = null;
-        if ( appendFileName ) {
-          final String fileName = srcFileNode.getName();
-          if ( JcrStringHelper.isEncoded( fileName ) ) {
-            finalEncodedDestAbsPath = JcrStringHelper.pathEncode( cleanDestAbsPath ) + RepositoryFile.SEPARATOR + fileName;
-          } else {
-            finalEncodedDestAbsPath = JcrStringHelper.pathEncode( cleanDestAbsPath + RepositoryFile.SEPARATOR + fileName );
-          }
+        session.save();
+        checkinFolders( session, pentahoJcrConstants, origParentFolderIds, versionMessage );
+        return null;
+      }
+    } );
+  }
+
+  private boolean isUndeleteAllowed( final Serializable fileId ) {
+    RepositoryFile file = getFileById( fileId );
+    RepositoryFileAcl acl = aclDao.getAcl( fileId );
+    return accessVoterManager.hasAccess( file, RepositoryFilePermission.WRITE, acl,
+        PentahoSessionHolder.getSession() );
+  }
+
+  /**
+   * Gets the id of the folder a deleted file was deleted from, recreating the folder if it no longer exists.
+   */
+  private Serializable getOriginalParentFolderId( final Session session,
+                                                  final PentahoJcrConstants pentahoJcrConstants,
+                                                  final Serializable fileId ) throws RepositoryException {
+    String absOrigParentFolderPath = deleteHelper.getOriginalParentFolderPath( session, pentahoJcrConstants, fileId );
+    // original parent folder path may no longer exist!
+    if ( session.itemExists( JcrStringHelper.pathEncode( absOrigParentFolderPath ) ) ) {
+      return ( (Node) session.getItem( JcrStringHelper.pathEncode( absOrigParentFolderPath ) ) ).getIdentifier();
+    }
+    // go through each of the segments of the original parent folder path, creating as necessary
+    String[] segments = pathConversionHelper.absToRel( absOrigParentFolderPath ).split( RepositoryFile.SEPARATOR );
+    RepositoryFile lastParentFolder =
+        internalGetFile( session, ServerRepositoryPaths.getTenantRootFolderPath(), false, null );
+    for ( String segment : segments ) {
+      if ( StringUtils.hasLength( segment ) ) {
+        RepositoryFile tmp =
+            internalGetFile( session, pathConversionHelper
+                .relToAbs( ( lastParentFolder.getPath().equals( RepositoryFile.SEPARATOR )
+                    ? "" : lastParentFolder.getPath() ) + RepositoryFile.SEPARATOR + segment ), false, null ); //$NON-NLS-1$
+        if ( tmp == null ) {
+          lastParentFolder =
+              internalCreateFolder( session, lastParentFolder.getId(), new RepositoryFile.Builder( segment )
+                  .folder( true ).build(), defaultAclHandler.createDefaultAcl( lastParentFolder ), null );
         } else {
-          finalEncodedDestAbsPath = JcrStringHelper.pathEncode( cleanDestAbsPath );
-        }
-        try {
-          if ( copy ) {
-            session.getWorkspace().copy( finalEncodedSrcAbsPath, finalEncodedDestAbsPath );
-          } else {
-            session.getWorkspace().move( finalEncodedSrcAbsPath, finalEncodedDestAbsPath );
-          }
-        } catch ( ItemExistsException iae ) {
-          throw new UnifiedRepositoryException( ( file.isFolder() ? "Folder " : "File " ) + "with path ["
-              + cleanDestAbsPath + "] already exists in the repository" );
+          lastParentFolder = tmp;
         }
+      }
+    }
+    return lastParentFolder.getId();
+  }
 
+  private void internalCopyOrMove( final Serializable fileId, final String destRelPath, final String versionMessage,
+      final boolean copy ) {
+    if ( isKioskEnabled() ) {
+      throw new RuntimeException( Messages.getInstance().getString( "JcrRepositoryFileDao.ERROR_0006_ACCESS_DENIED" ) ); //$NON-NLS-1$
+    }
+
+    Assert.notNull( fileId );
+    jcrTemplate.execute( new JcrCallback() {
+      @Override
+      public Object doInJcr( final Session session ) throws RepositoryException, IOException {
+        PentahoJcrConstants pentahoJcrConstants = new PentahoJcrConstants( session );
+        Serializable srcParentFolderId = JcrRepositoryFileUtils.getParentId( session, fileId );
+        Node destParentFolderNode =
+            internalCopyOrMove( session, pentahoJcrConstants, fileId, srcParentFolderId, destRelPath, copy );
         JcrRepositoryFileUtils.checkinNearestVersionableNodeIfNecessary( session, pentahoJcrConstants,
             destParentFolderNode, versionMessage );
         // if it's a move within the same folder, then the next checkin is unnecessary
@@ -973,6 +1127,122 @@ public class JcrRepositoryFileDao implements IRepositoryFileDao {
     } );
   }
 
+  /**
+   * Copies or moves a file without checking in the folders involved; the caller checks them in and saves.
+   * 
+   * @return the destination parent folder node
+   */
+  private Node internalCopyOrMove( final Session session, final PentahoJcrConstants pentahoJcrConstants,
+                                   final Serializable fileId, final Serializable srcParentFolderId,
+                                   final String destRelPath, final boolean copy )
+    throws RepositoryException {
+    // if we're moving the file,
+    // check that user has permissions to remove the file from it's current location
+    RepositoryFile file = getFileById( fileId );
+    if ( !copy ) {
+      RepositoryFileAcl acl = aclDao.getAcl( fileId );
+      if ( !accessVoterManager.hasAccess( file, RepositoryFilePermission.WRITE, acl,
+        PentahoSessionHolder.getSession() ) ) {
+        throw new AccessDeniedException( Messages.getInstance().getString(
+          "JcrRepositoryFileDao.ERROR_0006_ACCESS_DENIED_DELETE", fileId ) );
+      }
+    }
+
+    // check that user has permissions to write to the destination folder
+    RepositoryFile destFolder = getFile( destRelPath );
+    if ( destFolder != null ) {
+      RepositoryFileAcl destFolderAcl = aclDao.getAcl( destFolder.getId() );
+      if ( !accessVoterManager.hasAccess( destFolder, RepositoryFilePermission.WRITE, destFolderAcl,
+        PentahoSessionHolder.getSession() ) ) {
+        throw new AccessDeniedException( Messages.getInstance().getString(
+          "JcrRepositoryFileDao.ERROR_0006_ACCESS_DENIED_CREATE", destFolder.getId() ) );
+      }
+    }
+
+    String destAbsPath = pathConversionHelper.relToAbs( destRelPath );
+    String cleanDestAbsPath = destAbsPath;
+    if ( cleanDestAbsPath.endsWith( RepositoryFile.SEPARATOR ) ) {
+      cleanDestAbsPath.substring( 0, cleanDestAbsPath.length() - 1 );
+    }
+    Node srcFileNode = session.getNodeByIdentifier( fileId.toString() );
+    boolean appendFileName = false;
+    boolean destExists = true;
+    Node destFileNode = null;
+    Node destParentFolderNode = null;
+    try {
+      destFileNode = (Node) session.getItem( JcrStringHelper.pathEncode( cleanDestAbsPath ) );
+    } catch ( PathNotFoundException e ) {
+      destExists = false;
+    }
+    if ( destExists ) {
+      // make sure it's a file or folder
+      Assert.isTrue( JcrRepositoryFileUtils.isSupportedNodeType( pentahoJcrConstants, destFileNode ) );
+      // existing item; make sure src is not a folder if dest is a file
+      Assert.isTrue(
+          !( JcrRepositoryFileUtils.isPentahoFolder( pentahoJcrConstants, srcFileNode ) && JcrRepositoryFileUtils
+              .isPentahoFile( pentahoJcrConstants, destFileNode ) ), Messages.getInstance().getString(
+              "JcrRepositoryFileDao.ERROR_0002_CANNOT_OVERWRITE_FILE_WITH_FOLDER" ) ); //$NON-NLS-1$
+      if ( JcrRepositoryFileUtils.isPentahoFolder( pentahoJcrConstants, destFileNode ) ) {
+        // existing item; caller is not renaming file, only moving it
+        appendFileName = true;
+        destParentFolderNode = destFileNode;
+      } else {
+        // get parent of existing dest item
+        int lastSlashIndex = cleanDestAbsPath.lastIndexOf( RepositoryFile.SEPARATOR );
+        Assert.isTrue( lastSlashIndex > 1, Messages.getInstance().getString(
+            "JcrRepositoryFileDao.ERROR_0003_ILLEGAL_DEST_PATH" ) ); //$NON-NLS-1$
+        String absPathToDestParentFolder = cleanDestAbsPath.substring( 0, lastSlashIndex );
+        destParentFolderNode = (Node) session.getItem( JcrStringHelper.pathEncode( absPathToDestParentFolder ) );
+      }
+    } else {
+      // destination doesn't exist; go up one level to a folder that does exist
+      int lastSlashIndex = cleanDestAbsPath.lastIndexOf( RepositoryFile.SEPARATOR );
+      Assert.isTrue( lastSlashIndex > 1, Messages.getInstance().getString(
+          "JcrRepositoryFileDao.ERROR_0003_ILLEGAL_DEST_PATH" ) ); //$NON-NLS-1$
+      String absPathToDestParentFolder = cleanDestAbsPath.substring( 0, lastSlashIndex );
+      // Not need to check the name if we encoded it
+      // JcrRepositoryFileUtils.checkName( cleanDestAbsPath.substring( lastSlashIndex + 1 ) );
+      try {
+        destParentFolderNode = (Node) session.getItem( JcrStringHelper.pathEncode( absPathToDestParentFolder ) );
+      } catch ( PathNotFoundException e1 ) {
+        Assert.isTrue( false, Messages.getInstance()
+            .getString( "JcrRepositoryFileDao.ERROR_0004_PARENT_MUST_EXIST" ) ); //$NON-NLS-1$
+      }
+      Assert.isTrue( JcrRepositoryFileUtils.isPentahoFolder( pentahoJcrConstants, destParentFolderNode ), Messages
+          .getInstance().getString( "JcrRepositoryFileDao.ERROR_0005_PARENT_MUST_BE_FOLDER" ) ); //$NON-NLS-1$
+    }
+    if ( !copy ) {
+      JcrRepositoryFileUtils.checkoutNearestVersionableFileIfNecessary( session, pentahoJcrConstants,
+          srcParentFolderId );
+    }
+    JcrRepositoryFileUtils.checkoutNearestVersionableNodeIfNecessary( session, pentahoJcrConstants,
+        destParentFolderNode );
+    String finalEncodedSrcAbsPath = srcFileNode.getPath();
+    String finalEncodedDestAbsPath = null;
+    if ( appendFileName ) {
+      final String fileName = srcFileNode.getName();
+      if ( JcrStringHelper.isEncoded( fileName ) ) {
+        finalEncodedDestAbsPath = JcrStringHelper.pathEncode( cleanDestAbsPath ) + RepositoryFile.SEPARATOR + fileName;
+      } else {
+        finalEncodedDestAbsPath = JcrStringHelper.pathEncode( cleanDestAbsPath + RepositoryFile.SEPARATOR + fileName );
+      }
+    } else {
+      finalEncodedDestAbsPath = JcrStringHelper.pathEncode( cleanDestAbsPath );
+    }
+    try {
+      if ( copy ) {
+        session.getWorkspace().copy( finalEncodedSrcAbsPath, finalEncodedDestAbsPath );
+      } else {
+        session.getWorkspace().move( finalEncodedSrcAbsPath, finalEncodedDestAbsPath );
+      }
+    } catch ( ItemExistsException iae ) {
+      throw new UnifiedRepositoryException( ( file.isFolder() ? "Folder " : "File " ) + "with path ["
+          + cleanDestAbsPath + "] already exists in the repository" );
+    }
+
+    return destParentFolderNode;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -981,6 +1251,47 @@ public class JcrRepositoryFileDao implements IRepositoryFileDao {
     internalCopyOrMove( fileId, destRelPath, versionMessage, false );
   }
 
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * <p>
+   * The files are moved in one JCR session, and the destination folder and each source folder are checked in once for
+   * the whole list.
+   * </p>
+   */
+  @Override
+  public void moveFiles( final List<Serializable> fileIds, final String destRelPath, final String versionMessage ) {
+    if ( isKioskEnabled() ) {
+      throw new RuntimeException( Messages.getInstance().getString( "JcrRepositoryFileDao.ERROR_0006_ACCESS_DENIED" ) ); //$NON-NLS-1$
+    }
+
+    Assert.notNull( fileIds );
+    if ( fileIds.isEmpty() ) {
+      return;
+    }
+    jcrTemplate.execute( new JcrCallback() {
+      @Override
+      public Object doInJcr( final Session session ) throws RepositoryException, IOException {
+        PentahoJcrConstants pentahoJcrConstants = new PentahoJcrConstants( session );
+        Set<Serializable> srcParentFolderIds = new LinkedHashSet<Serializable>();
+        Node destParentFolderNode = null;
+        for ( Serializable fileId : fileIds ) {
+          Serializable srcParentFolderId = JcrRepositoryFileUtils.getParentId( session, fileId );
+          destParentFolderNode =
+              internalCopyOrMove( session, pentahoJcrConstants, fileId, srcParentFolderId, destRelPath, false );
+          srcParentFolderIds.add( srcParentFolderId );
+        }
+        JcrRepositoryFileUtils.checkinNearestVersionableNodeIfNecessary( session, pentahoJcrConstants,
+            destParentFolderNode, versionMessage );
+        // a move within the same folder needs no second checkin
+        srcParentFolderIds.remove( destParentFolderNode.getIdentifier() );
+        checkinFolders( session, pentahoJcrConstants, srcParentFolderIds, versionMessage );
+        session.save();
+        return null;
+      }
+    } );
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -1021,6 +1332,7 @@ public class JcrRepositoryFileDao implements IRepositoryFileDao {
       public Object doInJcr( final Session session ) throws RepositoryException, IOException {
         Node fileNode = session.getNodeByIdentifier( fileId.toString() );
         session.getWorkspace().getVersionManager().restore( fileNode.getPath(), versionId.toString(), true );
+        LocalePropertiesCache.getInstance().invalidate( fileId.toString() );
         return null;
       }
     } );
@@ -1156,11 +1468,42 @@ public class JcrRepositoryFileDao implements IRepositoryFileDao {
     } );
   }
 
+  @Override
+  @SuppressWarnings( "unchecked" )
+  public Map<Serializable, Map<String, Serializable>> getFilesMetadata( final List<Serializable> fileIds ) {
+    Assert.notNull( fileIds );
+    return (Map<Serializable, Map<String, Serializable>>) jcrTemplate.execute( new JcrCallback() {
+      @Override
+      public Object doInJcr( Session session ) throws IOException, RepositoryException {
+        Map<Serializable, Map<String, Serializable>> metadata = new LinkedHashMap<>();
+        for ( Serializable fileId : fileIds ) {
+          try {
+            metadata.put( fileId, JcrRepositoryFileUtils.getFileMetadata( session, fileId ) );
+          } catch ( ItemNotFoundException e ) {
+            // deleted since the caller listed it
+          }
+        }
+        return metadata;
+      }
+    } );
+  }
+
   @Override
   public List<Character> getReservedChars() {
     return JcrRepositoryFileUtils.getReservedChars();
   }
 
+  /**
+   * Sets the number of absolute paths whose node identifiers are remembered; 0 turns path caching off.
+   */
+  public void setPathCacheSize( final int pathCacheSize ) {
+    this.pathCache = new JcrPathCache( pathCacheSize );
+  }
+
+  public JcrPathCache getPathCache() {
+    return pathCache;
+  }
+
   public IRepositoryDefaultAclHandler getDefaultAclHandler() {
     return defaultAclHandler;
   }
@@ -1169,6 +1512,18 @@ public class JcrRepositoryFileDao implements IRepositoryFileDao {
     this.defaultAclHandler = defaultAclHandler;
   }
 
+  public int getBatchSaveSize() {
+    return batchSaveSize;
+  }
+
+  /**
+   * Sets the number of files the bulk delete and undelete operations change before saving the JCR session.
+   */
+  public void setBatchSaveSize( final int batchSaveSize ) {
+    Assert.isTrue( batchSaveSize > 0 );
+    this.batchSaveSize = batchSaveSize;
+  }
+
   @Override
   public List<Locale> getAvailableLocalesForFileById( Serializable fileId ) {
     RepositoryFile repositoryFile = getFileById( fileId, true );
@@ -1266,6 +1621,7 @@ public class JcrRepositoryFileDao implements IRepositoryFileDao {
             .getId() );
         JcrRepositoryFileUtils.updateFileLocaleProperties( session, repositoryFile.getId(), locale, properties );
         session.save();
+        LocalePropertiesCache.getInstance().invalidate( repositoryFile.getId().toString() );
         JcrRepositoryFileUtils.checkinNearestVersionableFileIfNecessary( session, pentahoJcrConstants, repositoryFile
             .getId(), versionMessage );
         lockHelper.removeLockTokenFromSessionIfNecessary( session, pentahoJcrConstants, repositoryFile.getId() );
@@ -1294,6 +1650,7 @@ public class JcrRepositoryFileDao implements IRepositoryFileDao {
             .getId() );
         JcrRepositoryFileUtils.deleteFileLocaleProperties( session, repositoryFile.getId(), locale );
         session.save();
+        LocalePropertiesCache.getInstance().invalidate( repositoryFile.getId().toString() );
         JcrRepositoryFileUtils.checkinNearestVersionableFileIfNecessary( session, pentahoJcrConstants, repositoryFile
             .getId(), versionMessage );
         lockHelper.removeLockTokenFromSessionIfNecessary( session, pentahoJcrConstants, repositoryFile.getId() );
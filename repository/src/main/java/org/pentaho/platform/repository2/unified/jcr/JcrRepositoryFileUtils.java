@@ -232,26 +232,18 @@ public class JcrRepositoryFileUtils {
 
     // Not needed for content generators and the like
     if ( isPentahoHierarchyNode( session, pentahoJcrConstants, node ) ) {
-      if ( node.hasNode( pentahoJcrConstants.getPHO_LOCALES() ) ) {
-        // Expensive
-        localePropertiesMap =
-            getLocalePropertiesMap( session, pentahoJcrConstants, node.getNode( pentahoJcrConstants
-                .getPHO_LOCALES() ) );
-
-        // [BISERVER-8337] localize title and description
-        LocalePropertyResolver lpr = new LocalePropertyResolver( name );
-        LocalizationUtil localizationUtil = new LocalizationUtil( localePropertiesMap, pentahoLocale.getLocale() );
-        title = localizationUtil.resolveLocalizedString( lpr.resolveDefaultTitleKey(), null );
-        if ( org.apache.commons.lang.StringUtils.isBlank( title ) ) {
-          title = localizationUtil.resolveLocalizedString( lpr.resolveTitleKey(), null );
-          if ( org.apache.commons.lang.StringUtils.isBlank( title ) ) {
-            title = localizationUtil.resolveLocalizedString( lpr.resolveNameKey(), title );
-          }
-        }
-        description = localizationUtil.resolveLocalizedString( lpr.resolveDefaultDescriptionKey(), null );
-        if ( org.apache.commons.lang.StringUtils.isBlank( description ) ) {
-          description = localizationUtil.resolveLocalizedString( lpr.resolveDescriptionKey(), description );
-        }
+      LocalePropertiesCache localePropertiesCache = LocalePropertiesCache.getInstance();
+      if ( loadMaps ) {
+        localePropertiesMap = localePropertiesCache.getLocalePropertiesMap( session, pentahoJcrConstants, node );
+      }
+
+      // [BISERVER-8337] localize title and description
+      String[] localized =
+          localePropertiesCache.getTitleAndDescription( session, pentahoJcrConstants, node, name, pentahoLocale
+              .getLocale() );
+      if ( localized != null ) {
+        title = localized[0];
+        description = localized[1];
       }
 
       // BISERVER-8609 - Backwards compatibility. Fallback to the old data structure if title/description are not
@@ -269,10 +261,6 @@ public class JcrRepositoryFileUtils {
 
     }
 
-    if ( !loadMaps ) {
-      localePropertiesMap = null; // remove reference, allow garbage collection
-    }
-
     versioned = isVersioned( session, pentahoJcrConstants, node );
     if ( versioned ) {
       versionId = getVersionId( session, pentahoJcrConstants, node );
@@ -735,10 +723,32 @@ public class JcrRepositoryFileUtils {
 
     children.removeIf( Objects::isNull );
     Collections.sort( children );
+    for ( RepositoryFile child : children ) {
+      prefetch( child, repositoryRequest );
+    }
     return children;
 
   }
 
+  /**
+   * Reads the attributes the request asks for while the session is still open, so that marshaling the file later
+   * does not open a session per attribute.
+   */
+  private static void prefetch( final RepositoryFile file, final RepositoryRequest repositoryRequest ) {
+    if ( file instanceof RepositoryFileProxy ) {
+      ( (RepositoryFileProxy) file ).prefetch( repositoryRequest );
+    }
+  }
+
+  private static void prefetch( final RepositoryFileTree tree, final RepositoryRequest repositoryRequest ) {
+    prefetch( tree.getFile(), repositoryRequest );
+    if ( tree.getChildren() != null ) {
+      for ( RepositoryFileTree child : tree.getChildren() ) {
+        prefetch( child, repositoryRequest );
+      }
+    }
+  }
+
   @Deprecated
   public static List<RepositoryFile> getChildren( final Session session, final PentahoJcrConstants pentahoJcrConstants,
       final IPathConversionHelper pathConversionHelper, final ILockHelper lockHelper, final Serializable folderId,
@@ -1136,10 +1146,14 @@ public class JcrRepositoryFileUtils {
     Assert.isTrue( fileItem.isNode() );
     Node fileNode = (Node) fileItem;
 
-    return getTreeByNode( session, pentahoJcrConstants, pathConversionHelper, lockHelper, fileNode, repositoryRequest
-        .getDepth(), repositoryRequest.getChildNodeFilter(), repositoryRequest.isShowHidden(), accessVoterManager,
-        repositoryRequest.getTypes(), new MutableBoolean( false ), repositoryRequest.isIncludeSystemFolders(),
-        absPath );
+    RepositoryFileTree tree = getTreeByNode( session, pentahoJcrConstants, pathConversionHelper, lockHelper, fileNode,
+        repositoryRequest.getDepth(), repositoryRequest.getChildNodeFilter(), repositoryRequest.isShowHidden(),
+        accessVoterManager, repositoryRequest.getTypes(), new MutableBoolean( false ),
+        repositoryRequest.isIncludeSystemFolders(), absPath );
+    if ( tree != null ) {
+      prefetch( tree, repositoryRequest );
+    }
+    return tree;
 
   }
 
@@ -0,0 +1,222 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.repository2.unified.jcr;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the locale properties of repository files and folders, keyed by node identifier (for versions, the frozen node
+ * of the version), together with the titles and descriptions resolved from them per locale, so that listings do not
+ * read the locale nodes of every file again.
+ * <p>
+ * Entries are invalidated by the repository file DAO after it saves a change to the locale properties of a node, and
+ * again once the surrounding transaction completes, and expire after ttl-seconds to pick up changes made on other
+ * servers of a cluster. Sessions with unsaved changes neither read from nor populate the cache.
+ */
+public class LocalePropertiesCache {
+
+  public static final String SETTING_MAX_SIZE = "locale-properties-cache/max-size"; //$NON-NLS-1$
+
+  public static final String SETTING_TTL_SECONDS = "locale-properties-cache/ttl-seconds"; //$NON-NLS-1$
+
+  public static final long DEFAULT_MAX_SIZE = 10000;
+
+  public static final long DEFAULT_TTL_SECONDS = 300;
+
+  private static final Log logger = LogFactory.getLog( LocalePropertiesCache.class );
+
+  private static volatile LocalePropertiesCache instance;
+
+  private final Cache<String, Entry> entries;
+
+  /**
+   * Incremented on every invalidation, so that properties read before a change was saved are not cached after it.
+   */
+  private final AtomicLong generation = new AtomicLong();
+
+  public LocalePropertiesCache( final long maxSize, final long ttlSeconds ) {
+    entries = CacheBuilder.newBuilder()
+      .maximumSize( Math.max( 0, maxSize ) )
+      .expireAfterWrite( Math.max( 0, ttlSeconds ), TimeUnit.SECONDS )
+      .recordStats()
+      .build();
+  }
+
+  public static LocalePropertiesCache getInstance() {
+    if ( instance == null ) {
+      synchronized ( LocalePropertiesCache.class ) {
+        if ( instance == null ) {
+          instance = new LocalePropertiesCache( getSetting( SETTING_MAX_SIZE, DEFAULT_MAX_SIZE ),
+            getSetting( SETTING_TTL_SECONDS, DEFAULT_TTL_SECONDS ) );
+        }
+      }
+    }
+    return instance;
+  }
+
+  public static void setInstance( final LocalePropertiesCache cache ) {
+    instance = cache;
+  }
+
+  private static long getSetting( final String name, final long defaultValue ) {
+    try {
+      return Long.parseLong( PentahoSystem.getSystemSetting( name, String.valueOf( defaultValue ) ) );
+    } catch ( NumberFormatException e ) {
+      logger.warn( "Invalid " + name + " setting, using " + defaultValue ); //$NON-NLS-1$ //$NON-NLS-2$
+      return defaultValue;
+    }
+  }
+
+  /**
+   * @return a copy of the locale properties of the given node, or null if it has none
+   */
+  public Map<String, Properties> getLocalePropertiesMap( final Session session,
+      final PentahoJcrConstants pentahoJcrConstants, final Node node ) throws RepositoryException {
+    Map<String, Properties> localePropertiesMap = getEntry( session, pentahoJcrConstants, node ).localePropertiesMap;
+    if ( localePropertiesMap == null ) {
+      return null;
+    }
+    Map<String, Properties> copy = new HashMap<String, Properties>();
+    for ( Map.Entry<String, Properties> entry : localePropertiesMap.entrySet() ) {
+      Properties properties = new Properties();
+      properties.putAll( entry.getValue() );
+      copy.put( entry.getKey(), properties );
+    }
+    return copy;
+  }
+
+  /**
+   * Resolves the title and description of a file in the given locale from its locale properties [BISERVER-8337].
+   *
+   * @return the title and the description, either of which may be null, or null if the node has no locale properties
+   */
+  public String[] getTitleAndDescription( final Session session, final PentahoJcrConstants pentahoJcrConstants,
+      final Node node, final String name, final Locale locale ) throws RepositoryException {
+    Entry entry = getEntry( session, pentahoJcrConstants, node );
+    if ( entry.localePropertiesMap == null ) {
+      return null;
+    }
+    LocalePropertyResolver lpr = new LocalePropertyResolver( name );
+    // the name only matters to the resolver through the title key it picks
+    String key = locale + "|" + lpr.resolveTitleKey(); //$NON-NLS-1$
+    String[] resolved = entry.titles.get( key );
+    if ( resolved == null ) {
+      resolved = resolve( entry.localePropertiesMap, lpr, locale );
+      entry.titles.putIfAbsent( key, resolved );
+    }
+    return resolved.clone();
+  }
+
+  private static String[] resolve( final Map<String, Properties> localePropertiesMap, final LocalePropertyResolver lpr,
+                                   final Locale locale ) {
+    LocalizationUtil localizationUtil = new LocalizationUtil( localePropertiesMap, locale );
+    String title = localizationUtil.resolveLocalizedString( lpr.resolveDefaultTitleKey(), null );
+    if ( StringUtils.isBlank( title ) ) {
+      title = localizationUtil.resolveLocalizedString( lpr.resolveTitleKey(), null );
+      if ( StringUtils.isBlank( title ) ) {
+        title = localizationUtil.resolveLocalizedString( lpr.resolveNameKey(), title );
+      }
+    }
+    String description = localizationUtil.resolveLocalizedString( lpr.resolveDefaultDescriptionKey(), null );
+    if ( StringUtils.isBlank( description ) ) {
+      description = localizationUtil.resolveLocalizedString( lpr.resolveDescriptionKey(), description );
+    }
+    return new String[] { title, description };
+  }
+
+  private Entry getEntry( final Session session, final PentahoJcrConstants pentahoJcrConstants, final Node node )
+    throws RepositoryException {
+    String nodeId = node.getIdentifier();
+    boolean cacheable = nodeId != null && !session.hasPendingChanges();
+    if ( cacheable ) {
+      Entry entry = entries.getIfPresent( nodeId );
+      if ( entry != null ) {
+        return entry;
+      }
+    }
+    long readGeneration = generation.get();
+    Entry entry = new Entry( node.hasNode( pentahoJcrConstants.getPHO_LOCALES() )
+      ? JcrRepositoryFileUtils.getLocalePropertiesMap( session, pentahoJcrConstants,
+        node.getNode( pentahoJcrConstants.getPHO_LOCALES() ) ) : null );
+    if ( cacheable && generation.get() == readGeneration ) {
+      entries.put( nodeId, entry );
+    }
+    return entry;
+  }
+
+  /**
+   * Drops the locale properties of the given node. Must be called after the change has been saved.
+   * <p>
+   * A saved change only becomes visible to other sessions once the surrounding transaction commits, so the node is
+   * dropped again when it completes; otherwise a read made by another thread in between would cache the old properties.
+   */
+  public void invalidate( final String nodeId ) {
+    doInvalidate( nodeId );
+    if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+      TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization() {
+        @Override
+        public void afterCompletion( int status ) {
+          doInvalidate( nodeId );
+        }
+      } );
+    }
+  }
+
+  private void doInvalidate( final String nodeId ) {
+    generation.incrementAndGet();
+    entries.invalidate( nodeId );
+  }
+
+  public void invalidateAll() {
+    generation.incrementAndGet();
+    entries.invalidateAll();
+  }
+
+  public long size() {
+    return entries.size();
+  }
+
+  public CacheStats getStats() {
+    return entries.stats();
+  }
+
+  private static class Entry {
+    private final Map<String, Properties> localePropertiesMap;
+    private final ConcurrentMap<String, String[]> titles = new ConcurrentHashMap<>();
+
+    Entry( final Map<String, Properties> localePropertiesMap ) {
+      this.localePropertiesMap = localePropertiesMap;
+    }
+  }
+}
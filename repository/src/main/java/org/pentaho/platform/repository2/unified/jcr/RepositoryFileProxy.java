@@ -15,10 +15,11 @@ package org.pentaho.platform.repository2.unified.jcr;
 
 import com.pentaho.pdi.messages.Messages;
 import org.apache.commons.lang.BooleanUtils;
-import org.apache.commons.lang.StringUtils;
 import org.pentaho.platform.api.locale.IPentahoLocale;
 import org.pentaho.platform.api.repository2.unified.RepositoryFile;
+import org.pentaho.platform.api.repository2.unified.RepositoryRequest;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.util.trace.RequestTracer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.extensions.jcr.JcrTemplate;
@@ -36,8 +37,14 @@ import java.util.Date;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 /**
+ * A {@link RepositoryFile} whose attributes are read from its node when first asked for. Once the session the node
+ * was read in is closed, every attribute read opens a new session, so callers that go on to read many attributes of
+ * many files after the session, e.g. to marshal them, should {@link #prefetch(RepositoryRequest)} them while it is
+ * still open.
+ * <p/>
  * User: nbaker Date: 5/28/13
  */
 public class RepositoryFileProxy extends RepositoryFile {
@@ -76,6 +83,17 @@ public class RepositoryFileProxy extends RepositoryFile {
   private String versionId;
   private Date createdDate;
   private Boolean aclNode;
+  private boolean titleAndDescriptionLoaded;
+  private boolean prefetching;
+
+  /**
+   * The {@link RequestTracer#count(String) event} counted for every attribute read outside of prefetching.
+   */
+  public static final String LAZY_LOAD_EVENT = "RepositoryFileProxy.lazyLoad"; //$NON-NLS-1$
+  /**
+   * The {@link RequestTracer#count(String) event} counted for every lazy load that had to open a new session.
+   */
+  public static final String SESSION_LOAD_EVENT = "RepositoryFileProxy.sessionLoad"; //$NON-NLS-1$
 
   public RepositoryFileProxy( final Node node, final JcrTemplate template, IPentahoLocale pentahoLocale ) {
     super( null, null, false, HIDDEN_BY_DEFAULT, SCHEDULABLE_BY_DEFAULT, false, null, null, null, null, false, null,
@@ -227,27 +245,18 @@ public class RepositoryFileProxy extends RepositoryFile {
   }
 
   private void getTitleAndDescription() {
-    if ( title == null ) {
+    if ( title == null && !titleAndDescriptionLoaded ) {
+      titleAndDescriptionLoaded = true;
       this.executeOperation( session -> {
         try {
           if ( JcrRepositoryFileUtils.isPentahoHierarchyNode( session, getPentahoJcrConstants(), node ) ) {
-            if ( node.hasNode( getPentahoJcrConstants().getPHO_LOCALES() ) ) {
-
-              // [BISERVER-8337] localize title and description
-              LocalePropertyResolver lpr = new LocalePropertyResolver( getName() );
-              Locale loc = getPentahoLocale() != null ? getPentahoLocale().getLocale() : null;
-              LocalizationUtil localizationUtil = new LocalizationUtil( getLocalePropertiesMap(), loc );
-              title = localizationUtil.resolveLocalizedString( lpr.resolveDefaultTitleKey(), null );
-              if ( StringUtils.isBlank( title ) ) {
-                title = localizationUtil.resolveLocalizedString( lpr.resolveTitleKey(), null );
-                if ( StringUtils.isBlank( title ) ) {
-                  title = localizationUtil.resolveLocalizedString( lpr.resolveNameKey(), title );
-                }
-              }
-              description = localizationUtil.resolveLocalizedString( lpr.resolveDefaultDescriptionKey(), null );
-              if ( StringUtils.isBlank( description ) ) {
-                description = localizationUtil.resolveLocalizedString( lpr.resolveDescriptionKey(), description );
-              }
+            // [BISERVER-8337] localize title and description
+            Locale loc = getPentahoLocale() != null ? getPentahoLocale().getLocale() : null;
+            String[] localized = LocalePropertiesCache.getInstance().getTitleAndDescription( session,
+              getPentahoJcrConstants(), node, getName(), loc );
+            if ( localized != null ) {
+              title = localized[0];
+              description = localized[1];
             }
 
             // BISERVER-8609 - Backwards compatibility. Fallback to the old data structure if title/description are
@@ -367,9 +376,8 @@ public class RepositoryFileProxy extends RepositoryFile {
       this.executeOperation( session -> {
 
         try {
-          localeMap =
-            JcrRepositoryFileUtils.getLocalePropertiesMap( session, getPentahoJcrConstants(), node.getNode(
-              getPentahoJcrConstants().getPHO_LOCALES() ) );
+          localeMap = LocalePropertiesCache.getInstance().getLocalePropertiesMap( session, getPentahoJcrConstants(),
+            node );
         } catch ( InvalidItemStateException | ItemNotFoundException | PathNotFoundException e ) {
           getLogger().warn( Messages.getInstance().getString( INVALID_ITEM_STATE_EXCEPTION_MESSAGE, "getLocale" ) );
         } catch ( RepositoryException e ) {
@@ -398,7 +406,7 @@ public class RepositoryFileProxy extends RepositoryFile {
 
   @Override
   public Date getLockDate() {
-    if ( isLocked() ) {
+    if ( lockDate == null && isLocked() ) {
       this.executeOperation( session -> {
         try {
           lockDate = lockHelper.getLockDate( session, getPentahoJcrConstants(), getLock() );
@@ -414,7 +422,7 @@ public class RepositoryFileProxy extends RepositoryFile {
 
   @Override
   public String getLockMessage() {
-    if ( isLocked() ) {
+    if ( lockMessage == null && isLocked() ) {
       this.executeOperation( session -> {
         try {
           lockMessage = lockHelper.getLockMessage( session, getPentahoJcrConstants(), getLock() );
@@ -431,7 +439,7 @@ public class RepositoryFileProxy extends RepositoryFile {
 
   @Override
   public String getLockOwner() {
-    if ( isLocked() ) {
+    if ( lockOwner == null && isLocked() ) {
       this.executeOperation( session -> {
         try {
           lockOwner = lockHelper.getLockOwner( session, getPentahoJcrConstants(), getLock() );
@@ -625,16 +633,109 @@ public class RepositoryFileProxy extends RepositoryFile {
     return super.toString(); // To change body of overridden methods use File | Settings | File Templates.
   }
 
+  /**
+   * Reads the attributes a request declares with its include or exclude member set, as named in
+   * {@link org.pentaho.platform.api.repository2.unified.webservices.RepositoryFileDto}, in one pass over the node. A
+   * request that declares no members reads all of them if it {@link RepositoryRequest#isPrefetch() asks for
+   * prefetching}, and nothing otherwise.
+   */
+  public void prefetch( final RepositoryRequest repositoryRequest ) {
+    final Set<String> members;
+    final boolean exclude;
+    if ( repositoryRequest.getExcludeMemberSet() != null && !repositoryRequest.getExcludeMemberSet().isEmpty() ) {
+      members = repositoryRequest.getExcludeMemberSet();
+      exclude = true;
+    } else if ( repositoryRequest.getIncludeMemberSet() != null || repositoryRequest.isPrefetch() ) {
+      members = repositoryRequest.getIncludeMemberSet();
+      exclude = false;
+    } else {
+      return;
+    }
+    prefetching = true;
+    try {
+      this.executeOperation( session -> {
+        getId();
+        if ( include( "name", members, exclude ) || include( "title", members, exclude ) ) { //$NON-NLS-1$ //$NON-NLS-2$
+          getName();
+        }
+        if ( include( "path", members, exclude ) ) { //$NON-NLS-1$
+          getPath();
+        }
+        if ( include( "hidden", members, exclude ) ) { //$NON-NLS-1$
+          isHidden();
+        }
+        if ( include( "aclNode", members, exclude ) ) { //$NON-NLS-1$
+          isAclNode();
+        }
+        if ( include( "createDate", members, exclude ) ) { //$NON-NLS-1$
+          getCreatedDate();
+        }
+        if ( include( "creatorId", members, exclude ) //$NON-NLS-1$
+          || include( "schedulable", members, exclude ) ) { //$NON-NLS-1$
+          // both read from the file metadata
+          getCreatorId();
+          isSchedulable();
+        }
+        if ( include( "fileSize", members, exclude ) ) { //$NON-NLS-1$
+          getFileSize();
+        }
+        if ( include( "title", members, exclude ) //$NON-NLS-1$
+          || include( "description", members, exclude ) ) { //$NON-NLS-1$
+          getTitleAndDescription();
+        }
+        if ( include( "folder", members, exclude ) ) { //$NON-NLS-1$
+          isFolder();
+        }
+        if ( include( "lastModifiedDate", members, exclude ) ) { //$NON-NLS-1$
+          getLastModifiedDate();
+        }
+        if ( include( "locked", members, exclude ) ) { //$NON-NLS-1$
+          isLocked();
+        }
+        if ( include( "lockDate", members, exclude ) ) { //$NON-NLS-1$
+          getLockDate();
+        }
+        if ( include( "lockMessage", members, exclude ) ) { //$NON-NLS-1$
+          getLockMessage();
+        }
+        if ( include( "lockOwner", members, exclude ) ) { //$NON-NLS-1$
+          getLockOwner();
+        }
+        if ( include( "versioned", members, exclude ) //$NON-NLS-1$
+          || include( "versionId", members, exclude ) ) { //$NON-NLS-1$
+          getVersionId();
+        }
+        if ( include( "locales", members, exclude ) ) { //$NON-NLS-1$
+          getLocalePropertiesMap();
+        }
+      } );
+    } finally {
+      prefetching = false;
+    }
+  }
+
+  private static boolean include( final String member, final Set<String> members, final boolean exclude ) {
+    return members == null || exclude != members.contains( member );
+  }
+
   private void executeOperation( final SessionOperation op ) {
     try {
+      // counted against the traced request, so that the attribute reads that miss prefetching show per endpoint
+      if ( !prefetching ) {
+        RequestTracer.count( LAZY_LOAD_EVENT );
+      }
       if ( node.getSession().isLive() ) {
         op.execute( node.getSession() );
       } else {
-        template.execute( session -> {
-          node = (Node) session.getItem( absPath );
-          op.execute( node.getSession() );
-          return null;
-        } );
+        RequestTracer.count( SESSION_LOAD_EVENT );
+        // traced, so that the time requests spend re-reading files shows per endpoint
+        try ( RequestTracer.Span span = RequestTracer.startSpan( "RepositoryFileProxy.load" ) ) { //$NON-NLS-1$
+          template.execute( session -> {
+            node = (Node) session.getItem( absPath );
+            op.execute( node.getSession() );
+            return null;
+          } );
+        }
       }
     } catch ( InvalidItemStateException | ItemNotFoundException | PathNotFoundException e ) {
       getLogger().warn( Messages.getInstance().getString( INVALID_ITEM_STATE_EXCEPTION_MESSAGE, "toString" ) );
@@ -98,6 +98,9 @@ public class CredentialsStrategySessionFactory implements InitializingBean, Disp
 
   protected PentahoJcrSessionFactory sessionFactory;
 
+  // whether the session factory is the default one created here, rather than a bean the container destroys
+  private boolean defaultSessionFactory;
+
   /**
    * Constructor with all the required fields.
    *
@@ -158,12 +161,14 @@ public class CredentialsStrategySessionFactory implements InitializingBean, Disp
     if ( sessionFactory == null ) {
       // use default
       sessionFactory = new GuavaCachePoolPentahoJcrSessionFactory( this.repository, this.workspaceName, null );
+      defaultSessionFactory = true;
     }
     return sessionFactory;
   }
 
   public void setSessionFactory( PentahoJcrSessionFactory sessionFactory ) {
     this.sessionFactory = sessionFactory;
+    this.defaultSessionFactory = false;
   }
 
   public void afterPropertiesSet() throws Exception {
@@ -302,9 +307,15 @@ public class CredentialsStrategySessionFactory implements InitializingBean, Disp
    * @see org.springframework.beans.factory.DisposableBean#destroy()
    */
   public void destroy() throws Exception {
-    if ( this.adminCredentialsStrategy != null ) {
-      unregisterNamespaces();
-      unregisterNodeTypes();
+    try {
+      if ( this.adminCredentialsStrategy != null ) {
+        unregisterNamespaces();
+        unregisterNodeTypes();
+      }
+    } finally {
+      if ( defaultSessionFactory && sessionFactory instanceof DisposableBean ) {
+        ( (DisposableBean) sessionFactory ).destroy();
+      }
     }
   }
 
@@ -13,8 +13,10 @@
 
 package org.pentaho.platform.repository2.unified.jcr.sejcr;
 
+import com.google.common.base.Ticker;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
 import com.google.common.cache.RemovalListener;
 import org.apache.jackrabbit.core.SessionImpl;
@@ -22,7 +24,11 @@ import org.pentaho.platform.api.engine.ISystemConfig;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.extensions.jcr.SessionFactoryUtils;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 import javax.jcr.Credentials;
 import javax.jcr.Repository;
@@ -30,27 +36,107 @@ import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.jcr.SimpleCredentials;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * JCR Session Factory which caches Sessions by Credentials per Thread. The size of the cache and TTL of the entries can
  * be configured with repository.spring.properties
  * <p>
+ * Sessions that leave the cache while still in use are retired rather than logged out, and logged out by a
+ * maintenance task once released. The same task discards sessions that are no longer live and keeps one spare session
+ * ready for each of the principals that most often need a new one, so that their next miss does not pay for a login.
+ * The maintenance interval ({@code cache-validation-interval}), the number of warm principals ({@code
+ * cache-warmup-size}) and the number of sessions a single user may hold ({@code cache-size-per-user}, 0 for no limit)
+ * are read from repository.spring.properties as well.
+ * <p>
+ * {@link #destroy()} stops the maintenance task and logs out every session the factory still holds.
+ * <p>
+ * The counters of every pool in use are published through {@link #getSnapshots()}, by {@link #setName(String) name},
+ * for the administration endpoints.
+ * <p>
  * Created by nbaker on 6/9/14.
  */
-class GuavaCachePoolPentahoJcrSessionFactory extends NoCachePentahoJcrSessionFactory
-  implements PentahoJcrSessionFactory {
+public class GuavaCachePoolPentahoJcrSessionFactory extends NoCachePentahoJcrSessionFactory
+  implements PentahoJcrSessionFactory, DisposableBean {
 
   static final String USAGE_COUNT = "usage_count"; // attribute key for tracking session usages
 
+  /**
+   * Number of misses, halved on every maintenance run, from which a principal is kept warm.
+   */
+  static final int WARMUP_THRESHOLD = 2;
+
+  /**
+   * Time a retired session is left alone before it may be logged out, so that a thread which obtained it just before
+   * it was evicted gets to mark it as used.
+   */
+  static final long RETIRE_DELAY_MS = 1000;
+
+  /**
+   * The pools created for the platform, until they are destroyed.
+   */
+  private static final Set<GuavaCachePoolPentahoJcrSessionFactory> pools = ConcurrentHashMap.newKeySet();
+
+  private static final AtomicInteger poolCount = new AtomicInteger();
+
   private CredentialsStrategySessionFactory credentialsStrategySessionFactory;
   private int cacheDuration = 300;
   private int cacheSize = 100;
+  private int cacheSizePerUser;
+  private int validationInterval = 60;
+  private int warmupSize = 10;
+  private volatile String name = "pool-" + poolCount.incrementAndGet(); //$NON-NLS-1$
 
   private Logger logger = LoggerFactory.getLogger( getClass() );
   private PentahoTransactionManager transactionManager;
 
+  private final Ticker ticker;
+
+  /**
+   * Session cache by credentials, partitioned by thread. Two threads obtaining sessions for the same credentials cannot
+   * use the same Session.
+   * <p>
+   * Sessions from the cache will have a "usage_count" attribute set to track if still in use, to verify they can be
+   * safely logged out on eviction. See
+   * {@link PentahoJcrTemplate#execute(org.springframework.extensions.jcr.JcrCallback,
+   * boolean)}
+   */
+  private final LoadingCache<CacheKey, Session> sessionCache;
+
+  /**
+   * Sessions removed from the cache, with the time they were removed, waiting to be logged out.
+   */
+  private final Map<Session, Long> retired = new ConcurrentHashMap<>();
+
+  /**
+   * Spare sessions, by user id, created ahead of a miss.
+   */
+  private final Map<String, WarmSession> warmSessions = new ConcurrentHashMap<>();
+
+  /**
+   * Principals that recently needed a new session.
+   */
+  private final Map<String, PrincipalUsage> principals = new ConcurrentHashMap<>();
+
+  private final LongAdder creations = new LongAdder();
+  private final LongAdder creationNanos = new LongAdder();
+  private final LongAdder warmHits = new LongAdder();
+  private final LongAdder orphans = new LongAdder();
+  private final LongAdder deadSessions = new LongAdder();
+
+  private ScheduledThreadPoolExecutor maintenance;
 
   public GuavaCachePoolPentahoJcrSessionFactory( Repository repository, String workspace ) {
     this( repository, workspace, null );
@@ -72,45 +158,80 @@ class GuavaCachePoolPentahoJcrSessionFactory extends NoCachePentahoJcrSessionFac
         this.cacheSize =
           Integer.parseInt( systemConfig.getConfiguration( "repository" ).getProperties().getProperty(
             "cache-size", "100" ) );
+
+        this.cacheSizePerUser =
+          Integer.parseInt( systemConfig.getConfiguration( "repository" ).getProperties().getProperty(
+            "cache-size-per-user", "0" ) );
+
+        this.validationInterval =
+          Integer.parseInt( systemConfig.getConfiguration( "repository" ).getProperties().getProperty(
+            "cache-validation-interval", "60" ) );
+
+        this.warmupSize =
+          Integer.parseInt( systemConfig.getConfiguration( "repository" ).getProperties().getProperty(
+            "cache-warmup-size", "10" ) );
       } catch ( IOException e ) {
         logger.info( "Could not find repository.cache-duration" );
       }
     }
+    this.ticker = Ticker.systemTicker();
+    this.sessionCache = buildCache();
+    if ( validationInterval > 0 ) {
+      maintenance = new ScheduledThreadPoolExecutor( 1, runnable -> {
+        Thread thread = new Thread( runnable, "jcr-session-pool" );
+        thread.setDaemon( true );
+        return thread;
+      } );
+      maintenance.scheduleWithFixedDelay( this::maintain, validationInterval, validationInterval, TimeUnit.SECONDS );
+    }
+    pools.add( this );
   }
 
   /**
-   * Session cache by credentials, partitioned by thread. Two threads obtaining sessions for the same credentials cannot
-   * use the same Session.
-   * <p>
-   * Sessions from the cache will have a "usage_count" attribute set to track if still in use, to verify they can be
-   * safely logged out on eviction. See
-   * {@link PentahoJcrTemplate#execute(org.springframework.extensions.jcr.JcrCallback,
-   * boolean)}
+   * Creates a factory without a maintenance task, which tests drive by calling {@link #maintain()}.
    */
-  private LoadingCache<CacheKey, Session> sessionCache =
-    CacheBuilder.newBuilder()
+  GuavaCachePoolPentahoJcrSessionFactory( Repository repository, String workspace, int cacheDuration, int cacheSize,
+                                          int cacheSizePerUser, int warmupSize, Ticker ticker ) {
+    super( repository, workspace );
+    this.cacheDuration = cacheDuration;
+    this.cacheSize = cacheSize;
+    this.cacheSizePerUser = cacheSizePerUser;
+    this.validationInterval = 0;
+    this.warmupSize = warmupSize;
+    this.ticker = ticker;
+    this.sessionCache = buildCache();
+  }
+
+  private LoadingCache<CacheKey, Session> buildCache() {
+    return CacheBuilder.newBuilder()
       .expireAfterAccess( cacheDuration, TimeUnit.SECONDS )
       .maximumSize( cacheSize )
+      .ticker( ticker )
       .removalListener( (RemovalListener<CacheKey, Session>) objectObjectRemovalNotification -> {
         Session session = objectObjectRemovalNotification.getValue();
-        if ( sessionIsUnused( session ) ) {
-          logger.debug( "Logging out cached session after eviction " + session );
-          session.logout();
-        } else {
-          logger.warn( "Session has expired from cache, but still marked as in use.  May be orphaned.  " + session );
+        if ( !sessionIsUnused( session ) ) {
+          orphans.increment();
+          logger.debug( "Session has left the cache, but is still marked as in use.  Retiring it.  " + session );
         }
+        retired.put( session, now() );
       } ).recordStats()
       .build( new CacheLoader<CacheKey, Session>() {
         @Override public Session load( CacheKey credKey ) throws Exception {
-          Session session = GuavaCachePoolPentahoJcrSessionFactory.super.getSession( credKey.creds );
-          if ( session instanceof SessionImpl ) {
-            ( (SessionImpl) session ).setAttribute( USAGE_COUNT, new AtomicInteger( 0 ) );
+          recordMiss( credKey.creds );
+          limitUserSessions( credKey );
+          Session session = takeWarmSession( credKey.creds.getUserID() );
+          if ( session != null ) {
+            warmHits.increment();
           } else {
-            logger.warn( "Expected a Jackrabbit SessionImpl.  Will not be tracking usage." );
+            session = createSession( credKey.creds );
+          }
+          if ( validationInterval <= 0 ) {
+            logoutRetired();
           }
           return session;
         }
       } );
+  }
 
   private boolean sessionIsUnused( Session session ) {
     return session.getAttribute( USAGE_COUNT ) instanceof AtomicInteger
@@ -135,6 +256,7 @@ class GuavaCachePoolPentahoJcrSessionFactory extends NoCachePentahoJcrSessionFac
           if ( logger.isDebugEnabled() ) {
             logger.debug( "Cached session is not longer alive. disposing: " + creds );
           }
+          deadSessions.increment();
           sessionCache.invalidate( key );
           session = sessionCache.get( key );
         }
@@ -166,6 +288,307 @@ class GuavaCachePoolPentahoJcrSessionFactory extends NoCachePentahoJcrSessionFac
     return session;
   }
 
+  /**
+   * Logs in a new session and marks it for usage tracking.
+   */
+  private Session createSession( SimpleCredentials creds ) throws RepositoryException {
+    long start = System.nanoTime();
+    Session session = super.getSession( creds );
+    creationNanos.add( System.nanoTime() - start );
+    creations.increment();
+    if ( session instanceof SessionImpl ) {
+      ( (SessionImpl) session ).setAttribute( USAGE_COUNT, new AtomicInteger( 0 ) );
+    } else {
+      logger.warn( "Expected a Jackrabbit SessionImpl.  Will not be tracking usage." );
+    }
+    return session;
+  }
+
+  /**
+   * Remembers the credentials and authentication of a principal that needed a new session, so that a spare session can
+   * be logged in for it later on the maintenance thread.
+   */
+  private void recordMiss( SimpleCredentials creds ) {
+    if ( warmupSize <= 0 ) {
+      return;
+    }
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if ( authentication == null ) {
+      // the login modules resolve the principal's roles from the authentication, so it cannot be logged in later
+      return;
+    }
+    PrincipalUsage usage = principals.computeIfAbsent( creds.getUserID(), userId -> new PrincipalUsage() );
+    usage.creds = creds;
+    usage.authentication = authentication;
+    usage.misses.incrementAndGet();
+  }
+
+  /**
+   * Retires sessions of the same user held by other threads, least used first, until the user is within its limit.
+   */
+  private void limitUserSessions( CacheKey key ) {
+    if ( cacheSizePerUser <= 0 ) {
+      return;
+    }
+    List<CacheKey> others = new ArrayList<>();
+    List<CacheKey> inUse = new ArrayList<>();
+    for ( Map.Entry<CacheKey, Session> entry : sessionCache.asMap().entrySet() ) {
+      if ( entry.getKey().sameUser( key ) ) {
+        ( sessionIsUnused( entry.getValue() ) ? others : inUse ).add( entry.getKey() );
+      }
+    }
+    others.addAll( inUse );
+    for ( int i = 0; i <= others.size() - cacheSizePerUser; i++ ) {
+      sessionCache.invalidate( others.get( i ) );
+    }
+  }
+
+  private Session takeWarmSession( String userId ) {
+    WarmSession warm = warmSessions.remove( userId );
+    if ( warm == null ) {
+      return null;
+    }
+    if ( !warm.session.isLive() ) {
+      deadSessions.increment();
+      return null;
+    }
+    return warm.session;
+  }
+
+  /**
+   * Validates the pooled sessions and keeps the most frequent principals warm. Runs on the maintenance thread; it only
+   * reads the liveness and usage count of sessions that may be in use by their owning thread.
+   */
+  void maintain() {
+    try {
+      sessionCache.cleanUp();
+      for ( Map.Entry<CacheKey, Session> entry : sessionCache.asMap().entrySet() ) {
+        if ( !entry.getValue().isLive() ) {
+          deadSessions.increment();
+          sessionCache.invalidate( entry.getKey() );
+        }
+      }
+      logoutRetired();
+      refreshWarmSessions();
+      if ( logger.isDebugEnabled() ) {
+        logger.debug( "JCR session pool: " + getStats() + ", sessions created " + getCreationCount()
+          + ", average creation " + getAverageCreationMillis() + " ms, warm hits " + getWarmHitCount()
+          + ", orphans " + getOrphanCount() + ", dead sessions " + getDeadSessionCount() );
+      }
+    } catch ( RuntimeException e ) {
+      logger.error( "Error maintaining the JCR session pool", e );
+    }
+  }
+
+  private void logoutRetired() {
+    long now = now();
+    for ( Iterator<Map.Entry<Session, Long>> it = retired.entrySet().iterator(); it.hasNext(); ) {
+      Map.Entry<Session, Long> entry = it.next();
+      Session session = entry.getKey();
+      if ( !session.isLive() ) {
+        it.remove();
+      } else if ( now - entry.getValue() >= RETIRE_DELAY_MS && sessionIsUnused( session ) ) {
+        it.remove();
+        logger.debug( "Logging out retired session " + session );
+        session.logout();
+      }
+    }
+  }
+
+  private void refreshWarmSessions() {
+    long now = now();
+    for ( Iterator<Map.Entry<String, WarmSession>> it = warmSessions.entrySet().iterator(); it.hasNext(); ) {
+      WarmSession warm = it.next().getValue();
+      // a spare session sees repository changes only after a refresh, so it is replaced once it is as old as the ttl
+      if ( !warm.session.isLive() || now - warm.created >= TimeUnit.SECONDS.toMillis( cacheDuration ) ) {
+        if ( warmSessions.remove( warm.userId, warm ) ) {
+          warm.session.logout();
+        }
+      }
+    }
+
+    // misses keep changing while the candidates are sorted, so they are sorted by a snapshot
+    Map<String, Integer> candidates = new HashMap<>();
+    for ( Iterator<Map.Entry<String, PrincipalUsage>> it = principals.entrySet().iterator(); it.hasNext(); ) {
+      Map.Entry<String, PrincipalUsage> entry = it.next();
+      int misses = entry.getValue().misses.get();
+      if ( misses >= WARMUP_THRESHOLD ) {
+        candidates.put( entry.getKey(), misses );
+      } else if ( misses == 0 && !warmSessions.containsKey( entry.getKey() ) ) {
+        it.remove();
+      }
+    }
+    List<String> userIds = new ArrayList<>( candidates.keySet() );
+    userIds.sort( ( a, b ) -> candidates.get( b ) - candidates.get( a ) );
+    for ( int i = 0; i < userIds.size() && i < warmupSize && warmSessions.size() < warmupSize; i++ ) {
+      PrincipalUsage usage = principals.get( userIds.get( i ) );
+      if ( usage != null && !warmSessions.containsKey( userIds.get( i ) ) ) {
+        warmUp( userIds.get( i ), usage );
+      }
+    }
+
+    // misses decay, so that a principal stays warm only while it keeps needing new sessions
+    for ( PrincipalUsage usage : principals.values() ) {
+      usage.misses.updateAndGet( misses -> misses / 2 );
+    }
+  }
+
+  private void warmUp( String userId, PrincipalUsage usage ) {
+    SecurityContext previous = SecurityContextHolder.getContext();
+    SecurityContext context = SecurityContextHolder.createEmptyContext();
+    context.setAuthentication( usage.authentication );
+    SecurityContextHolder.setContext( context );
+    try {
+      WarmSession warm = new WarmSession( userId, createSession( usage.creds ), now() );
+      if ( warmSessions.putIfAbsent( userId, warm ) != null ) {
+        warm.session.logout();
+      }
+    } catch ( RepositoryException e ) {
+      logger.warn( "Could not warm up a session for " + userId, e );
+      principals.remove( userId );
+    } finally {
+      SecurityContextHolder.setContext( previous );
+    }
+  }
+
+  /**
+   * Stops the maintenance task and logs out the cached, retired and spare sessions.
+   */
+  @Override
+  public void destroy() {
+    pools.remove( this );
+    if ( maintenance != null ) {
+      maintenance.shutdownNow();
+      maintenance = null;
+    }
+    // the removal listener retires the cached sessions
+    sessionCache.invalidateAll();
+    sessionCache.cleanUp();
+    List<Session> sessions = new ArrayList<>( retired.keySet() );
+    retired.clear();
+    for ( Iterator<WarmSession> it = warmSessions.values().iterator(); it.hasNext(); ) {
+      sessions.add( it.next().session );
+      it.remove();
+    }
+    principals.clear();
+    for ( Session session : sessions ) {
+      if ( session.isLive() ) {
+        session.logout();
+      }
+    }
+    logger.debug( "JCR session pool destroyed, logged out " + sessions.size() + " sessions" );
+  }
+
+  private long now() {
+    return TimeUnit.NANOSECONDS.toMillis( ticker.read() );
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Sets the name the counters of this pool are published under, such as "user" or "admin".
+   */
+  public void setName( String name ) {
+    this.name = name;
+  }
+
+  /**
+   * @return the counters of every pool in use, by pool name
+   */
+  public static Map<String, Map<String, Object>> getSnapshots() {
+    Map<String, Map<String, Object>> snapshots = new TreeMap<>();
+    for ( GuavaCachePoolPentahoJcrSessionFactory pool : pools ) {
+      snapshots.put( pool.getName(), pool.getSnapshot() );
+    }
+    return snapshots;
+  }
+
+  /**
+   * @return the counters of this pool
+   */
+  public Map<String, Object> getSnapshot() {
+    CacheStats stats = getStats();
+    Map<String, Object> snapshot = new LinkedHashMap<>();
+    snapshot.put( "size", sessionCache.size() ); //$NON-NLS-1$
+    snapshot.put( "hits", stats.hitCount() ); //$NON-NLS-1$
+    snapshot.put( "misses", stats.missCount() ); //$NON-NLS-1$
+    snapshot.put( "evictions", stats.evictionCount() ); //$NON-NLS-1$
+    snapshot.put( "creations", getCreationCount() ); //$NON-NLS-1$
+    snapshot.put( "averageCreationMillis", getAverageCreationMillis() ); //$NON-NLS-1$
+    snapshot.put( "warmSessions", warmSessions.size() ); //$NON-NLS-1$
+    snapshot.put( "warmHits", getWarmHitCount() ); //$NON-NLS-1$
+    snapshot.put( "retiredSessions", retired.size() ); //$NON-NLS-1$
+    snapshot.put( "orphans", getOrphanCount() ); //$NON-NLS-1$
+    snapshot.put( "deadSessions", getDeadSessionCount() ); //$NON-NLS-1$
+    return snapshot;
+  }
+
+  /**
+   * @return hit and miss counts of the session cache
+   */
+  public CacheStats getStats() {
+    return sessionCache.stats();
+  }
+
+  /**
+   * @return number of sessions logged in by this factory for the cache
+   */
+  public long getCreationCount() {
+    return creations.sum();
+  }
+
+  /**
+   * @return average time it took to log in a session for the cache
+   */
+  public double getAverageCreationMillis() {
+    long count = creations.sum();
+    return count == 0 ? 0 : creationNanos.sum() / (double) count / TimeUnit.MILLISECONDS.toNanos( 1 );
+  }
+
+  /**
+   * @return number of misses served with a spare session
+   */
+  public long getWarmHitCount() {
+    return warmHits.sum();
+  }
+
+  /**
+   * @return number of sessions that left the cache while they were still in use
+   */
+  public long getOrphanCount() {
+    return orphans.sum();
+  }
+
+  /**
+   * @return number of sessions found to be no longer live
+   */
+  public long getDeadSessionCount() {
+    return deadSessions.sum();
+  }
+
+  /**
+   * Recent misses of a principal, with what is needed to log it in again.
+   */
+  private static class PrincipalUsage {
+    final AtomicInteger misses = new AtomicInteger();
+    volatile SimpleCredentials creds;
+    volatile Authentication authentication;
+  }
+
+  private static class WarmSession {
+    final String userId;
+    final Session session;
+    final long created;
+
+    WarmSession( String userId, Session session, long created ) {
+      this.userId = userId;
+      this.session = session;
+      this.created = created;
+    }
+  }
+
   /**
    * Used by the sessionCache as a key for Jcr Sessions.
    */
@@ -178,6 +601,10 @@ class GuavaCachePoolPentahoJcrSessionFactory extends NoCachePentahoJcrSessionFac
       this.threadId = Thread.currentThread().getId();
     }
 
+    private boolean sameUser( CacheKey other ) {
+      return creds != null && other.creds != null && creds.getUserID().equals( other.creds.getUserID() );
+    }
+
     @Override
     public boolean equals( Object o ) {
       if ( this == o ) {
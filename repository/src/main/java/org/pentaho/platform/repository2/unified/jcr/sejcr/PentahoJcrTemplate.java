@@ -14,6 +14,7 @@
 package org.pentaho.platform.repository2.unified.jcr.sejcr;
 
 import org.pentaho.platform.repository2.messages.Messages;
+import org.pentaho.platform.util.trace.RequestTracer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
@@ -59,7 +60,7 @@ public class PentahoJcrTemplate extends JcrTemplate {
   public Object execute( JcrCallback action, boolean exposeNativeSession ) throws DataAccessException {
 
     Session session = null;
-    try {
+    try ( RequestTracer.Span span = RequestTracer.startSpan( "jcr" ) ) { //$NON-NLS-1$
       session = getSession();
       useSession( session );
 
@@ -0,0 +1,138 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.repository2.unified.jcr.transform;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.pentaho.platform.api.repository2.unified.data.node.DataNode;
+import org.pentaho.platform.api.repository2.unified.data.node.DataProperty;
+
+/**
+ * Holds materialized {@link DataNode} trees read from content nodes, keyed by the identifier of the node they were
+ * read from (for versioned files, the frozen node of a version) and stamped with its last modified time. Trees are
+ * shared by all users, so they are copied on the way in and on the way out and the cached trees are never modified.
+ * <p/>
+ * The cache is bounded by the total number of nodes and properties held.
+ */
+public class DataNodeCache {
+
+  public static final long DEFAULT_MAX_SIZE = 500000;
+
+  private final Cache<String, Entry> trees;
+
+  public DataNodeCache( final long maxSize ) {
+    trees = CacheBuilder.newBuilder()
+      .maximumWeight( maxSize )
+      .weigher( ( String key, Entry entry ) -> entry.weight )
+      .recordStats()
+      .build();
+  }
+
+  /**
+   * @return a copy of the tree read from the given node at the given last modified time, or null if it is not cached
+   */
+  public DataNode get( final String nodeId, final long lastModified ) {
+    Entry entry = trees.getIfPresent( nodeId );
+    if ( entry == null ) {
+      return null;
+    }
+    if ( entry.lastModified != lastModified ) {
+      trees.invalidate( nodeId );
+      return null;
+    }
+    return copy( entry.tree );
+  }
+
+  public void put( final String nodeId, final long lastModified, final DataNode tree ) {
+    DataNode copy = copy( tree );
+    trees.put( nodeId, new Entry( lastModified, copy, weigh( copy ) ) );
+  }
+
+  public void invalidate( final String nodeId ) {
+    trees.invalidate( nodeId );
+  }
+
+  public void invalidateAll() {
+    trees.invalidateAll();
+  }
+
+  public long size() {
+    return trees.size();
+  }
+
+  public CacheStats getStats() {
+    return trees.stats();
+  }
+
+  static DataNode copy( final DataNode node ) {
+    DataNode copy = new DataNode( node.getName() );
+    copyInto( node, copy );
+    return copy;
+  }
+
+  private static void copyInto( final DataNode node, final DataNode copy ) {
+    copy.setId( node.getId() );
+    for ( DataProperty prop : node.getProperties() ) {
+      switch ( prop.getType() ) {
+        case STRING:
+          copy.setProperty( prop.getName(), prop.getString() );
+          break;
+        case BOOLEAN:
+          copy.setProperty( prop.getName(), prop.getBoolean() );
+          break;
+        case DOUBLE:
+          copy.setProperty( prop.getName(), prop.getDouble() );
+          break;
+        case LONG:
+          copy.setProperty( prop.getName(), prop.getLong() );
+          break;
+        case DATE:
+          copy.setProperty( prop.getName(), prop.getDate() );
+          break;
+        case REF:
+          copy.setProperty( prop.getName(), prop.getRef() );
+          break;
+        default:
+          throw new IllegalArgumentException();
+      }
+    }
+    for ( DataNode child : node.getNodes() ) {
+      copyInto( child, copy.addNode( child.getName() ) );
+    }
+  }
+
+  private static int weigh( final DataNode node ) {
+    int weight = 1;
+    for ( DataProperty ignored : node.getProperties() ) {
+      weight++;
+    }
+    for ( DataNode child : node.getNodes() ) {
+      weight += weigh( child );
+    }
+    return weight;
+  }
+
+  private static class Entry {
+    private final long lastModified;
+    private final DataNode tree;
+    private final int weight;
+
+    Entry( final long lastModified, final DataNode tree, final int weight ) {
+      this.lastModified = lastModified;
+      this.tree = tree;
+      this.weight = weight;
+    }
+  }
+}
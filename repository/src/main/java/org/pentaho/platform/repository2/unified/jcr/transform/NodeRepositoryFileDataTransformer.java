@@ -13,7 +13,9 @@
 
 package org.pentaho.platform.repository2.unified.jcr.transform;
 
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.List;
 
 import javax.jcr.ItemNotFoundException;
 import javax.jcr.Node;
@@ -43,6 +45,8 @@ public class NodeRepositoryFileDataTransformer implements ITransformer<NodeRepos
   // ~ Instance fields
   // =================================================================================================
 
+  private DataNodeCache cache = new DataNodeCache( DataNodeCache.DEFAULT_MAX_SIZE );
+
   // ~ Constructors
   // ====================================================================================================
 
@@ -53,8 +57,22 @@ public class NodeRepositoryFileDataTransformer implements ITransformer<NodeRepos
   // ~ Methods
   // =========================================================================================================
 
+  /**
+   * Sets the maximum number of nodes and properties of materialized trees kept in memory. Zero disables the cache.
+   */
+  public void setCacheSize( final long cacheSize ) {
+    cache = cacheSize > 0 ? new DataNodeCache( cacheSize ) : null;
+  }
+
+  public DataNodeCache getCache() {
+    return cache;
+  }
+
   protected void createOrUpdateContentNode( final Session session, final PentahoJcrConstants pentahoJcrConstants,
       final NodeRepositoryFileData data, final Node fileNode ) throws RepositoryException {
+    if ( cache != null ) {
+      cache.invalidate( fileNode.getIdentifier() );
+    }
     Node unstructuredNode = null;
     if ( fileNode.hasNode( pentahoJcrConstants.getJCR_CONTENT() ) ) {
       unstructuredNode = fileNode.getNode( pentahoJcrConstants.getJCR_CONTENT() );
@@ -144,11 +162,74 @@ public class NodeRepositoryFileDataTransformer implements ITransformer<NodeRepos
 
   public NodeRepositoryFileData fromContentNode( final Session session, final PentahoJcrConstants pentahoJcrConstants,
       final Node fileNode ) throws RepositoryException {
+    // versions are read from their frozen node, so the identifier and stamp also tell versions apart
+    final DataNodeCache cache = this.cache;
+    final String nodeId = cache != null ? fileNode.getIdentifier() : null;
+    final long lastModified = cache != null ? getLastModified( pentahoJcrConstants, fileNode ) : -1;
+    if ( lastModified >= 0 ) {
+      DataNode cached = cache.get( nodeId, lastModified );
+      if ( cached != null ) {
+        checkRefs( session, cached );
+        return new NodeRepositoryFileData( cached );
+      }
+    }
+
     Node unstructuredNode = fileNode.getNode( pentahoJcrConstants.getJCR_CONTENT() );
     final String pattern = session.getNamespacePrefix( PentahoJcrConstants.PHO_NS ) + ":" + "*"; //$NON-NLS-1$ //$NON-NLS-2$
     Assert.isTrue( unstructuredNode.getNodes( pattern ).getSize() == 1 );
     Node jcrNode = unstructuredNode.getNodes( pattern ).nextNode();
-    return new NodeRepositoryFileData( internalRead( session, pentahoJcrConstants, jcrNode, null ) );
+    DataNode dataNode = internalRead( session, pentahoJcrConstants, jcrNode, null );
+    // a reference this user cannot see would be missing for every other user too
+    if ( lastModified >= 0 && !hasMissingRef( dataNode ) ) {
+      cache.put( nodeId, lastModified, dataNode );
+    }
+    return new NodeRepositoryFileData( dataNode );
+  }
+
+  private long getLastModified( final PentahoJcrConstants pentahoJcrConstants, final Node fileNode )
+    throws RepositoryException {
+    if ( !fileNode.hasProperty( pentahoJcrConstants.getPHO_LASTMODIFIED() ) ) {
+      return -1;
+    }
+    return fileNode.getProperty( pentahoJcrConstants.getPHO_LASTMODIFIED() ).getDate().getTimeInMillis();
+  }
+
+  /**
+   * Marks the references of a cached tree that the current user cannot access as missing, as {@link #internalRead}
+   * does.
+   */
+  private void checkRefs( final Session session, final DataNode dataNode ) throws RepositoryException {
+    List<String> missing = new ArrayList<String>();
+    for ( DataProperty prop : dataNode.getProperties() ) {
+      if ( prop.getType() == DataNode.DataPropertyType.REF ) {
+        try {
+          session.getNodeByIdentifier( prop.getRef().getId().toString() );
+        } catch ( ItemNotFoundException e ) {
+          missing.add( prop.getName() );
+        }
+      }
+    }
+    for ( String propName : missing ) {
+      dataNode.setProperty( propName, new DataNodeRef( DataNodeRef.REF_MISSING ) );
+    }
+    for ( DataNode child : dataNode.getNodes() ) {
+      checkRefs( session, child );
+    }
+  }
+
+  private boolean hasMissingRef( final DataNode dataNode ) {
+    for ( DataProperty prop : dataNode.getProperties() ) {
+      if ( prop.getType() == DataNode.DataPropertyType.REF
+          && DataNodeRef.REF_MISSING.equals( prop.getRef().getId() ) ) {
+        return true;
+      }
+    }
+    for ( DataNode child : dataNode.getNodes() ) {
+      if ( hasMissingRef( child ) ) {
+        return true;
+      }
+    }
+    return false;
   }
 
   protected DataNode internalRead( final Session session, final PentahoJcrConstants pentahoJcrConstants,
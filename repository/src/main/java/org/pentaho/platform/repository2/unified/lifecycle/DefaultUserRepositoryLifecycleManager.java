@@ -47,6 +47,7 @@ public class DefaultUserRepositoryLifecycleManager extends AbstractBackingReposi
   private String nonAdminPassword;
   private String singleTenantAdminUserName;
   private List<String> systemRoles;
+  private boolean preloadUserCache;
   public static final String DEFAULT_USERS_LOADED_METADATA = "defaultUsersLoaded";
 
   public DefaultUserRepositoryLifecycleManager( final IRoleAuthorizationPolicyRoleBindingDao roleBindingDao,
@@ -92,6 +93,32 @@ public class DefaultUserRepositoryLifecycleManager extends AbstractBackingReposi
       }
       addMetadataToRepository( DEFAULT_USERS_LOADED_METADATA );
     }
+    if ( preloadUserCache ) {
+      preloadUserCache();
+    }
+  }
+
+  /**
+   * Reads every user, the roles of every user and the members of every role once, so that the user role dao caches are
+   * warm before the first user listing or login. This runs during startup and takes time proportional to the size of
+   * the user directory, so it is off by default.
+   */
+  private void preloadUserCache() {
+    try {
+      long start = System.currentTimeMillis();
+      List<IPentahoUser> users = userRoleDao.getUsers( DEFAULT_TENANT, true );
+      for ( IPentahoUser user : users ) {
+        userRoleDao.getUserRoles( user.getTenant(), user.getUsername() );
+      }
+      List<IPentahoRole> roles = userRoleDao.getRoles( DEFAULT_TENANT, true );
+      for ( IPentahoRole role : roles ) {
+        userRoleDao.getRoleMembers( role.getTenant(), role.getName() );
+      }
+      logger.info( "Preloaded " + users.size() + " users with their roles and the members of " + roles.size()
+          + " roles in " + ( System.currentTimeMillis() - start ) + " ms" );
+    } catch ( RuntimeException e ) {
+      logger.warn( "Failed preloading the user cache.", e );
+    }
   }
 
   private void configureRoles() {
@@ -184,6 +211,14 @@ public class DefaultUserRepositoryLifecycleManager extends AbstractBackingReposi
     this.userRoleMappings = userRoleMappings;
   }
 
+  public boolean isPreloadUserCache() {
+    return preloadUserCache;
+  }
+
+  public void setPreloadUserCache( boolean preloadUserCache ) {
+    this.preloadUserCache = preloadUserCache;
+  }
+
   public String getNonAdminPassword() {
     return nonAdminPassword;
   }
@@ -96,6 +96,7 @@ public class DefaultUnifiedRepositoryWebService implements IUnifiedRepositoryWeb
 
   @Override
   public List<RepositoryFileDto> getChildrenFromRequest( RepositoryRequest repositoryRequest ) {
+    repositoryRequest.setPrefetch( true );
     return marshalFiles( repo.getChildren( repositoryRequest ), repositoryRequest );
   }
 
@@ -112,7 +113,9 @@ public class DefaultUnifiedRepositoryWebService implements IUnifiedRepositoryWeb
   @Deprecated
   public List<RepositoryFileDto>
     getChildrenWithFilterAndHidden( String folderId, String filter, Boolean showHiddenFiles ) {
-    return marshalFiles( repo.getChildren( new RepositoryRequest( folderId, showHiddenFiles, 0, filter ) ) );
+    RepositoryRequest repositoryRequest = new RepositoryRequest( folderId, showHiddenFiles, 0, filter );
+    repositoryRequest.setPrefetch( true );
+    return marshalFiles( repo.getChildren( repositoryRequest ) );
   }
 
   public NodeRepositoryFileDataDto getDataAsNodeForRead( final String fileId ) {
@@ -174,6 +177,8 @@ public class DefaultUnifiedRepositoryWebService implements IUnifiedRepositoryWeb
       repositoryRequest.setIncludeSystemFolders( false ); //Non Admin users can never get system folders
       getLogger().warn( "User does not have administrator privileges; setting includeSystemFolders to false." );
     }
+    // the tree is marshaled once the repository session is closed
+    repositoryRequest.setPrefetch( true );
     RepositoryFileTree tree = repo.getTree( repositoryRequest );
 
     if ( tree != null ) {
@@ -234,6 +239,10 @@ public class DefaultUnifiedRepositoryWebService implements IUnifiedRepositoryWeb
     repo.deleteFile( fileId, permanent, versionMessage );
   }
 
+  public void deleteFiles( List<String> fileIds, boolean permanent, String versionMessage ) {
+    repo.deleteFiles( new ArrayList<Serializable>( fileIds ), permanent, versionMessage );
+  }
+
   public List<RepositoryFileDto> getDeletedFiles() {
     return marshalFiles( repo.getAllDeletedFiles() );
   }
@@ -254,6 +263,10 @@ public class DefaultUnifiedRepositoryWebService implements IUnifiedRepositoryWeb
     repo.moveFile( fileId, destAbsPath, versionMessage );
   }
 
+  public void moveFiles( List<String> fileIds, String destAbsPath, String versionMessage ) {
+    repo.moveFiles( new ArrayList<Serializable>( fileIds ), destAbsPath, versionMessage );
+  }
+
   public void copyFile( String fileId, String destAbsPath, String versionMessage ) {
     repo.copyFile( fileId, destAbsPath, versionMessage );
   }
@@ -262,6 +275,10 @@ public class DefaultUnifiedRepositoryWebService implements IUnifiedRepositoryWeb
     repo.undeleteFile( fileId, versionMessage );
   }
 
+  public void undeleteFiles( List<String> fileIds, String versionMessage ) {
+    repo.undeleteFiles( new ArrayList<Serializable>( fileIds ), versionMessage );
+  }
+
   public void unlockFile( String fileId ) {
     repo.unlockFile( fileId );
   }
@@ -14,12 +14,15 @@
 package org.pentaho.platform.repository2.unified.webservices.jaxws;
 
 import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
+import org.pentaho.platform.api.repository2.unified.RepositoryFile;
+import org.pentaho.platform.api.repository2.unified.RepositoryFileAcl;
 import org.pentaho.platform.api.repository2.unified.data.simple.SimpleRepositoryFileData;
 import org.pentaho.platform.repository2.unified.webservices.DefaultUnifiedRepositoryWebService;
 import org.pentaho.platform.api.repository2.unified.webservices.RepositoryFileAclDto;
 import org.pentaho.platform.api.repository2.unified.webservices.RepositoryFileDto;
 
 import javax.jws.WebService;
+import javax.xml.ws.soap.MTOM;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -27,6 +30,7 @@ import java.util.List;
     endpointInterface = "org.pentaho.platform.repository2.unified.webservices.jaxws.IUnifiedRepositoryJaxwsWebService",
     serviceName = "unifiedRepository", portName = "unifiedRepositoryPort",
     targetNamespace = "http://www.pentaho.org/ws/1.0" )
+@MTOM
 public class DefaultUnifiedRepositoryJaxwsWebService extends DefaultUnifiedRepositoryWebService implements
     IUnifiedRepositoryJaxwsWebService {
 
@@ -89,4 +93,28 @@ public class DefaultUnifiedRepositoryJaxwsWebService extends DefaultUnifiedRepos
     }
     return data;
   }
+
+  public List<RepositoryFileDto> getFilesByIdInBatch( final List<String> fileIds ) {
+    List<RepositoryFileDto> files = new ArrayList<RepositoryFileDto>( fileIds.size() );
+    for ( String fileId : fileIds ) {
+      RepositoryFile file = repo.getFileById( fileId );
+      if ( file != null ) {
+        files.add( repositoryFileAdapter.marshal( file ) );
+      }
+    }
+    return files;
+  }
+
+  public List<RepositoryFileAclDto> getAclInBatch( final List<String> fileIds ) {
+    List<RepositoryFileAclDto> acls = new ArrayList<RepositoryFileAclDto>( fileIds.size() );
+    for ( String fileId : fileIds ) {
+      if ( repo.getFileById( fileId ) != null ) {
+        RepositoryFileAcl acl = repo.getAcl( fileId );
+        if ( acl != null ) {
+          acls.add( repositoryFileAclAdapter.marshal( acl ) );
+        }
+      }
+    }
+    return acls;
+  }
 }
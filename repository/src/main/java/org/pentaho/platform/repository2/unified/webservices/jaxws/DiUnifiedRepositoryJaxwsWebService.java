@@ -16,6 +16,7 @@ package org.pentaho.platform.repository2.unified.webservices.jaxws;
 import java.util.List;
 
 import javax.jws.WebService;
+import javax.xml.ws.soap.MTOM;
 
 import org.pentaho.platform.api.engine.IAuthorizationPolicy;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
@@ -25,6 +26,7 @@ import org.pentaho.platform.security.policy.rolebased.actions.RepositoryReadActi
 
 @WebService ( endpointInterface = "org.pentaho.platform.repository2.unified.webservices.jaxws.IUnifiedRepositoryJaxwsWebService",
   serviceName = "unifiedRepository", portName = "unifiedRepositoryPort", targetNamespace = "http://www.pentaho.org/ws/1.0" )
+@MTOM
 public class DiUnifiedRepositoryJaxwsWebService extends DefaultUnifiedRepositoryJaxwsWebService implements
   IUnifiedRepositoryJaxwsWebService {
 
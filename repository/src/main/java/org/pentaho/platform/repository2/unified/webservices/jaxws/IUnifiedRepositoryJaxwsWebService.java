@@ -37,4 +37,16 @@ public interface IUnifiedRepositoryJaxwsWebService extends IUnifiedRepositoryWeb
   SimpleRepositoryFileDataDto getDataAsBinaryForReadAtVersion( final String fileId, final String versionId );
 
   List<SimpleRepositoryFileDataDto> getDataAsBinaryForReadInBatch( final List<RepositoryFileDto> files );
+
+  /**
+   * Returns the files with the given ids in one call. Ids of files that do not exist or cannot be read are skipped, so
+   * callers match the results by id.
+   */
+  List<RepositoryFileDto> getFilesByIdInBatch( final List<String> fileIds );
+
+  /**
+   * Returns the ACLs of the files with the given ids in one call. Ids of files that do not exist or cannot be read are
+   * skipped, so callers match the results by id.
+   */
+  List<RepositoryFileAclDto> getAclInBatch( final List<String> fileIds );
 }
@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.jcr.NamespaceException;
 import javax.jcr.Node;
@@ -46,11 +47,14 @@ import org.pentaho.platform.repository2.unified.jcr.JcrTenantUtils;
 import org.pentaho.platform.repository2.unified.jcr.NodeHelper;
 import org.pentaho.platform.repository2.unified.jcr.PentahoJcrConstants;
 import org.pentaho.platform.security.policy.rolebased.messages.Messages;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
 
 import com.google.common.collect.HashMultimap;
 
-public abstract class AbstractJcrBackedRoleBindingDao implements IRoleAuthorizationPolicyRoleBindingDao {
+public abstract class AbstractJcrBackedRoleBindingDao implements IRoleAuthorizationPolicyRoleBindingDao,
+    IRoleBindingChangeTracker {
 
   private final ICacheManager cacheManager;
   protected ITenantedPrincipleNameResolver tenantedRoleNameUtils;
@@ -72,6 +76,8 @@ public abstract class AbstractJcrBackedRoleBindingDao implements IRoleAuthorizat
 
   private static final String LOGICAL_ROLE_BINDINGS_REGION = "roleBindingCache";
 
+  private final AtomicLong roleBindingsVersion = new AtomicLong();
+
   public AbstractJcrBackedRoleBindingDao() {
 
     cacheManager = PentahoSystem.getCacheManager( null );
@@ -128,6 +134,7 @@ public abstract class AbstractJcrBackedRoleBindingDao implements IRoleAuthorizat
             if ( cacheManager.cacheEnabled( LOGICAL_ROLE_BINDINGS_REGION ) ) {
               cacheManager.removeRegionCache( LOGICAL_ROLE_BINDINGS_REGION );
             }
+            roleBindingsChanged();
             loaded = true;
           }
         }
@@ -142,10 +149,33 @@ public abstract class AbstractJcrBackedRoleBindingDao implements IRoleAuthorizat
         roles.add( action.getName() );
       }
     }
+    roleBindingsChanged();
   }
 
   public void setAuthorizationActions( final List<IAuthorizationAction> authorizationActions ) {
     this.authorizationActions = authorizationActions;
+    roleBindingsChanged();
+  }
+
+  @Override
+  public long getRoleBindingsVersion() {
+    return roleBindingsVersion.get();
+  }
+
+  /**
+   * Signals that role bindings changed. When called within a transaction, the change is signalled again once the
+   * transaction completes so that decisions computed from uncommitted bindings are not kept.
+   */
+  protected void roleBindingsChanged() {
+    roleBindingsVersion.incrementAndGet();
+    if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+      TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization() {
+        @Override
+        public void afterCompletion( int status ) {
+          roleBindingsVersion.incrementAndGet();
+        }
+      } );
+    }
   }
 
   @Override
@@ -307,6 +337,7 @@ public abstract class AbstractJcrBackedRoleBindingDao implements IRoleAuthorizat
     // update cache
     String roleId = tenantedRoleNameUtils.getPrincipleId( tenant, runtimeRoleName );
     cacheManager.putInRegionCache( LOGICAL_ROLE_BINDINGS_REGION, roleId, logicalRoleNames );
+    roleBindingsChanged();
   }
 
   private String getPrincipalName( String principalId ) {
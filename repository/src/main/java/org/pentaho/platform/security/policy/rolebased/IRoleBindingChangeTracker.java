@@ -0,0 +1,29 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.security.policy.rolebased;
+
+/**
+ * Implemented by role binding DAOs that can tell callers when the bindings they serve have changed, so that
+ * decisions derived from those bindings can be cached.
+ */
+public interface IRoleBindingChangeTracker {
+
+  /**
+   * Returns a number that changes whenever role bindings or the set of known authorization actions change.
+   * 
+   * @return role bindings version
+   */
+  long getRoleBindingsVersion();
+
+}
@@ -14,17 +14,35 @@
 package org.pentaho.platform.security.policy.rolebased;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import org.pentaho.platform.api.engine.IAuthorizationPolicy;
+import org.pentaho.platform.api.mt.ITenant;
+import org.pentaho.platform.repository2.unified.jcr.JcrTenantUtils;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.util.Assert;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
 /**
  * An authorization policy based on roles.
+ * <p>
+ * When the role binding DAO implements {@link IRoleBindingChangeTracker}, the actions allowed for each distinct set of
+ * runtime roles in a tenant are compiled once into a bit set and shared by all sessions of that tenant holding that
+ * set of roles. Compiled decisions are discarded as soon as the DAO reports a change of role bindings or authorization
+ * actions, and expire after {@link #setDecisionCacheTimeToLive(long) a while} to pick up changes made by other
+ * servers.
  * 
  * @author mlowery
  */
@@ -33,11 +51,26 @@ public class RoleAuthorizationPolicy implements IAuthorizationPolicy {
   // ~ Static fields/initializers
   // ======================================================================================
 
+  public static final long DEFAULT_DECISION_CACHE_MAX_SIZE = 10000;
+
+  public static final long DEFAULT_DECISION_CACHE_TIME_TO_LIVE = 60;
+
   // ~ Instance fields
   // =================================================================================================
 
   private IRoleAuthorizationPolicyRoleBindingDao roleBindingDao;
 
+  private long decisionCacheMaxSize = DEFAULT_DECISION_CACHE_MAX_SIZE;
+
+  private long decisionCacheTimeToLive = DEFAULT_DECISION_CACHE_TIME_TO_LIVE;
+
+  private volatile Cache<List<String>, CompiledDecisions> decisionCache;
+
+  /**
+   * Bit index of every logical role name seen so far; only ever grows so compiled decisions stay valid.
+   */
+  private final ConcurrentMap<String, Integer> actionIndex = new ConcurrentHashMap<String, Integer>();
+
   // ~ Constructors
   // ====================================================================================================
 
@@ -45,6 +78,7 @@ public class RoleAuthorizationPolicy implements IAuthorizationPolicy {
     super();
     Assert.notNull( roleBindingDao );
     this.roleBindingDao = roleBindingDao;
+    initDecisionCache();
   }
 
   // ~ Methods
@@ -56,12 +90,12 @@ public class RoleAuthorizationPolicy implements IAuthorizationPolicy {
   public List<String> getAllowedActions( String actionNamespace ) {
     List<String> assignedRolesInNamespace = new ArrayList<String>();
     if ( actionNamespace == null ) {
-      assignedRolesInNamespace.addAll( roleBindingDao.getBoundLogicalRoleNames( getRuntimeRoleNames() ) );
+      assignedRolesInNamespace.addAll( getDecisions().getAllowedActions() );
     } else {
       if ( !actionNamespace.endsWith( "." ) ) {
         actionNamespace += ".";
       }
-      for ( String assignedRole : roleBindingDao.getBoundLogicalRoleNames( getRuntimeRoleNames() ) ) {
+      for ( String assignedRole : getDecisions().getAllowedActions() ) {
         if ( assignedRole.startsWith( actionNamespace ) ) {
           assignedRolesInNamespace.add( assignedRole );
         }
@@ -74,7 +108,7 @@ public class RoleAuthorizationPolicy implements IAuthorizationPolicy {
    * {@inheritDoc}
    */
   public boolean isAllowed( String actionName ) {
-    return roleBindingDao.getBoundLogicalRoleNames( getRuntimeRoleNames() ).contains( actionName );
+    return getDecisions().isAllowed( actionName );
   }
 
   protected List<String> getRuntimeRoleNames() {
@@ -88,4 +122,111 @@ public class RoleAuthorizationPolicy implements IAuthorizationPolicy {
     return runtimeRoles;
   }
 
+  public long getDecisionCacheMaxSize() {
+    return decisionCacheMaxSize;
+  }
+
+  public void setDecisionCacheMaxSize( final long decisionCacheMaxSize ) {
+    this.decisionCacheMaxSize = decisionCacheMaxSize;
+    initDecisionCache();
+  }
+
+  public long getDecisionCacheTimeToLive() {
+    return decisionCacheTimeToLive;
+  }
+
+  /**
+   * @param decisionCacheTimeToLive
+   *          seconds a compiled decision is kept; zero or less disables the decision cache
+   */
+  public void setDecisionCacheTimeToLive( final long decisionCacheTimeToLive ) {
+    this.decisionCacheTimeToLive = decisionCacheTimeToLive;
+    initDecisionCache();
+  }
+
+  public CacheStats getDecisionCacheStats() {
+    return decisionCache.stats();
+  }
+
+  private void initDecisionCache() {
+    decisionCache = CacheBuilder.newBuilder()
+        .maximumSize( decisionCacheMaxSize )
+        .expireAfterWrite( Math.max( decisionCacheTimeToLive, 0 ), TimeUnit.SECONDS )
+        .recordStats()
+        .build();
+  }
+
+  private CompiledDecisions getDecisions() {
+    List<String> runtimeRoleNames = getRuntimeRoleNames();
+    if ( !( roleBindingDao instanceof IRoleBindingChangeTracker ) || decisionCacheTimeToLive <= 0 ) {
+      return compile( roleBindingDao.getBoundLogicalRoleNames( runtimeRoleNames ), 0 );
+    }
+    IRoleBindingChangeTracker changeTracker = (IRoleBindingChangeTracker) roleBindingDao;
+    // bindings are resolved in the current tenant; the same roles in any order grant the same actions
+    ITenant tenant = JcrTenantUtils.getCurrentTenant();
+    List<String> key = new ArrayList<String>( runtimeRoleNames.size() + 1 );
+    key.add( tenant != null ? tenant.getId() : null );
+    key.addAll( new TreeSet<String>( runtimeRoleNames ) );
+    long version = changeTracker.getRoleBindingsVersion();
+    Cache<List<String>, CompiledDecisions> cache = decisionCache;
+    CompiledDecisions decisions = cache.getIfPresent( key );
+    if ( decisions != null && decisions.version == version ) {
+      return decisions;
+    }
+    // bindings read after a change are stamped with the version seen before the read, so they are recompiled once
+    // more if the change was still in flight
+    decisions = compile( roleBindingDao.getBoundLogicalRoleNames( runtimeRoleNames ), version );
+    if ( changeTracker.getRoleBindingsVersion() == version ) {
+      cache.put( key, decisions );
+    }
+    return decisions;
+  }
+
+  private CompiledDecisions compile( final List<String> allowedActions, final long version ) {
+    BitSet bits = new BitSet();
+    for ( String action : allowedActions ) {
+      bits.set( indexOf( action ) );
+    }
+    return new CompiledDecisions( Collections.unmodifiableList( new ArrayList<String>( allowedActions ) ), bits,
+        version );
+  }
+
+  private int indexOf( final String action ) {
+    Integer index = actionIndex.get( action );
+    if ( index == null ) {
+      synchronized ( actionIndex ) {
+        index = actionIndex.get( action );
+        if ( index == null ) {
+          index = actionIndex.size();
+          actionIndex.put( action, index );
+        }
+      }
+    }
+    return index;
+  }
+
+  /**
+   * The actions allowed for one set of runtime roles. Never modified once built.
+   */
+  private final class CompiledDecisions {
+    private final List<String> allowedActions;
+    private final BitSet bits;
+    private final long version;
+
+    CompiledDecisions( final List<String> allowedActions, final BitSet bits, final long version ) {
+      this.allowedActions = allowedActions;
+      this.bits = bits;
+      this.version = version;
+    }
+
+    List<String> getAllowedActions() {
+      return allowedActions;
+    }
+
+    boolean isAllowed( final String action ) {
+      Integer index = action == null ? null : actionIndex.get( action );
+      return index != null && bits.get( index );
+    }
+  }
+
 }
@@ -14,7 +14,9 @@
 package org.pentaho.platform.security.userroledao.jackrabbit;
 
 import com.google.common.annotations.VisibleForTesting;
-import org.apache.commons.collections.map.LRUMap;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import org.apache.jackrabbit.api.security.user.Authorizable;
 import org.apache.jackrabbit.api.security.user.AuthorizableExistsException;
 import org.apache.jackrabbit.api.security.user.Group;
@@ -59,6 +61,8 @@ import org.pentaho.platform.security.userroledao.PentahoUser;
 import org.pentaho.platform.security.userroledao.messages.Messages;
 import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.cache.NullUserCache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.jcr.Credentials;
 import javax.jcr.NamespaceException;
@@ -71,6 +75,7 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -78,9 +83,15 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public abstract class AbstractJcrBackedUserRoleDao implements IUserRoleDao {
 
+  public static final long DEFAULT_USER_CACHE_MAX_SIZE = 65536;
+
+  public static final long DEFAULT_USER_CACHE_TIME_TO_LIVE = 300;
+
   static NameFactory NF = NameFactoryImpl.getInstance();
 
   static Name P_PRINCIPAL_NAME = NF.create( Name.NS_REP_URI, "principalName" ); //$NON-NLS-1$
@@ -115,7 +126,22 @@ public abstract class AbstractJcrBackedUserRoleDao implements IUserRoleDao {
 
   HashMap<String, PentahoUserManagerImpl> userMgrMap = new HashMap<String, PentahoUserManagerImpl>();
 
-  private LRUMap userCache = new LRUMap( 4096 );
+  private long userCacheMaxSize = DEFAULT_USER_CACHE_MAX_SIZE;
+
+  private long userCacheTimeToLive = DEFAULT_USER_CACHE_TIME_TO_LIVE;
+
+  // users by principal id
+  private Cache<String, IPentahoUser> userCache;
+
+  // roles of a user by user principal id
+  private Cache<String, List<IPentahoRole>> userRolesCache;
+
+  // members of a role by role principal id
+  private Cache<String, List<IPentahoUser>> roleMembersCache;
+
+  // bumped on every invalidation, so that lookups racing with a change do not cache what they read before it; created
+  // on first use, as mocks of subclasses skip field initializers
+  private volatile AtomicLong cacheGeneration;
 
   private UserCache userDetailsCache = new NullUserCache();
 
@@ -144,6 +170,7 @@ public abstract class AbstractJcrBackedUserRoleDao implements IUserRoleDao {
     this.systemRoles = systemRoles;
     this.extraRoles = extraRoles;
     this.userDetailsCache = userDetailsCache;
+    initUserCache();
   }
 
   public void setRoleMembers( Session session, final ITenant theTenant, final String roleName,
@@ -212,6 +239,7 @@ public abstract class AbstractJcrBackedUserRoleDao implements IUserRoleDao {
       // Purge the UserDetails cache
       purgeUserFromCache( userId );
     }
+    invalidateMembershipCaches();
   }
 
   private void setUserRolesForNewUser( Session session, final ITenant theTenant, final String userName,
@@ -247,12 +275,53 @@ public abstract class AbstractJcrBackedUserRoleDao implements IUserRoleDao {
       // Purge the UserDetails cache
       purgeUserFromCache( userName );
     }
+    invalidateMembershipCaches();
   }
 
   private void purgeUserFromCache( String userName ) {
     userDetailsCache.removeUserFromCache( getTenantedUserNameUtils().getPrincipleName( userName ) );
   }
 
+  /**
+   * Drops a user from the user cache, together with all cached memberships since role member lists hold a copy of the
+   * user.
+   */
+  private void invalidateUser( String userId ) {
+    invalidateCaches( userId );
+  }
+
+  /**
+   * Drops all cached user to role and role to user memberships.
+   */
+  private void invalidateMembershipCaches() {
+    invalidateCaches( null );
+  }
+
+  /**
+   * Changes only become visible to other sessions once the surrounding transaction commits, so the caches are cleared
+   * again when it completes; otherwise a lookup made by another thread in between would cache the old state.
+   */
+  private void invalidateCaches( final String userId ) {
+    doInvalidateCaches( userId );
+    if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+      TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization() {
+        @Override
+        public void afterCompletion( int status ) {
+          doInvalidateCaches( userId );
+        }
+      } );
+    }
+  }
+
+  private void doInvalidateCaches( String userId ) {
+    getCacheGeneration().incrementAndGet();
+    if ( userId != null ) {
+      getUserCache().invalidate( userId );
+    }
+    userRolesCache.invalidateAll();
+    roleMembersCache.invalidateAll();
+  }
+
   private boolean oneOfUserIsMySelf( String[] users ) {
     for ( int i = 0; i < users.length; i++ ) {
       if ( isMyself( users[ i ] ) ) {
@@ -343,6 +412,7 @@ public abstract class AbstractJcrBackedUserRoleDao implements IUserRoleDao {
 
     // Purge the UserDetails cache
     purgeUserFromCache( userName );
+    invalidateMembershipCaches();
   }
 
   public IPentahoRole createRole( Session session, final ITenant theTenant, final String roleName,
@@ -424,6 +494,7 @@ public abstract class AbstractJcrBackedUserRoleDao implements IUserRoleDao {
       for ( IPentahoUser roleMember : roleMembers ) {
         purgeUserFromCache( roleMember.getUsername() );
       }
+      invalidateMembershipCaches();
     } else {
       throw new RepositoryException( Messages.getInstance().getString(
           "AbstractJcrBackedUserRoleDao.ERROR_0007_ATTEMPTED_SYSTEM_ROLE_DELETE" ) );
@@ -443,7 +514,7 @@ public abstract class AbstractJcrBackedUserRoleDao implements IUserRoleDao {
         while ( currentGroups.hasNext() ) {
           currentGroups.next().removeMember( jackrabbitUser );
         }
-        getUserCache().remove( jackrabbitUser.getID() );
+        invalidateUser( jackrabbitUser.getID() );
         purgeUserFromCache( user.getUsername() );
         // [BISERVER-9215]
         jackrabbitUser.remove();
@@ -463,8 +534,12 @@ public abstract class AbstractJcrBackedUserRoleDao implements IUserRoleDao {
 
   @VisibleForTesting
   IPentahoUser convertToPentahoUser( User jackrabbitUser ) throws RepositoryException {
-    if ( getUserCache().containsKey( jackrabbitUser.getID() ) ) {
-      return (IPentahoUser) getUserCache().get( jackrabbitUser.getID() );
+    long generation = getCacheGeneration().get();
+    if ( isUseJackrabbitUserCache() ) {
+      IPentahoUser cachedUser = getUserCache().getIfPresent( jackrabbitUser.getID() );
+      if ( cachedUser != null ) {
+        return cachedUser;
+      }
     }
     IPentahoUser pentahoUser = null;
     Value[] propertyValues = null;
@@ -487,7 +562,7 @@ public abstract class AbstractJcrBackedUserRoleDao implements IUserRoleDao {
         new PentahoUser( getTenantedUserNameUtils().getTenant( jackrabbitUser.getID() ), getTenantedUserNameUtils()
             .getPrincipleName( jackrabbitUser.getID() ), password, description, !jackrabbitUser.isDisabled() );
 
-    if ( isUseJackrabbitUserCache() ) {
+    if ( isUseJackrabbitUserCache() && generation == getCacheGeneration().get() ) {
       getUserCache().put( jackrabbitUser.getID(), pentahoUser );
     }
 
@@ -548,6 +623,7 @@ public abstract class AbstractJcrBackedUserRoleDao implements IUserRoleDao {
     } else {
       jackrabbitUser.setProperty( "description", session.getValueFactory().createValue( description ) ); //$NON-NLS-1$
     }
+    invalidateUser( jackrabbitUser.getID() );
   }
 
   public void setPassword( Session session, final ITenant theTenant, final String userName, final String password )
@@ -565,7 +641,7 @@ public abstract class AbstractJcrBackedUserRoleDao implements IUserRoleDao {
      * BISERVER-9906 Clear cache after changing password
      */
     purgeUserFromCache( userName );
-    userCache.remove( jackrabbitUser.getID() );
+    invalidateUser( jackrabbitUser.getID() );
   }
 
   @VisibleForTesting
@@ -766,6 +842,14 @@ public abstract class AbstractJcrBackedUserRoleDao implements IUserRoleDao {
     if ( ( jackrabbitGroup != null )
         && TenantUtils.isAccessibleTenant( theTenant == null ? tenantedRoleNameUtils
         .getTenant( jackrabbitGroup.getID() ) : theTenant ) ) {
+      long generation = getCacheGeneration().get();
+      if ( isUseJackrabbitUserCache() ) {
+        List<IPentahoUser> cachedUsers = roleMembersCache.getIfPresent( jackrabbitGroup.getID() );
+        if ( cachedUsers != null ) {
+          users.addAll( cachedUsers );
+          return users;
+        }
+      }
       Iterator<Authorizable> authorizables = jackrabbitGroup.getMembers();
       while ( authorizables.hasNext() ) {
         Authorizable authorizable = authorizables.next();
@@ -773,6 +857,9 @@ public abstract class AbstractJcrBackedUserRoleDao implements IUserRoleDao {
           users.add( convertToPentahoUser( (User) authorizable ) );
         }
       }
+      if ( isUseJackrabbitUserCache() && generation == getCacheGeneration().get() ) {
+        roleMembersCache.put( jackrabbitGroup.getID(), Collections.unmodifiableList( new ArrayList<>( users ) ) );
+      }
     }
     return users;
   }
@@ -784,6 +871,14 @@ public abstract class AbstractJcrBackedUserRoleDao implements IUserRoleDao {
     if ( ( jackrabbitUser != null )
         && TenantUtils.isAccessibleTenant( theTenant == null ? tenantedUserNameUtils.getTenant( jackrabbitUser.getID() )
         : theTenant ) ) {
+      long generation = getCacheGeneration().get();
+      if ( isUseJackrabbitUserCache() ) {
+        List<IPentahoRole> cachedRoles = userRolesCache.getIfPresent( jackrabbitUser.getID() );
+        if ( cachedRoles != null ) {
+          roles.addAll( cachedRoles );
+          return roles;
+        }
+      }
       Iterator<Group> groups = jackrabbitUser.memberOf();
       while ( groups.hasNext() ) {
         IPentahoRole role = convertToPentahoRole( groups.next() );
@@ -792,6 +887,9 @@ public abstract class AbstractJcrBackedUserRoleDao implements IUserRoleDao {
           roles.add( role );
         }
       }
+      if ( isUseJackrabbitUserCache() && generation == getCacheGeneration().get() ) {
+        userRolesCache.put( jackrabbitUser.getID(), Collections.unmodifiableList( new ArrayList<>( roles ) ) );
+      }
     }
     return roles;
   }
@@ -962,13 +1060,76 @@ public abstract class AbstractJcrBackedUserRoleDao implements IUserRoleDao {
     this.useJackrabbitUserCache = useJackrabbitUserCache;
   }
 
+  public long getUserCacheMaxSize() {
+    return userCacheMaxSize;
+  }
+
+  /**
+   * Sets the maximum number of users, and separately of cached memberships, kept in memory.
+   */
+  public void setUserCacheMaxSize( long userCacheMaxSize ) {
+    this.userCacheMaxSize = userCacheMaxSize;
+    initUserCache();
+  }
+
+  public long getUserCacheTimeToLive() {
+    return userCacheTimeToLive;
+  }
+
+  /**
+   * Sets the number of seconds a cached user or membership is trusted. This bounds how long changes made directly in
+   * the repository, bypassing this dao, go unnoticed.
+   */
+  public void setUserCacheTimeToLive( long userCacheTimeToLive ) {
+    this.userCacheTimeToLive = userCacheTimeToLive;
+    initUserCache();
+  }
+
+  /**
+   * @return hit and miss statistics of the user cache
+   */
+  public CacheStats getUserCacheStats() {
+    return getUserCache().stats();
+  }
+
+  /**
+   * @return hit and miss statistics of the user to role and role to user membership caches
+   */
+  public CacheStats getMembershipCacheStats() {
+    return userRolesCache.stats().plus( roleMembersCache.stats() );
+  }
+
   @VisibleForTesting
   protected void initUserCache() {
-    userCache = new LRUMap( 4096 );
+    getCacheGeneration().incrementAndGet();
+    userCache = newCache();
+    userRolesCache = newCache();
+    roleMembersCache = newCache();
+  }
+
+  private AtomicLong getCacheGeneration() {
+    AtomicLong generation = cacheGeneration;
+    if ( generation == null ) {
+      synchronized ( this ) {
+        if ( cacheGeneration == null ) {
+          cacheGeneration = new AtomicLong();
+        }
+        generation = cacheGeneration;
+      }
+    }
+    return generation;
+  }
+
+  private <V> Cache<String, V> newCache() {
+    return CacheBuilder.newBuilder()
+        .maximumSize( userCacheMaxSize )
+        .expireAfterWrite( userCacheTimeToLive, TimeUnit.SECONDS )
+        .recordStats()
+        .build();
   }
 
   @VisibleForTesting
-  protected LRUMap getUserCache() {
+  protected Cache<String, IPentahoUser> getUserCache() {
     return userCache;
   }
 
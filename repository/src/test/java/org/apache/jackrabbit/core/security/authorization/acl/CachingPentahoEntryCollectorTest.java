@@ -0,0 +1,130 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.apache.jackrabbit.core.security.authorization.acl;
+
+import org.apache.jackrabbit.api.JackrabbitWorkspace;
+import org.apache.jackrabbit.core.NodeImpl;
+import org.apache.jackrabbit.core.SessionImpl;
+import org.apache.jackrabbit.core.id.NodeId;
+import org.apache.jackrabbit.core.security.authorization.AccessControlModifications;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.api.engine.ICacheManager;
+import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.pentaho.platform.engine.core.system.StandaloneSession;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_MOCKS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CachingPentahoEntryCollectorTest {
+
+  private final Set<NodeImpl> inheritingNodes = new HashSet<>();
+  private final Map<NodeId, NodeImpl> nodesById = new HashMap<>();
+  private int aclReads;
+
+  private CachingPentahoEntryCollector collector;
+  private NodeImpl folder;
+  private NodeImpl file;
+
+  @Before
+  public void setUp() throws Exception {
+    ICacheManager cacheManager = mock( ICacheManager.class );
+    when( cacheManager.getAllKeysFromRegionCache( any() ) ).thenReturn( Collections.emptySet() );
+    PentahoSystem.registerObject( cacheManager );
+
+    SessionImpl systemSession = mock( SessionImpl.class, RETURNS_MOCKS );
+    when( systemSession.getWorkspace() ).thenReturn( mock( JackrabbitWorkspace.class, RETURNS_MOCKS ) );
+
+    collector = new CachingPentahoEntryCollector( systemSession, NodeId.randomId(), new HashMap() ) {
+      @Override
+      protected NodeImpl findAccessControlledNode( final NodeImpl node ) {
+        return node;
+      }
+
+      @Override
+      protected boolean isEntriesInheriting( final NodeImpl accessControlledNode ) {
+        aclReads++;
+        return inheritingNodes.contains( accessControlledNode );
+      }
+
+      @Override
+      NodeImpl getNodeById( final NodeId nodeId ) {
+        return nodesById.get( nodeId );
+      }
+    };
+
+    folder = createNode( null );
+    file = createNode( folder );
+    inheritingNodes.add( file );
+  }
+
+  @After
+  public void tearDown() {
+    PentahoSessionHolder.removeSession();
+    PentahoSystem.clearObjectFactory();
+  }
+
+  @Test
+  public void testSharedEntryIsReusedAcrossSessions() throws Exception {
+    PentahoSessionHolder.setSession( new StandaloneSession( "alice" ) ); //$NON-NLS-1$
+    assertSame( folder, collector.findNonInheritingNode( file ) );
+    int aclReadsOfFirstLookup = aclReads;
+
+    PentahoSessionHolder.setSession( new StandaloneSession( "bob" ) ); //$NON-NLS-1$
+    assertSame( folder, collector.findNonInheritingNode( file ) );
+
+    assertEquals( aclReadsOfFirstLookup, aclReads );
+    assertEquals( 1, collector.getSharedCacheStats().missCount() );
+    assertEquals( 1, collector.getSharedCacheStats().hitCount() );
+  }
+
+  @Test
+  @SuppressWarnings( "unchecked" )
+  public void testSharedEntryIsDroppedAfterInheritanceChange() throws Exception {
+    PentahoSessionHolder.setSession( new StandaloneSession( "alice" ) ); //$NON-NLS-1$
+    assertSame( folder, collector.findNonInheritingNode( file ) );
+
+    // the file stops inheriting the ACL of its folder
+    inheritingNodes.remove( file );
+    AccessControlModifications modifications = mock( AccessControlModifications.class );
+    when( modifications.getNodeIdentifiers() ).thenReturn( Collections.singleton( file.getNodeId() ) );
+    when( modifications.getType( file.getNodeId() ) ).thenReturn( CachingPentahoEntryCollector.POLICY_MODIFIED );
+    collector.notifyListeners( modifications );
+
+    PentahoSessionHolder.setSession( new StandaloneSession( "bob" ) ); //$NON-NLS-1$
+    assertSame( file, collector.findNonInheritingNode( file ) );
+    assertEquals( 0, collector.getSharedCacheStats().hitCount() );
+  }
+
+  private NodeImpl createNode( NodeImpl parent ) throws Exception {
+    NodeImpl node = mock( NodeImpl.class );
+    NodeId nodeId = NodeId.randomId();
+    when( node.getNodeId() ).thenReturn( nodeId );
+    when( node.getParent() ).thenReturn( parent );
+    nodesById.put( nodeId, node );
+    return node;
+  }
+}
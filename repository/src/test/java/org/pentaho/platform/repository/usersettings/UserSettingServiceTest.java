@@ -13,6 +13,7 @@
 
 package org.pentaho.platform.repository.usersettings;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
@@ -44,7 +45,10 @@ import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -121,10 +125,17 @@ public class UserSettingServiceTest {
     } );
     SecurityHelper.setMockInstance( securityHelper );
 
+    // write through and do not cache, so every call reaches the repository
+    UserSettingsCache.setInstance( new UserSettingsCache( 0, 0 ) );
     userSettingService = new UserSettingServiceForTesting( repository );
     userSettingService.init( session );
   }
 
+  @After
+  public void tearDown() {
+    UserSettingsCache.setInstance( null );
+  }
+
   @Test
   public void testDeleteUserSettings() throws Exception {
     final RepositoryFile repositoryFile = mock( RepositoryFile.class );
@@ -327,6 +338,83 @@ public class UserSettingServiceTest {
     verify( repository ).setFileMetadata( eq( USER_FOLDER_ID ), anyMap() );
   }
 
+  @Test
+  public void testSetUserSettingWriteBehind() throws Exception {
+    UserSettingsCache cache = new UserSettingsCache( 60000, 60 );
+    UserSettingsCache.setInstance( cache );
+    when( session.getAttribute( eq( "SPRING_SECURITY_CONTEXT" ) ) ).thenReturn( 1 );
+
+    userSettingService.setUserSetting( USER_SETTING_NAME_1, "a" );
+    userSettingService.setUserSetting( USER_SETTING_NAME_2, "b" );
+    verify( repository, never() ).setFileMetadata( any(), anyMap() );
+    assertEquals( "a", userSettingService.getUserSetting( USER_SETTING_NAME_1, null ).getSettingValue() );
+    assertEquals( USER_SETTING_VALUE_3,
+      userSettingService.getUserSetting( USER_SETTING_NAME_3, null ).getSettingValue() );
+
+    cache.flush();
+    verify( repository, times( 1 ) ).setFileMetadata( eq( USER_FOLDER_ID ), anyMap() );
+    assertEquals( "a", userSettings.get( UserSettingService.SETTING_PREFIX + USER_SETTING_NAME_1 ) );
+    assertEquals( "b", userSettings.get( UserSettingService.SETTING_PREFIX + USER_SETTING_NAME_2 ) );
+
+    // the user settings are read once while cached
+    userSettingService.getUserSetting( USER_SETTING_NAME_3, null );
+    verify( repository, times( 2 ) ).getFileMetadata( eq( USER_FOLDER_ID ) );
+  }
+
+  @Test
+  public void testFailedWriteKeepsChangesUntilShutdown() throws Exception {
+    UserSettingsCache cache = new UserSettingsCache( 60000, 60 );
+    UserSettingsCache.setInstance( cache );
+    when( session.getAttribute( eq( "SPRING_SECURITY_CONTEXT" ) ) ).thenReturn( 1 );
+    doThrow( new RuntimeException( "repository unavailable" ) ).doNothing().when( repository )
+      .setFileMetadata( eq( USER_FOLDER_ID ), anyMap() );
+
+    userSettingService.setUserSetting( USER_SETTING_NAME_1, "a" );
+    cache.flush();
+    verify( repository, times( 1 ) ).setFileMetadata( eq( USER_FOLDER_ID ), anyMap() );
+    assertEquals( "a", userSettingService.getUserSetting( USER_SETTING_NAME_1, null ).getSettingValue() );
+
+    // the change is still pending, so shutting down writes it again
+    UserSettingsCache.shutdownInstance();
+    verify( repository, times( 2 ) ).setFileMetadata( eq( USER_FOLDER_ID ), anyMap() );
+
+    cache.flush();
+    verify( repository, times( 2 ) ).setFileMetadata( eq( USER_FOLDER_ID ), anyMap() );
+  }
+
+  @Test
+  public void testSettingsAreCachedPerTenant() throws Exception {
+    UserSettingsCache.setInstance( new UserSettingsCache( 60000, 60 ) );
+    when( session.getAttribute( eq( "SPRING_SECURITY_CONTEXT" ) ) ).thenReturn( 1 );
+    when( session.getAttribute( eq( IPentahoSession.TENANT_ID_KEY ) ) ).thenReturn( "/pentaho/tenant0" );
+    assertEquals( USER_SETTING_VALUE_3,
+      userSettingService.getUserSetting( USER_SETTING_NAME_3, null ).getSettingValue() );
+    assertEquals( GLOBAL_SETTING_VALUE_3,
+      userSettingService.getGlobalUserSetting( GLOBAL_SETTING_NAME_3, null ).getSettingValue() );
+
+    // the same paths name the folders of another tenant, holding none of these settings
+    final RepositoryFile otherEtcFolder = mock( RepositoryFile.class );
+    when( otherEtcFolder.getId() ).thenReturn( "otherTenantFolderID" );
+    when( repository.getFile( eq( ClientRepositoryPaths.getEtcFolderPath() ) ) ).thenReturn( otherEtcFolder );
+    final RepositoryFile otherHomeFolder = mock( RepositoryFile.class );
+    when( otherHomeFolder.getId() ).thenReturn( "otherUserFolderID" );
+    when( repository.getFile( eq( ClientRepositoryPaths.getUserHomeFolderPath( session.getName() ) ) ) )
+      .thenReturn( otherHomeFolder );
+    when( repository.getFileMetadata( eq( "otherTenantFolderID" ) ) ).thenReturn( new HashMap<>() );
+    when( repository.getFileMetadata( eq( "otherUserFolderID" ) ) ).thenReturn( new HashMap<>() );
+    when( session.getAttribute( eq( IPentahoSession.TENANT_ID_KEY ) ) ).thenReturn( "/pentaho/tenant1" );
+    assertEquals( "default", userSettingService.getUserSetting( USER_SETTING_NAME_3, "default" ).getSettingValue() );
+    assertEquals( "default",
+      userSettingService.getGlobalUserSetting( GLOBAL_SETTING_NAME_3, "default" ).getSettingValue() );
+
+    // the settings of the first tenant are still served from the cache
+    when( session.getAttribute( eq( IPentahoSession.TENANT_ID_KEY ) ) ).thenReturn( "/pentaho/tenant0" );
+    assertEquals( USER_SETTING_VALUE_3,
+      userSettingService.getUserSetting( USER_SETTING_NAME_3, null ).getSettingValue() );
+    verify( repository, times( 1 ) ).getFileMetadata( eq( USER_FOLDER_ID ) );
+    verify( repository, times( 1 ) ).getFileMetadata( eq( TENANT_FOLDER_ID ) );
+  }
+
   @Test
   public void testGetGlobalUserSettingUnset() throws Exception {
     final String settingName = "settings";
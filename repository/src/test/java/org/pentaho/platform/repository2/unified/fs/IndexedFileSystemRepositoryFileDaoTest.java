@@ -0,0 +1,166 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.repository2.unified.fs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.platform.api.repository2.unified.RepositoryFile;
+import org.pentaho.platform.api.repository2.unified.RepositoryFileTree;
+import org.pentaho.platform.api.repository2.unified.RepositoryRequest;
+import org.pentaho.platform.api.repository2.unified.data.simple.SimpleRepositoryFileData;
+
+public class IndexedFileSystemRepositoryFileDaoTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private FileSystemRepositoryFileDao plain;
+  private IndexedFileSystemRepositoryFileDao indexed;
+
+  @Before
+  public void setUp() throws IOException {
+    write( "public/a.txt", "a" );
+    write( "public/b.prpt", "bb" );
+    write( "public/sub/c.txt", "ccc" );
+    plain = new FileSystemRepositoryFileDao( folder.getRoot() );
+    indexed = new IndexedFileSystemRepositoryFileDao( folder.getRoot(), false );
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    indexed.close();
+  }
+
+  @Test
+  public void testMatchesFileSystemDao() {
+    assertSameFile( plain.getFile( "/" ), indexed.getFile( "/" ) );
+    assertSameFile( plain.getFile( "/public/a.txt" ), indexed.getFile( "/public/a.txt" ) );
+    assertSameFile( plain.getFile( "/public/sub" ), indexed.getFile( "/public/sub" ) );
+    assertNull( indexed.getFile( "/public/missing.txt" ) );
+    assertNull( indexed.getFile( "/public/a.txt/child" ) );
+
+    RepositoryRequest request = new RepositoryRequest( "/public", true, -1, "*.txt" );
+    assertEquals( names( plain.getChildren( request ) ), names( indexed.getChildren( request ) ) );
+    assertEquals( 1, indexed.getChildren( request ).size() );
+
+    request = new RepositoryRequest( "/", true, -1, "*" );
+    assertEquals( plain.getTree( request ), indexed.getTree( request ) );
+    assertEquals( plain.getTree( "/public", 1, "*", true ), indexed.getTree( "/public", 1, "*", true ) );
+  }
+
+  @Test
+  public void testListingsAreServedFromIndex() throws IOException {
+    RepositoryRequest request = new RepositoryRequest( "/public", true, -1, "*" );
+    indexed.getChildren( request );
+    long misses = indexed.getIndex().getMissCount();
+    indexed.getChildren( request );
+    indexed.getFile( "/public/a.txt" );
+    assertEquals( misses, indexed.getIndex().getMissCount() );
+
+    // without watching, changes made behind the dao's back need an explicit invalidation
+    write( "public/d.txt", "d" );
+    assertNull( indexed.getFile( "/public/d.txt" ) );
+    indexed.getIndex().invalidate( new File( folder.getRoot(), "public/d.txt" ).toPath() );
+    assertNotNull( indexed.getFile( "/public/d.txt" ) );
+  }
+
+  @Test
+  public void testOwnWritesAreVisible() {
+    RepositoryFile publicFolder = indexed.getFile( "/public" );
+    assertEquals( 2, indexed.getChildren( new RepositoryRequest( "/public", true, -1, "*" ) ).size() );
+
+    RepositoryFile created = indexed.createFile( publicFolder.getId(), new RepositoryFile.Builder( "d.txt" ).build(),
+        new SimpleRepositoryFileData( new ByteArrayInputStream( "dddd".getBytes( StandardCharsets.UTF_8 ) ),
+            "UTF-8", "text/plain" ), null, null );
+    assertNotNull( created );
+    assertEquals( 4, created.getFileSize() );
+    assertEquals( 3, indexed.getChildren( new RepositoryRequest( "/public", true, -1, "*" ) ).size() );
+
+    RepositoryFile newFolder =
+        indexed.createFolder( publicFolder.getId(), new RepositoryFile.Builder( "new" ).folder( true ).build(), null,
+            null );
+    assertNotNull( newFolder );
+    assertTrue( newFolder.isFolder() );
+
+    indexed.deleteFile( created.getId(), null );
+    assertNull( indexed.getFile( "/public/d.txt" ) );
+    assertEquals( 2, indexed.getChildren( new RepositoryRequest( "/public", true, -1, "*" ) ).size() );
+  }
+
+  @Test
+  public void testWatchedChangesAreSeen() throws Exception {
+    IndexedFileSystemRepositoryFileDao watched = new IndexedFileSystemRepositoryFileDao( folder.getRoot(), true );
+    try {
+      assertNull( watched.getFile( "/public/d.txt" ) );
+      write( "public/d.txt", "d" );
+
+      long timeout = System.currentTimeMillis() + 30000;
+      while ( watched.getFile( "/public/d.txt" ) == null && System.currentTimeMillis() < timeout ) {
+        Thread.sleep( 50 );
+      }
+      assertNotNull( watched.getFile( "/public/d.txt" ) );
+
+      new File( folder.getRoot(), "public/sub/c.txt" ).delete();
+      timeout = System.currentTimeMillis() + 30000;
+      while ( watched.getFile( "/public/sub/c.txt" ) != null && System.currentTimeMillis() < timeout ) {
+        Thread.sleep( 50 );
+      }
+      assertNull( watched.getFile( "/public/sub/c.txt" ) );
+      assertFalse( watched.getTree( "/public", -1, "*", true ).getChildren().isEmpty() );
+    } finally {
+      watched.close();
+    }
+  }
+
+  private static void assertSameFile( RepositoryFile expected, RepositoryFile actual ) {
+    assertNotNull( actual );
+    assertEquals( expected.getId(), actual.getId() );
+    assertEquals( expected.getPath(), actual.getPath() );
+    assertEquals( expected.isFolder(), actual.isFolder() );
+    assertEquals( expected.getFileSize(), actual.getFileSize() );
+    assertEquals( expected.getLastModifiedDate(), actual.getLastModifiedDate() );
+  }
+
+  private static List<String> names( List<RepositoryFile> files ) {
+    List<String> names = new ArrayList<String>();
+    for ( RepositoryFile file : files ) {
+      names.add( file.getName() );
+    }
+    names.sort( null );
+    return names;
+  }
+
+  private void write( final String path, final String content ) throws IOException {
+    File file = new File( folder.getRoot(), path );
+    file.getParentFile().mkdirs();
+    Files.write( file.toPath(), content.getBytes( StandardCharsets.UTF_8 ) );
+  }
+}
@@ -0,0 +1,69 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.repository2.unified.jcr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import javax.jcr.ItemNotFoundException;
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class JcrPathCacheTest {
+
+  private JcrPathCache cache;
+  private Session session;
+  private Node node;
+
+  @Before
+  public void setUp() throws RepositoryException {
+    cache = new JcrPathCache( 10 );
+    session = mock( Session.class );
+    node = mock( Node.class );
+    when( node.getIdentifier() ).thenReturn( "id" );
+    when( node.getPath() ).thenReturn( "/pentaho/tenant0/public" );
+    when( session.getNodeByIdentifier( "id" ) ).thenReturn( node );
+  }
+
+  @Test
+  public void testCachedPathResolvesToNode() throws RepositoryException {
+    assertNull( cache.getNode( session, "/pentaho/tenant0/public" ) );
+    cache.put( "/pentaho/tenant0/public", node );
+    assertSame( node, cache.getNode( session, "/pentaho/tenant0/public" ) );
+    assertEquals( 1, cache.getStats().hitCount() );
+  }
+
+  @Test
+  public void testMovedNodeIsNotReturned() throws RepositoryException {
+    cache.put( "/pentaho/tenant0/public", node );
+    when( node.getPath() ).thenReturn( "/pentaho/tenant0/moved" );
+    assertNull( cache.getNode( session, "/pentaho/tenant0/public" ) );
+    assertEquals( 0, cache.size() );
+  }
+
+  @Test
+  public void testDeletedNodeIsNotReturned() throws RepositoryException {
+    cache.put( "/pentaho/tenant0/public", node );
+    when( session.getNodeByIdentifier( "id" ) ).thenThrow( new ItemNotFoundException() );
+    assertNull( cache.getNode( session, "/pentaho/tenant0/public" ) );
+    assertEquals( 0, cache.size() );
+  }
+}
@@ -34,14 +34,22 @@ import javax.jcr.Node;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.jcr.Workspace;
+import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.nullable;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class JcrRepositoryFileDaoTest {
@@ -52,6 +60,12 @@ public class JcrRepositoryFileDaoTest {
 
   private IPentahoSession pentahoSession;
 
+  private Session session;
+
+  private IDeleteHelper deleteHelper;
+
+  private IRepositoryFileAclDao aclDao;
+
   @Before
   public void setUp() throws RepositoryException {
     Node node = mock( Node.class );
@@ -64,7 +78,7 @@ public class JcrRepositoryFileDaoTest {
     VersionManagerImpl versionManager = mock( VersionManagerImpl.class );
     Workspace workspace = mock( Workspace.class );
     when( workspace.getVersionManager() ).thenReturn( versionManager );
-    Session session = mock( Session.class );
+    session = mock( Session.class );
     when( session.getWorkspace() ).thenReturn( workspace );
     when( session.getNodeByIdentifier( nullable( String.class) ) ).thenReturn( node );
     when( session.getItem( nullable( String.class) ) ).thenReturn( node );
@@ -87,9 +101,10 @@ public class JcrRepositoryFileDaoTest {
     };
     List<ITransformer<IRepositoryFileData>> transformerList = Collections.emptyList();
     IPathConversionHelper pathConversionHelper = new DefaultPathConversionHelper();
-    IRepositoryFileAclDao aclDao = mock( IRepositoryFileAclDao.class );
+    aclDao = mock( IRepositoryFileAclDao.class );
     accessVoterManager = mock( IRepositoryAccessVoterManager.class );
-    JcrRepositoryFileDao jcrDao = new JcrRepositoryFileDao( jcrTemplate, transformerList, null, null,
+    deleteHelper = mock( IDeleteHelper.class );
+    JcrRepositoryFileDao jcrDao = new JcrRepositoryFileDao( jcrTemplate, transformerList, null, deleteHelper,
       pathConversionHelper, aclDao, null, accessVoterManager );
     dao = spy( jcrDao );
   }
@@ -161,4 +176,89 @@ public class JcrRepositoryFileDaoTest {
       }
     }
   }
+
+  @Test
+  public void shouldDeletePermittedFilesInOneSave() throws RepositoryException {
+    RepositoryFile filePermitted = mock( RepositoryFile.class );
+    RepositoryFile fileNotPermitted = mock( RepositoryFile.class );
+    doReturn( filePermitted ).when( dao ).getFileById( "filePermitted" );
+    doReturn( fileNotPermitted ).when( dao ).getFileById( "fileNotPermitted" );
+    doReturn( true ).when( accessVoterManager )
+      .hasAccess( filePermitted, RepositoryFilePermission.DELETE, null, pentahoSession );
+    doReturn( false ).when( accessVoterManager )
+      .hasAccess( fileNotPermitted, RepositoryFilePermission.DELETE, null, pentahoSession );
+
+    assertEquals( 1, dao.permanentlyDeleteFiles( Arrays.<Serializable>asList( "filePermitted", "fileNotPermitted" ),
+      null ) );
+
+    verify( deleteHelper ).permanentlyDeleteFile( eq( session ), any( PentahoJcrConstants.class ),
+      eq( "filePermitted" ) );
+    verify( deleteHelper, never() ).permanentlyDeleteFile( any( Session.class ), any( PentahoJcrConstants.class ),
+      eq( "fileNotPermitted" ) );
+    verify( session, times( 1 ) ).save();
+  }
+
+  @Test
+  public void shouldDeleteFilesWithChunkedSaves() throws RepositoryException {
+    RepositoryFile file = mock( RepositoryFile.class );
+    doReturn( "/public/file" ).when( file ).getPath();
+    doReturn( file ).when( dao ).getFileById( any( Serializable.class ) );
+    doReturn( true ).when( accessVoterManager )
+      .hasAccess( file, RepositoryFilePermission.DELETE, null, pentahoSession );
+    doReturn( true ).when( aclDao ).hasAccess( eq( "/public/file" ), any() );
+    dao.setBatchSaveSize( 2 );
+
+    assertEquals( 3, dao.deleteFiles( Arrays.<Serializable>asList( "file1", "file2", "file3" ), null ) );
+
+    verify( deleteHelper, times( 3 ) ).deleteFile( eq( session ), any( PentahoJcrConstants.class ),
+      any( Serializable.class ) );
+    verify( session, times( 2 ) ).save();
+  }
+
+  @Test
+  public void shouldNotCountFilesSkippedByVoters() throws RepositoryException {
+    RepositoryFile filePermitted = mock( RepositoryFile.class );
+    doReturn( "/public/filePermitted" ).when( filePermitted ).getPath();
+    RepositoryFile fileNotPermitted = mock( RepositoryFile.class );
+    doReturn( filePermitted ).when( dao ).getFileById( "filePermitted" );
+    doReturn( fileNotPermitted ).when( dao ).getFileById( "fileNotPermitted" );
+    doReturn( true ).when( accessVoterManager )
+      .hasAccess( filePermitted, RepositoryFilePermission.DELETE, null, pentahoSession );
+    doReturn( false ).when( accessVoterManager )
+      .hasAccess( fileNotPermitted, RepositoryFilePermission.DELETE, null, pentahoSession );
+    doReturn( true ).when( aclDao ).hasAccess( eq( "/public/filePermitted" ), any() );
+
+    assertEquals( 1, dao.deleteFiles( Arrays.<Serializable>asList( "filePermitted", "fileNotPermitted" ), null ) );
+
+    verify( deleteHelper, never() ).deleteFile( any( Session.class ), any( PentahoJcrConstants.class ),
+      eq( "fileNotPermitted" ) );
+  }
+
+  @Test
+  public void shouldDeleteNoFileIfOneIsDenied() throws RepositoryException {
+    RepositoryFile file = mock( RepositoryFile.class );
+    doReturn( "/public/file" ).when( file ).getPath();
+    RepositoryFile fileDenied = mock( RepositoryFile.class );
+    doReturn( "/public/fileDenied" ).when( fileDenied ).getPath();
+    doReturn( file ).when( dao ).getFileById( any( Serializable.class ) );
+    doReturn( fileDenied ).when( dao ).getFileById( "fileDenied" );
+    doReturn( true ).when( accessVoterManager )
+      .hasAccess( file, RepositoryFilePermission.DELETE, null, pentahoSession );
+    doReturn( true ).when( accessVoterManager )
+      .hasAccess( fileDenied, RepositoryFilePermission.DELETE, null, pentahoSession );
+    doReturn( true ).when( aclDao ).hasAccess( eq( "/public/file" ), any() );
+    doReturn( false ).when( aclDao ).hasAccess( eq( "/public/fileDenied" ), any() );
+    dao.setBatchSaveSize( 2 );
+
+    try {
+      dao.deleteFiles( Arrays.<Serializable>asList( "file1", "file2", "file3", "fileDenied" ), null );
+      fail();
+    } catch ( RuntimeException expected ) {
+      // the denied file is reported
+    }
+    // nothing was deleted, so no earlier batch was saved
+    verify( deleteHelper, never() ).deleteFile( any( Session.class ), any( PentahoJcrConstants.class ),
+      any( Serializable.class ) );
+    verify( session, never() ).save();
+  }
 }
@@ -0,0 +1,158 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.repository2.unified.jcr;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.Property;
+import javax.jcr.PropertyIterator;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Value;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class LocalePropertiesCacheTest {
+
+  private LocalePropertiesCache cache;
+  private Session session;
+  private PentahoJcrConstants pentahoJcrConstants;
+  private Node node;
+  private Node localesNode;
+
+  @Before
+  public void setUp() throws RepositoryException {
+    cache = new LocalePropertiesCache( 10, 60 );
+    session = mock( Session.class );
+    when( session.getNamespacePrefix( PentahoJcrConstants.PHO_NS ) ).thenReturn( "pho" );
+    pentahoJcrConstants = mock( PentahoJcrConstants.class );
+    when( pentahoJcrConstants.getPHO_LOCALES() ).thenReturn( "pho:locales" );
+
+    Node localeNode = mock( Node.class );
+    when( localeNode.getName() ).thenReturn( LocalizationUtil.DEFAULT );
+    when( localeNode.getProperties() ).thenAnswer( invocation -> properties(
+      property( "file.title", "Sales" ), property( "file.description", "Sales report" ) ) );
+    localesNode = mock( Node.class );
+    when( localesNode.getNodes() ).thenAnswer( invocation -> {
+      NodeIterator nodes = mock( NodeIterator.class );
+      when( nodes.hasNext() ).thenReturn( true, false );
+      when( nodes.nextNode() ).thenReturn( localeNode );
+      return nodes;
+    } );
+
+    node = mock( Node.class );
+    when( node.getIdentifier() ).thenReturn( "id" );
+    when( node.hasNode( "pho:locales" ) ).thenReturn( true );
+    when( node.getNode( "pho:locales" ) ).thenReturn( localesNode );
+  }
+
+  @Test
+  public void testResolvedTitleIsCached() throws RepositoryException {
+    assertArrayEquals( new String[] { "Sales", "Sales report" },
+      cache.getTitleAndDescription( session, pentahoJcrConstants, node, "sales.prpt", Locale.FRENCH ) );
+    assertArrayEquals( new String[] { "Sales", "Sales report" },
+      cache.getTitleAndDescription( session, pentahoJcrConstants, node, "sales.prpt", Locale.GERMAN ) );
+    assertEquals( "Sales",
+      cache.getLocalePropertiesMap( session, pentahoJcrConstants, node ).get( "default" ).get( "file.title" ) );
+
+    verify( localesNode, times( 1 ) ).getNodes();
+    assertEquals( 2, cache.getStats().hitCount() );
+  }
+
+  @Test
+  public void testReturnedMapIsACopy() throws RepositoryException {
+    Map<String, Properties> map = cache.getLocalePropertiesMap( session, pentahoJcrConstants, node );
+    map.get( "default" ).setProperty( "file.title", "changed" );
+    map.remove( "default" );
+    assertEquals( "Sales",
+      cache.getLocalePropertiesMap( session, pentahoJcrConstants, node ).get( "default" ).get( "file.title" ) );
+  }
+
+  @Test
+  public void testInvalidate() throws RepositoryException {
+    cache.getTitleAndDescription( session, pentahoJcrConstants, node, "sales.prpt", Locale.FRENCH );
+    cache.invalidate( "id" );
+    cache.getTitleAndDescription( session, pentahoJcrConstants, node, "sales.prpt", Locale.FRENCH );
+    verify( localesNode, times( 2 ) ).getNodes();
+  }
+
+  @Test
+  public void testInvalidatedAgainWhenTransactionCompletes() throws RepositoryException {
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      cache.invalidate( "id" );
+      // read by another session before the change is committed
+      cache.getTitleAndDescription( session, pentahoJcrConstants, node, "sales.prpt", Locale.FRENCH );
+      for ( TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations() ) {
+        synchronization.afterCompletion( TransactionSynchronization.STATUS_COMMITTED );
+      }
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+    cache.getTitleAndDescription( session, pentahoJcrConstants, node, "sales.prpt", Locale.FRENCH );
+    verify( localesNode, times( 2 ) ).getNodes();
+  }
+
+  @Test
+  public void testUnsavedChangesAreNotCached() throws RepositoryException {
+    when( session.hasPendingChanges() ).thenReturn( true );
+    cache.getTitleAndDescription( session, pentahoJcrConstants, node, "sales.prpt", Locale.FRENCH );
+    assertEquals( 0, cache.size() );
+  }
+
+  @Test
+  public void testNodeWithoutLocales() throws RepositoryException {
+    when( node.hasNode( "pho:locales" ) ).thenReturn( false );
+    assertNull( cache.getTitleAndDescription( session, pentahoJcrConstants, node, "sales.prpt", Locale.FRENCH ) );
+    assertNull( cache.getLocalePropertiesMap( session, pentahoJcrConstants, node ) );
+    assertEquals( 1, cache.size() );
+  }
+
+  private static Property property( String name, String value ) throws RepositoryException {
+    Property property = mock( Property.class );
+    Value jcrValue = mock( Value.class );
+    when( jcrValue.getString() ).thenReturn( value );
+    when( property.getName() ).thenReturn( name );
+    when( property.getValue() ).thenReturn( jcrValue );
+    return property;
+  }
+
+  private static PropertyIterator properties( Property... properties ) {
+    PropertyIterator iterator = mock( PropertyIterator.class );
+    Boolean[] more = new Boolean[ properties.length ];
+    for ( int i = 0; i < more.length; i++ ) {
+      more[ i ] = i < more.length - 1;
+    }
+    when( iterator.hasNext() ).thenReturn( true, more );
+    when( iterator.nextProperty() ).thenReturn( properties[ 0 ], Arrays.copyOfRange( properties, 1,
+      properties.length ) );
+    return iterator;
+  }
+}
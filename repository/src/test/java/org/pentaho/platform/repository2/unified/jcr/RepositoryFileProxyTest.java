@@ -13,27 +13,40 @@
 
 package org.pentaho.platform.repository2.unified.jcr;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Properties;
 
 import static org.mockito.Mockito.spy;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doReturn;
 
 import javax.jcr.Node;
+import javax.jcr.Property;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.pentaho.platform.api.locale.IPentahoLocale;
 import org.pentaho.platform.api.repository2.unified.RepositoryFile;
+import org.pentaho.platform.api.repository2.unified.RepositoryRequest;
 import org.pentaho.platform.repository2.locale.PentahoLocale;
+import org.pentaho.platform.util.trace.RequestTracer;
+import org.springframework.extensions.jcr.JcrCallback;
 import org.springframework.extensions.jcr.JcrTemplate;
 
 public class RepositoryFileProxyTest {
@@ -82,4 +95,81 @@ public class RepositoryFileProxyTest {
     assertFalse( repoFileProxySpy.isSchedulable() );
   }
 
+  @After
+  public void tearDown() {
+    RequestTracer.setInstance( null );
+  }
+
+  @Test
+  public void testPrefetchReadsDeclaredMembersWhileSessionIsOpen() throws RepositoryException {
+    Property property = mock( Property.class );
+    when( property.getBoolean() ).thenReturn( true );
+    when( nodeMock.hasProperty( anyString() ) ).thenReturn( true );
+    when( nodeMock.getProperty( anyString() ) ).thenReturn( property );
+    metadata.put( RepositoryFile.SCHEDULABLE_KEY, "false" );
+    Map<String, Properties> locales = new HashMap<>();
+    doReturn( locales ).when( repoFileProxySpy ).getLocalePropertiesMap();
+    RequestTracer tracer = new RequestTracer( 1, 10 );
+    RequestTracer.setInstance( tracer );
+
+    RepositoryRequest request = new RepositoryRequest();
+    request.setIncludeMemberSet( new HashSet<>( Arrays.asList( "hidden", "aclNode", "schedulable", "locales" ) ) );
+    try ( RequestTracer.Span span = RequestTracer.startRequest( "list", null, "GET /children" ) ) {
+      repoFileProxySpy.prefetch( request );
+    }
+    assertEquals( 0, tracer.getCount( "GET /children", RepositoryFileProxy.LAZY_LOAD_EVENT ) );
+    verify( repoFileProxySpy ).getLocalePropertiesMap();
+
+    // the session is closed once the files have been listed
+    when( sessionMock.isLive() ).thenReturn( false );
+    try ( RequestTracer.Span span = RequestTracer.startRequest( "marshal", null, "GET /children" ) ) {
+      assertTrue( repoFileProxySpy.isHidden() );
+      assertTrue( repoFileProxySpy.isAclNode() );
+      assertFalse( repoFileProxySpy.isSchedulable() );
+      verify( templateMock, never() ).execute( any( JcrCallback.class ) );
+      // a member that was not declared is read in a new session, counted against the request
+      repoFileProxySpy.getCreatedDate();
+    }
+    assertEquals( 1, tracer.getCount( "GET /children", RepositoryFileProxy.LAZY_LOAD_EVENT ) );
+    assertEquals( 1, tracer.getCount( "GET /children", RepositoryFileProxy.SESSION_LOAD_EVENT ) );
+  }
+
+  @Test
+  public void testPrefetchWithoutDeclaredMembersReadsNothing() {
+    // internal listings are not marshaled, so they must not read every file eagerly
+    repoFileProxySpy.prefetch( new RepositoryRequest() );
+    verify( repoFileProxySpy, never() ).getId();
+    verify( repoFileProxySpy, never() ).isHidden();
+  }
+
+  @Test
+  public void testOptInPrefetchWithoutDeclaredMembersReadsAllMembers() {
+    doReturn( "id" ).when( repoFileProxySpy ).getId();
+    doReturn( "file.txt" ).when( repoFileProxySpy ).getName();
+    doReturn( "/file.txt" ).when( repoFileProxySpy ).getPath();
+    doReturn( false ).when( repoFileProxySpy ).isHidden();
+    doReturn( false ).when( repoFileProxySpy ).isAclNode();
+    doReturn( null ).when( repoFileProxySpy ).getCreatedDate();
+    doReturn( null ).when( repoFileProxySpy ).getCreatorId();
+    doReturn( true ).when( repoFileProxySpy ).isSchedulable();
+    doReturn( 0L ).when( repoFileProxySpy ).getFileSize();
+    doReturn( false ).when( repoFileProxySpy ).isFolder();
+    doReturn( null ).when( repoFileProxySpy ).getLastModifiedDate();
+    doReturn( false ).when( repoFileProxySpy ).isLocked();
+    doReturn( null ).when( repoFileProxySpy ).getLockDate();
+    doReturn( null ).when( repoFileProxySpy ).getLockMessage();
+    doReturn( null ).when( repoFileProxySpy ).getLockOwner();
+    doReturn( null ).when( repoFileProxySpy ).getVersionId();
+    doReturn( null ).when( repoFileProxySpy ).getLocalePropertiesMap();
+
+    RepositoryRequest request = new RepositoryRequest();
+    request.setPrefetch( true );
+    repoFileProxySpy.prefetch( request );
+    verify( repoFileProxySpy ).isHidden();
+    verify( repoFileProxySpy ).getCreatorId();
+    verify( repoFileProxySpy ).isSchedulable();
+    verify( repoFileProxySpy ).getLockOwner();
+    verify( repoFileProxySpy ).getLocalePropertiesMap();
+  }
+
 }
@@ -0,0 +1,212 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.repository2.unified.jcr.sejcr;
+
+import com.google.common.base.Ticker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.jcr.Credentials;
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.SimpleCredentials;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.pentaho.platform.repository2.unified.jcr.sejcr.GuavaCachePoolPentahoJcrSessionFactory.USAGE_COUNT;
+
+public class GuavaCachePoolPentahoJcrSessionFactoryTest {
+
+  private long nanos;
+  private Repository repository;
+  private List<Session> sessions;
+  private List<String> loginAuthentications;
+
+  @Before
+  public void setUp() throws RepositoryException {
+    nanos = 0;
+    sessions = new ArrayList<>();
+    loginAuthentications = new ArrayList<>();
+    repository = mock( Repository.class );
+    when( repository.login( any( Credentials.class ), nullable( String.class ) ) ).thenAnswer( invocation -> {
+      Session session = mock( Session.class );
+      AtomicInteger usageCount = new AtomicInteger( 0 );
+      when( session.isLive() ).thenReturn( true );
+      when( session.getAttribute( USAGE_COUNT ) ).thenReturn( usageCount );
+      synchronized ( sessions ) {
+        sessions.add( session );
+        loginAuthentications.add( SecurityContextHolder.getContext().getAuthentication() == null ? null
+          : SecurityContextHolder.getContext().getAuthentication().getName() );
+      }
+      return session;
+    } );
+  }
+
+  @After
+  public void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  public void testSessionsAreCachedPerThread() throws Exception {
+    GuavaCachePoolPentahoJcrSessionFactory factory = factory( 10, 0, 0 );
+    Session session = factory.getSession( creds( "joe" ) );
+    assertSame( session, factory.getSession( creds( "joe" ) ) );
+    assertNotSame( session, getSessionInThread( factory, "joe" ) );
+
+    assertEquals( 2, factory.getCreationCount() );
+    assertEquals( 1, factory.getStats().hitCount() );
+    assertEquals( 2, factory.getStats().missCount() );
+  }
+
+  @Test
+  public void testDeadSessionIsReplaced() throws Exception {
+    GuavaCachePoolPentahoJcrSessionFactory factory = factory( 10, 0, 0 );
+    Session session = factory.getSession( creds( "joe" ) );
+    when( session.isLive() ).thenReturn( false );
+
+    assertNotSame( session, factory.getSession( creds( "joe" ) ) );
+    assertEquals( 1, factory.getDeadSessionCount() );
+    verify( session, never() ).logout();
+  }
+
+  @Test
+  public void testEvictedSessionIsLoggedOutOnceReleased() throws Exception {
+    GuavaCachePoolPentahoJcrSessionFactory factory = factory( 1, 0, 0 );
+    Session session = factory.getSession( creds( "joe" ) );
+    AtomicInteger usageCount = (AtomicInteger) session.getAttribute( USAGE_COUNT );
+    usageCount.incrementAndGet();
+
+    factory.getSession( creds( "suzy" ) );
+    assertEquals( 1, factory.getOrphanCount() );
+
+    nanos += TimeUnit.SECONDS.toNanos( 2 );
+    factory.maintain();
+    verify( session, never() ).logout();
+
+    usageCount.decrementAndGet();
+    factory.maintain();
+    verify( session ).logout();
+  }
+
+  @Test
+  public void testSessionsPerUserAreBounded() throws Exception {
+    GuavaCachePoolPentahoJcrSessionFactory factory = factory( 10, 1, 0 );
+    Session session = factory.getSession( creds( "joe" ) );
+    getSessionInThread( factory, "joe" );
+
+    nanos += TimeUnit.SECONDS.toNanos( 2 );
+    factory.maintain();
+    verify( session ).logout();
+    assertNotSame( session, factory.getSession( creds( "joe" ) ) );
+  }
+
+  @Test
+  public void testFrequentPrincipalIsKeptWarm() throws Exception {
+    GuavaCachePoolPentahoJcrSessionFactory factory = factory( 10, 0, 1 );
+    getSessionInThread( factory, "joe" );
+    getSessionInThread( factory, "joe" );
+    getSessionInThread( factory, "suzy" );
+
+    factory.maintain();
+    assertEquals( 4, sessions.size() );
+    // the spare session is logged in with the authentication of the principal, not of the maintenance thread
+    assertEquals( "joe", loginAuthentications.get( 3 ) );
+
+    assertSame( sessions.get( 3 ), getSessionInThread( factory, "joe" ) );
+    assertEquals( 1, factory.getWarmHitCount() );
+    assertEquals( 4, factory.getCreationCount() );
+  }
+
+  @Test
+  public void testDestroyLogsOutAllSessions() throws Exception {
+    GuavaCachePoolPentahoJcrSessionFactory factory = factory( 10, 0, 1 );
+    getSessionInThread( factory, "joe" );
+    getSessionInThread( factory, "joe" );
+    getSessionInThread( factory, "suzy" );
+    factory.maintain();
+    assertEquals( 4, sessions.size() );
+
+    factory.destroy();
+    for ( Session session : sessions ) {
+      verify( session ).logout();
+    }
+  }
+
+  @Test
+  public void testSnapshotPublishesCounters() throws Exception {
+    GuavaCachePoolPentahoJcrSessionFactory factory = factory( 10, 0, 0 );
+    factory.getSession( creds( "joe" ) );
+    factory.getSession( creds( "joe" ) );
+
+    Map<String, Object> snapshot = factory.getSnapshot();
+    assertEquals( 1L, snapshot.get( "size" ) );
+    assertEquals( 1L, snapshot.get( "hits" ) );
+    assertEquals( 1L, snapshot.get( "misses" ) );
+    assertEquals( 1L, snapshot.get( "creations" ) );
+    assertEquals( 0L, snapshot.get( "orphans" ) );
+  }
+
+  private GuavaCachePoolPentahoJcrSessionFactory factory( int cacheSize, int cacheSizePerUser, int warmupSize ) {
+    return new GuavaCachePoolPentahoJcrSessionFactory( repository, null, 300, cacheSize, cacheSizePerUser, warmupSize,
+      new Ticker() {
+        @Override
+        public long read() {
+          return nanos;
+        }
+      } );
+  }
+
+  private static SimpleCredentials creds( String userId ) {
+    return new SimpleCredentials( userId, "password".toCharArray() );
+  }
+
+  private static Session getSessionInThread( GuavaCachePoolPentahoJcrSessionFactory factory, String userId )
+    throws Exception {
+    AtomicReference<Object> result = new AtomicReference<>();
+    Thread thread = new Thread( () -> {
+      SecurityContextHolder.getContext().setAuthentication( new UsernamePasswordAuthenticationToken( userId, null ) );
+      try {
+        result.set( factory.getSession( creds( userId ) ) );
+      } catch ( RepositoryException e ) {
+        result.set( e );
+      } finally {
+        SecurityContextHolder.clearContext();
+      }
+    } );
+    thread.start();
+    thread.join();
+    if ( result.get() instanceof Exception ) {
+      throw (Exception) result.get();
+    }
+    return (Session) result.get();
+  }
+}
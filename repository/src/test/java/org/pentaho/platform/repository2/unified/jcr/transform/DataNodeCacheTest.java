@@ -0,0 +1,87 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.repository2.unified.jcr.transform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.api.repository2.unified.data.node.DataNode;
+import org.pentaho.platform.api.repository2.unified.data.node.DataNodeRef;
+
+public class DataNodeCacheTest {
+
+  private DataNodeCache cache;
+
+  @Before
+  public void setUp() {
+    cache = new DataNodeCache( 100 );
+  }
+
+  @Test
+  public void testCopiesTrees() {
+    DataNode tree = tree( "transformation", 3 );
+    cache.put( "id", 1L, tree );
+    tree.setProperty( "name", "changed" );
+
+    DataNode first = cache.get( "id", 1L );
+    DataNode second = cache.get( "id", 1L );
+    assertEquals( tree( "transformation", 3 ), first );
+    assertNotSame( first, second );
+    assertNotSame( first.getNode( "step0" ), second.getNode( "step0" ) );
+
+    first.getNode( "step0" ).setProperty( "type", "changed" );
+    assertEquals( "TableInput", cache.get( "id", 1L ).getNode( "step0" ).getProperty( "type" ).getString() );
+  }
+
+  @Test
+  public void testChangedStampMisses() {
+    cache.put( "id", 1L, tree( "transformation", 1 ) );
+    assertNull( cache.get( "id", 2L ) );
+    assertNull( cache.get( "id", 1L ) );
+    assertNull( cache.get( "other", 1L ) );
+  }
+
+  @Test
+  public void testBoundedByNodesAndProperties() {
+    cache.put( "small", 1L, tree( "small", 1 ) );
+    cache.put( "big", 1L, tree( "big", 50 ) );
+    assertNull( cache.get( "big", 1L ) );
+    assertFalse( cache.get( "small", 1L ) == null );
+
+    cache.invalidate( "small" );
+    assertEquals( 0, cache.size() );
+  }
+
+  private static DataNode tree( String name, int steps ) {
+    DataNode root = new DataNode( name );
+    root.setId( name + "-id" );
+    root.setProperty( "name", name );
+    root.setProperty( "created", new Date( 0 ) );
+    root.setProperty( "connection", new DataNodeRef( "connection-id" ) );
+    for ( int i = 0; i < steps; i++ ) {
+      DataNode step = root.addNode( "step" + i );
+      step.setId( "step-id" + i );
+      step.setProperty( "type", "TableInput" );
+      step.setProperty( "copies", 1L );
+      step.setProperty( "distribute", true );
+    }
+    return root;
+  }
+}
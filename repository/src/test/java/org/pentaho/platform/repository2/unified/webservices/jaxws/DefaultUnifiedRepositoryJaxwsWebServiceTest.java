@@ -0,0 +1,68 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.repository2.unified.webservices.jaxws;
+
+import junit.framework.TestCase;
+import org.pentaho.platform.api.repository2.unified.IUnifiedRepository;
+import org.pentaho.platform.api.repository2.unified.RepositoryFile;
+import org.pentaho.platform.api.repository2.unified.data.simple.SimpleRepositoryFileData;
+import org.pentaho.platform.api.repository2.unified.webservices.RepositoryFileAclDto;
+import org.pentaho.platform.api.repository2.unified.webservices.RepositoryFileDto;
+import org.pentaho.test.platform.repository2.unified.MockUnifiedRepository;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class DefaultUnifiedRepositoryJaxwsWebServiceTest extends TestCase {
+  private IUnifiedRepository repository;
+  private IUnifiedRepositoryJaxwsWebService repositoryWS;
+
+  public void setUp() throws Exception {
+    repository = new MockUnifiedRepository( new MockUnifiedRepository.ICurrentUserProvider() {
+      @Override
+      public String getUser() {
+        return MockUnifiedRepository.root().getName();
+      }
+
+      @Override
+      public List<String> getRoles() {
+        return new ArrayList<String>();
+      }
+    } );
+    repositoryWS = new DefaultUnifiedRepositoryJaxwsWebService( repository );
+  }
+
+  public void testGetFilesAndAclsInBatch() throws Exception {
+    RepositoryFile first = createFile( "first" );
+    RepositoryFile second = createFile( "second" );
+    List<String> ids = Arrays.asList( first.getId().toString(), "missing", second.getId().toString() );
+
+    List<RepositoryFileDto> files = repositoryWS.getFilesByIdInBatch( ids );
+    assertEquals( 2, files.size() );
+    assertEquals( "first", files.get( 0 ).getName() );
+    assertEquals( second.getId().toString(), files.get( 1 ).getId() );
+
+    List<RepositoryFileAclDto> acls = repositoryWS.getAclInBatch( ids );
+    assertEquals( 2, acls.size() );
+    assertEquals( first.getId().toString(), acls.get( 0 ).getId() );
+    assertEquals( second.getId().toString(), acls.get( 1 ).getId() );
+  }
+
+  private RepositoryFile createFile( String name ) {
+    return repository.createFile( repository.getFile( "/etc" ).getId(), new RepositoryFile.Builder( name ).build(),
+      new SimpleRepositoryFileData( new ByteArrayInputStream( "test".getBytes() ), "UTF-8", "text/plain" ), null );
+  }
+}
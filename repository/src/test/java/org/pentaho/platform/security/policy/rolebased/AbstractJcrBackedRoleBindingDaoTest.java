@@ -14,13 +14,16 @@
 package org.pentaho.platform.security.policy.rolebased;
 
 import org.junit.Test;
+import org.pentaho.platform.api.engine.IAuthorizationAction;
 import org.pentaho.platform.api.engine.ICacheManager;
 import org.pentaho.platform.api.engine.IPentahoRegistrableObjectFactory;
 import org.pentaho.platform.api.mt.ITenant;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 
+import java.util.Collections;
 import java.util.List;
 
+import static org.junit.Assert.assertNotEquals;
 import static org.mockito.Mockito.*;
 
 /**
@@ -38,6 +41,17 @@ public class AbstractJcrBackedRoleBindingDaoTest {
     verify( cm, times( 1 ) ).addCacheRegion( "roleBindingCache");
   }
 
+  @Test
+  public void testRoleBindingsVersionChangesWithAuthorizationActions() throws Exception {
+    ICacheManager cm = mock( ICacheManager.class );
+    PentahoSystem.registerObject( cm, IPentahoRegistrableObjectFactory.Types.INTERFACES );
+
+    AbstractJcrBackedRoleBindingDao dao = new AbstractJcrBackedRoleBindingDaoImpl();
+    long version = dao.getRoleBindingsVersion();
+    dao.setAuthorizationActions( Collections.<IAuthorizationAction>emptyList() );
+    assertNotEquals( version, dao.getRoleBindingsVersion() );
+  }
+
   private static class AbstractJcrBackedRoleBindingDaoImpl extends AbstractJcrBackedRoleBindingDao {
     @Override public RoleBindingStruct getRoleBindingStruct( String locale ) {
       return null;
@@ -0,0 +1,151 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.platform.security.policy.rolebased;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.platform.api.engine.IPentahoSession;
+import org.pentaho.platform.engine.core.system.PentahoSessionHolder;
+import org.pentaho.platform.engine.core.system.StandaloneSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+public class RoleAuthorizationPolicyTest {
+
+  private IRoleAuthorizationPolicyRoleBindingDao dao;
+
+  private RoleAuthorizationPolicy policy;
+
+  @Before
+  public void setUp() {
+    dao = mock( IRoleAuthorizationPolicyRoleBindingDao.class,
+        withSettings().extraInterfaces( IRoleBindingChangeTracker.class ) );
+    when( dao.getBoundLogicalRoleNames( anyList() ) ).thenReturn(
+        Arrays.asList( "org.pentaho.repository.read", "org.pentaho.repository.create" ) );
+    policy = new RoleAuthorizationPolicy( dao );
+  }
+
+  @After
+  public void tearDown() {
+    SecurityContextHolder.clearContext();
+    PentahoSessionHolder.removeSession();
+  }
+
+  @Test
+  public void testDecisions() {
+    authenticate( "Authenticated", "Power User" );
+    assertTrue( policy.isAllowed( "org.pentaho.repository.read" ) );
+    assertFalse( policy.isAllowed( "org.pentaho.security.administerSecurity" ) );
+    assertFalse( policy.isAllowed( null ) );
+    assertEquals( Arrays.asList( "org.pentaho.repository.read", "org.pentaho.repository.create" ),
+        policy.getAllowedActions( "org.pentaho.repository" ) );
+    assertTrue( policy.getAllowedActions( "org.pentaho.security" ).isEmpty() );
+  }
+
+  @Test
+  public void testDecisionsAreCompiledOncePerRoleSet() {
+    authenticate( "Authenticated", "Power User" );
+    for ( int i = 0; i < 10000; i++ ) {
+      assertTrue( policy.isAllowed( "org.pentaho.repository.read" ) );
+    }
+    authenticate( "Power User", "Authenticated" );
+    assertTrue( policy.isAllowed( "org.pentaho.repository.create" ) );
+    verify( dao, times( 1 ) ).getBoundLogicalRoleNames( anyList() );
+    assertEquals( 10000, policy.getDecisionCacheStats().hitCount() );
+
+    authenticate( "Authenticated" );
+    assertTrue( policy.isAllowed( "org.pentaho.repository.create" ) );
+    verify( dao, times( 2 ) ).getBoundLogicalRoleNames( anyList() );
+  }
+
+  @Test
+  public void testDecisionsAreCompiledPerTenant() {
+    authenticate( "Authenticated" );
+    enterTenant( "/pentaho/tenant0" );
+    assertTrue( policy.isAllowed( "org.pentaho.repository.read" ) );
+
+    when( dao.getBoundLogicalRoleNames( anyList() ) ).thenReturn( Arrays.asList( "org.pentaho.scheduler.manage" ) );
+    enterTenant( "/pentaho/tenant1" );
+    assertFalse( policy.isAllowed( "org.pentaho.repository.read" ) );
+    assertTrue( policy.isAllowed( "org.pentaho.scheduler.manage" ) );
+
+    enterTenant( "/pentaho/tenant0" );
+    assertTrue( policy.isAllowed( "org.pentaho.repository.read" ) );
+    verify( dao, times( 2 ) ).getBoundLogicalRoleNames( anyList() );
+  }
+
+  @Test
+  public void testDecisionsAreRecompiledWhenBindingsChange() {
+    authenticate( "Authenticated" );
+    assertFalse( policy.isAllowed( "org.pentaho.scheduler.manage" ) );
+
+    when( dao.getBoundLogicalRoleNames( anyList() ) ).thenReturn( Arrays.asList( "org.pentaho.scheduler.manage" ) );
+    when( ( (IRoleBindingChangeTracker) dao ).getRoleBindingsVersion() ).thenReturn( 1L );
+    assertTrue( policy.isAllowed( "org.pentaho.scheduler.manage" ) );
+    assertFalse( policy.isAllowed( "org.pentaho.repository.read" ) );
+    verify( dao, times( 2 ) ).getBoundLogicalRoleNames( anyList() );
+  }
+
+  @Test
+  public void testDecisionsAreNotCachedWithoutChangeTracking() {
+    IRoleAuthorizationPolicyRoleBindingDao untracked = mock( IRoleAuthorizationPolicyRoleBindingDao.class );
+    when( untracked.getBoundLogicalRoleNames( anyList() ) ).thenReturn( Arrays.asList( "org.pentaho.repository.read" ) );
+    policy = new RoleAuthorizationPolicy( untracked );
+    authenticate( "Authenticated" );
+    assertTrue( policy.isAllowed( "org.pentaho.repository.read" ) );
+    assertTrue( policy.isAllowed( "org.pentaho.repository.read" ) );
+    verify( untracked, times( 2 ) ).getBoundLogicalRoleNames( anyList() );
+  }
+
+  @Test
+  public void testDisabledDecisionCache() {
+    policy.setDecisionCacheTimeToLive( 0 );
+    authenticate( "Authenticated" );
+    assertTrue( policy.isAllowed( "org.pentaho.repository.read" ) );
+    assertTrue( policy.isAllowed( "org.pentaho.repository.read" ) );
+    verify( dao, times( 2 ) ).getBoundLogicalRoleNames( anyList() );
+  }
+
+  private static void enterTenant( String tenantId ) {
+    StandaloneSession session = new StandaloneSession( "joe" );
+    session.setAttribute( IPentahoSession.TENANT_ID_KEY, tenantId );
+    PentahoSessionHolder.setSession( session );
+  }
+
+  private static void authenticate( String... roles ) {
+    List<GrantedAuthority> authorities = new ArrayList<GrantedAuthority>();
+    for ( String role : roles ) {
+      authorities.add( new SimpleGrantedAuthority( role ) );
+    }
+    SecurityContextHolder.getContext().setAuthentication(
+        new UsernamePasswordAuthenticationToken( "joe", null, authorities ) );
+  }
+}
@@ -13,7 +13,7 @@
 
 package org.pentaho.platform.security.userroledao.jackrabbit;
 
-import org.apache.commons.collections.map.LRUMap;
+import com.google.common.cache.Cache;
 import org.apache.commons.io.FileUtils;
 import org.apache.jackrabbit.api.security.user.User;
 import org.apache.jackrabbit.core.SessionImpl;
@@ -42,16 +42,24 @@ import java.io.File;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static junit.framework.TestCase.assertNull;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.atMost;
 import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.nullable;
@@ -208,7 +216,7 @@ public class AbstractJcrBackedUserRoleDaoTest {
     when( abstractJcrBackedUserRoleDaoMock.isUseJackrabbitUserCache() ).thenReturn( true );
 
     //Cache mocking
-    LRUMap cacheMock = mock( LRUMap.class );
+    Cache<String, IPentahoUser> cacheMock = mock( Cache.class );
     when( abstractJcrBackedUserRoleDaoMock.getUserCache() ).thenReturn( cacheMock );
 
     User userMock = mock( User.class );
@@ -226,13 +234,61 @@ public class AbstractJcrBackedUserRoleDaoTest {
     when( abstractJcrBackedUserRoleDaoMock.getTenantedUserNameUtils() ).thenReturn( resolverMock );
 
     //Cache mocking
-    LRUMap cacheMock = mock( LRUMap.class );
+    Cache<String, IPentahoUser> cacheMock = mock( Cache.class );
     when( abstractJcrBackedUserRoleDaoMock.getUserCache() ).thenReturn( cacheMock );
 
     User userMock = mock( User.class );
     abstractJcrBackedUserRoleDaoMock.convertToPentahoUser( userMock );
 
-    verify( cacheMock, never() ).put( any(), anyString() );
+    verify( cacheMock, never() ).put( any(), any() );
+  }
+
+  @Test
+  public void testConvertToPentahoUserConcurrentLookupsHitCache() throws Exception {
+    final AbstractJcrBackedUserRoleDao userRoleDao = mock( AbstractJcrBackedUserRoleDao.class );
+    doCallRealMethod().when( userRoleDao ).convertToPentahoUser( nullable( User.class ) );
+    doCallRealMethod().when( userRoleDao ).initUserCache();
+    doCallRealMethod().when( userRoleDao ).getUserCache();
+    doCallRealMethod().when( userRoleDao ).getUserCacheStats();
+    doCallRealMethod().when( userRoleDao ).setUserCacheMaxSize( 100 );
+    doCallRealMethod().when( userRoleDao ).setUserCacheTimeToLive( 60 );
+    when( userRoleDao.isUseJackrabbitUserCache() ).thenReturn( true );
+    when( userRoleDao.getTenantedUserNameUtils() ).thenReturn( mock( ITenantedPrincipleNameResolver.class ) );
+    userRoleDao.setUserCacheMaxSize( 100 );
+    userRoleDao.setUserCacheTimeToLive( 60 );
+    userRoleDao.initUserCache();
+
+    final User userMock = mock( User.class );
+    when( userMock.getID() ).thenReturn( TEST_USER_NAME );
+
+    int threads = 8;
+    final int lookups = 500;
+    ExecutorService executor = Executors.newFixedThreadPool( threads );
+    try {
+      List<Future<IPentahoUser>> results = new ArrayList<>();
+      for ( int i = 0; i < threads; i++ ) {
+        results.add( executor.submit( new Callable<IPentahoUser>() {
+          @Override
+          public IPentahoUser call() throws Exception {
+            IPentahoUser user = null;
+            for ( int j = 0; j < lookups; j++ ) {
+              user = userRoleDao.convertToPentahoUser( userMock );
+            }
+            return user;
+          }
+        } ) );
+      }
+      for ( Future<IPentahoUser> result : results ) {
+        assertThat( result.get(), is( notNullValue() ) );
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals( threads * lookups, userRoleDao.getUserCacheStats().requestCount() );
+    assertThat( userRoleDao.getUserCacheStats().missCount(), lessThanOrEqualTo( (long) threads ) );
+    // only cache misses read the user from the repository
+    verify( userMock, atMost( threads ) ).getCredentials();
   }
 
 
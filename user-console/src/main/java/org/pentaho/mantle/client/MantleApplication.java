@@ -53,6 +53,8 @@ import org.pentaho.mantle.client.solutionbrowser.SolutionBrowserPanel;
 import org.pentaho.mantle.client.ui.PerspectiveManager;
 import org.pentaho.mantle.client.ui.UserDropDown;
 import org.pentaho.mantle.client.ui.xul.MantleXul;
+import org.pentaho.mantle.client.usersettings.BootstrapManager;
+import org.pentaho.mantle.client.usersettings.JsBootstrap;
 import org.pentaho.mantle.client.usersettings.JsSetting;
 import org.pentaho.mantle.client.usersettings.MantleSettingsManager;
 import org.pentaho.mantle.client.usersettings.UserSettingsManager;
@@ -382,6 +384,32 @@ public class MantleApplication implements UserSettingsLoadedEventHandler, Mantle
     String submitOnEnterSetting = settings.get( "submit-on-enter-key" );
     submitOnEnter = submitOnEnterSetting == null ? submitOnEnter : Boolean.parseBoolean( submitOnEnterSetting );
 
+    // served by the bootstrap request when available
+    BootstrapManager.getInstance().getBootstrap( new AsyncCallback<JsBootstrap>() {
+      public void onSuccess( JsBootstrap bootstrap ) {
+        if ( bootstrap != null && bootstrap.hasCanAdminister() ) {
+          onAdministratorLoaded( bootstrap.canAdminister(), settings );
+        } else {
+          fetchAdministrator( settings );
+        }
+      }
+
+      public void onFailure( Throwable caught ) {
+        fetchAdministrator( settings );
+      }
+    } );
+
+    if ( !StringUtils.isEmpty( startupPerspective ) ) {
+      if ( PerspectiveManager.getInstance().isLoaded() ) {
+        PerspectiveManager.getInstance().setPerspective( startupPerspective );
+      } else {
+        EventBusUtil.EVENT_BUS.addHandler( PerspectivesLoadedEvent.TYPE, event1 -> PerspectiveManager.getInstance().setPerspective( startupPerspective ) );
+      }
+    }
+
+  }
+
+  private void fetchAdministrator( final HashMap<String, String> settings ) {
     try {
       String restUrl = GWT.getHostPageBaseURL() + "api/repo/files/canAdminister"; //$NON-NLS-1$
       RequestBuilder requestBuilder = new RequestBuilder( RequestBuilder.GET, restUrl );
@@ -397,38 +425,7 @@ public class MantleApplication implements UserSettingsLoadedEventHandler, Mantle
 
         @Override
         public void onResponseReceived( Request arg0, Response response ) {
-          boolean isAdministrator = Boolean.parseBoolean( response.getText() );
-          SolutionBrowserPanel.getInstance().setAdministrator( isAdministrator );
-
-          try {
-            String restUrl2 = MantleUtils.getSchedulerPluginContextURL() + "api/scheduler/canSchedule"; //$NON-NLS-1$
-            RequestBuilder requestBuilder2 = new RequestBuilder( RequestBuilder.GET, restUrl2 );
-            requestBuilder2.setHeader( "accept", "application/json" ); //$NON-NLS-1$ //$NON-NLS-2$
-            requestBuilder2.setHeader( "If-Modified-Since", "01 Jan 1970 00:00:00 GMT" );
-            requestBuilder2.sendRequest( null, new RequestCallback() {
-              @Override
-              public void onError( Request arg0, Throwable arg1 ) {
-                MessageDialogBox dialogBox =
-                    new MessageDialogBox( Messages.getString( "error" ), arg1.getLocalizedMessage(), false, false, true ); //$NON-NLS-1$
-                dialogBox.center();
-              }
-
-              public void onResponseReceived( Request arg0, Response response ) {
-                boolean isScheduler = Boolean.parseBoolean( response.getText() );
-                SolutionBrowserPanel.getInstance().setScheduler( isScheduler );
-
-                if ( PerspectiveManager.getInstance().isLoaded() ) {
-                  showStartupURL( settings );
-                } else {
-                  EventBusUtil.EVENT_BUS.addHandler( PerspectivesLoadedEvent.TYPE, event -> showStartupURL( settings ) );
-                }
-              }
-            } );
-          } catch ( RequestException e ) {
-            MessageDialogBox dialogBox =
-                new MessageDialogBox( Messages.getString( "error" ), e.getLocalizedMessage(), false, false, true ); //$NON-NLS-1$
-            dialogBox.center();
-          }
+          onAdministratorLoaded( Boolean.parseBoolean( response.getText() ), settings );
         }
       } );
     } catch ( RequestException e ) {
@@ -436,15 +433,40 @@ public class MantleApplication implements UserSettingsLoadedEventHandler, Mantle
           new MessageDialogBox( Messages.getString( "error" ), e.getLocalizedMessage(), false, false, true ); //$NON-NLS-1$
       dialogBox.center();
     }
+  }
 
-    if ( !StringUtils.isEmpty( startupPerspective ) ) {
-      if ( PerspectiveManager.getInstance().isLoaded() ) {
-        PerspectiveManager.getInstance().setPerspective( startupPerspective );
-      } else {
-        EventBusUtil.EVENT_BUS.addHandler( PerspectivesLoadedEvent.TYPE, event1 -> PerspectiveManager.getInstance().setPerspective( startupPerspective ) );
-      }
-    }
+  private void onAdministratorLoaded( boolean isAdministrator, final HashMap<String, String> settings ) {
+    SolutionBrowserPanel.getInstance().setAdministrator( isAdministrator );
+
+    try {
+      String restUrl2 = MantleUtils.getSchedulerPluginContextURL() + "api/scheduler/canSchedule"; //$NON-NLS-1$
+      RequestBuilder requestBuilder2 = new RequestBuilder( RequestBuilder.GET, restUrl2 );
+      requestBuilder2.setHeader( "accept", "application/json" ); //$NON-NLS-1$ //$NON-NLS-2$
+      requestBuilder2.setHeader( "If-Modified-Since", "01 Jan 1970 00:00:00 GMT" );
+      requestBuilder2.sendRequest( null, new RequestCallback() {
+        @Override
+        public void onError( Request arg0, Throwable arg1 ) {
+          MessageDialogBox dialogBox =
+              new MessageDialogBox( Messages.getString( "error" ), arg1.getLocalizedMessage(), false, false, true ); //$NON-NLS-1$
+          dialogBox.center();
+        }
+
+        public void onResponseReceived( Request arg0, Response response ) {
+          boolean isScheduler = Boolean.parseBoolean( response.getText() );
+          SolutionBrowserPanel.getInstance().setScheduler( isScheduler );
 
+          if ( PerspectiveManager.getInstance().isLoaded() ) {
+            showStartupURL( settings );
+          } else {
+            EventBusUtil.EVENT_BUS.addHandler( PerspectivesLoadedEvent.TYPE, event -> showStartupURL( settings ) );
+          }
+        }
+      } );
+    } catch ( RequestException e ) {
+      MessageDialogBox dialogBox =
+          new MessageDialogBox( Messages.getString( "error" ), e.getLocalizedMessage(), false, false, true ); //$NON-NLS-1$
+      dialogBox.center();
+    }
   }
 
   private void showStartupURL( HashMap<String, String> settings ) {
@@ -20,6 +20,7 @@ import com.google.gwt.http.client.RequestCallback;
 import com.google.gwt.http.client.RequestException;
 import com.google.gwt.http.client.Response;
 import com.google.gwt.user.client.Window;
+import com.google.gwt.user.client.rpc.AsyncCallback;
 import com.google.gwt.user.client.ui.HTML;
 import com.google.gwt.user.client.ui.Label;
 import com.google.gwt.user.client.ui.VerticalPanel;
@@ -27,6 +28,8 @@ import org.pentaho.gwt.widgets.client.dialogs.PromptDialogBox;
 import org.pentaho.gwt.widgets.client.utils.string.StringUtils;
 import org.pentaho.mantle.client.MantleApplication;
 import org.pentaho.mantle.client.messages.Messages;
+import org.pentaho.mantle.client.usersettings.BootstrapManager;
+import org.pentaho.mantle.client.usersettings.JsBootstrap;
 
 import java.util.Date;
 
@@ -74,24 +77,41 @@ public class AboutCommand extends AbstractCommand {
       setVersionText( MantleApplication.mantleRevisionOverride );
       retrieveLicenseFileText();
     } else {
-      final String url = GWT.getHostPageBaseURL() + "api/version/show"; //$NON-NLS-1$
-      RequestBuilder requestBuilder = new RequestBuilder( RequestBuilder.GET, url );
-      requestBuilder.setHeader( "If-Modified-Since", "01 Jan 1970 00:00:00 GMT" );
-      requestBuilder.setHeader( "accept", "text/plain" );
-      try {
-        requestBuilder.sendRequest( null, new RequestCallback() {
-
-          public void onError( Request request, Throwable exception ) {
-          }
-
-          public void onResponseReceived( Request request, Response response ) {
-            setVersionText( response.getText() );
+      BootstrapManager.getInstance().getBootstrap( new AsyncCallback<JsBootstrap>() {
+        public void onSuccess( JsBootstrap bootstrap ) {
+          if ( bootstrap != null && !StringUtils.isEmpty( bootstrap.getVersion() ) ) {
+            setVersionText( bootstrap.getVersion() );
             retrieveLicenseFileText();
+          } else {
+            fetchVersionValue();
           }
-        } );
-      } catch ( RequestException e ) {
-        Window.alert( e.getMessage() );
-      }
+        }
+
+        public void onFailure( Throwable caught ) {
+          fetchVersionValue();
+        }
+      } );
+    }
+  }
+
+  private void fetchVersionValue() {
+    final String url = GWT.getHostPageBaseURL() + "api/version/show"; //$NON-NLS-1$
+    RequestBuilder requestBuilder = new RequestBuilder( RequestBuilder.GET, url );
+    requestBuilder.setHeader( "If-Modified-Since", "01 Jan 1970 00:00:00 GMT" );
+    requestBuilder.setHeader( "accept", "text/plain" );
+    try {
+      requestBuilder.sendRequest( null, new RequestCallback() {
+
+        public void onError( Request request, Throwable exception ) {
+        }
+
+        public void onResponseReceived( Request request, Response response ) {
+          setVersionText( response.getText() );
+          retrieveLicenseFileText();
+        }
+      } );
+    } catch ( RequestException e ) {
+      Window.alert( e.getMessage() );
     }
   }
 
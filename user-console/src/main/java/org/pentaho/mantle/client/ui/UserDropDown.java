@@ -19,11 +19,14 @@ import com.google.gwt.http.client.RequestBuilder;
 import com.google.gwt.http.client.RequestCallback;
 import com.google.gwt.http.client.RequestException;
 import com.google.gwt.http.client.Response;
+import com.google.gwt.user.client.rpc.AsyncCallback;
 import com.google.gwt.user.client.ui.MenuBar;
 import com.google.gwt.user.client.ui.MenuItem;
 import org.pentaho.mantle.client.commands.ChangePasswordCommand;
 import org.pentaho.mantle.client.commands.LogoutCommand;
 import org.pentaho.mantle.client.messages.Messages;
+import org.pentaho.mantle.client.usersettings.BootstrapManager;
+import org.pentaho.mantle.client.usersettings.JsBootstrap;
 import org.pentaho.ui.xul.gwt.tags.GwtMessageBox;
 
 //This rule is triggered when the class has more than 5 parents. in this case most of the parents are third party classes that can't be changed.
@@ -37,6 +40,26 @@ public class UserDropDown extends CustomDropDown implements RequestCallback {
     menuBar = new MenuBar( true );
     menuBar.addItem( new MenuItem( Messages.getString( "logout" ), new LogoutCommand() ) );
 
+    // the authentication provider is served by the bootstrap request when available
+    BootstrapManager.getInstance().getBootstrap( new AsyncCallback<JsBootstrap>() {
+      public void onSuccess( JsBootstrap bootstrap ) {
+        if ( bootstrap != null && bootstrap.getAuthenticationType() != null ) {
+          setAuthenticationType( bootstrap.getAuthenticationType() );
+        } else {
+          fetchAuthenticationProvider();
+        }
+      }
+
+      public void onFailure( Throwable caught ) {
+        fetchAuthenticationProvider();
+      }
+    } );
+    menuBar.addStyleName( "puc-logout-option" );
+    setMenuBar( menuBar );
+    setupNativeHooks( this );
+  }
+
+  private void fetchAuthenticationProvider() {
     final String url = GWT.getHostPageBaseURL() + "api/system/authentication-provider";
     RequestBuilder executableTypesRequestBuilder = new RequestBuilder( RequestBuilder.GET, url );
     executableTypesRequestBuilder.setHeader( "If-Modified-Since", "01 Jan 1970 00:00:00 GMT" );
@@ -46,9 +69,12 @@ public class UserDropDown extends CustomDropDown implements RequestCallback {
     } catch ( RequestException e ) {
       showXulErrorMessage( "Error setting password reset option", e.getMessage() );
     }
-    menuBar.addStyleName( "puc-logout-option" );
-    setMenuBar( menuBar );
-    setupNativeHooks( this );
+  }
+
+  private void setAuthenticationType( String authenticationType ) {
+    if ( "jackrabbit".equals( authenticationType ) || "super".equals( authenticationType ) ) {
+      menuBar.addItem( new MenuItem( Messages.getString( "changePassword" ), new ChangePasswordCommand() ) );
+    }
   }
 
   public void onError( Request request, Throwable exception ) {
@@ -76,7 +76,9 @@ import org.pentaho.mantle.client.ui.BurgerMenuBar;
 import org.pentaho.mantle.client.ui.BurgerMenuPopup;
 import org.pentaho.mantle.client.ui.PerspectiveManager;
 import org.pentaho.mantle.client.ui.UserDropDown;
+import org.pentaho.mantle.client.usersettings.BootstrapManager;
 import org.pentaho.mantle.client.usersettings.IMantleUserSettingsConstants;
+import org.pentaho.mantle.client.usersettings.JsBootstrap;
 import org.pentaho.mantle.client.usersettings.JsSetting;
 import org.pentaho.mantle.client.usersettings.UserSettingsManager;
 import org.pentaho.ui.xul.XulComponent;
@@ -259,7 +261,60 @@ public class MantleController extends AbstractXulEventHandler {
 
     } );
 
-    // install themes
+    // install themes; the bootstrap request also tells whether the user can administer
+    BootstrapManager.getInstance().getBootstrap( new AsyncCallback<JsBootstrap>() {
+
+      public void onSuccess( JsBootstrap bootstrap ) {
+        if ( bootstrap == null || bootstrap.getActiveTheme() == null || bootstrap.getThemes() == null
+            || !bootstrap.hasCanAdminister() ) {
+          fetchThemes();
+          return;
+        }
+        setAdministrator( bootstrap.canAdminister() );
+        installThemes( bootstrap.getActiveTheme(), bootstrap.getThemes() );
+      }
+
+      public void onFailure( Throwable caught ) {
+        fetchThemes();
+      }
+
+    } );
+  }
+
+  private void setAdministrator( boolean administrator ) {
+    toolsMenu.setVisible( administrator );
+    showHiddenFilesMenuItem.setVisible( administrator );
+  }
+
+  private void installThemes( String activeTheme, JsArray<JsTheme> themes ) {
+    for ( int i = 0; i < themes.length(); i++ ) {
+      JsTheme theme = themes.get( i );
+      PentahoMenuItem themeMenuItem =
+          new PentahoMenuItem( theme.getName(), new SwitchThemeCommand( theme.getId() ) );
+      themeMenuItem.getElement().setId( theme.getId() + "_menu_item" ); //$NON-NLS-1$
+      themeMenuItem.setUseCheckUI( true );
+      themeMenuItem.setChecked( theme.getId().equals( activeTheme ) );
+      ( (MenuBar) themesMenu.getManagedObject() ).addItem( themeMenuItem );
+    }
+
+    bf.createBinding( model, "saveEnabled", saveMenuItem, "!disabled" ); //$NON-NLS-1$ //$NON-NLS-2$
+    bf.createBinding( model, "saveAsEnabled", saveAsMenuItem, "!disabled" ); //$NON-NLS-1$ //$NON-NLS-2$
+
+    if ( PerspectiveManager.getInstance().isLoaded() ) {
+      executeAdminContent();
+    } else {
+      EventBusUtil.EVENT_BUS.addHandler( PerspectivesLoadedEvent.TYPE,
+          new PerspectivesLoadedEventHandler() {
+            public void onPerspectivesLoaded( PerspectivesLoadedEvent event ) {
+              executeAdminContent();
+            }
+          } );
+    }
+
+    setupNativeHooks( this );
+  }
+
+  private void fetchThemes() {
     RequestBuilder getActiveThemeRequestBuilder =
         new RequestBuilder( RequestBuilder.GET, GWT.getHostPageBaseURL() + "api/theme/active" ); //$NON-NLS-1$
     try {
@@ -294,8 +349,7 @@ public class MantleController extends AbstractXulEventHandler {
                     }
 
                     public void onResponseReceived( Request request, Response response ) {
-                      toolsMenu.setVisible( "true".equalsIgnoreCase( response.getText() ) ); //$NON-NLS-1$
-                      showHiddenFilesMenuItem.setVisible( "true".equalsIgnoreCase( response.getText() ) ); //$NON-NLS-1$
+                      setAdministrator( "true".equalsIgnoreCase( response.getText() ) ); //$NON-NLS-1$
                     }
 
                   } );
@@ -303,33 +357,7 @@ public class MantleController extends AbstractXulEventHandler {
                   Window.alert( e.getMessage() );
                 }
 
-                JsArray<JsTheme> themes = JsTheme.getThemes( JsonUtils.escapeJsonForEval( response.getText() ) );
-
-                for ( int i = 0; i < themes.length(); i++ ) {
-                  JsTheme theme = themes.get( i );
-                  PentahoMenuItem themeMenuItem =
-                      new PentahoMenuItem( theme.getName(), new SwitchThemeCommand( theme.getId() ) );
-                  themeMenuItem.getElement().setId( theme.getId() + "_menu_item" ); //$NON-NLS-1$
-                  themeMenuItem.setUseCheckUI( true );
-                  themeMenuItem.setChecked( theme.getId().equals( activeTheme ) );
-                  ( (MenuBar) themesMenu.getManagedObject() ).addItem( themeMenuItem );
-                }
-
-                bf.createBinding( model, "saveEnabled", saveMenuItem, "!disabled" ); //$NON-NLS-1$ //$NON-NLS-2$
-                bf.createBinding( model, "saveAsEnabled", saveAsMenuItem, "!disabled" ); //$NON-NLS-1$ //$NON-NLS-2$
-
-                if ( PerspectiveManager.getInstance().isLoaded() ) {
-                  executeAdminContent();
-                } else {
-                  EventBusUtil.EVENT_BUS.addHandler( PerspectivesLoadedEvent.TYPE,
-                      new PerspectivesLoadedEventHandler() {
-                        public void onPerspectivesLoaded( PerspectivesLoadedEvent event ) {
-                          executeAdminContent();
-                        }
-                      } );
-                }
-
-                setupNativeHooks( MantleController.this );
+                installThemes( activeTheme, JsTheme.getThemes( JsonUtils.escapeJsonForEval( response.getText() ) ) );
               }
             } );
 
@@ -0,0 +1,107 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.mantle.client.usersettings;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.RequestException;
+import com.google.gwt.http.client.Response;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fetches the state the User Console needs on load in a single request, shared by every component that would
+ * otherwise request it separately. Callbacks receive {@code null} when the state is not available, and callers then
+ * fall back on the individual services.
+ */
+public class BootstrapManager {
+
+  private static BootstrapManager instance;
+
+  private JsBootstrap bootstrap;
+  private boolean loading = false;
+  private boolean loaded = false;
+  private List<AsyncCallback<JsBootstrap>> callbacks = new ArrayList<AsyncCallback<JsBootstrap>>();
+
+  private BootstrapManager() {
+  }
+
+  public static BootstrapManager getInstance() {
+    if ( instance == null ) {
+      instance = new BootstrapManager();
+    }
+    return instance;
+  }
+
+  /**
+   * Passes the state fetched on load to the callback, requesting it first if needed. The state is not refreshed, so it
+   * is only meant for initializing the console.
+   */
+  public void getBootstrap( final AsyncCallback<JsBootstrap> callback ) {
+    if ( loaded ) {
+      callback.onSuccess( bootstrap );
+      return;
+    }
+    callbacks.add( callback );
+    if ( loading ) {
+      return;
+    }
+    loading = true;
+
+    final String url = GWT.getHostPageBaseURL() + "api/mantle/bootstrap"; //$NON-NLS-1$
+    RequestBuilder builder = new RequestBuilder( RequestBuilder.GET, url );
+    builder.setHeader( "accept", "application/json" );
+    builder.setHeader( "If-Modified-Since", "01 Jan 1970 00:00:00 GMT" );
+
+    try {
+      builder.sendRequest( null, new RequestCallback() {
+
+        public void onError( Request request, Throwable exception ) {
+          onBootstrapLoaded( null );
+        }
+
+        public void onResponseReceived( Request request, Response response ) {
+          JsBootstrap jsBootstrap = null;
+          if ( response.getStatusCode() == Response.SC_OK ) {
+            try {
+              jsBootstrap = JsBootstrap.parseBootstrapJson( response.getText() );
+            } catch ( Throwable t ) {
+              // not available; callers use the individual services
+            }
+          }
+          onBootstrapLoaded( jsBootstrap );
+        }
+
+      } );
+    } catch ( RequestException e ) {
+      onBootstrapLoaded( null );
+    }
+  }
+
+  private void onBootstrapLoaded( JsBootstrap jsBootstrap ) {
+    bootstrap = jsBootstrap;
+    loaded = true;
+    loading = false;
+    List<AsyncCallback<JsBootstrap>> pending = callbacks;
+    callbacks = new ArrayList<AsyncCallback<JsBootstrap>>();
+    for ( AsyncCallback<JsBootstrap> callback : pending ) {
+      callback.onSuccess( bootstrap );
+    }
+  }
+
+}
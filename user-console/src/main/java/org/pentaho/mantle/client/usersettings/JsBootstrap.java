@@ -0,0 +1,51 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.mantle.client.usersettings;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import org.pentaho.mantle.client.ui.xul.JsTheme;
+
+/**
+ * The state returned by {@code api/mantle/bootstrap}. Any entry may be missing, in which case it must be requested
+ * from its own service.
+ */
+public class JsBootstrap extends JavaScriptObject {
+
+  protected JsBootstrap() {
+  }
+
+  public final native boolean hasCanAdminister() /*-{ return typeof this.canAdminister === 'boolean'; }-*/; //
+
+  public final native boolean canAdminister() /*-{ return this.canAdminister === true; }-*/; //
+
+  public final native String getAuthenticationType() /*-{ return this.authenticationType; }-*/; //
+
+  public final native String getActiveTheme() /*-{ return this.activeTheme; }-*/; //
+
+  public final native JsArray<JsTheme> getThemes() /*-{ return this.themes; }-*/; //
+
+  public final native JsArray<JsSetting> getUserSettings() /*-{ return this.userSettings; }-*/; //
+
+  public final native JsArray<JsSetting> getMantleSettings() /*-{ return this.mantleSettings; }-*/; //
+
+  public final native String getVersion() /*-{ return this.version; }-*/; //
+
+  public static final native JsBootstrap parseBootstrapJson( String json )
+  /*-{
+    if(json == null || json === '') { return null; }
+    return JSON.parse(json);
+  }-*/;
+
+}
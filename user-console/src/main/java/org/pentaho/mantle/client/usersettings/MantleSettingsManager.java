@@ -33,6 +33,7 @@ public class MantleSettingsManager {
 
   private HashMap<String, String> settings = new HashMap<String, String>();
   private boolean isAdministrator = false;
+  private boolean bootstrapped = false;
 
   private static MantleSettingsManager instance;
 
@@ -61,6 +62,47 @@ public class MantleSettingsManager {
   }
 
   private void getMantleSettings( final AsyncCallback<HashMap<String, String>> callback ) {
+    if ( bootstrapped ) {
+      fetchMantleSettings( callback );
+      return;
+    }
+    // the first load is served by the bootstrap request, shared with the rest of the console
+    BootstrapManager.getInstance().getBootstrap( new AsyncCallback<JsBootstrap>() {
+
+      public void onSuccess( JsBootstrap bootstrap ) {
+        if ( bootstrap == null || bootstrap.getMantleSettings() == null || !bootstrap.hasCanAdminister() ) {
+          fetchMantleSettings( callback );
+          return;
+        }
+        bootstrapped = true;
+        isAdministrator = bootstrap.canAdminister();
+        onSettingsLoaded( bootstrap.getMantleSettings(), callback );
+      }
+
+      public void onFailure( Throwable caught ) {
+        fetchMantleSettings( callback );
+      }
+
+    } );
+  }
+
+  private void onSettingsLoaded( final JsArray<JsSetting> jsSettings,
+                                 final AsyncCallback<HashMap<String, String>> callback ) {
+    if ( jsSettings != null ) {
+      for ( int i = 0; i < jsSettings.length(); i++ ) {
+        settings.put( jsSettings.get( i ).getName(), jsSettings.get( i ).getValue() );
+      }
+    }
+
+    settings.put( "is-administrator", "" + isAdministrator );
+    if ( callback != null ) {
+      callback.onSuccess( settings );
+    }
+    EventBusUtil.EVENT_BUS.fireEvent( new MantleSettingsLoadedEvent( settings ) );
+  }
+
+  private void fetchMantleSettings( final AsyncCallback<HashMap<String, String>> callback ) {
+    bootstrapped = true;
     final RequestCallback internalCallback = new RequestCallback() {
 
       public void onError( Request request, Throwable exception ) {
@@ -78,16 +120,7 @@ public class MantleSettingsManager {
         } catch ( Throwable t ) {
           // happens when there are no settings
         }
-
-        for ( int i = 0; i < jsSettings.length(); i++ ) {
-          settings.put( jsSettings.get( i ).getName(), jsSettings.get( i ).getValue() );
-        }
-
-        settings.put( "is-administrator", "" + isAdministrator );
-        if ( callback != null ) {
-          callback.onSuccess( settings );
-        }
-        EventBusUtil.EVENT_BUS.fireEvent( new MantleSettingsLoadedEvent( settings ) );
+        onSettingsLoaded( jsSettings, callback );
       }
     };
 
@@ -29,6 +29,7 @@ import org.pentaho.mantle.client.messages.Messages;
 public class UserSettingsManager {
 
   private JsArray<JsSetting> settings;
+  private boolean bootstrapped = false;
   private static UserSettingsManager instance;
 
   private UserSettingsManager() {
@@ -56,6 +57,35 @@ public class UserSettingsManager {
   }
 
   private void getUserSettings( final AsyncCallback<JsArray<JsSetting>> callback ) {
+    if ( bootstrapped ) {
+      fetchUserSettings( callback );
+      return;
+    }
+    // the first load is served by the bootstrap request, shared with the rest of the console
+    BootstrapManager.getInstance().getBootstrap( new AsyncCallback<JsBootstrap>() {
+
+      public void onSuccess( JsBootstrap bootstrap ) {
+        if ( bootstrap == null || bootstrap.getUserSettings() == null ) {
+          fetchUserSettings( callback );
+          return;
+        }
+        bootstrapped = true;
+        settings = bootstrap.getUserSettings();
+        if ( callback != null ) {
+          callback.onSuccess( settings );
+        }
+        EventBusUtil.EVENT_BUS.fireEvent( new UserSettingsLoadedEvent( settings ) );
+      }
+
+      public void onFailure( Throwable caught ) {
+        fetchUserSettings( callback );
+      }
+
+    } );
+  }
+
+  private void fetchUserSettings( final AsyncCallback<JsArray<JsSetting>> callback ) {
+    bootstrapped = true;
     final String url = GWT.getHostPageBaseURL() + "api/user-settings/list"; //$NON-NLS-1$
     RequestBuilder builder = new RequestBuilder( RequestBuilder.GET, url );
     builder.setHeader( "accept", "application/json" );